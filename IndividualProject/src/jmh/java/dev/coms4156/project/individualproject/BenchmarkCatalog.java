@@ -0,0 +1,72 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Sets up the catalogs the benchmarks and load tests run against. Catalogs come from
+ * {@link CatalogGenerator} with a fixed seed, so every run measures the same data;
+ * departments and courses are addressed with {@link CatalogGenerator#deptCode} and
+ * {@link CatalogGenerator#courseCode}.
+ */
+final class BenchmarkCatalog {
+
+  private BenchmarkCatalog() {
+  }
+
+  /**
+   * Creates a database in a directory holding a saved, generated catalog.
+   *
+   * @param departments          The number of departments.
+   * @param coursesPerDepartment The number of courses in each department.
+   * @param directory            The directory to keep the snapshot and journal in.
+   * @return The database.
+   * @throws IOException if the catalog cannot be saved.
+   */
+  static MyFileDatabase database(int departments, int coursesPerDepartment, Path directory)
+          throws IOException {
+    MyFileDatabase database = new MyFileDatabase(1, snapshot(directory).toString());
+    GENERATOR.generateInto(database, departments, coursesPerDepartment);
+    return database;
+  }
+
+  /**
+   * Generates one department.
+   *
+   * @param courses The number of courses in the department.
+   * @return The department.
+   */
+  static Department department(int courses) {
+    return GENERATOR.generateDepartment(0, courses);
+  }
+
+  /**
+   * Gets the snapshot file used by {@link #database} in a directory.
+   *
+   * @param directory The directory.
+   * @return The path of the snapshot.
+   */
+  static Path snapshot(Path directory) {
+    return directory.resolve("catalog.bin");
+  }
+
+  /**
+   * Deletes a directory created for a benchmark and everything in it.
+   *
+   * @param directory The directory.
+   * @throws IOException if a file cannot be deleted.
+   */
+  static void delete(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  private static final CatalogGenerator GENERATOR =
+          new CatalogGenerator(IndividualProjectApplication.DEFAULT_GENERATOR_SEED);
+}
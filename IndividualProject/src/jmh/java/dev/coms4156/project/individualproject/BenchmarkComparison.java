@@ -0,0 +1,110 @@
+package dev.coms4156.project.individualproject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files, such as those written by the {@code benchmarks} profile on
+ * two commits, and prints the change in each benchmark's score. A benchmark has regressed
+ * when its score got worse by more than the threshold and by more than the two error margins
+ * combined. The exit status is 1 if any benchmark regressed, so the comparison can fail a
+ * build.
+ *
+ * <p>Usage: {@code BenchmarkComparison <baseline.json> <current.json> [thresholdPercent]}
+ */
+public final class BenchmarkComparison {
+
+  private BenchmarkComparison() {
+  }
+
+  /**
+   * Prints the comparison of two result files.
+   *
+   * @param args The baseline file, the current file and optionally the threshold in percent.
+   * @throws IOException if a file cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json>"
+              + " [thresholdPercent]");
+      System.exit(2);
+    }
+    double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+    Map<String, JsonNode> baseline = readResults(new File(args[0]));
+    Map<String, JsonNode> current = readResults(new File(args[1]));
+
+    int regressions = 0;
+    System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+    for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+      JsonNode now = entry.getValue();
+      JsonNode before = baseline.get(entry.getKey());
+      if (before == null) {
+        System.out.printf("%-70s %14s %14.3f %9s%n", entry.getKey(), "-", score(now), "new");
+        continue;
+      }
+      double change = (score(now) - score(before)) / score(before) * 100;
+      // Higher is better for throughput; every other mode reports time per operation.
+      double worse = "thrpt".equals(now.path("mode").asText()) ? -change : change;
+      boolean regressed = worse > threshold
+              && Math.abs(score(now) - score(before)) > error(now) + error(before);
+      if (regressed) {
+        regressions++;
+      }
+      System.out.printf("%-70s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), score(before),
+              score(now), change, regressed ? "  REGRESSION" : "");
+    }
+    for (String name : baseline.keySet()) {
+      if (!current.containsKey(name)) {
+        System.out.printf("%-70s %14.3f %14s %9s%n", name, score(baseline.get(name)), "-",
+                "removed");
+      }
+    }
+    System.out.println(regressions + " of " + current.size() + " benchmarks regressed by more"
+            + " than " + threshold + "%.");
+    if (regressions > 0) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Reads a JMH result file, keying each result by its benchmark name and parameters.
+   *
+   * @param file The result file.
+   * @return The results in file order.
+   * @throws IOException if the file cannot be read.
+   */
+  static Map<String, JsonNode> readResults(File file) throws IOException {
+    Map<String, JsonNode> results = new LinkedHashMap<>();
+    for (JsonNode result : new ObjectMapper().readTree(file)) {
+      StringBuilder name = new StringBuilder(result.path("benchmark").asText()
+              .replace(BenchmarkComparison.class.getPackageName() + ".", ""));
+      Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+      while (params.hasNext()) {
+        Map.Entry<String, JsonNode> param = params.next();
+        name.append(name.indexOf("[") < 0 ? " [" : ", ").append(param.getKey()).append('=')
+                .append(param.getValue().asText());
+      }
+      if (name.indexOf("[") >= 0) {
+        name.append(']');
+      }
+      results.put(name.toString(), result);
+    }
+    return results;
+  }
+
+  private static double score(JsonNode result) {
+    return result.path("primaryMetric").path("score").asDouble();
+  }
+
+  private static double error(JsonNode result) {
+    double error = result.path("primaryMetric").path("scoreError").asDouble();
+    return Double.isNaN(error) ? 0 : error;
+  }
+
+  private static final double DEFAULT_THRESHOLD = 10;
+}
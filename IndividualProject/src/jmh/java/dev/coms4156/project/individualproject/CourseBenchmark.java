@@ -0,0 +1,76 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures enrolling and dropping students on one course, alone and with threads competing
+ * for the same enrollment counter. The course is reset every iteration so it never fills up
+ * or empties.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class CourseBenchmark {
+
+  /**
+   * Creates a course with room to enroll and drop students for a whole iteration.
+   */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    course = new Course("Gail Kaiser", "501 NWC", "10:10-11:25", Integer.MAX_VALUE);
+    course.setEnrolledStudentCount(Integer.MAX_VALUE / 2);
+  }
+
+  /**
+   * Enrolls and then drops a student on a course no other thread uses.
+   *
+   * @return Whether both succeeded.
+   */
+  @Benchmark
+  @Group("uncontended")
+  public boolean enrollThenDrop() {
+    return course.enrollStudent() & course.dropStudent();
+  }
+
+  /**
+   * Enrolls a student while other threads enroll and drop students on the same course.
+   *
+   * @return Whether the enrollment succeeded.
+   */
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(2)
+  public boolean enroll() {
+    return course.enrollStudent();
+  }
+
+  /**
+   * Drops a student while other threads enroll and drop students on the same course.
+   *
+   * @return Whether the drop succeeded.
+   */
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(2)
+  public boolean drop() {
+    return course.dropStudent();
+  }
+
+  private Course course;
+}
@@ -0,0 +1,61 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering a department, which backs {@code /retrieveDept} on a cache miss, and
+ * copying one, which every update of the department does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DepartmentBenchmark {
+
+  /** Number of courses in the department. */
+  @Param({"8", "100"})
+  public int courses;
+
+  /**
+   * Builds the department.
+   */
+  @Setup
+  public void setUp() {
+    department = BenchmarkCatalog.department(courses);
+  }
+
+  /**
+   * Renders the department with all of its courses.
+   *
+   * @return The rendering.
+   */
+  @Benchmark
+  public String render() {
+    return department.toString();
+  }
+
+  /**
+   * Copies the department the way an update does.
+   *
+   * @return The copy.
+   */
+  @Benchmark
+  public Department copy() {
+    return department.copy();
+  }
+
+  private Department department;
+}
@@ -0,0 +1,540 @@
+package dev.coms4156.project.individualproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application on a random port against a generated catalog and sends it requests
+ * at a fixed arrival rate, then reports the throughput and latency percentiles of each
+ * route. Requests are sent on schedule whether or not earlier ones have completed, and each
+ * latency is measured from the time the request was due rather than the time it was sent,
+ * so a server that falls behind shows it in the percentiles instead of slowing the load
+ * down.
+ *
+ * <p>Options, all given as {@code --name=value}:
+ * <ul>
+ *   <li>{@code rate}: requests per second (default 200)</li>
+ *   <li>{@code duration}, {@code warmup}: seconds measured, and seconds sent before that
+ *       and not measured (defaults 30 and 5)</li>
+ *   <li>{@code writes}: fraction of requests that are updates, spread evenly over the
+ *       update routes while reads are spread over the read routes (default 0.1)</li>
+ *   <li>{@code mix}: explicit weights such as {@code retrieveCourse:8,enrollStudentInCourse:2}
+ *       instead of {@code writes}; {@code export} is only sent when named here</li>
+ *   <li>{@code departments}, {@code courses}: catalog size, with {@code courses} per
+ *       department (defaults 200 and 20)</li>
+ *   <li>{@code seed}: seed for the choice of routes and parameters (default 42)</li>
+ *   <li>{@code max-in-flight}: requests outstanding before new ones are dropped and counted
+ *       as such (default 10000)</li>
+ *   <li>{@code json}: file to also write the results to</li>
+ * </ul>
+ * Any other argument, such as {@code --api.mode=async}, is passed to the application.
+ */
+public final class LoadTest {
+
+  private LoadTest() {
+  }
+
+  /**
+   * Runs the load test.
+   *
+   * @param args The options described above.
+   * @throws IOException if the catalog or the results cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    Map<String, String> options = new LinkedHashMap<>();
+    List<String> applicationArgs = new ArrayList<>();
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      String name = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+      if (name != null && OPTIONS.contains(name)) {
+        options.put(name, arg.substring(equals + 1));
+      } else {
+        applicationArgs.add(arg);
+      }
+    }
+    int departments = Integer.parseInt(options.getOrDefault("departments", "200"));
+    int courses = Integer.parseInt(options.getOrDefault("courses", "20"));
+    Map<Route, Double> mix = options.containsKey("mix") ? parseMix(options.get("mix"))
+            : defaultMix(Double.parseDouble(options.getOrDefault("writes", "0.1")));
+
+    Path directory = Files.createTempDirectory("loadtest");
+    BenchmarkCatalog.database(departments, courses, directory).close();
+    applicationArgs.add("--server.port=0");
+    applicationArgs.add("--catalog.file=" + BenchmarkCatalog.snapshot(directory));
+    ConfigurableApplicationContext context = SpringApplication.run(
+            IndividualProjectApplication.class, applicationArgs.toArray(new String[0]));
+    try {
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      Target target = new Target(URI.create("http://localhost:" + port), departments,
+              courses);
+      Results results = run(target, mix,
+              Double.parseDouble(options.getOrDefault("rate", "200")),
+              Long.parseLong(options.getOrDefault("warmup", "5")),
+              Long.parseLong(options.getOrDefault("duration", "30")),
+              Integer.parseInt(options.getOrDefault("max-in-flight", "10000")),
+              Long.parseLong(options.getOrDefault("seed", "42")));
+      results.print();
+      if (options.containsKey("json")) {
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(new File(options.get("json")), results.toList());
+      }
+    } finally {
+      context.close();
+      BenchmarkCatalog.delete(directory);
+    }
+  }
+
+  /**
+   * Sends requests to a server on a fixed schedule and waits for the last of them.
+   *
+   * @param target      The server and the shape of its catalog.
+   * @param mix         The weight of each route.
+   * @param rate        Requests per second.
+   * @param warmup      Seconds of requests sent before measuring.
+   * @param duration    Seconds of requests measured.
+   * @param maxInFlight Requests outstanding before new ones are dropped.
+   * @param seed        Seed for the choice of routes and parameters.
+   * @return The results of the measured requests.
+   */
+  static Results run(Target target, Map<Route, Double> mix, double rate, long warmup,
+                     long duration, int maxInFlight, long seed) {
+    Route[] routes = mix.keySet().toArray(new Route[0]);
+    double[] cumulative = new double[routes.length];
+    double total = 0;
+    for (int i = 0; i < routes.length; i++) {
+      total += mix.get(routes[i]);
+      cumulative[i] = total;
+    }
+    Results results = new Results(duration);
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    AtomicInteger inFlight = new AtomicInteger();
+    Random random = new Random(seed);
+
+    long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    long start = System.nanoTime();
+    long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+    long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+    for (long due = start; due < end; due += interval) {
+      for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+        LockSupport.parkNanos(wait);
+      }
+      double pick = random.nextDouble() * total;
+      int index = 0;
+      while (index < routes.length - 1 && cumulative[index] <= pick) {
+        index++;
+      }
+      Route route = routes[index];
+      boolean measured = due >= measureFrom;
+      if (inFlight.get() >= maxInFlight) {
+        if (measured) {
+          results.of(route).dropped.increment();
+        }
+        continue;
+      }
+      inFlight.incrementAndGet();
+      long scheduled = due;
+      client.sendAsync(route.request(target, random), HttpResponse.BodyHandlers.discarding())
+              .whenComplete((response, failure) -> {
+                if (measured) {
+                  results.of(route).record(System.nanoTime() - scheduled,
+                          failure == null ? response.statusCode() : -1);
+                }
+                inFlight.decrementAndGet();
+              });
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_SECONDS);
+    while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    if (inFlight.get() > 0) {
+      System.err.println(inFlight.get() + " requests had not completed after "
+              + DRAIN_SECONDS + " s and are not counted.");
+    }
+    return results;
+  }
+
+  /**
+   * Spreads reads evenly over the read routes and updates over the update routes, leaving
+   * out the export.
+   *
+   * @param writes The fraction of requests that are updates.
+   * @return The weight of each route.
+   */
+  static Map<Route, Double> defaultMix(double writes) {
+    if (writes < 0 || writes > 1) {
+      throw new IllegalArgumentException("writes must be between 0 and 1");
+    }
+    long readRoutes = 0;
+    long writeRoutes = 0;
+    for (Route route : Route.values()) {
+      if (route != Route.EXPORT) {
+        if (route.write) {
+          writeRoutes++;
+        } else {
+          readRoutes++;
+        }
+      }
+    }
+    Map<Route, Double> mix = new EnumMap<>(Route.class);
+    for (Route route : Route.values()) {
+      if (route != Route.EXPORT) {
+        double weight = route.write ? writes / writeRoutes : (1 - writes) / readRoutes;
+        if (weight > 0) {
+          mix.put(route, weight);
+        }
+      }
+    }
+    return mix;
+  }
+
+  /**
+   * Parses weights given as {@code route:weight} pairs separated by commas.
+   *
+   * @param spec The weights.
+   * @return The weight of each route.
+   */
+  static Map<Route, Double> parseMix(String spec) {
+    Map<Route, Double> mix = new EnumMap<>(Route.class);
+    for (String entry : spec.split(",")) {
+      String[] parts = entry.trim().split(":");
+      Route route = Route.named(parts[0]);
+      double weight = parts.length > 1 ? Double.parseDouble(parts[1]) : 1;
+      if (route == null || parts.length > 2 || weight < 0) {
+        throw new IllegalArgumentException("Bad mix entry: " + entry);
+      }
+      if (weight > 0) {
+        mix.put(route, weight);
+      }
+    }
+    if (mix.isEmpty()) {
+      throw new IllegalArgumentException("The mix names no routes");
+    }
+    return mix;
+  }
+
+  /**
+   * A server under test and the shape of the catalog it was started with.
+   *
+   * @param base        The server's base URI.
+   * @param departments The number of departments.
+   * @param courses     The number of courses in each department.
+   */
+  record Target(URI base, int departments, int courses) {
+
+    String dept(Random random) {
+      return CatalogGenerator.deptCode(random.nextInt(departments));
+    }
+
+    int course(Random random) {
+      return CatalogGenerator.courseCode(random.nextInt(courses));
+    }
+
+    String courseQuery(Random random) {
+      return "?deptCode=" + dept(random) + "&courseCode=" + course(random);
+    }
+
+    HttpRequest send(String method, String pathAndQuery) {
+      return HttpRequest.newBuilder(base.resolve(pathAndQuery))
+              .method(method, HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    HttpRequest sendJson(String method, String path, String json) {
+      return HttpRequest.newBuilder(base.resolve(path))
+              .header("Content-Type", "application/json")
+              .method(method, HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+  }
+
+  /**
+   * The routes the load test can send, each building a request for a random department or
+   * course.
+   */
+  enum Route {
+    RETRIEVE_DEPT("retrieveDept", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("GET", "/retrieveDept?deptCode=" + target.dept(random));
+      }
+    },
+    RETRIEVE_COURSE("retrieveCourse", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("GET", "/retrieveCourse" + target.courseQuery(random));
+      }
+    },
+    RETRIEVE_COURSES("retrieveCourses", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        StringBuilder json = new StringBuilder("{\"courses\":[");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+          json.append(i == 0 ? "" : ",").append("{\"deptCode\":\"").append(target.dept(random))
+                  .append("\",\"courseCode\":").append(target.course(random)).append('}');
+        }
+        return target.sendJson("POST", "/courses/batch", json.append("]}").toString());
+      }
+    },
+    IS_COURSE_FULL("isCourseFull", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("GET", "/isCourseFull" + target.courseQuery(random));
+      }
+    },
+    GET_MAJOR_COUNT("getMajorCountFromDept", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("GET", "/getMajorCountFromDept?deptCode=" + target.dept(random));
+      }
+    },
+    ID_DEPT_CHAIR("idDeptChair", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("GET", "/idDeptChair?deptCode=" + target.dept(random));
+      }
+    },
+    FIND_COURSE_LOCATION("findCourseLocation", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("GET", "/findCourseLocation" + target.courseQuery(random));
+      }
+    },
+    FIND_COURSE_INSTRUCTOR("findCourseInstructor", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("GET", "/findCourseInstructor" + target.courseQuery(random));
+      }
+    },
+    FIND_COURSE_TIME("findCourseTime", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("GET", "/findCourseTime" + target.courseQuery(random));
+      }
+    },
+    EXPORT("export", false) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("GET", "/export");
+      }
+    },
+    ADD_MAJOR("addMajorToDept", true) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("PATCH", "/addMajorToDept?deptCode=" + target.dept(random));
+      }
+    },
+    REMOVE_MAJOR("removeMajorFromDept", true) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("PATCH", "/removeMajorFromDept?deptCode=" + target.dept(random));
+      }
+    },
+    ENROLL("enrollStudentInCourse", true) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("PATCH", "/enrollStudentInCourse" + target.courseQuery(random));
+      }
+    },
+    DROP("dropStudentFromCourse", true) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("PATCH", "/dropStudentFromCourse" + target.courseQuery(random));
+      }
+    },
+    SET_ENROLLMENT("setEnrollmentCount", true) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("PATCH", "/setEnrollmentCount" + target.courseQuery(random)
+                + "&count=" + random.nextInt(100));
+      }
+    },
+    CHANGE_TIME("changeCourseTime", true) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("PATCH", "/changeCourseTime" + target.courseQuery(random)
+                + "&time=" + encode(TIMES[random.nextInt(TIMES.length)]));
+      }
+    },
+    CHANGE_TEACHER("changeCourseTeacher", true) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("PATCH", "/changeCourseTeacher" + target.courseQuery(random)
+                + "&teacher=" + encode("Instructor " + random.nextInt(1000)));
+      }
+    },
+    CHANGE_LOCATION("changeCourseLocation", true) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        return target.send("PATCH", "/changeCourseLocation" + target.courseQuery(random)
+                + "&location=" + encode(random.nextInt(1000) + " Mudd"));
+      }
+    },
+    APPLY_BATCH("applyBatch", true) {
+      @Override
+      HttpRequest request(Target target, Random random) {
+        StringBuilder json = new StringBuilder("{\"operations\":[");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+          json.append(i == 0 ? "" : ",").append("{\"op\":\"")
+                  .append(i % 2 == 0 ? "enrollStudentInCourse" : "dropStudentFromCourse")
+                  .append("\",\"deptCode\":\"").append(target.dept(random))
+                  .append("\",\"courseCode\":").append(target.course(random)).append('}');
+        }
+        return target.sendJson("PATCH", "/courses/batch", json.append("]}").toString());
+      }
+    };
+
+    Route(String routeName, boolean write) {
+      this.routeName = routeName;
+      this.write = write;
+    }
+
+    abstract HttpRequest request(Target target, Random random);
+
+    static Route named(String name) {
+      for (Route route : values()) {
+        if (route.routeName.equals(name)) {
+          return route;
+        }
+      }
+      return null;
+    }
+
+    private static String encode(String value) {
+      return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static final int BATCH_SIZE = 10;
+    private static final String[] TIMES = {"10:10-11:25", "11:40-12:55", "2:40-3:55",
+        "4:10-5:25"};
+
+    final String routeName;
+    final boolean write;
+  }
+
+  /**
+   * The outcome of the measured requests to each route.
+   */
+  static final class Results {
+
+    Results(long durationSeconds) {
+      this.durationSeconds = durationSeconds;
+    }
+
+    RouteResult of(Route route) {
+      return routes.computeIfAbsent(route, r -> new RouteResult());
+    }
+
+    /**
+     * Prints a table of the results, latencies in milliseconds.
+     */
+    void print() {
+      System.out.printf("%-22s %9s %9s %7s %7s %7s %9s %9s %9s %9s%n", "Route", "Requests",
+              "Req/s", "4xx", "Errors", "Dropped", "p50", "p99", "p99.9", "Max");
+      for (Map<String, Object> row : toList()) {
+        System.out.printf(Locale.ROOT, "%-22s %9d %9.1f %7d %7d %7d %9.2f %9.2f %9.2f %9.2f%n",
+                row.get("route"), row.get("requests"), row.get("throughput"),
+                row.get("rejected"), row.get("errors"), row.get("dropped"), row.get("p50Ms"),
+                row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"));
+      }
+    }
+
+    /**
+     * Lists the results of each route followed by their total, in a form that can be
+     * written as JSON.
+     *
+     * @return One map per route and one for all of them.
+     */
+    List<Map<String, Object>> toList() {
+      List<Map<String, Object>> rows = new ArrayList<>();
+      RouteResult all = new RouteResult();
+      synchronized (routes) {
+        for (Map.Entry<Route, RouteResult> entry : routes.entrySet()) {
+          rows.add(entry.getValue().toMap(entry.getKey().routeName, durationSeconds));
+          all.add(entry.getValue());
+        }
+      }
+      rows.add(all.toMap("all", durationSeconds));
+      return rows;
+    }
+
+    private final long durationSeconds;
+    private final Map<Route, RouteResult> routes =
+            Collections.synchronizedMap(new EnumMap<>(Route.class));
+  }
+
+  /**
+   * Latencies and response counts of one route.
+   */
+  static final class RouteResult {
+
+    void record(long latencyNanos, int status) {
+      latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos),
+              MAX_LATENCY_MICROS));
+      if (status < 0 || status >= 500) {
+        errors.increment();
+      } else if (status >= 400) {
+        rejected.increment();
+      }
+    }
+
+    void add(RouteResult other) {
+      latencies.add(other.latencies);
+      rejected.add(other.rejected.sum());
+      errors.add(other.errors.sum());
+      dropped.add(other.dropped.sum());
+    }
+
+    Map<String, Object> toMap(String name, long durationSeconds) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("route", name);
+      row.put("requests", latencies.getTotalCount());
+      row.put("throughput", (double) latencies.getTotalCount() / durationSeconds);
+      row.put("rejected", rejected.sum());
+      row.put("errors", errors.sum());
+      row.put("dropped", dropped.sum());
+      row.put("p50Ms", latencies.getValueAtPercentile(50) / 1000.0);
+      row.put("p99Ms", latencies.getValueAtPercentile(99) / 1000.0);
+      row.put("p999Ms", latencies.getValueAtPercentile(99.9) / 1000.0);
+      row.put("maxMs", latencies.getMaxValue() / 1000.0);
+      return row;
+    }
+
+    private final ConcurrentHistogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS,
+            3);
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+  }
+
+  private static final List<String> OPTIONS = List.of("rate", "duration", "warmup", "writes",
+          "mix", "departments", "courses", "seed", "max-in-flight", "json");
+
+  /** Latencies above this many microseconds are recorded as this. */
+  private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+  private static final long DRAIN_SECONDS = 30;
+}
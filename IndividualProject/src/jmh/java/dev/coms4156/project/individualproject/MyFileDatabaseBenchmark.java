@@ -0,0 +1,101 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading the published catalog and saving and loading snapshots, for catalogs of
+ * 1,000, 100,000 and 1,000,000 courses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MyFileDatabaseBenchmark {
+
+  /** Number of departments in the catalog. */
+  @Param({"50", "5000", "50000"})
+  public int departments;
+
+  /**
+   * Creates and saves the catalog.
+   *
+   * @throws IOException if the directory cannot be created or the catalog saved.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("benchmark");
+    database = BenchmarkCatalog.database(departments, COURSES_PER_DEPARTMENT, directory);
+  }
+
+  /**
+   * Closes the database and deletes its files.
+   *
+   * @throws IOException if the files cannot be deleted.
+   */
+  @TearDown
+  public void tearDown() throws IOException {
+    database.close();
+    BenchmarkCatalog.delete(directory);
+  }
+
+  /**
+   * Gets the published catalog and looks up one course in it, which is what every read
+   * route does.
+   *
+   * @return The course.
+   */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Course getDepartmentMapping() {
+    Map<String, Department> mapping = database.getDepartmentMapping();
+    return mapping.get(CatalogGenerator.deptCode(departments / 2))
+            .getCourse(CatalogGenerator.courseCode(0));
+  }
+
+  /**
+   * Writes the whole catalog to a new snapshot.
+   */
+  @Benchmark
+  public void save() {
+    database.saveContentsToFile();
+  }
+
+  /**
+   * Opens the snapshot and decodes every department in it.
+   *
+   * @param blackhole Consumes the departments so they are not optimized away.
+   */
+  @Benchmark
+  public void load(Blackhole blackhole) {
+    MyFileDatabase loaded = new MyFileDatabase(0,
+            BenchmarkCatalog.snapshot(directory).toString());
+    for (Department department : loaded.getDepartmentMapping().values()) {
+      blackhole.consume(department);
+    }
+    loaded.close();
+  }
+
+  private static final int COURSES_PER_DEPARTMENT = 20;
+
+  private Path directory;
+  private MyFileDatabase database;
+}
@@ -0,0 +1,190 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Measures each {@link RouteController} handler called directly, without HTTP or JSON
+ * encoding, against a saved catalog of {@value #DEPARTMENTS} departments. Updates alternate
+ * between two values, or are paired with the update that undoes them, so that every call
+ * succeeds and is journaled however long the benchmark runs. Renderings of the department
+ * and course read here are cached after the first call, as they would be in production.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteControllerBenchmark {
+
+  /**
+   * Creates the database and installs it for the controller.
+   *
+   * @throws IOException if the directory cannot be created or the catalog saved.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("benchmark");
+    database = BenchmarkCatalog.database(DEPARTMENTS, COURSES_PER_DEPARTMENT, directory);
+    IndividualProjectApplication.overrideDatabase(database);
+    controller = new RouteController();
+    // Leave room on both sides so the paired enrollments and drops always succeed.
+    halfFull = database.getDepartmentMapping().get(DEPT).getCourse(COURSE)
+            .getEnrollmentCapacity() / 2;
+    controller.setEnrollmentCount(DEPT, COURSE, halfFull);
+    // Give the course rooms of its own so time and location changes are never rejected as
+    // conflicts; this also builds the room schedule those changes are checked against.
+    controller.changeCourseLocation(DEPT, COURSE, LOCATIONS[0]);
+
+    List<CourseBatchRequest.CourseKey> keys = new ArrayList<>();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      keys.add(new CourseBatchRequest.CourseKey(CatalogGenerator.deptCode(i),
+              CatalogGenerator.courseCode(i % COURSES_PER_DEPARTMENT)));
+    }
+    courseBatch = new CourseBatchRequest(keys, null);
+    List<MutationBatchRequest.Operation> operations = new ArrayList<>();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      operations.add(new MutationBatchRequest.Operation(i % 2 == 0 ? "enrollStudentInCourse"
+              : "dropStudentFromCourse", DEPT, COURSE, null, null, null, null));
+    }
+    mutationBatch = new MutationBatchRequest(operations);
+  }
+
+  /**
+   * Closes the database and deletes its files.
+   *
+   * @throws IOException if the files cannot be deleted.
+   */
+  @TearDown
+  public void tearDown() throws IOException {
+    database.close();
+    BenchmarkCatalog.delete(directory);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> retrieveDepartment() {
+    return controller.retrieveDepartment(DEPT);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> retrieveCourse() {
+    return controller.retrieveCourse(DEPT, COURSE);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> retrieveCourses() {
+    return controller.retrieveCourses(courseBatch);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> isCourseFull() {
+    return controller.isCourseFull(DEPT, COURSE);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> getMajorCountFromDept() {
+    return controller.getMajorCtFromDept(DEPT);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> identifyDeptChair() {
+    return controller.identifyDeptChair(DEPT);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> findCourseLocation() {
+    return controller.findCourseLocation(DEPT, COURSE);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> findCourseInstructor() {
+    return controller.findCourseInstructor(DEPT, COURSE);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> findCourseTime() {
+    return controller.findCourseTime(DEPT, COURSE);
+  }
+
+  /**
+   * Streams the whole catalog, discarding the output.
+   *
+   * @throws IOException if the export fails.
+   */
+  @Benchmark
+  public void exportCatalog() throws IOException {
+    controller.exportCatalog(null).getBody().writeTo(OutputStream.nullOutputStream());
+  }
+
+  @Benchmark
+  public ResponseEntity<?> addThenRemoveMajor() {
+    controller.addMajorToDept(DEPT);
+    return controller.removeMajorFromDept(DEPT);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> enrollThenDropStudent() {
+    controller.enrollStudent(DEPT, COURSE);
+    return controller.dropStudent(DEPT, COURSE);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> setEnrollmentCount() {
+    return controller.setEnrollmentCount(DEPT, COURSE, halfFull + (tick++ & 1));
+  }
+
+  @Benchmark
+  public ResponseEntity<?> changeCourseTime() {
+    return controller.changeCourseTime(DEPT, COURSE, TIMES[tick++ & 1]);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> changeCourseTeacher() {
+    return controller.changeCourseTeacher(DEPT, COURSE, TEACHERS[tick++ & 1]);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> changeCourseLocation() {
+    return controller.changeCourseLocation(DEPT, COURSE, LOCATIONS[tick++ & 1]);
+  }
+
+  @Benchmark
+  public ResponseEntity<?> applyBatch() {
+    return controller.applyBatch(mutationBatch);
+  }
+
+  private static final int DEPARTMENTS = 500;
+  private static final int COURSES_PER_DEPARTMENT = 20;
+  private static final int BATCH_SIZE = 50;
+  private static final String DEPT = CatalogGenerator.deptCode(DEPARTMENTS / 2);
+  private static final int COURSE = CatalogGenerator.courseCode(0);
+  private static final String[] TIMES = {"10:10-11:25", "4:10-5:25"};
+  private static final String[] TEACHERS = {"Gail Kaiser", "Brian Borowski"};
+  private static final String[] LOCATIONS = {"Benchmark Hall 1", "Benchmark Hall 2"};
+
+  private Path directory;
+  private MyFileDatabase database;
+  private RouteController controller;
+  private CourseBatchRequest courseBatch;
+  private MutationBatchRequest mutationBatch;
+  private int halfFull;
+  private int tick;
+}
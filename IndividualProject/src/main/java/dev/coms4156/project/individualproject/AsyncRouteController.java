@@ -0,0 +1,553 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * The API routes of {@link RouteController}, with updates that do not hold a request thread
+ * while they wait for the journal. Selected at startup with {@code api.mode=async}.
+ *
+ * <p>Each single-operation update applies its change, publishes the new catalog version and
+ * returns a future that completes once the change is durable; the servlet container frees
+ * the request thread in the meantime and sends the response when the future completes, so
+ * the number of updates waiting on a group commit is not limited by the size of the thread
+ * pool. Reads never block, since they only look at the current catalog version, and like the
+ * other routes they are answered by a {@link RouteController}.
+ */
+@RestController
+@ConditionalOnProperty(name = "api.mode", havingValue = "async")
+public class AsyncRouteController {
+
+  /**
+   * Redirects to the homepage with instructions on how to use the API.
+   *
+   * @return A String containing instructions and an example URL for making API calls.
+   */
+  @GetMapping({"/", "/index", "/home"})
+  public String index() {
+    return routes.index();
+  }
+
+  /**
+   * Retrieves the details of the specified department.
+   *
+   * @param deptCode A {@code String} representing the department code to retrieve.
+   * @return A {@code ResponseEntity} containing the department details or an error message.
+   */
+  @GetMapping(value = "/retrieveDept", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> retrieveDepartment(@RequestParam("deptCode") String deptCode) {
+    return routes.retrieveDepartment(deptCode);
+  }
+
+  /**
+   * Retrieves the details of the specified course within a department.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code to retrieve.
+   * @return A {@code ResponseEntity} containing the course details or an error message.
+   */
+  @GetMapping(value = "/retrieveCourse", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> retrieveCourse(@RequestParam("deptCode") String deptCode,
+                                          @RequestParam("courseCode") int courseCode) {
+    return routes.retrieveCourse(deptCode, courseCode);
+  }
+
+  /**
+   * Checks if the specified course has reached its enrollment capacity.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @return A {@code ResponseEntity} indicating whether the course is full or not.
+   */
+  @GetMapping(value = "/isCourseFull", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> isCourseFull(@RequestParam("deptCode") String deptCode,
+                                        @RequestParam("courseCode") int courseCode) {
+    return routes.isCourseFull(deptCode, courseCode);
+  }
+
+  /**
+   * Retrieves the number of majors in the specified department.
+   *
+   * @param deptCode A {@code String} representing the department code.
+   * @return A {@code ResponseEntity} containing the number of majors or an error message.
+   */
+  @GetMapping(value = "/getMajorCountFromDept", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getMajorCtFromDept(@RequestParam("deptCode") String deptCode) {
+    return routes.getMajorCtFromDept(deptCode);
+  }
+
+  /**
+   * Retrieves the name of the department chair for the specified department.
+   *
+   * @param deptCode A {@code String} representing the department code.
+   * @return A {@code ResponseEntity} containing the name of the department chair or an error
+   *         message.
+   */
+  @GetMapping(value = "/idDeptChair", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> identifyDeptChair(@RequestParam("deptCode") String deptCode) {
+    return routes.identifyDeptChair(deptCode);
+  }
+
+  /**
+   * Retrieves the location of the specified course.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @return A {@code ResponseEntity} containing the course location or an error message.
+   */
+  @GetMapping(value = "/findCourseLocation", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> findCourseLocation(@RequestParam("deptCode") String deptCode,
+                                              @RequestParam("courseCode") int courseCode) {
+    return routes.findCourseLocation(deptCode, courseCode);
+  }
+
+  /**
+   * Retrieves the instructor of the specified course.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @return A {@code ResponseEntity} containing the course instructor or an error message.
+   */
+  @GetMapping(value = "/findCourseInstructor", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> findCourseInstructor(@RequestParam("deptCode") String deptCode,
+                                                @RequestParam("courseCode") int courseCode) {
+    return routes.findCourseInstructor(deptCode, courseCode);
+  }
+
+  /**
+   * Retrieves the time slot of the specified course.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @return A {@code ResponseEntity} containing the course time slot or an error message.
+   */
+  @GetMapping(value = "/findCourseTime", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> findCourseTime(@RequestParam("deptCode") String deptCode,
+                                          @RequestParam("courseCode") int courseCode) {
+    return routes.findCourseTime(deptCode, courseCode);
+  }
+
+  /**
+   * Looks up many courses at once (see {@link RouteController#retrieveCourses}).
+   *
+   * @param request A {@code CourseBatchRequest} listing the courses and fields to return.
+   * @return A {@code ResponseEntity} containing one result per requested course, or an error
+   *         message.
+   */
+  @PostMapping(value = "/courses/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> retrieveCourses(@RequestBody CourseBatchRequest request) {
+    return routes.retrieveCourses(request);
+  }
+
+  /**
+   * Finds every course taught by an instructor, across all departments.
+   *
+   * @param instructor The instructor's name, matched ignoring case.
+   * @param limit      The maximum number of courses to return.
+   * @return A {@code ResponseEntity} containing the matching courses or an error message.
+   */
+  @GetMapping(value = "/coursesByInstructor", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> coursesByInstructor(
+          @RequestParam("instructor") String instructor,
+          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return routes.coursesByInstructor(instructor, limit);
+  }
+
+  /**
+   * Finds every course held in a location, across all departments.
+   *
+   * @param location The location, matched ignoring case.
+   * @param limit    The maximum number of courses to return.
+   * @return A {@code ResponseEntity} containing the matching courses or an error message.
+   */
+  @GetMapping(value = "/coursesByLocation", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> coursesByLocation(
+          @RequestParam("location") String location,
+          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return routes.coursesByLocation(location, limit);
+  }
+
+  /**
+   * Finds every course held in a time slot, across all departments.
+   *
+   * @param time  The time slot.
+   * @param limit The maximum number of courses to return.
+   * @return A {@code ResponseEntity} containing the matching courses or an error message.
+   */
+  @GetMapping(value = "/coursesByTime", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> coursesByTime(
+          @RequestParam("time") String time,
+          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return routes.coursesByTime(time, limit);
+  }
+
+  /**
+   * Suggests instructors and locations for what a user has typed (see
+   * {@link RouteController#search}).
+   *
+   * @param query The text typed so far.
+   * @param field {@code instructor} or {@code location}, or null to search both.
+   * @param limit The maximum number of values to suggest per field; 10 if not given.
+   * @return A {@code ResponseEntity} containing the suggestions, or an error message.
+   */
+  @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> search(
+          @RequestParam("q") String query,
+          @RequestParam(value = "field", required = false) String field,
+          @RequestParam(value = "limit", defaultValue = "10") int limit) {
+    return routes.search(query, field, limit);
+  }
+
+  /**
+   * Lists courses held in the same room at overlapping times (see
+   * {@link RouteController#conflicts}).
+   *
+   * @param limit The maximum number of conflicts to list; 1000 if not given.
+   * @return A {@code ResponseEntity} containing the conflicts, or an error message.
+   */
+  @GetMapping(value = "/conflicts", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> conflicts(
+          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return routes.conflicts(limit);
+  }
+
+  /**
+   * Adds a student to the specified department.
+   *
+   * @param deptCode A {@code String} representing the department code.
+   * @return A future of a {@code ResponseEntity} containing a success message or an error
+   *         message.
+   */
+  @PatchMapping(value = "/addMajorToDept", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> addMajorToDept(
+          @RequestParam("deptCode") String deptCode) {
+    return mutate(JournalRecord.addMajor(deptCode), "Attribute was updated successfully",
+            "Department Not Found", HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Removes a student from the specified department.
+   *
+   * @param deptCode A {@code String} representing the department code.
+   * @return A future of a {@code ResponseEntity} containing a success message or an error
+   *         message.
+   */
+  @PatchMapping(value = "/removeMajorFromDept", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> removeMajorFromDept(
+          @RequestParam("deptCode") String deptCode) {
+    return mutate(JournalRecord.removeMajor(deptCode), "Attribute was updated or is at minimum",
+            "Department Not Found", HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Drops a student from the specified course.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @return A future of a {@code ResponseEntity} containing a success message or an error
+   *         message.
+   */
+  @PatchMapping(value = "/dropStudentFromCourse", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> dropStudent(
+          @RequestParam("deptCode") String deptCode,
+          @RequestParam("courseCode") int courseCode) {
+    return mutateCourse(JournalRecord.dropStudent(deptCode, courseCode),
+            "Student has been dropped.", "Student has not been dropped.");
+  }
+
+  /**
+   * Enrolls a student in the specified course if it still has room.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @return A future of a {@code ResponseEntity} containing a success message or an error
+   *         message.
+   */
+  @PatchMapping(value = "/enrollStudentInCourse", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> enrollStudent(
+          @RequestParam("deptCode") String deptCode,
+          @RequestParam("courseCode") int courseCode) {
+    return mutateCourse(JournalRecord.enrollStudent(deptCode, courseCode),
+            "Student has been enrolled.", "Student has not been enrolled.");
+  }
+
+  /**
+   * Updates the enrollment count for the specified course.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @param count      A {@code int} representing the new enrollment count.
+   * @return A future of a {@code ResponseEntity} containing a success message or an error
+   *         message.
+   */
+  @PatchMapping(value = "/setEnrollmentCount", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> setEnrollmentCount(
+          @RequestParam("deptCode") String deptCode,
+          @RequestParam("courseCode") int courseCode,
+          @RequestParam("count") int count) {
+    return mutate(JournalRecord.setEnrollmentCount(deptCode, courseCode, count),
+            "Attribute was updated successfully.", "Course Not Found", HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Changes the time of the specified course.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @param time       A {@code String} representing the new time for the course.
+   * @return A future of a {@code ResponseEntity} containing a success message or an error
+   *         message.
+   */
+  @PatchMapping(value = "/changeCourseTime", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> changeCourseTime(
+          @RequestParam("deptCode") String deptCode,
+          @RequestParam("courseCode") int courseCode,
+          @RequestParam("time") String time) {
+    return mutate(JournalRecord.changeTime(deptCode, courseCode, time),
+            "Attribute was updated successfully.", "Course Not Found", HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Changes the instructor of the specified course.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @param teacher    A {@code String} representing the new instructor for the course.
+   * @return A future of a {@code ResponseEntity} containing a success message or an error
+   *         message.
+   */
+  @PatchMapping(value = "/changeCourseTeacher", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> changeCourseTeacher(
+          @RequestParam("deptCode") String deptCode,
+          @RequestParam("courseCode") int courseCode,
+          @RequestParam("teacher") String teacher) {
+    return mutate(JournalRecord.changeTeacher(deptCode, courseCode, teacher),
+            "Attribute was updated successfully.", "Course Not Found", HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Changes the location of the specified course.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @param location   A {@code String} representing the new location for the course.
+   * @return A future of a {@code ResponseEntity} containing a success message or an error
+   *         message.
+   */
+  @PatchMapping(value = "/changeCourseLocation", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> changeCourseLocation(
+          @RequestParam("deptCode") String deptCode,
+          @RequestParam("courseCode") int courseCode,
+          @RequestParam("location") String location) {
+    return mutate(JournalRecord.changeLocation(deptCode, courseCode, location),
+            "Attribute was updated successfully.", "Course Not Found", HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Applies a list of updates all together or not at all (see
+   * {@link RouteController#applyBatch}). A batch is a single request however many operations
+   * it holds, so it waits for the journal on the request thread.
+   *
+   * @param request A {@code MutationBatchRequest} listing the operations.
+   * @return A {@code ResponseEntity} containing a success message, or an error message
+   *         naming the first operation that could not be applied.
+   */
+  @PatchMapping(value = "/courses/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> applyBatch(@RequestBody MutationBatchRequest request) {
+    return routes.applyBatch(request);
+  }
+
+  /**
+   * Streams every department and course as newline-delimited JSON.
+   *
+   * @param acceptEncoding The {@code Accept-Encoding} header, if any.
+   * @return A {@code ResponseEntity} whose body writes the export.
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportCatalog(
+          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+          String acceptEncoding) {
+    return routes.exportCatalog(acceptEncoding);
+  }
+
+  /**
+   * Loads a catalog from a CSV or NDJSON file sent as the request body.
+   *
+   * @param format      {@code csv} or {@code ndjson}; taken from the content type if absent.
+   * @param mode        {@code replace} or {@code merge}.
+   * @param contentType The {@code Content-Type} header, if any.
+   * @param body        The catalog file.
+   * @return A {@code ResponseEntity} containing counts, throughput and any invalid rows, or
+   *         an error message.
+   */
+  @PostMapping(value = "/ingest", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> ingestCatalog(
+          @RequestParam(value = "format", required = false) String format,
+          @RequestParam(value = "mode", defaultValue = "replace") String mode,
+          @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+          InputStream body) {
+    return routes.ingestCatalog(format, mode, contentType, body);
+  }
+
+  /**
+   * Reports the progress of the running ingest, or of the last one if none is running.
+   *
+   * @return A {@code ResponseEntity} containing the ingest's progress or an error message.
+   */
+  @GetMapping(value = "/ingestStatus", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> ingestStatus() {
+    return routes.ingestStatus();
+  }
+
+  /**
+   * Reports group commit batch sizes and flush latencies for the mutation journal.
+   *
+   * @return A {@code ResponseEntity} containing the journal statistics or an error message.
+   */
+  @GetMapping(value = "/journalStats", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> journalStats() {
+    return routes.journalStats();
+  }
+
+  /**
+   * Reports contention and wait and hold times for each department lock stripe.
+   *
+   * @return A {@code ResponseEntity} containing the lock statistics or an error message.
+   */
+  @GetMapping(value = "/lockStats", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> lockStats() {
+    return routes.lockStats();
+  }
+
+  /**
+   * Reports hit rates and sizes of the caches of rendered departments and courses.
+   *
+   * @return A {@code ResponseEntity} containing the cache statistics or an error message.
+   */
+  @GetMapping(value = "/renderCacheStats", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> renderCacheStats() {
+    return routes.renderCacheStats();
+  }
+
+  /**
+   * Reports every application metric, including per-route request latencies.
+   *
+   * @return A {@code ResponseEntity} containing the metrics by name or an error message.
+   */
+  @GetMapping(value = "/metrics", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> metrics() {
+    return routes.metrics();
+  }
+
+  /**
+   * Starts a time-boxed Java Flight Recorder session.
+   *
+   * @param seconds How long to record for, at most five minutes.
+   * @return A {@code ResponseEntity} containing the status of the recording or an error
+   *         message.
+   */
+  @PostMapping(value = "/profile", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> startProfile(
+          @RequestParam(value = "seconds", defaultValue = "30") int seconds) {
+    return routes.startProfile(seconds);
+  }
+
+  /**
+   * Stops the running recording before its time is up.
+   *
+   * @return A {@code ResponseEntity} containing the status of the recording or an error
+   *         message.
+   */
+  @PostMapping(value = "/profile/stop", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> stopProfile() {
+    return routes.stopProfile();
+  }
+
+  /**
+   * Reports whether the last recording is still running, and its length and size.
+   *
+   * @return A {@code ResponseEntity} containing the status of the recording or an error
+   *         message.
+   */
+  @GetMapping(value = "/profile", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> profileStatus() {
+    return routes.profileStatus();
+  }
+
+  /**
+   * Summarizes the last finished recording.
+   *
+   * @return A {@code ResponseEntity} containing the report or an error message.
+   */
+  @GetMapping(value = "/profile/report", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> profileReport() {
+    return routes.profileReport();
+  }
+
+  /**
+   * Downloads the last finished recording.
+   *
+   * @return A {@code ResponseEntity} containing the recording file or an error message.
+   */
+  @GetMapping("/profile/recording")
+  public ResponseEntity<?> profileRecording() {
+    return routes.profileRecording();
+  }
+
+  /**
+   * Applies a mutation without waiting for it, answering with {@code applied} once it is
+   * durable, with {@code rejected} if it had no effect, or with 409 if it would put the
+   * course in a room at a time another course holds it.
+   */
+  private CompletableFuture<ResponseEntity<?>> mutate(JournalRecord record, String applied,
+                                                      String rejected,
+                                                      HttpStatus rejectedStatus) {
+    try {
+      return IndividualProjectApplication.myFileDatabase.applyMutationAsync(record)
+              .<ResponseEntity<?>>thenApply(done -> done
+                      ? new ResponseEntity<>(applied, HttpStatus.OK)
+                      : new ResponseEntity<>(rejected, rejectedStatus))
+              .exceptionally(routes::handleException);
+    } catch (ScheduleConflictException e) {
+      return CompletableFuture.completedFuture(
+              new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT));
+    } catch (Exception e) {
+      return CompletableFuture.completedFuture(routes.handleException(e));
+    }
+  }
+
+  /**
+   * Like {@link #mutate}, but first answers 404 if the course does not exist, so that a
+   * rejected mutation means the course could not take the change.
+   */
+  private CompletableFuture<ResponseEntity<?>> mutateCourse(JournalRecord record,
+                                                            String applied, String rejected) {
+    try {
+      if (RouteController.findCourse(
+              IndividualProjectApplication.myFileDatabase.getDepartmentMapping(),
+              record.getDeptCode(), record.getCourseCode()) == null) {
+        return CompletableFuture.completedFuture(
+                new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND));
+      }
+    } catch (Exception e) {
+      return CompletableFuture.completedFuture(routes.handleException(e));
+    }
+    return mutate(record, applied, rejected, HttpStatus.BAD_REQUEST);
+  }
+
+  /** Answers the routes that never wait for the journal. */
+  private final RouteController routes = new RouteController();
+}
@@ -0,0 +1,471 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes department mappings in a compact, versioned binary format.
+ *
+ * <p>A snapshot starts with the magic bytes {@code CTLG} and a one-byte format version.
+ * Every distinct string (department codes, chairs, course ids, instructors, locations and
+ * time slots) is stored once and referred to by index, and counts and numbers are stored
+ * as variable-length integers.
+ *
+ * <p>Version 2, which this codec writes, is laid out so that it can be memory-mapped and
+ * read one department at a time by {@link MappedCatalog}. The sections are written in
+ * order and located through a fixed-size trailer:
+ *
+ * <pre>
+ *   magic, version
+ *   string data:      utf8Bytes*
+ *   department data:  (deptCode, chair, majors, courseCount,
+ *                      (courseId, instructor, location, timeSlot, capacity, enrolled)*)*
+ *   string offsets:   int32 * (stringCount + 1)
+ *   department index: (int32 keyString, int64 departmentOffset)* sorted by key
+ *   trailer:          int64 lastLsn, int32 stringCount, int64 stringOffsetsPosition,
+ *                     int32 departmentCount, int64 indexPosition, int32 trailerMagic
+ * </pre>
+ *
+ * <p>Version 1 snapshots, which kept the dictionary and departments inline, can still be
+ * read.
+ */
+public final class CatalogCodec {
+
+  private CatalogCodec() {
+  }
+
+  /**
+   * The contents of a decoded snapshot.
+   */
+  public static final class LoadedSnapshot {
+
+    LoadedSnapshot(Map<String, Department> mapping, long lastLsn) {
+      this.mapping = mapping;
+      this.lastLsn = lastLsn;
+    }
+
+    /**
+     * Gets the decoded department mapping.
+     *
+     * @return The department mapping.
+     */
+    public Map<String, Department> getMapping() {
+      return mapping;
+    }
+
+    /**
+     * Gets the last journal LSN contained in the snapshot.
+     *
+     * @return The last LSN.
+     */
+    public long getLastLsn() {
+      return lastLsn;
+    }
+
+    private final Map<String, Department> mapping;
+    private final long lastLsn;
+  }
+
+  /**
+   * Checks whether the given bytes start a snapshot written by this codec.
+   *
+   * @param header The first bytes of a file; at least four are needed.
+   * @return true if the header carries the snapshot magic.
+   */
+  public static boolean hasMagic(byte[] header) {
+    return header.length >= 4 && ((header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16
+            | (header[2] & 0xFF) << 8 | (header[3] & 0xFF)) == MAGIC;
+  }
+
+  /**
+   * Gets the format version of a snapshot from its first bytes.
+   *
+   * @param header The first bytes of a file; at least five are needed.
+   * @return The format version, or -1 if the bytes do not start a snapshot.
+   */
+  public static int versionOf(byte[] header) {
+    return header.length >= 5 && hasMagic(header) ? header[4] & 0xFF : -1;
+  }
+
+  /**
+   * Writes a department mapping to a channel.
+   *
+   * @param mapping The department mapping to write.
+   * @param lastLsn The last journal LSN contained in the mapping.
+   * @param channel The channel to write to.
+   * @throws IOException if the channel cannot be written.
+   */
+  public static void write(Map<String, Department> mapping, long lastLsn,
+                           WritableByteChannel channel) throws IOException {
+    Dictionary dictionary = buildDictionary(mapping);
+    Output out = new Output(channel);
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    long[] stringOffsets = new long[dictionary.size() + 1];
+    for (int i = 0; i < dictionary.size(); i++) {
+      stringOffsets[i] = out.position();
+      out.writeBytes(dictionary.values.get(i).getBytes(StandardCharsets.UTF_8));
+    }
+    stringOffsets[dictionary.size()] = out.position();
+
+    List<String> keys = new ArrayList<>(mapping.keySet());
+    keys.sort(null);
+    long[] departmentOffsets = new long[keys.size()];
+    for (int d = 0; d < keys.size(); d++) {
+      departmentOffsets[d] = out.position();
+      Department department = mapping.get(keys.get(d));
+      out.writeVarLong(dictionary.indexOf(department.getDeptCode()));
+      out.writeVarLong(dictionary.indexOf(department.getDepartmentChair()));
+      out.writeSignedVarInt(department.getNumberOfMajors());
+      Map<String, Course> courses = department.getCourseSelection();
+      out.writeVarLong(courses.size());
+      for (Map.Entry<String, Course> courseEntry : courses.entrySet()) {
+        Course course = courseEntry.getValue();
+        out.writeVarLong(dictionary.indexOf(courseEntry.getKey()));
+        out.writeVarLong(dictionary.indexOf(course.getInstructorName()));
+        out.writeVarLong(dictionary.indexOf(course.getCourseLocation()));
+        out.writeVarLong(dictionary.indexOf(course.getCourseTimeSlot()));
+        out.writeSignedVarInt(course.getEnrollmentCapacity());
+        out.writeSignedVarInt(course.getEnrolledStudentCount());
+      }
+    }
+
+    long stringOffsetsPosition = out.position();
+    if (stringOffsetsPosition > Integer.MAX_VALUE) {
+      throw new IOException("Catalog strings exceed the 2 GB snapshot limit.");
+    }
+    for (long offset : stringOffsets) {
+      out.writeInt((int) offset);
+    }
+    for (int d = 0; d < keys.size(); d++) {
+      out.writeInt(dictionary.indexOf(keys.get(d)));
+      out.writeLong(departmentOffsets[d]);
+    }
+    out.writeLong(lastLsn);
+    out.writeInt(dictionary.size());
+    out.writeLong(stringOffsetsPosition);
+    out.writeInt(keys.size());
+    // The department index starts right after the string offsets.
+    out.writeLong(stringOffsetsPosition + (long) Integer.BYTES * stringOffsets.length);
+    out.writeInt(TRAILER_MAGIC);
+    out.flush();
+  }
+
+  /**
+   * Reads a department mapping written by {@link #write}.
+   *
+   * @param channel The channel to read from.
+   * @return The decoded snapshot.
+   * @throws IOException if the channel cannot be read or does not hold a valid snapshot.
+   */
+  public static LoadedSnapshot read(ReadableByteChannel channel) throws IOException {
+    Input in = new Input(channel);
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a catalog snapshot.");
+    }
+    int version = in.readByte();
+    if (version == VERSION) {
+      MappedCatalog catalog = new MappedCatalog(in.readRemaining(HEADER_LENGTH));
+      Map<String, Department> mapping = new HashMap<>(capacityFor(catalog.size()));
+      for (int i = 0; i < catalog.size(); i++) {
+        mapping.put(catalog.keyAt(i), catalog.materialize(i));
+      }
+      return new LoadedSnapshot(mapping, catalog.getLastLsn());
+    }
+    if (version != VERSION_INLINE) {
+      throw new IOException("Unsupported catalog snapshot version: " + version);
+    }
+    return readInline(in);
+  }
+
+  /**
+   * Reads the rest of a version 1 snapshot, whose dictionary and departments are inline.
+   */
+  private static LoadedSnapshot readInline(Input in) throws IOException {
+    long lastLsn = in.readVarLong();
+    String[] strings = new String[in.readCount() + 1];
+    for (int i = 1; i < strings.length; i++) {
+      strings[i] = new String(in.readBytes(in.readCount()), StandardCharsets.UTF_8);
+    }
+    int departmentCount = in.readCount();
+    Map<String, Department> mapping = new HashMap<>(capacityFor(departmentCount));
+    for (int d = 0; d < departmentCount; d++) {
+      String key = strings[in.readIndex(strings.length)];
+      String deptCode = strings[in.readIndex(strings.length)];
+      String chair = strings[in.readIndex(strings.length)];
+      int majors = in.readSignedVarInt();
+      int courseCount = in.readCount();
+      CourseMap courses = new CourseMap(courseCount);
+      for (int c = 0; c < courseCount; c++) {
+        String courseId = strings[in.readIndex(strings.length)];
+        String instructor = strings[in.readIndex(strings.length)];
+        String location = strings[in.readIndex(strings.length)];
+        String timeSlot = strings[in.readIndex(strings.length)];
+        Course course = new Course(instructor, location, timeSlot, in.readSignedVarInt());
+        course.setEnrolledStudentCount(in.readSignedVarInt());
+        courses.put(courseId, course);
+      }
+      mapping.put(key, new Department(deptCode, courses, chair, majors));
+    }
+    return new LoadedSnapshot(mapping, lastLsn);
+  }
+
+  private static Dictionary buildDictionary(Map<String, Department> mapping) {
+    Dictionary dictionary = new Dictionary();
+    for (Map.Entry<String, Department> entry : mapping.entrySet()) {
+      Department department = entry.getValue();
+      dictionary.add(entry.getKey());
+      dictionary.add(department.getDeptCode());
+      dictionary.add(department.getDepartmentChair());
+      for (Map.Entry<String, Course> courseEntry : department.getCourseSelection().entrySet()) {
+        Course course = courseEntry.getValue();
+        dictionary.add(courseEntry.getKey());
+        dictionary.add(course.getInstructorName());
+        dictionary.add(course.getCourseLocation());
+        dictionary.add(course.getCourseTimeSlot());
+      }
+    }
+    return dictionary;
+  }
+
+  /**
+   * The distinct strings of a mapping in first-seen order. Index 0 is reserved for
+   * {@code null}, so dictionary entries start at 1.
+   */
+  private static final class Dictionary {
+
+    void add(String value) {
+      if (value != null && !indexes.containsKey(value)) {
+        values.add(value);
+        indexes.put(value, values.size());
+      }
+    }
+
+    int indexOf(String value) {
+      return value == null ? 0 : indexes.get(value);
+    }
+
+    int size() {
+      return values.size();
+    }
+
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> indexes = new HashMap<>();
+  }
+
+  static int capacityFor(int size) {
+    return (int) Math.min(Integer.MAX_VALUE, size * 4L / 3 + 1);
+  }
+
+  /**
+   * Buffers writes to a channel and encodes variable-length integers.
+   */
+  private static final class Output {
+
+    Output(WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    void writeByte(int value) throws IOException {
+      ensure(1);
+      buffer.put((byte) value);
+    }
+
+    void writeInt(int value) throws IOException {
+      ensure(4);
+      buffer.putInt(value);
+    }
+
+    void writeLong(long value) throws IOException {
+      ensure(8);
+      buffer.putLong(value);
+    }
+
+    long position() {
+      return written + buffer.position();
+    }
+
+    void writeVarLong(long value) throws IOException {
+      ensure(10);
+      while ((value & ~0x7FL) != 0) {
+        buffer.put((byte) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      buffer.put((byte) value);
+    }
+
+    void writeSignedVarInt(int value) throws IOException {
+      writeVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    void writeBytes(byte[] bytes) throws IOException {
+      int offset = 0;
+      while (offset < bytes.length) {
+        if (!buffer.hasRemaining()) {
+          drain();
+        }
+        int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+        buffer.put(bytes, offset, chunk);
+        offset += chunk;
+      }
+    }
+
+    void flush() throws IOException {
+      drain();
+    }
+
+    private void ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        drain();
+      }
+    }
+
+    private void drain() throws IOException {
+      buffer.flip();
+      written += buffer.remaining();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long written;
+  }
+
+  /**
+   * Buffers reads from a channel and decodes variable-length integers.
+   */
+  private static final class Input {
+
+    Input(ReadableByteChannel channel) {
+      this.channel = channel;
+      buffer.limit(0);
+    }
+
+    int readByte() throws IOException {
+      require(1);
+      return buffer.get() & 0xFF;
+    }
+
+    int readInt() throws IOException {
+      require(4);
+      return buffer.getInt();
+    }
+
+    /**
+     * Reads everything left in the channel into a buffer whose positions line up with the
+     * file, leaving the first {@code consumed} bytes zeroed.
+     */
+    ByteBuffer readRemaining(int consumed) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      bytes.write(new byte[consumed]);
+      bytes.write(buffer.array(), buffer.position(), buffer.remaining());
+      buffer.clear();
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        bytes.write(buffer.array(), 0, buffer.limit());
+        buffer.clear();
+      }
+      buffer.limit(0);
+      return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    long readVarLong() throws IOException {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        require(1);
+        byte b = buffer.get();
+        result |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return result;
+        }
+      }
+      throw new IOException("Malformed variable-length integer.");
+    }
+
+    int readSignedVarInt() throws IOException {
+      int raw = (int) readVarLong();
+      return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    int readCount() throws IOException {
+      long value = readVarLong();
+      if (value < 0 || value > Integer.MAX_VALUE - 1) {
+        throw new IOException("Invalid count in catalog snapshot: " + value);
+      }
+      return (int) value;
+    }
+
+    int readIndex(int limit) throws IOException {
+      int index = readCount();
+      if (index >= limit) {
+        throw new IOException("String index out of range: " + index);
+      }
+      return index;
+    }
+
+    byte[] readBytes(int length) throws IOException {
+      byte[] bytes = new byte[length];
+      int offset = 0;
+      while (offset < length) {
+        if (!buffer.hasRemaining()) {
+          fill();
+        }
+        int chunk = Math.min(buffer.remaining(), length - offset);
+        buffer.get(bytes, offset, chunk);
+        offset += chunk;
+      }
+      return bytes;
+    }
+
+    private void require(int bytes) throws IOException {
+      while (buffer.remaining() < bytes) {
+        fill();
+      }
+    }
+
+    private void fill() throws IOException {
+      buffer.compact();
+      int read = channel.read(buffer);
+      buffer.flip();
+      if (read < 0) {
+        throw new EOFException("Unexpected end of catalog snapshot.");
+      }
+    }
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  }
+
+  /** The bytes {@code CTLG} that open every snapshot. */
+  private static final int MAGIC = 0x43544C47;
+
+  /** The format version written by this codec. */
+  private static final int VERSION = 2;
+
+  /** The original format version, whose dictionary and departments are inline. */
+  private static final int VERSION_INLINE = 1;
+
+  /** Size of the magic and version that start every snapshot. */
+  private static final int HEADER_LENGTH = 5;
+
+  /** The bytes {@code LGTC} that close every version 2 snapshot. */
+  static final int TRAILER_MAGIC = 0x4C475443;
+
+  /** Size of the fixed trailer that locates the sections of a version 2 snapshot. */
+  static final int TRAILER_LENGTH = 36;
+
+  /** Size of the read and write buffers. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+}
@@ -0,0 +1,79 @@
+package dev.coms4156.project.individualproject;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Writes the catalog as newline-delimited JSON: one line per department followed by one line
+ * per course of that department. Lines are generated straight into the output stream while
+ * the catalog is iterated, so only one department is held at a time beyond what the catalog
+ * already keeps in memory, and a lazily loaded catalog is decoded one department at a time
+ * without being cached.
+ *
+ * <p>Department lines look like
+ * {@code {"type":"department","deptCode":"COMS","chair":"Luca Carloni","majors":2700}} and
+ * course lines like {@code {"type":"course","deptCode":"COMS","courseId":"4156",
+ * "instructor":"Gail Kaiser","location":"501 NWC","time":"10:10-11:25","capacity":120,
+ * "enrolled":109}}.
+ */
+public final class CatalogExporter {
+
+  private CatalogExporter() {
+  }
+
+  /**
+   * Writes every department and course of a catalog. The stream is flushed but not closed.
+   *
+   * @param departmentMapping The catalog to write; should not change while it is written.
+   * @param out               The stream to write to.
+   * @return The number of lines written.
+   * @throws IOException if the stream cannot be written.
+   */
+  public static long writeNdjson(Map<String, Department> departmentMapping, OutputStream out)
+          throws IOException {
+    long lines = 0;
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+      generator.setRootValueSeparator(null);
+      for (Map.Entry<String, Department> entry : departmentMapping.entrySet()) {
+        Department department = entry.getValue();
+        generator.writeStartObject();
+        generator.writeStringField("type", "department");
+        generator.writeStringField("deptCode", entry.getKey());
+        generator.writeStringField("chair", department.getDepartmentChair());
+        generator.writeNumberField("majors", department.getNumberOfMajors());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        lines++;
+        for (Map.Entry<String, Course> course : department.getCourseSelection().entrySet()) {
+          writeCourse(generator, entry.getKey(), course.getKey(), course.getValue());
+          lines++;
+        }
+      }
+    }
+    return lines;
+  }
+
+  private static void writeCourse(JsonGenerator generator, String deptCode, String courseId,
+                                  Course course) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("type", "course");
+    generator.writeStringField("deptCode", deptCode);
+    generator.writeStringField("courseId", courseId);
+    generator.writeStringField("instructor", course.getInstructorName());
+    generator.writeStringField("location", course.getCourseLocation());
+    generator.writeStringField("time", course.getCourseTimeSlot());
+    generator.writeNumberField("capacity", course.getEnrollmentCapacity());
+    generator.writeNumberField("enrolled", course.getEnrolledStudentCount());
+    generator.writeEndObject();
+    generator.writeRaw('\n');
+  }
+
+  /** Shared, thread-safe factory; generators leave the target stream open when closed. */
+  private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+          .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+          .build();
+}
@@ -0,0 +1,209 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic catalogs of any size for benchmarks, load tests and capacity planning.
+ * The same seed always produces the same catalog, and each department depends only on the
+ * seed, its index and its number of courses, so department {@code i} is identical in a
+ * catalog of ten departments and one of ten thousand.
+ *
+ * <p>Departments are named after real ones ({@code COMS}, {@code ECON}, ...) and then
+ * numbered ({@code COMS1}, {@code ECON1}, ...); see {@link #deptCode}. Course codes spread
+ * over the four course levels; see {@link #courseCode}. Values follow the shape of a real
+ * catalog: introductory courses are large lectures and upper-level ones small seminars
+ * with long time blocks, most courses are nearly full and some are full, each instructor
+ * teaches a few courses, and a department mostly teaches in its own buildings.
+ */
+public class CatalogGenerator {
+
+  /**
+   * Creates a generator.
+   *
+   * @param seed The seed every generated value is derived from.
+   */
+  public CatalogGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Generates a catalog.
+   *
+   * @param departments          The number of departments.
+   * @param coursesPerDepartment The number of courses in each department.
+   * @return The catalog, keyed by department code.
+   * @throws IllegalArgumentException if either count is negative.
+   */
+  public Map<String, Department> generate(int departments, int coursesPerDepartment) {
+    if (departments < 0 || coursesPerDepartment < 0) {
+      throw new IllegalArgumentException("Counts must not be negative.");
+    }
+    Map<String, Department> mapping = new HashMap<>(departments * 4 / 3 + 1);
+    for (int i = 0; i < departments; i++) {
+      Department department = generateDepartment(i, coursesPerDepartment);
+      mapping.put(department.getDeptCode(), department);
+    }
+    return mapping;
+  }
+
+  /**
+   * Generates one department of a catalog.
+   *
+   * @param index   The index of the department.
+   * @param courses The number of courses in the department.
+   * @return The department, named {@code deptCode(index)}.
+   */
+  public Department generateDepartment(int index, int courses) {
+    Random random = new Random(seed ^ (index + 1) * GOLDEN_GAMMA);
+    String[] buildings = {pick(random, BUILDINGS), pick(random, BUILDINGS)};
+    String[] instructors = new String[Math.max(1, (courses + 1) * 2 / 5)];
+    for (int i = 0; i < instructors.length; i++) {
+      instructors[i] = name(random);
+    }
+
+    CourseMap courseMap = new CourseMap(courses);
+    for (int i = 0; i < courses; i++) {
+      int code = courseCode(i);
+      int level = code < 5000 ? code / 1000 : 1 + i % 4;
+      boolean seminar = level == 4 && random.nextInt(3) > 0;
+      int capacity = roundCapacity(seminar ? 12 + random.nextInt(19)
+              : MEDIAN_CAPACITY[level - 1] * Math.exp(random.nextGaussian() * 0.35));
+      // Squaring skews the empty fraction towards zero, so most courses are nearly full.
+      double empty = random.nextDouble();
+      int enrolled = random.nextInt(5) == 0 ? capacity
+              : (int) Math.round(capacity * (1 - 0.7 * empty * empty));
+      // A few instructors teach most courses, as in a real department.
+      double share = random.nextDouble();
+      String instructor = instructors[(int) (share * share * instructors.length)];
+      String building = random.nextInt(10) < 7 ? buildings[random.nextInt(2)]
+              : pick(random, BUILDINGS);
+      String location = room(100 * (1 + random.nextInt(7)) + random.nextInt(40), building);
+      String time = seminar ? pick(random, SEMINAR_TIMES) : pick(random, LECTURE_TIMES);
+
+      Course course = new Course(instructor, location, time, capacity);
+      course.setEnrolledStudentCount(enrolled);
+      courseMap.put(code, course);
+    }
+
+    int majors = (int) Math.min(5000, Math.max(10,
+            Math.round(Math.exp(5.5 + random.nextGaussian()))));
+    return new Department(deptCode(index), courseMap, name(random), majors);
+  }
+
+  /**
+   * Replaces the contents of a database with a generated catalog and saves it.
+   *
+   * @param database             The database to fill.
+   * @param departments          The number of departments.
+   * @param coursesPerDepartment The number of courses in each department.
+   * @throws IOException if the database cannot be saved.
+   */
+  public void generateInto(MyFileDatabase database, int departments,
+                           int coursesPerDepartment) throws IOException {
+    database.setMapping(generate(departments, coursesPerDepartment));
+    database.save();
+  }
+
+  /**
+   * Writes a generated catalog as a snapshot that {@link MyFileDatabase} can load. Any
+   * journal beside the file is deleted, since it belongs to an earlier catalog.
+   *
+   * @param file                 The snapshot file to write.
+   * @param departments          The number of departments.
+   * @param coursesPerDepartment The number of courses in each department.
+   * @throws IOException if the file cannot be written.
+   */
+  public void writeSnapshot(Path file, int departments, int coursesPerDepartment)
+          throws IOException {
+    Map<String, Department> mapping = generate(departments, coursesPerDepartment);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      CatalogCodec.write(mapping, 0, channel);
+      channel.force(true);
+    }
+    Files.deleteIfExists(file.resolveSibling(file.getFileName()
+            + MyFileDatabase.JOURNAL_SUFFIX));
+  }
+
+  /**
+   * Gets the code of a generated department.
+   *
+   * @param index The index of the department.
+   * @return The department code.
+   */
+  public static String deptCode(int index) {
+    String code = DEPT_CODES[index % DEPT_CODES.length];
+    return index < DEPT_CODES.length ? code : code + index / DEPT_CODES.length;
+  }
+
+  /**
+   * Gets the code of a generated course. The first 4000 courses of a department cycle
+   * through the levels 1000 to 4000; any further courses are numbered from 8000.
+   *
+   * @param index The index of the course within its department.
+   * @return The course code.
+   */
+  public static int courseCode(int index) {
+    return index < 4000 ? (1 + index % 4) * 1000 + index / 4 : 4000 + index;
+  }
+
+  private String name(Random random) {
+    return pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES);
+  }
+
+  private String room(int number, String building) {
+    return rooms.computeIfAbsent(number + " " + building, key -> key);
+  }
+
+  private static String pick(Random random, String[] values) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static int roundCapacity(double capacity) {
+    return capacity < 50 ? (int) Math.round(capacity)
+            : (int) Math.round(capacity / 5) * 5;
+  }
+
+  /** Multiplier that spreads consecutive department indexes across the seed space. */
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  /** Typical capacity of a course at each level, 1000 to 4000. */
+  private static final int[] MEDIAN_CAPACITY = {180, 110, 70, 45};
+
+  private static final String[] DEPT_CODES = {"COMS", "ECON", "IEOR", "CHEM", "PHYS", "ELEN",
+      "PSYC", "MATH", "BIOL", "HIST", "ENGL", "PHIL", "POLS", "SOCI", "ANTH", "ASTR", "EEEB",
+      "MECE", "CIEN", "APMA", "STAT", "FREN", "SPAN", "MUSI", "ARCH", "CLAS", "RELI", "BMEN",
+      "CHEN", "EESC"};
+
+  private static final String[] BUILDINGS = {"IAB", "HAV", "URIS", "NWC", "MUDD", "SCH", "HAM",
+      "PUP", "FAY", "MATH", "CHANDLER", "PHIL", "LEWISOHN", "DODGE", "SCHAPIRO", "KENT",
+      "LERNER", "ALTSCHUL"};
+
+  private static final String[] LECTURE_TIMES = {"8:40-9:55", "10:10-11:25", "10:10-11:25",
+      "11:40-12:55", "11:40-12:55", "1:10-2:25", "2:40-3:55", "2:40-3:55", "4:10-5:25",
+      "5:40-6:55", "7:10-8:25"};
+
+  private static final String[] SEMINAR_TIMES = {"10:10-12:00", "12:10-2:00", "2:10-4:00",
+      "4:10-6:00", "6:10-8:00", "1:10-3:40"};
+
+  private static final String[] FIRST_NAMES = {"Adam", "Maria", "Wei", "Priya", "James",
+      "Fatima", "Daniel", "Sofia", "Hiroshi", "Amara", "Luca", "Elena", "Kwame", "Ana",
+      "Michael", "Yuki", "Omar", "Grace", "Ivan", "Leila", "David", "Chen", "Sarah", "Tomas"};
+
+  private static final String[] LAST_NAMES = {"Smith", "Garcia", "Wang", "Patel", "Kim",
+      "Okafor", "Rossi", "Nguyen", "Cohen", "Ivanova", "Tanaka", "Haddad", "Mensah", "Silva",
+      "Muller", "Johnson", "Ali", "Kowalski", "Lee", "Brown", "Dubois", "Sato", "Lopez",
+      "Novak"};
+
+  private final long seed;
+
+  /** Room names, shared so that a large catalog holds each distinct room only once. */
+  private final Map<String, String> rooms = new HashMap<>();
+}
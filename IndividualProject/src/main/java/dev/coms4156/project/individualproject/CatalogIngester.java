@@ -0,0 +1,664 @@
+package dev.coms4156.project.individualproject;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads a catalog from a CSV or NDJSON file. The file is split into chunks at line
+ * boundaries, the chunks are read and parsed in parallel, and the partial results are then
+ * merged in file order, so duplicates and error line numbers come out the same however the
+ * work was scheduled. Departments and courses are built directly, with each department's
+ * courses going straight into its {@link CourseMap}.
+ *
+ * <p>CSV files start with the header
+ * {@code deptCode,chair,majors,courseId,instructor,location,time,capacity,enrolled}. A row
+ * with an empty {@code courseId} describes a department; any other row describes a course
+ * and, if its {@code chair} or {@code majors} are filled in, its department as well. Fields
+ * may be quoted, but may not contain line breaks. NDJSON files hold one object per line in
+ * the format written by {@link CatalogExporter}, so an export can be ingested again.
+ *
+ * <p>Every row is validated: department codes and course IDs must be present, capacities and
+ * major counts must be non-negative numbers, enrollments may not exceed capacity, a course
+ * may appear only once per department and a department's details may not contradict each
+ * other. A department that only appears through its courses has no chair and no majors.
+ */
+public class CatalogIngester {
+
+  /**
+   * The supported file formats.
+   */
+  public enum Format {
+    CSV, NDJSON;
+
+    /**
+     * Finds a format by name, ignoring case.
+     *
+     * @param name The name, such as {@code "csv"}.
+     * @return The format.
+     * @throws IllegalArgumentException if there is no such format.
+     */
+    public static Format fromName(String name) {
+      return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Guesses a format from a file name's extension.
+     *
+     * @param fileName The file name.
+     * @return The format, or null if the extension is not recognized.
+     */
+    public static Format fromFileName(String fileName) {
+      String lower = fileName.toLowerCase(Locale.ROOT);
+      if (lower.endsWith(".csv")) {
+        return CSV;
+      }
+      if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+        return NDJSON;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * The outcome of an ingest.
+   *
+   * @param mapping      The ingested departments, or null if any row was invalid.
+   * @param departments  The number of departments.
+   * @param courses      The number of courses.
+   * @param lines        The number of lines read.
+   * @param bytes        The size of the file.
+   * @param threads      The number of parser threads used.
+   * @param elapsedNanos How long the ingest took.
+   * @param errorCount   The number of invalid rows.
+   * @param errors       Descriptions of the first invalid rows, with their line numbers.
+   */
+  public record Result(Map<String, Department> mapping, int departments, long courses,
+                       long lines, long bytes, int threads, long elapsedNanos,
+                       long errorCount, List<String> errors) {
+
+    /**
+     * Checks whether every row was valid.
+     *
+     * @return true if the ingested mapping can be used.
+     */
+    public boolean isValid() {
+      return errorCount == 0;
+    }
+
+    /**
+     * Summarizes the ingest for reporting.
+     *
+     * @return A map of counts, throughput and errors.
+     */
+    public Map<String, Object> toStats() {
+      Map<String, Object> stats = new LinkedHashMap<>();
+      stats.put("departments", departments);
+      stats.put("courses", courses);
+      stats.put("lines", lines);
+      stats.put("bytes", bytes);
+      stats.put("threads", threads);
+      stats.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+      stats.put("coursesPerSecond", elapsedNanos == 0 ? 0 : courses * 1_000_000_000L
+              / elapsedNanos);
+      stats.put("errorCount", errorCount);
+      stats.put("errors", errors);
+      return stats;
+    }
+  }
+
+  /**
+   * Creates an ingester that parses with one thread per available processor.
+   *
+   * @param format The format of the files to ingest.
+   */
+  public CatalogIngester(Format format) {
+    this(format, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates an ingester.
+   *
+   * @param format    The format of the files to ingest.
+   * @param threads   The number of parser threads.
+   * @param chunkSize The approximate number of bytes parsed as one unit of work.
+   * @throws IllegalArgumentException if {@code threads} or {@code chunkSize} is not positive.
+   */
+  public CatalogIngester(Format format, int threads, int chunkSize) {
+    if (threads < 1 || chunkSize < 1) {
+      throw new IllegalArgumentException("Thread count and chunk size must be positive.");
+    }
+    this.format = Objects.requireNonNull(format);
+    this.threads = threads;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Reads and validates a catalog file. Nothing is published; the caller decides what to do
+   * with the result.
+   *
+   * @param file The file to read.
+   * @return The ingested departments and statistics.
+   * @throws IOException if the file cannot be read.
+   */
+  public Result ingest(Path file) throws IOException {
+    startNanos = System.nanoTime();
+    phase = "reading";
+    ExecutorService parsers = Executors.newFixedThreadPool(threads);
+    try (FileChannel channel = FileChannel.open(file)) {
+      totalBytes = channel.size();
+      List<long[]> chunks = splitIntoChunks(channel);
+      List<Future<Chunk>> parsed = new ArrayList<>(chunks.size());
+      for (int i = 0; i < chunks.size(); i++) {
+        long[] bounds = chunks.get(i);
+        boolean first = i == 0;
+        parsed.add(parsers.submit(() -> parseChunk(channel, bounds[0], bounds[1], first)));
+      }
+      Merger merger = new Merger();
+      for (Future<Chunk> chunk : parsed) {
+        merger.add(chunk.get());
+      }
+      phase = "merging";
+      Result result = merger.finish(file, System.nanoTime() - startNanos);
+      phase = result.isValid() ? "done" : "invalid";
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      phase = "failed";
+      throw new IOException("Interrupted while ingesting " + file, e);
+    } catch (ExecutionException e) {
+      phase = "failed";
+      if (e.getCause() instanceof IOException ioException) {
+        throw ioException;
+      }
+      throw new IOException("Failed to ingest " + file, e.getCause());
+    } catch (IOException | RuntimeException e) {
+      phase = "failed";
+      throw e;
+    } finally {
+      parsers.shutdownNow();
+    }
+  }
+
+  /**
+   * Reads a catalog file and, if every row is valid, publishes it and saves the database so
+   * the ingested catalog survives a restart. If any row is invalid the database is left
+   * unchanged.
+   *
+   * @param file     The file to read.
+   * @param database The database to load into.
+   * @param merge    Whether to keep departments that are not in the file rather than
+   *                 replacing the whole catalog.
+   * @return The ingested departments and statistics.
+   * @throws IOException if the file cannot be read or the database cannot be saved; in the
+   *         latter case the ingested catalog may already be published but not survive a
+   *         restart.
+   */
+  public Result ingestInto(Path file, MyFileDatabase database, boolean merge)
+          throws IOException {
+    Result result = ingest(file);
+    if (result.isValid()) {
+      phase = "saving";
+      try {
+        if (merge) {
+          database.mergeMapping(result.mapping());
+        } else {
+          database.setMapping(result.mapping());
+        }
+        database.save();
+      } catch (IOException | RuntimeException e) {
+        phase = "failed";
+        throw e;
+      }
+      phase = "done";
+    }
+    return result;
+  }
+
+  /**
+   * Reports how far the ingest has got. Safe to call from another thread while it runs.
+   *
+   * @return A map with the phase, bytes and lines parsed so far and the elapsed time.
+   */
+  public Map<String, Object> getProgress() {
+    Map<String, Object> progress = new LinkedHashMap<>();
+    progress.put("format", format.name().toLowerCase(Locale.ROOT));
+    progress.put("phase", phase);
+    progress.put("bytesParsed", bytesParsed.get());
+    progress.put("totalBytes", totalBytes);
+    progress.put("linesParsed", linesParsed.get());
+    progress.put("coursesParsed", coursesParsed.get());
+    progress.put("elapsedMillis", startNanos == 0 ? 0
+            : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    return progress;
+  }
+
+  /**
+   * Cuts the file into ranges of about {@link #chunkSize} bytes, each ending just after a
+   * line break or at the end of the file.
+   */
+  private List<long[]> splitIntoChunks(FileChannel channel) throws IOException {
+    List<long[]> chunks = new ArrayList<>();
+    long size = channel.size();
+    ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+    long start = 0;
+    while (start < size) {
+      long end = Math.min(size, start + chunkSize);
+      while (end < size) {
+        probe.clear();
+        int read = channel.read(probe, end);
+        int newline = -1;
+        for (int i = 0; i < read && newline < 0; i++) {
+          if (probe.get(i) == '\n') {
+            newline = i;
+          }
+        }
+        if (newline >= 0) {
+          end += newline + 1;
+          break;
+        }
+        end += Math.max(read, 0);
+      }
+      chunks.add(new long[] {start, Math.min(end, size)});
+      start = end;
+    }
+    return chunks;
+  }
+
+  /**
+   * Reads one chunk and parses its lines. Runs on a parser thread.
+   */
+  private Chunk parseChunk(FileChannel channel, long start, long end, boolean first)
+          throws IOException {
+    ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+    while (bytes.hasRemaining()) {
+      if (channel.read(bytes, start + bytes.position()) < 0) {
+        throw new IOException("Unexpected end of file at byte " + (start + bytes.position()));
+      }
+    }
+    String text = new String(bytes.array(), StandardCharsets.UTF_8);
+    Chunk chunk = new Chunk();
+    int lineStart = 0;
+    while (lineStart < text.length()) {
+      int newline = text.indexOf('\n', lineStart);
+      int lineEnd = newline < 0 ? text.length() : newline;
+      if (lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r') {
+        lineEnd--;
+      }
+      chunk.lineCount++;
+      String line = text.substring(lineStart, lineEnd);
+      if (first && chunk.lineCount == 1 && format == Format.CSV) {
+        if (!CSV_HEADER.equalsIgnoreCase(line.replace(" ", ""))) {
+          chunk.error(1, "expected the header " + CSV_HEADER);
+        }
+      } else if (!line.isBlank()) {
+        String[] fields = format == Format.CSV
+                ? parseCsvLine(chunk, line) : parseJsonLine(chunk, line);
+        if (fields != null) {
+          chunk.accept(fields, format == Format.NDJSON);
+        }
+      }
+      lineStart = newline < 0 ? text.length() : newline + 1;
+    }
+    bytesParsed.addAndGet(end - start);
+    linesParsed.addAndGet(chunk.lineCount);
+    coursesParsed.addAndGet(chunk.courseCount);
+    return chunk;
+  }
+
+  /**
+   * Splits a CSV line into the nine catalog columns.
+   *
+   * @return The fields, or null if the line is malformed, in which case an error has been
+   *         recorded.
+   */
+  private static String[] parseCsvLine(Chunk chunk, String line) {
+    List<String> fields = new ArrayList<>(COLUMNS);
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"' && field.length() == 0) {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      chunk.error(chunk.lineCount, "unterminated quoted field");
+      return null;
+    }
+    fields.add(field.toString());
+    if (fields.size() != COLUMNS) {
+      chunk.error(chunk.lineCount, "expected " + COLUMNS + " fields but found "
+              + fields.size());
+      return null;
+    }
+    String[] values = new String[COLUMNS + 1];
+    for (int i = 0; i < COLUMNS; i++) {
+      String value = fields.get(i).trim();
+      values[i] = value.isEmpty() ? null : value;
+    }
+    values[TYPE] = values[COURSE_ID] == null ? "department" : "course";
+    return values;
+  }
+
+  /**
+   * Reads the fields of one NDJSON object into the column order used for CSV.
+   *
+   * @return The fields, or null if the line is malformed, in which case an error has been
+   *         recorded.
+   */
+  private static String[] parseJsonLine(Chunk chunk, String line) {
+    String[] values = new String[COLUMNS + 1];
+    try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        chunk.error(chunk.lineCount, "expected a JSON object");
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        Integer column = JSON_COLUMNS.get(parser.currentName());
+        JsonToken value = parser.nextToken();
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+          parser.skipChildren();
+          if (column != null) {
+            chunk.error(chunk.lineCount, parser.currentName() + " must not be nested");
+            return null;
+          }
+        } else if (column != null && value != JsonToken.VALUE_NULL) {
+          values[column] = parser.getText();
+        }
+      }
+      if (parser.nextToken() != null) {
+        chunk.error(chunk.lineCount, "unexpected content after the JSON object");
+        return null;
+      }
+    } catch (IOException e) {
+      chunk.error(chunk.lineCount, "malformed JSON");
+      return null;
+    }
+    return values;
+  }
+
+  /**
+   * Parses an optional count.
+   *
+   * @return The count, the default if the value is missing, or -1 if it is not a
+   *         non-negative int, in which case an error has been recorded.
+   */
+  private static int parseCount(Chunk chunk, String value, String name, int missing) {
+    if (value == null) {
+      return missing;
+    }
+    try {
+      int count = Integer.parseInt(value);
+      if (count >= 0) {
+        return count;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    chunk.error(chunk.lineCount, name + " must be a non-negative whole number");
+    return -1;
+  }
+
+  /**
+   * The departments and courses parsed from one chunk, with line numbers relative to the
+   * start of the chunk.
+   */
+  private static final class Chunk {
+
+    /**
+     * Records a parsed row.
+     *
+     * @param fields The row's fields in column order.
+     * @param typed  Whether the row must name its type, as NDJSON rows do.
+     */
+    void accept(String[] fields, boolean typed) {
+      String type = fields[TYPE];
+      if (typed && !"department".equals(type) && !"course".equals(type)) {
+        error(lineCount, "type must be \"department\" or \"course\"");
+        return;
+      }
+      String deptCode = fields[DEPT_CODE];
+      if (deptCode == null || deptCode.isBlank()) {
+        error(lineCount, "deptCode is missing");
+        return;
+      }
+      PartialDepartment department =
+              departments.computeIfAbsent(deptCode, k -> new PartialDepartment());
+      boolean course = "course".equals(type);
+      if (!course || fields[CHAIR] != null || fields[MAJORS] != null) {
+        int majors = parseCount(this, fields[MAJORS], "majors", 0);
+        if (majors < 0) {
+          return;
+        }
+        if (department.declaredLine > 0 && (department.majors != majors
+                || !Objects.equals(department.chair, fields[CHAIR]))) {
+          error(lineCount, "details of department " + deptCode
+                  + " contradict an earlier row");
+          return;
+        }
+        if (department.declaredLine < 0) {
+          department.chair = fields[CHAIR];
+          department.majors = majors;
+          department.declaredLine = lineCount;
+        }
+      }
+      if (course) {
+        acceptCourse(department, deptCode, fields);
+      }
+    }
+
+    private void acceptCourse(PartialDepartment department, String deptCode,
+                              String[] fields) {
+      String courseId = fields[COURSE_ID];
+      if (courseId == null || courseId.isBlank()) {
+        error(lineCount, "courseId is missing");
+        return;
+      }
+      if (fields[CAPACITY] == null) {
+        error(lineCount, "capacity is missing");
+        return;
+      }
+      int capacity = parseCount(this, fields[CAPACITY], "capacity", 0);
+      int enrolled = parseCount(this, fields[ENROLLED], "enrolled", 0);
+      if (capacity < 0 || enrolled < 0) {
+        return;
+      }
+      if (enrolled > capacity) {
+        error(lineCount, "course " + deptCode + " " + courseId + " has " + enrolled
+                + " students enrolled but a capacity of " + capacity);
+        return;
+      }
+      Course course = new Course(fields[INSTRUCTOR], fields[LOCATION], fields[TIME], capacity);
+      course.setEnrolledStudentCount(enrolled);
+      department.courses.add(new PendingCourse(courseId, course, lineCount));
+      courseCount++;
+    }
+
+    void error(int line, String message) {
+      if (errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add(new PendingError(line, message));
+      }
+      errorCount++;
+    }
+
+    final Map<String, PartialDepartment> departments = new LinkedHashMap<>();
+    final List<PendingError> errors = new ArrayList<>();
+    long errorCount;
+    int lineCount;
+    int courseCount;
+  }
+
+  /**
+   * What one chunk says about a department.
+   */
+  private static final class PartialDepartment {
+    String chair;
+    int majors;
+
+    /** Chunk-relative line that gave the department's details, or -1 if none did. */
+    int declaredLine = -1;
+
+    final List<PendingCourse> courses = new ArrayList<>();
+  }
+
+  private record PendingCourse(String courseId, Course course, int line) {
+  }
+
+  private record PendingError(int line, String message) {
+  }
+
+  /**
+   * Combines chunks in file order.
+   */
+  private final class Merger {
+
+    void add(Chunk chunk) {
+      for (PendingError error : chunk.errors) {
+        error(lineOffset + error.line(), error.message());
+      }
+      errorCount += chunk.errorCount - chunk.errors.size();
+      for (Map.Entry<String, PartialDepartment> entry : chunk.departments.entrySet()) {
+        String deptCode = entry.getKey();
+        PartialDepartment partial = entry.getValue();
+        DepartmentBuilder builder = builders.computeIfAbsent(deptCode,
+                k -> new DepartmentBuilder());
+        if (partial.declaredLine > 0) {
+          long line = lineOffset + partial.declaredLine;
+          if (builder.declaredLine > 0 && (builder.majors != partial.majors
+                  || !Objects.equals(builder.chair, partial.chair))) {
+            error(line, "details of department " + deptCode + " contradict line "
+                    + builder.declaredLine);
+          } else if (builder.declaredLine < 0) {
+            builder.chair = partial.chair;
+            builder.majors = partial.majors;
+            builder.declaredLine = line;
+          }
+        }
+        for (PendingCourse course : partial.courses) {
+          if (builder.courses.containsKey(course.courseId())) {
+            error(lineOffset + course.line(), "duplicate course " + deptCode + " "
+                    + course.courseId());
+          } else {
+            builder.courses.put(course.courseId(), course.course());
+            courseCount++;
+          }
+        }
+      }
+      lineOffset += chunk.lineCount;
+    }
+
+    Result finish(Path file, long elapsedNanos) {
+      Map<String, Department> mapping = null;
+      if (errorCount == 0) {
+        mapping = new HashMap<>(builders.size() * 4 / 3 + 1);
+        for (Map.Entry<String, DepartmentBuilder> entry : builders.entrySet()) {
+          DepartmentBuilder builder = entry.getValue();
+          mapping.put(entry.getKey(), new Department(entry.getKey(), builder.courses,
+                  builder.chair, builder.majors));
+        }
+      }
+      return new Result(mapping, builders.size(), courseCount, lineOffset, totalBytes,
+              threads, elapsedNanos, errorCount, List.copyOf(errors));
+    }
+
+    private void error(long line, String message) {
+      if (errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add("line " + line + ": " + message);
+      }
+      errorCount++;
+    }
+
+    private final Map<String, DepartmentBuilder> builders = new LinkedHashMap<>();
+    private final List<String> errors = new ArrayList<>();
+    private long errorCount;
+    private long courseCount;
+    private long lineOffset;
+  }
+
+  /**
+   * A department being assembled from all chunks.
+   */
+  private static final class DepartmentBuilder {
+    String chair;
+    int majors;
+    long declaredLine = -1;
+    final CourseMap courses = new CourseMap();
+  }
+
+  /** The CSV header, without spaces. */
+  static final String CSV_HEADER =
+          "deptCode,chair,majors,courseId,instructor,location,time,capacity,enrolled";
+
+  /** Column positions, in CSV order; {@link #TYPE} follows the CSV columns. */
+  private static final int DEPT_CODE = 0;
+  private static final int CHAIR = 1;
+  private static final int MAJORS = 2;
+  private static final int COURSE_ID = 3;
+  private static final int INSTRUCTOR = 4;
+  private static final int LOCATION = 5;
+  private static final int TIME = 6;
+  private static final int CAPACITY = 7;
+  private static final int ENROLLED = 8;
+  private static final int COLUMNS = 9;
+  private static final int TYPE = 9;
+
+  /** NDJSON field names and the columns they fill. */
+  private static final Map<String, Integer> JSON_COLUMNS = Map.of(
+          "deptCode", DEPT_CODE, "chair", CHAIR, "majors", MAJORS, "courseId", COURSE_ID,
+          "instructor", INSTRUCTOR, "location", LOCATION, "time", TIME, "capacity", CAPACITY,
+          "enrolled", ENROLLED, "type", TYPE);
+
+  /** Default number of bytes parsed as one unit of work. */
+  private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  /** Bytes read at a time while looking for the end of a chunk's last line. */
+  private static final int PROBE_SIZE = 8 * 1024;
+
+  /** Maximum number of invalid rows described in a result. */
+  private static final int MAX_REPORTED_ERRORS = 100;
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final Format format;
+  private final int threads;
+  private final int chunkSize;
+  private final AtomicLong bytesParsed = new AtomicLong();
+  private final AtomicLong linesParsed = new AtomicLong();
+  private final AtomicLong coursesParsed = new AtomicLong();
+  private volatile String phase = "pending";
+  private volatile long totalBytes;
+  private volatile long startNanos;
+}
@@ -0,0 +1,185 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One immutable version of the department catalog. A version is a base mapping, such as a
+ * lazily loaded snapshot, overlaid with the departments that have been replaced since the
+ * base was loaded. Writers never change a published version: they copy the department they
+ * update and publish a new version that shares everything else with this one. The overlay
+ * is a {@link DepartmentOverlay}, which shares its structure between versions too, so a new
+ * version costs the same however many departments have been replaced since the last
+ * rebase.
+ *
+ * <p>A reader that holds on to a version sees one consistent catalog for as long as it
+ * likes and never waits for a writer. Versions nobody refers to any more are reclaimed by
+ * the garbage collector.
+ */
+public final class CatalogVersion extends AbstractMap<String, Department> {
+
+  /**
+   * Creates the first version over a base mapping.
+   *
+   * @param version The version number.
+   * @param base    The departments as loaded; must not be changed afterwards.
+   */
+  public CatalogVersion(long version, Map<String, Department> base) {
+    this(version, base, DepartmentOverlay.EMPTY);
+  }
+
+  private CatalogVersion(long version, Map<String, Department> base,
+                         DepartmentOverlay overrides) {
+    this.version = version;
+    this.base = base;
+    this.overrides = overrides;
+  }
+
+  /**
+   * Creates the next version, in which one existing department has been replaced.
+   *
+   * @param deptCode   The code of the department to replace.
+   * @param department The updated department.
+   * @return The new version.
+   */
+  public CatalogVersion with(String deptCode, Department department) {
+    return new CatalogVersion(version + 1, base, overrides.with(deptCode, department));
+  }
+
+  /**
+   * Creates the next version, in which several existing departments have been replaced at
+   * once. Readers see either all of the replacements or none of them.
+   *
+   * @param departments The updated departments by department code.
+   * @return The new version.
+   */
+  public CatalogVersion with(Map<String, Department> departments) {
+    DepartmentOverlay updated = overrides;
+    for (Map.Entry<String, Department> entry : departments.entrySet()) {
+      updated = updated.with(entry.getKey(), entry.getValue());
+    }
+    return new CatalogVersion(version + 1, base, updated);
+  }
+
+  /**
+   * Creates the next version over a new base mapping with nothing overlaid.
+   *
+   * @param newBase The new base mapping; must not be changed afterwards.
+   * @return The new version.
+   */
+  public CatalogVersion rebase(Map<String, Department> newBase) {
+    return new CatalogVersion(version + 1, newBase);
+  }
+
+  /**
+   * Gets the version number, which grows by one with every published change.
+   *
+   * @return The version number.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets the base mapping underneath the overlaid departments.
+   *
+   * @return The base mapping.
+   */
+  public Map<String, Department> getBase() {
+    return base;
+  }
+
+  /**
+   * Gets the number of departments replaced since the base was loaded.
+   *
+   * @return The overlay size.
+   */
+  public int overrideCount() {
+    return overrides.size();
+  }
+
+  /**
+   * Checks whether a department is the same object in this version as in an earlier one,
+   * without looking it up, so a department of a lazily loaded base is not decoded.
+   *
+   * @param earlier  An earlier version.
+   * @param deptCode The department code.
+   * @return true if neither the base nor the department has been replaced in between.
+   */
+  public boolean isUnchangedSince(CatalogVersion earlier, String deptCode) {
+    return base == earlier.base && overrides.get(deptCode) == earlier.overrides.get(deptCode);
+  }
+
+  /**
+   * Lists the departments that were replaced between an earlier version and this one,
+   * without looking any of them up. Only the parts of the overlay that changed in between
+   * are visited.
+   *
+   * @param earlier An earlier version.
+   * @return The codes of the replaced departments, or null if the base was replaced in
+   *         between, so that every department may have changed.
+   */
+  public Set<String> changedSince(CatalogVersion earlier) {
+    if (base != earlier.base) {
+      return null;
+    }
+    Set<String> changed = new HashSet<>();
+    overrides.addChangesSince(earlier.overrides, changed);
+    return changed;
+  }
+
+  @Override
+  public Department get(Object key) {
+    Department department = overrides.get(key);
+    return department != null ? department : base.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return overrides.get(key) != null || base.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return base.size();
+  }
+
+  @Override
+  public Set<Map.Entry<String, Department>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<String, Department>> iterator() {
+        Iterator<Map.Entry<String, Department>> baseIterator = base.entrySet().iterator();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return baseIterator.hasNext();
+          }
+
+          @Override
+          public Map.Entry<String, Department> next() {
+            Map.Entry<String, Department> entry = baseIterator.next();
+            Department replaced = overrides.get(entry.getKey());
+            return new SimpleImmutableEntry<>(entry.getKey(),
+                    replaced != null ? replaced : entry.getValue());
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return base.size();
+      }
+    };
+  }
+
+  private final long version;
+  private final Map<String, Department> base;
+
+  /** Departments replaced since the base was loaded; only ever holds keys of the base. */
+  private final DepartmentOverlay overrides;
+}
@@ -2,10 +2,15 @@ package dev.coms4156.project.individualproject;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Represents a course entity with details such as the instructor,
  * location, timeslot, capacity, and number of enrolled students.
+ *
+ * <p>Enrollments and drops update the enrolled student count with compare-and-set, so
+ * concurrent requests never push it above the capacity or below zero without taking a lock.
  */
 public class Course implements Serializable {
 
@@ -15,8 +20,17 @@ public class Course implements Serializable {
   // The maximum number of students the course can accommodate
   private final int enrollmentCapacity;
 
-  // The current number of students enrolled
-  private int enrolledStudentCount;
+  // The current number of students enrolled, only updated through ENROLLED_COUNT_UPDATER
+  // outside of construction and setEnrolledStudentCount
+  private volatile int enrolledStudentCount;
+
+  // Counts copies made for updates, which allocate on every mutation
+  private static final LongAdder COPIES = Metrics.counter("catalog.course.copies");
+
+  // Compare-and-set access to enrolledStudentCount; an updater rather than an AtomicInteger
+  // keeps the serialized form of the class unchanged
+  private static final AtomicIntegerFieldUpdater<Course> ENROLLED_COUNT_UPDATER =
+          AtomicIntegerFieldUpdater.newUpdater(Course.class, "enrolledStudentCount");
 
   // The location where the course is taught
   private String courseLocation;
@@ -44,6 +58,19 @@ public class Course implements Serializable {
     this.enrolledStudentCount = 0;
   }
 
+  /**
+   * Creates a copy of the course, used to update a course without changing the version that
+   * readers may still be looking at.
+   *
+   * @return A new course with the same details and enrollment.
+   */
+  public Course copy() {
+    COPIES.increment();
+    Course copy = new Course(instructorName, courseLocation, courseTimeSlot, enrollmentCapacity);
+    copy.enrolledStudentCount = this.enrolledStudentCount;
+    return copy;
+  }
+
   /**
    * Checks if the course is fully enrolled.
    *
@@ -59,9 +86,12 @@ public class Course implements Serializable {
    * @return true if the enrollment was successful, false if the course is already full.
    */
   public boolean enrollStudent() {
-    if (!isCourseFull()) {
-      this.enrolledStudentCount++;
-      return true;  // Enrollment successful
+    int current = this.enrolledStudentCount;
+    while (current < this.enrollmentCapacity) {
+      if (ENROLLED_COUNT_UPDATER.compareAndSet(this, current, current + 1)) {
+        return true;  // Enrollment successful
+      }
+      current = this.enrolledStudentCount;
     }
     return false;  // Course is full
   }
@@ -72,13 +102,34 @@ public class Course implements Serializable {
    * @return true if the drop was successful, false if there are no students enrolled.
    */
   public boolean dropStudent() {
-    if (this.enrolledStudentCount > 0) {
-      this.enrolledStudentCount--;
-      return true;  // Drop successful
+    int current = this.enrolledStudentCount;
+    while (current > 0) {
+      if (ENROLLED_COUNT_UPDATER.compareAndSet(this, current, current - 1)) {
+        return true;  // Drop successful
+      }
+      current = this.enrolledStudentCount;
     }
     return false;  // No students to drop
   }
 
+  /**
+   * Gets the maximum number of students the course can accommodate.
+   *
+   * @return The enrollment capacity of the course.
+   */
+  public int getEnrollmentCapacity() {
+    return this.enrollmentCapacity;
+  }
+
+  /**
+   * Gets the number of students currently enrolled in the course.
+   *
+   * @return The number of enrolled students.
+   */
+  public int getEnrolledStudentCount() {
+    return this.enrolledStudentCount;
+  }
+
   /**
    * Gets the location of the course.
    *
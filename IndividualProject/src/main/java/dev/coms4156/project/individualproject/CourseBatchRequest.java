@@ -0,0 +1,22 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.List;
+
+/**
+ * The body of a batch course lookup: the courses to look up and the fields to return for
+ * each of them.
+ *
+ * @param courses The courses to look up, in the order their results should be returned.
+ * @param fields  The names of the fields to return; every field when null or empty.
+ */
+public record CourseBatchRequest(List<CourseKey> courses, List<String> fields) {
+
+  /**
+   * Identifies one course.
+   *
+   * @param deptCode   The department code.
+   * @param courseCode The course code.
+   */
+  public record CourseKey(String deptCode, int courseCode) {
+  }
+}
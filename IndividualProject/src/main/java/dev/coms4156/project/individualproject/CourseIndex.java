@@ -0,0 +1,600 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Secondary indexes of the catalog's courses by instructor, location and time slot, so that
+ * all courses with a given value can be found without visiting every department. Values
+ * are matched ignoring case and surrounding spaces.
+ *
+ * <p>Each index maps a value to the set of courses holding it. A course is stored as one
+ * {@code long} packing a number for its department and its course code, so an entry costs
+ * about 16 bytes and a lookup copies only the matching entries. Course IDs that are not
+ * plain numbers are numbered in a separate table.
+ *
+ * <p>The index is kept up to date by {@link MyFileDatabase} as changes are published, and is
+ * safe for concurrent use. A change made at the same time as a lookup may or may not be
+ * seen, but courses are checked against the catalog version being searched, so a lookup
+ * never returns a course that does not match.
+ *
+ * <p>The distinct instructors and locations are also kept in a {@link ValueSearch} for
+ * type-ahead, which changes only when a value is held by its first course or loses its
+ * last one.
+ */
+public class CourseIndex {
+
+  /**
+   * A course field that is indexed.
+   */
+  public enum Field {
+    INSTRUCTOR(Course::getInstructorName),
+    LOCATION(Course::getCourseLocation),
+    TIME(Course::getCourseTimeSlot);
+
+    Field(Function<Course, String> getter) {
+      this.getter = getter;
+    }
+
+    /**
+     * Reads this field of a course.
+     *
+     * @param course The course.
+     * @return The field's value.
+     */
+    public String valueOf(Course course) {
+      return getter.apply(course);
+    }
+
+    private final Function<Course, String> getter;
+  }
+
+  /**
+   * A course found by a lookup.
+   *
+   * @param deptCode The code of the course's department.
+   * @param courseId The course's ID within the department.
+   * @param course   The course.
+   */
+  public record Match(String deptCode, String courseId, Course course) {
+  }
+
+  /**
+   * A value suggested for what a user has typed.
+   *
+   * @param value   The value, as it is written in the catalog.
+   * @param courses The number of courses that have it.
+   * @param edits   The number of typing mistakes between the query and the value; 0 if a
+   *                word of the value starts with the query.
+   */
+  public record Suggestion(String value, int courses, int edits) {
+  }
+
+  /**
+   * Creates an empty index.
+   */
+  public CourseIndex() {
+    for (Field field : Field.values()) {
+      indexes.put(field, new ConcurrentHashMap<>());
+    }
+    for (Field field : SEARCHABLE) {
+      searches.put(field, new ValueSearch());
+    }
+  }
+
+  /**
+   * Indexes every course of a department.
+   *
+   * @param deptCode   The department code.
+   * @param department The department.
+   */
+  public void addDepartment(String deptCode, Department department) {
+    for (Field field : Field.values()) {
+      groupByValue(deptId(deptCode), department, field).forEach((value, refs) ->
+              indexes.get(field).compute(key(value), (key, set) -> {
+                RefSet updated = set != null ? set : newValue(field, key, value);
+                synchronized (updated) {
+                  refs.forEach(updated::add);
+                }
+                return updated;
+              }));
+    }
+  }
+
+  /**
+   * Removes every course of a department from the index.
+   *
+   * @param deptCode   The department code.
+   * @param department The department as it was indexed.
+   */
+  public void removeDepartment(String deptCode, Department department) {
+    for (Field field : Field.values()) {
+      groupByValue(deptId(deptCode), department, field).forEach((value, refs) ->
+              indexes.get(field).computeIfPresent(key(value), (key, set) -> {
+                synchronized (set) {
+                  refs.forEach(set::remove);
+                }
+                return set.size == 0 ? removedValue(field, key) : set;
+              }));
+    }
+  }
+
+  /**
+   * Updates the index for a course that was replaced by a changed copy. Only fields whose
+   * value changed are touched.
+   *
+   * @param deptCode   The department code.
+   * @param courseCode The course code.
+   * @param before     The course as it was indexed, or null if it did not exist.
+   * @param after      The course as it is now, or null if it was removed.
+   */
+  public void updateCourse(String deptCode, int courseCode, Course before, Course after) {
+    long ref = ref(deptId(deptCode), Integer.toString(courseCode));
+    for (Field field : Field.values()) {
+      String oldValue = before == null ? null : field.valueOf(before);
+      String newValue = after == null ? null : field.valueOf(after);
+      if (oldValue != null && newValue != null && key(oldValue).equals(key(newValue))) {
+        continue;
+      }
+      add(field, newValue, ref);
+      remove(field, oldValue, ref);
+    }
+  }
+
+  /**
+   * Finds the courses whose field has the given value in a version of the catalog. Takes
+   * time in proportion to the number of courses the index holds for the value.
+   *
+   * @param field   The field to search.
+   * @param value   The value, matched ignoring case and surrounding spaces.
+   * @param catalog The catalog version to take the courses from.
+   * @return The matching courses, ordered by department code and then by course ID: numeric
+   *         IDs in numeric order, followed by any other IDs in alphabetical order.
+   */
+  public List<Match> find(Field field, String value, Map<String, Department> catalog) {
+    String key = key(value);
+    RefSet refs = indexes.get(field).get(key);
+    if (refs == null) {
+      return List.of();
+    }
+    long[] found;
+    synchronized (refs) {
+      found = refs.toArray();
+    }
+    // Sorting the packed references groups them by department, with plain numeric codes in
+    // order and other IDs after them, since those have the sign bit of the low half set.
+    Arrays.sort(found);
+    List<Integer> groupStarts = new ArrayList<>();
+    for (int i = 0; i < found.length; i++) {
+      if (i == 0 || found[i] >>> 32 != found[i - 1] >>> 32) {
+        groupStarts.add(i);
+      }
+    }
+    String[] deptCodes = this.deptCodes;
+    String[] otherIds = this.otherCourseIds;
+    groupStarts.sort(Comparator.comparing(start -> deptCodes[deptIndex(found[start])]));
+
+    List<Match> matches = new ArrayList<>(found.length);
+    ValueMatcher matcher = new ValueMatcher(key);
+    for (int start : groupStarts) {
+      String deptCode = deptCodes[deptIndex(found[start])];
+      Department department = catalog.get(deptCode);
+      if (department == null) {
+        continue;
+      }
+      int firstOther = matches.size();
+      for (int i = start; i < found.length && found[i] >>> 32 == found[start] >>> 32; i++) {
+        int slot = (int) found[i];
+        String courseId = slot >= 0 ? null : otherIds[-slot - 1];
+        Course course = slot >= 0 ? department.getCourse(slot)
+                : department.getCourseSelection().get(courseId);
+        if (course != null && matcher.matches(field.valueOf(course))) {
+          if (slot >= 0) {
+            firstOther++;
+          }
+          matches.add(new Match(deptCode, slot >= 0 ? Integer.toString(slot) : courseId,
+                  course));
+        }
+      }
+      if (matches.size() - firstOther > 1) {
+        matches.subList(firstOther, matches.size()).sort(Comparator.comparing(Match::courseId));
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Suggests values of a field for what a user has typed (see {@link ValueSearch}), for
+   * type-ahead. Takes time in proportion to the number of distinct values that are close to
+   * the query, not to the number of courses.
+   *
+   * @param field The field, which must be {@link Field#INSTRUCTOR} or
+   *              {@link Field#LOCATION}.
+   * @param query The text typed so far.
+   * @param limit The largest number of values to suggest.
+   * @return The suggested values with the number of courses that have each.
+   * @throws IllegalArgumentException if the field cannot be searched this way.
+   */
+  public List<Suggestion> suggest(Field field, String query, int limit) {
+    ValueSearch search = searches.get(field);
+    if (search == null) {
+      throw new IllegalArgumentException(field + " values cannot be searched by prefix");
+    }
+    List<Suggestion> suggestions = new ArrayList<>();
+    for (ValueSearch.Hit hit : search.search(query, limit)) {
+      RefSet refs = indexes.get(field).get(hit.key());
+      if (refs != null) {
+        int courses;
+        synchronized (refs) {
+          courses = refs.size;
+        }
+        suggestions.add(new Suggestion(hit.value(), courses, hit.edits()));
+      }
+    }
+    return suggestions;
+  }
+
+  /**
+   * Reports the number of distinct values and of indexed courses per field.
+   *
+   * @return The statistics by field name.
+   */
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("complete", complete);
+    for (Field field : Field.values()) {
+      Map<String, RefSet> index = indexes.get(field);
+      long courses = 0;
+      for (RefSet refs : index.values()) {
+        synchronized (refs) {
+          courses += refs.size;
+        }
+      }
+      Map<String, Object> fieldStats = new LinkedHashMap<>();
+      fieldStats.put("values", index.size());
+      fieldStats.put("courses", courses);
+      stats.put(field.name().toLowerCase(Locale.ROOT), fieldStats);
+    }
+    return stats;
+  }
+
+  /**
+   * Checks whether every department has been added since the index was created.
+   *
+   * @return true once {@link #markComplete()} has been called.
+   */
+  boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Records that every department has been added, so the index can be searched.
+   */
+  void markComplete() {
+    complete = true;
+  }
+
+  /**
+   * Collects the references of a department's courses by their value of a field, so each
+   * distinct value is normalized and updated in the index once per department.
+   */
+  private Map<String, RefList> groupByValue(int deptId, Department department, Field field) {
+    Map<String, RefList> groups = new HashMap<>();
+    CourseMap courses = (CourseMap) department.getCourseSelection();
+    courses.forEachCode((course, code) -> {
+      String value = field.valueOf(course);
+      if (value != null) {
+        long ref = code >= 0 ? ref(deptId, code) : ref(deptId, Integer.toString(code));
+        groups.computeIfAbsent(value, v -> new RefList()).add(ref);
+      }
+    });
+    courses.forEachOther((courseId, course) -> {
+      String value = field.valueOf(course);
+      if (value != null) {
+        groups.computeIfAbsent(value, v -> new RefList()).add(ref(deptId, courseId));
+      }
+    });
+    return groups;
+  }
+
+  private void add(Field field, String value, long ref) {
+    if (value == null) {
+      return;
+    }
+    indexes.get(field).compute(key(value), (key, refs) -> {
+      RefSet set = refs != null ? refs : newValue(field, key, value);
+      synchronized (set) {
+        set.add(ref);
+      }
+      return set;
+    });
+  }
+
+  private void remove(Field field, String value, long ref) {
+    if (value == null) {
+      return;
+    }
+    indexes.get(field).computeIfPresent(key(value), (key, refs) -> {
+      synchronized (refs) {
+        refs.remove(ref);
+      }
+      return refs.size == 0 ? removedValue(field, key) : refs;
+    });
+  }
+
+  /**
+   * Creates the course set of a value that no course had, adding the value to the field's
+   * search. Called while the value's entry is being computed, so a value is never added and
+   * removed at the same time.
+   */
+  private RefSet newValue(Field field, String key, String value) {
+    ValueSearch search = searches.get(field);
+    if (search != null) {
+      search.add(key, value.trim());
+    }
+    return new RefSet();
+  }
+
+  /**
+   * Removes a value that no course has any more from the field's search.
+   *
+   * @return null, so the value's entry is removed.
+   */
+  private RefSet removedValue(Field field, String key) {
+    ValueSearch search = searches.get(field);
+    if (search != null) {
+      search.remove(key);
+    }
+    return null;
+  }
+
+  /**
+   * Normalizes a value for lookups, ignoring case and surrounding spaces.
+   *
+   * @param value The value.
+   * @return The key the value is stored under.
+   */
+  static String key(String value) {
+    return value.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static int deptIndex(long ref) {
+    return (int) (ref >>> 32) - 1;
+  }
+
+  /**
+   * Checks course values against a lookup key. Courses with the same value often hold equal
+   * strings, so the last result is reused instead of normalizing every value.
+   */
+  private static final class ValueMatcher {
+
+    ValueMatcher(String key) {
+      this.key = key;
+    }
+
+    boolean matches(String value) {
+      if (value == null) {
+        return false;
+      }
+      if (!value.equals(lastValue)) {
+        lastValue = value;
+        lastMatched = key(value).equals(key);
+      }
+      return lastMatched;
+    }
+
+    private final String key;
+    private String lastValue;
+    private boolean lastMatched;
+  }
+
+  /**
+   * Packs a department number and a course ID into one non-zero {@code long}: the department
+   * number plus one in the high half, and in the low half the course code, or for an ID that
+   * is not a plain non-negative number, minus one minus its number in the table of such IDs.
+   */
+  private long ref(int deptId, String courseId) {
+    int slot = canonicalCode(courseId);
+    return ref(deptId, slot >= 0 ? slot : -1 - otherCourseId(courseId));
+  }
+
+  private static long ref(int deptId, int slot) {
+    return (long) (deptId + 1) << 32 | (slot & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Parses a course ID that is a non-negative number written without leading zeros.
+   *
+   * @return The number, or -1 if the ID is anything else.
+   */
+  private static int canonicalCode(String courseId) {
+    int length = courseId.length();
+    if (length == 0 || length > 10 || (length > 1 && courseId.charAt(0) == '0')) {
+      return -1;
+    }
+    long code = 0;
+    for (int i = 0; i < length; i++) {
+      char c = courseId.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      code = code * 10 + (c - '0');
+    }
+    return code <= Integer.MAX_VALUE ? (int) code : -1;
+  }
+
+  private int deptId(String deptCode) {
+    Integer id = deptIds.get(deptCode);
+    return id != null ? id : assignDeptId(deptCode);
+  }
+
+  private synchronized int assignDeptId(String deptCode) {
+    Integer id = deptIds.get(deptCode);
+    if (id != null) {
+      return id;
+    }
+    int next = deptIds.size();
+    String[] codes = next < deptCodes.length ? deptCodes
+            : Arrays.copyOf(deptCodes, Math.max(16, next * 2));
+    codes[next] = deptCode;
+    deptCodes = codes;
+    deptIds.put(deptCode, next);
+    return next;
+  }
+
+  private int otherCourseId(String courseId) {
+    Integer id = otherCourseIdNumbers.get(courseId);
+    return id != null ? id : assignOtherCourseId(courseId);
+  }
+
+  private synchronized int assignOtherCourseId(String courseId) {
+    Integer id = otherCourseIdNumbers.get(courseId);
+    if (id != null) {
+      return id;
+    }
+    int next = otherCourseIdNumbers.size();
+    String[] ids = next < otherCourseIds.length ? otherCourseIds
+            : Arrays.copyOf(otherCourseIds, Math.max(16, next * 2));
+    ids[next] = courseId;
+    otherCourseIds = ids;
+    otherCourseIdNumbers.put(courseId, next);
+    return next;
+  }
+
+  /**
+   * A growable list of packed course references.
+   */
+  private static final class RefList {
+
+    void add(long ref) {
+      if (size == refs.length) {
+        refs = Arrays.copyOf(refs, size * 2);
+      }
+      refs[size++] = ref;
+    }
+
+    void forEach(LongConsumer action) {
+      for (int i = 0; i < size; i++) {
+        action.accept(refs[i]);
+      }
+    }
+
+    private long[] refs = new long[4];
+    private int size;
+  }
+
+  /**
+   * A set of packed course references in an open-addressing table of primitive longs, with
+   * zero marking empty slots. The table grows at half full and shrinks at an eighth full,
+   * so copying the set out takes time in proportion to its size. Not thread-safe; callers
+   * synchronize on the set.
+   */
+  private static final class RefSet {
+
+    void add(long ref) {
+      if ((size + 1) * 2 > table.length) {
+        resize(table.length * 2);
+      }
+      int mask = table.length - 1;
+      int slot = slotOf(ref, mask);
+      while (table[slot] != 0) {
+        if (table[slot] == ref) {
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = ref;
+      size++;
+    }
+
+    void remove(long ref) {
+      int mask = table.length - 1;
+      int hole = slotOf(ref, mask);
+      while (table[hole] != ref) {
+        if (table[hole] == 0) {
+          return;
+        }
+        hole = (hole + 1) & mask;
+      }
+      // Shift later entries of the probe run back so lookups never stop at the hole early.
+      for (int slot = (hole + 1) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+        int home = slotOf(table[slot], mask);
+        if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+          table[hole] = table[slot];
+          hole = slot;
+        }
+      }
+      table[hole] = 0;
+      size--;
+      if (table.length > MIN_CAPACITY && size * 8 < table.length) {
+        resize(table.length / 2);
+      }
+    }
+
+    long[] toArray() {
+      long[] refs = new long[size];
+      int count = 0;
+      for (long ref : table) {
+        if (ref != 0) {
+          refs[count++] = ref;
+        }
+      }
+      return refs;
+    }
+
+    private void resize(int capacity) {
+      long[] old = table;
+      table = new long[capacity];
+      int mask = capacity - 1;
+      for (long ref : old) {
+        if (ref != 0) {
+          int slot = slotOf(ref, mask);
+          while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+          }
+          table[slot] = ref;
+        }
+      }
+    }
+
+    private static int slotOf(long ref, int mask) {
+      int hash = (int) ((ref ^ (ref >>> 32)) * 0x9E3779B97F4A7C15L >>> 32);
+      return hash & mask;
+    }
+
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] table = new long[MIN_CAPACITY];
+    private int size;
+  }
+
+  private final Map<Field, Map<String, RefSet>> indexes = new EnumMap<>(Field.class);
+
+  /** Type-ahead search over the values of the fields users search by name. */
+  private final Map<Field, ValueSearch> searches = new EnumMap<>(Field.class);
+
+  /** The fields whose values can be suggested. */
+  private static final Set<Field> SEARCHABLE = EnumSet.of(Field.INSTRUCTOR, Field.LOCATION);
+
+  /** Department numbers, and the department codes by number. */
+  private final Map<String, Integer> deptIds = new ConcurrentHashMap<>();
+  private volatile String[] deptCodes = new String[0];
+
+  /** Numbers of course IDs that are not plain numbers, and those IDs by number. */
+  private final Map<String, Integer> otherCourseIdNumbers = new ConcurrentHashMap<>();
+  private volatile String[] otherCourseIds = new String[0];
+
+  private volatile boolean complete;
+}
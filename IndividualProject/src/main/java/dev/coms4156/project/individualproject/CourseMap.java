@@ -0,0 +1,388 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The courses of a department, keyed by course ID. Course IDs that are plain numbers, which
+ * is almost all of them, are stored in an open-addressing table of primitive ints, so looking
+ * a course up by its int code neither boxes the code nor builds and hashes a string. Any
+ * other ID, such as {@code "ENG101"}, is kept in an ordinary map alongside.
+ *
+ * <p>The class is a {@code Map<String, Course>} so existing callers keep working. Iterators
+ * do not support {@code remove}; use {@link #remove(Object)} instead. The map is not
+ * thread-safe; published departments are never modified.
+ */
+public final class CourseMap extends AbstractMap<String, Course> implements Serializable {
+
+  /**
+   * Creates an empty map.
+   */
+  public CourseMap() {
+    this(0);
+  }
+
+  /**
+   * Creates an empty map sized for the given number of courses.
+   *
+   * @param expectedSize The number of courses expected.
+   */
+  public CourseMap(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * MAX_LOAD_NUMERATOR < expectedSize * MAX_LOAD_DENOMINATOR) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  /**
+   * Creates a map holding the same courses as another map.
+   *
+   * @param courses The courses to copy.
+   * @return The new map.
+   */
+  public static CourseMap copyOf(Map<String, Course> courses) {
+    if (courses instanceof CourseMap courseMap) {
+      return courseMap.copy();
+    }
+    CourseMap copy = new CourseMap(courses.size());
+    copy.putAll(courses);
+    return copy;
+  }
+
+  /**
+   * Creates a copy of this map that shares the course objects.
+   *
+   * @return The copy.
+   */
+  public CourseMap copy() {
+    CourseMap copy = new CourseMap();
+    copy.keys = keys.clone();
+    copy.values = values.clone();
+    copy.intSize = intSize;
+    copy.mask = mask;
+    copy.others = others == null ? null : new HashMap<>(others);
+    return copy;
+  }
+
+  /**
+   * Looks up a course by its int code.
+   *
+   * @param courseCode The course code.
+   * @return The course, or null if there is none.
+   */
+  public Course get(int courseCode) {
+    int slot = slotFor(courseCode);
+    while (values[slot] != null) {
+      if (keys[slot] == courseCode) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  @Override
+  public Course get(Object key) {
+    if (!(key instanceof String courseId)) {
+      return null;
+    }
+    int code = parseCode(courseId);
+    if (code != NOT_A_CODE || isCanonicalMinimum(courseId)) {
+      return get(code);
+    }
+    return others == null ? null : others.get(courseId);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null || (others != null && others.containsKey(key));
+  }
+
+  /**
+   * Adds or replaces a course under its int code.
+   *
+   * @param courseCode The course code.
+   * @param course     The course; must not be null.
+   * @return The course previously stored under the code, or null.
+   */
+  public Course put(int courseCode, Course course) {
+    if (course == null) {
+      throw new NullPointerException("Course must not be null.");
+    }
+    int slot = slotFor(courseCode);
+    while (values[slot] != null) {
+      if (keys[slot] == courseCode) {
+        Course previous = values[slot];
+        values[slot] = course;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = courseCode;
+    values[slot] = course;
+    intSize++;
+    if (intSize * MAX_LOAD_DENOMINATOR > values.length * MAX_LOAD_NUMERATOR) {
+      resize(values.length << 1);
+    }
+    return null;
+  }
+
+  @Override
+  public Course put(String courseId, Course course) {
+    int code = parseCode(courseId);
+    if (course != null && (code != NOT_A_CODE || isCanonicalMinimum(courseId))) {
+      return put(code, course);
+    }
+    if (others == null) {
+      others = new HashMap<>();
+    }
+    return others.put(courseId, course);
+  }
+
+  /**
+   * Calls an action for every course stored under an int code, passing the code without
+   * converting it to a string. Courses with other IDs are visited by {@link #forEachOther}.
+   *
+   * @param action Called with each course and its code.
+   */
+  public void forEachCode(ObjIntConsumer<Course> action) {
+    for (int slot = 0; slot < values.length; slot++) {
+      if (values[slot] != null) {
+        action.accept(values[slot], keys[slot]);
+      }
+    }
+  }
+
+  /**
+   * Calls an action for every course whose ID is not a plain int code.
+   *
+   * @param action Called with each course's ID and the course.
+   */
+  public void forEachOther(BiConsumer<String, Course> action) {
+    if (others != null) {
+      others.forEach(action);
+    }
+  }
+
+  @Override
+  public Course remove(Object key) {
+    if (!(key instanceof String courseId)) {
+      return null;
+    }
+    int code = parseCode(courseId);
+    if (code != NOT_A_CODE || isCanonicalMinimum(courseId)) {
+      Course removed = removeCode(code);
+      if (removed != null) {
+        return removed;
+      }
+    }
+    return others == null ? null : others.remove(courseId);
+  }
+
+  @Override
+  public int size() {
+    return intSize + (others == null ? 0 : others.size());
+  }
+
+  @Override
+  public void clear() {
+    allocate(MIN_CAPACITY);
+    others = null;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Course>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<String, Course>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return CourseMap.this.size();
+      }
+    };
+  }
+
+  private Course removeCode(int courseCode) {
+    int slot = slotFor(courseCode);
+    while (values[slot] != null) {
+      if (keys[slot] == courseCode) {
+        Course removed = values[slot];
+        shiftBack(slot);
+        intSize--;
+        return removed;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Closes the gap left at {@code gap} by moving later entries of the same probe run back,
+   * so lookups never need tombstones.
+   */
+  private void shiftBack(int gap) {
+    int slot = gap;
+    while (true) {
+      slot = (slot + 1) & mask;
+      if (values[slot] == null) {
+        break;
+      }
+      int home = slotFor(keys[slot]);
+      boolean movable = gap <= slot ? (home <= gap || home > slot) : (home <= gap && home > slot);
+      if (movable) {
+        keys[gap] = keys[slot];
+        values[gap] = values[slot];
+        gap = slot;
+      }
+    }
+    values[gap] = null;
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    Course[] oldValues = values;
+    int size = intSize;
+    allocate(capacity);
+    intSize = size;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = slotFor(oldKeys[i]);
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new Course[capacity];
+    mask = capacity - 1;
+    intSize = 0;
+  }
+
+  private int slotFor(int courseCode) {
+    int hash = courseCode * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * Parses a course ID written the way {@code Integer.toString} writes an int, without
+   * throwing for IDs that are not.
+   *
+   * @return The code, or {@link #NOT_A_CODE} if the ID is not a canonical int. The ID
+   *         {@code "-2147483648"} also yields that value; see {@link #isCanonicalMinimum}.
+   */
+  private static int parseCode(String courseId) {
+    int length = courseId.length();
+    if (length == 0 || length > 11) {
+      return NOT_A_CODE;
+    }
+    boolean negative = courseId.charAt(0) == '-';
+    int start = negative ? 1 : 0;
+    if (start == length || (courseId.charAt(start) == '0' && length > start + 1)
+            || (negative && courseId.charAt(start) == '0')) {
+      return NOT_A_CODE;
+    }
+    long value = 0;
+    for (int i = start; i < length; i++) {
+      char c = courseId.charAt(i);
+      if (c < '0' || c > '9') {
+        return NOT_A_CODE;
+      }
+      value = value * 10 + (c - '0');
+    }
+    value = negative ? -value : value;
+    return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? NOT_A_CODE : (int) value;
+  }
+
+  private static boolean isCanonicalMinimum(String courseId) {
+    return courseId.equals(MIN_VALUE_ID);
+  }
+
+  /**
+   * Stores the courses as a plain map, so serialized departments do not depend on this
+   * class.
+   */
+  @Serial
+  private Object writeReplace() {
+    return new HashMap<>(this);
+  }
+
+  /**
+   * Walks the int table in slot order, then the other IDs.
+   */
+  private final class EntryIterator implements Iterator<Map.Entry<String, Course>> {
+
+    @Override
+    public boolean hasNext() {
+      while (slot < values.length && values[slot] == null) {
+        slot++;
+      }
+      if (slot < values.length) {
+        return true;
+      }
+      if (othersIterator == null) {
+        othersIterator = others == null
+                ? Map.<String, Course>of().entrySet().iterator()
+                : others.entrySet().iterator();
+      }
+      return othersIterator.hasNext();
+    }
+
+    @Override
+    public Map.Entry<String, Course> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (slot < values.length) {
+        Map.Entry<String, Course> entry =
+                new SimpleImmutableEntry<>(Integer.toString(keys[slot]), values[slot]);
+        slot++;
+        return entry;
+      }
+      return othersIterator.next();
+    }
+
+    private int slot;
+    private Iterator<Map.Entry<String, Course>> othersIterator;
+  }
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  /** Marker returned by {@link #parseCode} for IDs that are not canonical ints. */
+  private static final int NOT_A_CODE = Integer.MIN_VALUE;
+
+  /** The one canonical ID whose code collides with {@link #NOT_A_CODE}. */
+  private static final String MIN_VALUE_ID = Integer.toString(Integer.MIN_VALUE);
+
+  private static final int MIN_CAPACITY = 8;
+
+  /** The int table is grown once it is more than two thirds full. */
+  private static final int MAX_LOAD_NUMERATOR = 2;
+  private static final int MAX_LOAD_DENOMINATOR = 3;
+
+  private int[] keys;
+  private Course[] values;
+  private int mask;
+  private int intSize;
+
+  /** Courses whose IDs are not canonical ints; null until one is added. */
+  private HashMap<String, Course> others;
+}
@@ -1,8 +1,11 @@
 package dev.coms4156.project.individualproject;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Represents a department within an educational institution.
@@ -15,18 +18,40 @@ public class Department implements Serializable {
    * Initializes a new instance of the Department class with the specified parameters.
    *
    * @param deptCode         The unique identifier of the department.
-   * @param courses          A map containing the courses offered by the department.
+   * @param courses          A map containing the courses offered by the department. A
+   *                         {@link CourseMap} is used as is; any other map is copied.
    * @param departmentChair  The name of the department's head.
    * @param numberOfMajors   The total number of students majoring in this department.
    */
   public Department(String deptCode, Map<String, Course> courses, String departmentChair,
                     int numberOfMajors) {
     this.deptCode = deptCode;
-    this.courses = courses;
+    this.courses = courses instanceof CourseMap ? courses : CourseMap.copyOf(courses);
     this.departmentChair = departmentChair;
     this.numberOfMajors = numberOfMajors;
   }
 
+  /**
+   * Creates a copy of the department with its own course map. The courses themselves are
+   * shared with the original.
+   *
+   * @return A new department with the same details and courses.
+   */
+  public Department copy() {
+    COPIES.increment();
+    return new Department(deptCode, ((CourseMap) courses).copy(), departmentChair,
+            numberOfMajors);
+  }
+
+  /**
+   * Retrieves the unique identifier of the department.
+   *
+   * @return The department code.
+   */
+  public String getDeptCode() {
+    return deptCode;
+  }
+
   /**
    * Retrieves the number of students majoring in the department.
    *
@@ -80,6 +105,17 @@ public class Department implements Serializable {
     courses.put(courseId, course);
   }
 
+  /**
+   * Looks up a course by its numeric code without converting the code to a string. Finds
+   * every course whose ID is the code as {@code Integer.toString} writes it.
+   *
+   * @param courseCode The course code.
+   * @return The course, or null if the department does not offer it.
+   */
+  public Course getCourse(int courseCode) {
+    return ((CourseMap) courses).get(courseCode);
+  }
+
   /**
    * Creates a new course and adds it to the department's course selection.
    *
@@ -113,8 +149,22 @@ public class Department implements Serializable {
     return result.toString();
   }
 
+  /**
+   * Restores a serialized department, whose courses were written as a plain map.
+   */
+  @Serial
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    courses = CourseMap.copyOf(courses);
+  }
+
   @Serial
   private static final long serialVersionUID = 198286L;
+
+  /** Counts copies made for updates, each of which copies the course map. */
+  private static final LongAdder COPIES = Metrics.counter("catalog.department.copies");
+
+  /** Always a {@link CourseMap}; declared as a map so serialized departments stay readable. */
   private Map<String, Course> courses;
   private String departmentChair;
   private String deptCode;
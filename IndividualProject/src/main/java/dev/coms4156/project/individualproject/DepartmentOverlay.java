@@ -0,0 +1,262 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The departments a {@link CatalogVersion} has replaced, as an immutable hash array mapped
+ * trie. Each node branches on five bits of the department code's hash, so replacing a
+ * department copies only the nodes on the path to it, a handful even for thousands of
+ * departments, and shares every other node with the overlay it was made from. Two overlays
+ * made from one another are compared the same way: subtrees they share are skipped without
+ * being visited.
+ *
+ * <p>Departments are only ever added or replaced, never removed, as an overlay only grows
+ * until its catalog version is rebased.
+ */
+public final class DepartmentOverlay {
+
+  /** The overlay with no departments. */
+  public static final DepartmentOverlay EMPTY = new DepartmentOverlay(Node.EMPTY, 0);
+
+  private DepartmentOverlay(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Gets a replaced department.
+   *
+   * @param deptCode The department code.
+   * @return The department, or null if it has not been replaced.
+   */
+  public Department get(Object deptCode) {
+    if (!(deptCode instanceof String code)) {
+      return null;
+    }
+    int hash = hash(code);
+    Node node = root;
+    for (int shift = 0; ; shift += BITS) {
+      Object slot = node.find(hash, shift, code);
+      if (slot instanceof Node child) {
+        node = child;
+      } else {
+        return slot == null ? null : ((Entry) slot).department;
+      }
+    }
+  }
+
+  /**
+   * Creates an overlay in which a department has been added or replaced. This overlay is
+   * not changed.
+   *
+   * @param deptCode   The department code.
+   * @param department The department.
+   * @return The new overlay.
+   */
+  public DepartmentOverlay with(String deptCode, Department department) {
+    int newSize = get(deptCode) == null ? size + 1 : size;
+    Entry entry = new Entry(deptCode, hash(deptCode), department);
+    return new DepartmentOverlay(root.with(entry, 0), newSize);
+  }
+
+  /**
+   * Gets the number of departments in the overlay.
+   *
+   * @return The size.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Adds the codes of the departments whose entries differ between this overlay and
+   * another one: those held by only one of them or held as different objects. Nodes the
+   * two share are skipped, so comparing an overlay with one it was made from takes time in
+   * proportion to the departments replaced in between.
+   *
+   * @param other   The overlay to compare with.
+   * @param changed Receives the department codes.
+   */
+  public void addChangesSince(DepartmentOverlay other, Set<String> changed) {
+    diff(root, other.root, 0, changed);
+  }
+
+  private static void diff(Node now, Node earlier, int shift, Set<String> changed) {
+    if (now == earlier) {
+      return;
+    }
+    if (shift >= Integer.SIZE) {
+      diffEntries(now, earlier, changed);
+      return;
+    }
+    int bits = now.bitmap | earlier.bitmap;
+    while (bits != 0) {
+      int bit = Integer.lowestOneBit(bits);
+      bits &= bits - 1;
+      Object current = now.slot(bit);
+      Object previous = earlier.slot(bit);
+      if (current == previous) {
+        continue;
+      }
+      if (current instanceof Node currentNode && previous instanceof Node previousNode) {
+        diff(currentNode, previousNode, shift + BITS, changed);
+      } else {
+        diffEntries(current, previous, changed);
+      }
+    }
+  }
+
+  /**
+   * Compares two subtrees entry by entry, for when they are not shaped alike.
+   */
+  private static void diffEntries(Object now, Object earlier, Set<String> changed) {
+    Map<String, Department> currentEntries = new HashMap<>();
+    Map<String, Department> previousEntries = new HashMap<>();
+    collect(now, currentEntries);
+    collect(earlier, previousEntries);
+    currentEntries.forEach((deptCode, department) -> {
+      if (previousEntries.get(deptCode) != department) {
+        changed.add(deptCode);
+      }
+    });
+    for (String deptCode : previousEntries.keySet()) {
+      if (!currentEntries.containsKey(deptCode)) {
+        changed.add(deptCode);
+      }
+    }
+  }
+
+  private static void collect(Object slot, Map<String, Department> into) {
+    if (slot instanceof Entry entry) {
+      into.put(entry.deptCode, entry.department);
+    } else if (slot instanceof Node node) {
+      for (Object child : node.slots) {
+        collect(child, into);
+      }
+    }
+  }
+
+  /**
+   * Spreads the higher bits of the hash downwards, as {@link HashMap} does, since the first
+   * levels of the trie branch on the lowest bits.
+   */
+  private static int hash(String deptCode) {
+    int h = deptCode.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * A department in the trie.
+   */
+  private static final class Entry {
+
+    Entry(String deptCode, int hash, Department department) {
+      this.deptCode = deptCode;
+      this.hash = hash;
+      this.department = department;
+    }
+
+    final String deptCode;
+    final int hash;
+    final Department department;
+  }
+
+  /**
+   * A node of the trie. Below the last level that still has hash bits to branch on, a node
+   * holds the entries whose hashes collide in a plain array and its bitmap is unused.
+   */
+  private static final class Node {
+
+    Node(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    /**
+     * Finds the slot on the path to a department code.
+     *
+     * @return The child node to continue in, the department's entry, or null if the code is
+     *         not held.
+     */
+    Object find(int hash, int shift, String deptCode) {
+      if (shift >= Integer.SIZE) {
+        for (Object slot : slots) {
+          if (((Entry) slot).deptCode.equals(deptCode)) {
+            return slot;
+          }
+        }
+        return null;
+      }
+      Object slot = slot(1 << ((hash >>> shift) & MASK));
+      if (slot instanceof Entry entry && !entry.deptCode.equals(deptCode)) {
+        return null;
+      }
+      return slot;
+    }
+
+    /**
+     * Gets the slot for a bit of the bitmap.
+     *
+     * @return The entry or child node, or null if the bit is not set.
+     */
+    Object slot(int bit) {
+      return (bitmap & bit) == 0 ? null : slots[Integer.bitCount(bitmap & (bit - 1))];
+    }
+
+    /**
+     * Creates a copy of this node in which an entry has been added or replaced.
+     */
+    Node with(Entry entry, int shift) {
+      if (shift >= Integer.SIZE) {
+        for (int i = 0; i < slots.length; i++) {
+          if (((Entry) slots[i]).deptCode.equals(entry.deptCode)) {
+            return new Node(0, replace(i, entry));
+          }
+        }
+        Object[] grown = Arrays.copyOf(slots, slots.length + 1);
+        grown[slots.length] = entry;
+        return new Node(0, grown);
+      }
+      int bit = 1 << ((entry.hash >>> shift) & MASK);
+      int index = Integer.bitCount(bitmap & (bit - 1));
+      if ((bitmap & bit) == 0) {
+        Object[] grown = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, grown, 0, index);
+        grown[index] = entry;
+        System.arraycopy(slots, index, grown, index + 1, slots.length - index);
+        return new Node(bitmap | bit, grown);
+      }
+      Object slot = slots[index];
+      if (slot instanceof Node child) {
+        return new Node(bitmap, replace(index, child.with(entry, shift + BITS)));
+      }
+      Entry existing = (Entry) slot;
+      if (existing.deptCode.equals(entry.deptCode)) {
+        return new Node(bitmap, replace(index, entry));
+      }
+      Node split = EMPTY.with(existing, shift + BITS).with(entry, shift + BITS);
+      return new Node(bitmap, replace(index, split));
+    }
+
+    private Object[] replace(int index, Object slot) {
+      Object[] copy = slots.clone();
+      copy[index] = slot;
+      return copy;
+    }
+
+    static final Node EMPTY = new Node(0, new Object[0]);
+
+    final int bitmap;
+    final Object[] slots;
+  }
+
+  /** Hash bits each level of the trie branches on. */
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private final Node root;
+  private final int size;
+}
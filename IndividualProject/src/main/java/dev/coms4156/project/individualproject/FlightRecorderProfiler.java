@@ -0,0 +1,406 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Runs time-boxed Java Flight Recorder sessions on the running application and summarizes
+ * them, so hot methods, allocations, slow routes and lock waits can be diagnosed in
+ * production without attaching a profiler.
+ *
+ * <p>Recordings use the JDK's {@code default} settings, which are meant for continuous use
+ * in production, plus the application's own {@link ProfilingEvents}. Only one recording runs
+ * at a time, its length is capped at {@link #MAX_DURATION_SECONDS} and its size at
+ * {@link #MAX_RECORDING_BYTES}, and the recorder stops it by itself when its time is up.
+ * Only the file of the last recording is kept, and its report is computed once, in one
+ * pass over the file.
+ */
+public class FlightRecorderProfiler {
+
+  /**
+   * Starts a recording, replacing the last finished one.
+   *
+   * @param seconds How long to record for, at most {@link #MAX_DURATION_SECONDS}.
+   * @return The status of the new recording, as from {@link #getStatus()}.
+   * @throws IllegalArgumentException if {@code seconds} is out of range.
+   * @throws IllegalStateException    if a recording is already running.
+   * @throws IOException              if the recording settings cannot be read.
+   * @throws ParseException           if the recording settings cannot be parsed.
+   */
+  public synchronized Map<String, Object> start(int seconds)
+          throws IOException, ParseException {
+    if (seconds < 1 || seconds > MAX_DURATION_SECONDS) {
+      throw new IllegalArgumentException(
+              "Duration must be between 1 and " + MAX_DURATION_SECONDS + " seconds");
+    }
+    if (isRunning()) {
+      throw new IllegalStateException("A recording is already running");
+    }
+    discard();
+    Recording newRecording = new Recording(Configuration.getConfiguration(SETTINGS));
+    newRecording.setName("course-api-profile");
+    newRecording.setToDisk(true);
+    newRecording.setDuration(Duration.ofSeconds(seconds));
+    newRecording.setMaxSize(MAX_RECORDING_BYTES);
+    newRecording.start();
+    recording = newRecording;
+    requestedSeconds = seconds;
+    return getStatus();
+  }
+
+  /**
+   * Stops the running recording early.
+   *
+   * @return true if a recording was running.
+   * @throws IOException if the recording cannot be written.
+   */
+  public synchronized boolean stop() throws IOException {
+    if (!isRunning()) {
+      return false;
+    }
+    recording.stop();
+    finish();
+    return true;
+  }
+
+  /**
+   * Reports the state of the last recording.
+   *
+   * @return The state ({@code running} or {@code finished}), start time, requested length
+   *         and, once finished, the recorded length and file size; or null if no recording
+   *         has been started.
+   * @throws IOException if a recording that just finished cannot be written.
+   */
+  public synchronized Map<String, Object> getStatus() throws IOException {
+    if (recording == null) {
+      return null;
+    }
+    finish();
+    Map<String, Object> status = new LinkedHashMap<>();
+    boolean running = isRunning();
+    status.put("state", running ? "running" : "finished");
+    Instant startTime = recording.getStartTime();
+    status.put("startTime", startTime == null ? null : startTime.toString());
+    status.put("requestedSeconds", requestedSeconds);
+    if (running) {
+      long elapsed = Duration.between(startTime, Instant.now()).toSeconds();
+      status.put("remainingSeconds", Math.max(0, requestedSeconds - elapsed));
+    } else {
+      Instant stopTime = recording.getStopTime();
+      status.put("recordedSeconds", startTime == null || stopTime == null ? 0
+              : Duration.between(startTime, stopTime).toMillis() / 1000.0);
+      status.put("bytes", file == null ? 0 : Files.size(file));
+    }
+    return status;
+  }
+
+  /**
+   * Gets the file of the last finished recording, which can be opened in JDK Mission
+   * Control or with the {@code jfr} tool.
+   *
+   * @return The recording file, or null if no recording has finished.
+   * @throws IOException if a recording that just finished cannot be written.
+   */
+  public synchronized Path getRecordingFile() throws IOException {
+    if (recording == null) {
+      return null;
+    }
+    finish();
+    return file;
+  }
+
+  /**
+   * Summarizes the last finished recording. Methods are named by class and method name.
+   * "Application" methods are the innermost frames in this application's classes, which
+   * attribute time and allocations spent in libraries to the code that called them. The
+   * request filter is skipped, since it encloses every handler and would otherwise be
+   * charged for all the work of the web framework, and the profiler's own work is left out.
+   *
+   * @return The recording's status, its hottest methods by CPU samples, the classes and
+   *         methods allocating the most, latencies per route in microseconds and the slowest
+   *         requests, snapshot saves and loads, department lock waits per stripe and garbage
+   *         collection pauses; or null if no recording has finished.
+   * @throws IOException if the recording cannot be read.
+   */
+  public synchronized Map<String, Object> getReport() throws IOException {
+    Path recordingFile = getRecordingFile();
+    if (recordingFile == null) {
+      return null;
+    }
+    if (report == null) {
+      Map<String, Object> summary = new LinkedHashMap<>();
+      summary.put("recording", getStatus());
+      summary.putAll(summarize(recordingFile));
+      report = summary;
+    }
+    return report;
+  }
+
+  /**
+   * Stops any running recording and deletes the last recording file.
+   */
+  public synchronized void close() {
+    discard();
+  }
+
+  /**
+   * Reads a recording file and aggregates its events.
+   *
+   * @param recordingFile The file.
+   * @return The parts of the report taken from the events.
+   * @throws IOException if the file cannot be read.
+   */
+  static Map<String, Object> summarize(Path recordingFile) throws IOException {
+    Map<String, Long> selfSamples = new HashMap<>();
+    Map<String, Long> applicationSamples = new HashMap<>();
+    Map<String, Long> allocatedByClass = new HashMap<>();
+    Map<String, Long> allocatedByMethod = new HashMap<>();
+    Map<String, Histogram> routes = new TreeMap<>();
+    Map<String, Histogram> snapshots = new TreeMap<>();
+    Map<String, Histogram> lockWaits = new TreeMap<>();
+    PriorityQueue<RecordedEvent> slowest = new PriorityQueue<>(
+            Comparator.comparing(RecordedEvent::getDuration));
+    long samples = 0;
+    long allocated = 0;
+    long collections = 0;
+    long pauseMicros = 0;
+    long longestPauseMicros = 0;
+
+    try (RecordingFile events = new RecordingFile(recordingFile)) {
+      while (events.hasMoreEvents()) {
+        RecordedEvent event = events.readEvent();
+        switch (event.getEventType().getName()) {
+          case "jdk.ExecutionSample" -> {
+            samples++;
+            countFrames(event.getStackTrace(), 1, selfSamples, applicationSamples);
+          }
+          case "jdk.ObjectAllocationSample" -> {
+            long weight = event.getLong("weight");
+            allocated += weight;
+            allocatedByClass.merge(event.getClass("objectClass").getName(), weight, Long::sum);
+            countFrames(event.getStackTrace(), weight, null, allocatedByMethod);
+          }
+          case "jdk.GarbageCollection" -> {
+            collections++;
+            pauseMicros += toMicros(event.getDuration("sumOfPauses"));
+            longestPauseMicros = Math.max(longestPauseMicros,
+                    toMicros(event.getDuration("longestPause")));
+          }
+          case ProfilingEvents.PREFIX + "Request" -> {
+            histogramFor(routes, event.getString("route")).record(toMicros(event.getDuration()));
+            slowest.add(event);
+            if (slowest.size() > TOP_ENTRIES) {
+              slowest.poll();
+            }
+          }
+          case ProfilingEvents.PREFIX + "Snapshot" -> histogramFor(snapshots,
+                  event.getString("operation")).record(toMicros(event.getDuration()));
+          case ProfilingEvents.PREFIX + "LockWait" -> histogramFor(lockWaits,
+                  String.valueOf(event.getInt("stripe"))).record(toMicros(event.getDuration()));
+          default -> {
+          }
+        }
+      }
+    }
+
+    List<Map<String, Object>> slowRequests = new ArrayList<>();
+    while (!slowest.isEmpty()) {
+      RecordedEvent event = slowest.poll();
+      Map<String, Object> request = new LinkedHashMap<>();
+      request.put("route", event.getString("route"));
+      request.put("handler", event.getString("handler"));
+      request.put("status", event.getInt("status"));
+      request.put("micros", toMicros(event.getDuration()));
+      request.put("startTime", event.getStartTime().toString());
+      request.put("thread", event.getThread() == null ? null
+              : event.getThread().getJavaName());
+      slowRequests.add(0, request);
+    }
+    Map<String, Object> gc = new LinkedHashMap<>();
+    gc.put("collections", collections);
+    gc.put("totalPauseMicros", pauseMicros);
+    gc.put("longestPauseMicros", longestPauseMicros);
+
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("cpuSamples", samples);
+    summary.put("hotMethods", top(selfSamples, samples, "samples"));
+    summary.put("hotApplicationMethods", top(applicationSamples, samples, "samples"));
+    summary.put("allocatedBytes", allocated);
+    summary.put("allocationsByClass", top(allocatedByClass, allocated, "bytes"));
+    summary.put("allocationsByApplicationMethod", top(allocatedByMethod, allocated, "bytes"));
+    summary.put("requests", toMaps(routes));
+    summary.put("slowestRequests", slowRequests);
+    summary.put("snapshots", toMaps(snapshots));
+    summary.put("lockWaits", toMaps(lockWaits));
+    summary.put("gc", gc);
+    return summary;
+  }
+
+  /**
+   * Attributes a weight to the top frame of a stack trace and to its innermost frame in
+   * this application's classes, other than the request filter. Samples taken inside the
+   * profiler are its own work and are not counted.
+   *
+   * @param stackTrace  The stack trace, or null if none was recorded.
+   * @param weight      The weight to add.
+   * @param self        Totals by top frame, or null to skip them.
+   * @param application Totals by innermost application frame.
+   */
+  private static void countFrames(RecordedStackTrace stackTrace, long weight,
+                                  Map<String, Long> self, Map<String, Long> application) {
+    if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+      return;
+    }
+    List<RecordedFrame> frames = stackTrace.getFrames();
+    String attributed = null;
+    for (RecordedFrame frame : frames) {
+      String type = frame.getMethod().getType().getName();
+      if (type.equals(PROFILER_TYPE)) {
+        return;
+      }
+      if (attributed == null && frame.isJavaFrame() && type.startsWith(APPLICATION_PACKAGE)
+              && !type.equals(FILTER_TYPE)) {
+        attributed = methodName(frame);
+      }
+    }
+    if (self != null) {
+      self.merge(methodName(frames.get(0)), weight, Long::sum);
+    }
+    if (attributed != null) {
+      application.merge(attributed, weight, Long::sum);
+    }
+  }
+
+  private static String methodName(RecordedFrame frame) {
+    return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+  }
+
+  /**
+   * Lists the largest totals, largest first.
+   *
+   * @param totals The totals by name.
+   * @param sum    The sum of all totals, for percentages.
+   * @param unit   The key under which each total is reported.
+   * @return Up to {@link #TOP_ENTRIES} entries holding a name, total and percentage.
+   */
+  private static List<Map<String, Object>> top(Map<String, Long> totals, long sum,
+                                               String unit) {
+    List<Map<String, Object>> entries = new ArrayList<>();
+    totals.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(TOP_ENTRIES)
+            .forEach(total -> {
+              Map<String, Object> entry = new LinkedHashMap<>();
+              entry.put("name", total.getKey());
+              entry.put(unit, total.getValue());
+              entry.put("percent", Math.round(total.getValue() * 1000.0 / sum) / 10.0);
+              entries.add(entry);
+            });
+    return entries;
+  }
+
+  private static Histogram histogramFor(Map<String, Histogram> histograms, String name) {
+    return histograms.computeIfAbsent(name, n -> new Histogram());
+  }
+
+  private static Map<String, Object> toMaps(Map<String, Histogram> histograms) {
+    Map<String, Object> maps = new TreeMap<>();
+    histograms.forEach((name, histogram) -> maps.put(name, histogram.toMap()));
+    return maps;
+  }
+
+  private static long toMicros(Duration duration) {
+    return TimeUnit.NANOSECONDS.toMicros(duration.toNanos());
+  }
+
+  private boolean isRunning() {
+    return recording != null && (recording.getState() == RecordingState.NEW
+            || recording.getState() == RecordingState.DELAYED
+            || recording.getState() == RecordingState.RUNNING);
+  }
+
+  /**
+   * Writes a recording that has stopped, by itself or through {@link #stop()}, to its file
+   * and releases the recorder's copy of it.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  private void finish() throws IOException {
+    if (file != null || recording.getState() != RecordingState.STOPPED) {
+      return;
+    }
+    Path recordingFile = Files.createTempFile("profile", ".jfr");
+    try {
+      recording.dump(recordingFile);
+    } catch (IOException e) {
+      Files.deleteIfExists(recordingFile);
+      throw e;
+    }
+    recording.close();
+    recordingFile.toFile().deleteOnExit();
+    file = recordingFile;
+  }
+
+  /**
+   * Stops and forgets the last recording and deletes its file.
+   */
+  private void discard() {
+    if (recording != null) {
+      recording.close();
+    }
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        System.err.println("An error occurred while deleting a recording: " + e.getMessage());
+      }
+    }
+    recording = null;
+    file = null;
+    report = null;
+  }
+
+  /** Longest recording that can be requested. */
+  public static final int MAX_DURATION_SECONDS = 300;
+
+  /** Size at which the recorder starts dropping the oldest data of a recording. */
+  static final long MAX_RECORDING_BYTES = 100L * 1024 * 1024;
+
+  /** Name of the JDK settings used for recordings. */
+  private static final String SETTINGS = "default";
+
+  /** Number of entries in each list of the report. */
+  private static final int TOP_ENTRIES = 20;
+
+  private static final String APPLICATION_PACKAGE =
+          FlightRecorderProfiler.class.getPackageName() + ".";
+
+  private static final String FILTER_TYPE = RequestMetricsFilter.class.getName();
+
+  private static final String PROFILER_TYPE = FlightRecorderProfiler.class.getName();
+
+  private Recording recording;
+  private int requestedSeconds;
+  private Path file;
+  private Map<String, Object> report;
+}
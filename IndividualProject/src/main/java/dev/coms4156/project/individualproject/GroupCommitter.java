@@ -0,0 +1,281 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Batches the fsyncs of concurrent journal writers so that a single fsync makes a whole
+ * group of mutations durable. Each writer appends its frame on its own thread, so it knows
+ * whether the frame was written before it publishes anything, and then waits on the
+ * returned future; one flusher thread collects up to {@code maxBatchSize} pending
+ * submissions, waiting at most {@code maxWaitMicros} for the batch to fill, syncs the
+ * journal once and then completes every future in the batch.
+ *
+ * <p>A failed sync leaves it unknown which of the written frames reached the disk, and a
+ * later sync that appears to succeed does not settle it. The committer therefore stops at
+ * the first failure: that batch and every later submission fail, until a restart replays
+ * whatever the journal holds.
+ */
+public class GroupCommitter {
+
+  /**
+   * Creates a group committer in front of the given journal. The flusher thread is started
+   * on the first submission.
+   *
+   * @param journal       The journal to write to.
+   * @param maxBatchSize  The maximum number of submissions made durable per fsync.
+   * @param maxWaitMicros How long to wait for more submissions once a batch has started.
+   */
+  public GroupCommitter(MutationJournal journal, int maxBatchSize, long maxWaitMicros) {
+    if (maxBatchSize < 1 || maxWaitMicros < 0) {
+      throw new IllegalArgumentException("Batch size must be positive and wait non-negative.");
+    }
+    this.journal = journal;
+    this.maxBatchSize = maxBatchSize;
+    this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+  }
+
+  /**
+   * Appends records to the journal as one frame on the calling thread and queues the frame
+   * to be synced. When this returns, the frame has been written, though it may not be
+   * durable yet; when it throws, nothing has been written.
+   *
+   * @param records The records to append.
+   * @return A future that completes with the frame's LSN once it is durable, or
+   *         exceptionally if the journal cannot be synced.
+   * @throws UncheckedIOException if the frame cannot be encoded or written, or if an
+   *         earlier sync failed, in which case nothing is written.
+   * @throws IllegalStateException if the committer has been closed.
+   */
+  public CompletableFuture<Long> submit(List<JournalRecord> records) {
+    long start = System.nanoTime();
+    closeLock.readLock().lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("The journal has been closed.");
+      }
+      IOException failure = syncFailure;
+      if (failure != null) {
+        throw new UncheckedIOException("The journal could not be synced earlier", failure);
+      }
+      long lsn;
+      try {
+        lsn = records.isEmpty() ? journal.getLastLsn() : journal.append(records);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to append to the journal", e);
+      }
+      startFlusher();
+      Pending pending = new Pending(lsn, start);
+      queue.add(pending);
+      return pending.future;
+    } finally {
+      closeLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Queues an empty submission that completes once everything appended before it has been
+   * synced.
+   *
+   * @return A future that completes with the last LSN written before the barrier.
+   * @throws IllegalStateException if the committer has been closed.
+   */
+  public CompletableFuture<Long> barrier() {
+    return submit(List.of());
+  }
+
+  /**
+   * Stops accepting submissions, waits for everything already queued to become durable and
+   * then stops the flusher thread.
+   */
+  public void close() {
+    Thread toJoin;
+    closeLock.writeLock().lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      toJoin = flusher;
+      queue.add(POISON);
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+    if (toJoin != null) {
+      try {
+        toJoin.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Summarizes batch sizes and latencies so the batching settings can be tuned.
+   *
+   * @return A map of histogram summaries keyed by metric name.
+   */
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("maxBatchSize", maxBatchSize);
+    stats.put("maxWaitMicros", TimeUnit.NANOSECONDS.toMicros(maxWaitNanos));
+    stats.put("batchSize", batchSizes.toMap());
+    stats.put("flushLatencyMicros", flushLatencyMicros.toMap());
+    stats.put("commitLatencyMicros", commitLatencyMicros.toMap());
+    return stats;
+  }
+
+  private void runFlusher() {
+    List<Pending> batch = new ArrayList<>(maxBatchSize);
+    boolean running = true;
+    while (running) {
+      try {
+        running = collectBatch(batch);
+      } catch (InterruptedException e) {
+        running = false;
+      }
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Blocks for the first submission and then gathers more until the batch is full or the
+   * wait time has passed.
+   *
+   * @return false once the committer has been closed and the queue is drained.
+   */
+  private boolean collectBatch(List<Pending> batch) throws InterruptedException {
+    Pending first = queue.take();
+    if (first == POISON) {
+      return false;
+    }
+    batch.add(first);
+    long deadline = System.nanoTime() + maxWaitNanos;
+    while (batch.size() < maxBatchSize) {
+      Pending next = queue.poll();
+      if (next == null) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          break;
+        }
+        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (next == null) {
+          break;
+        }
+      }
+      if (next == POISON) {
+        return false;
+      }
+      batch.add(next);
+    }
+    return true;
+  }
+
+  /**
+   * Starts the flusher thread unless it is running.
+   */
+  private void startFlusher() {
+    if (flusher == null) {
+      synchronized (this) {
+        if (flusher == null) {
+          Thread thread = new Thread(this::runFlusher, "journal-flusher");
+          thread.setDaemon(true);
+          thread.start();
+          flusher = thread;
+        }
+      }
+    }
+  }
+
+  /**
+   * Syncs the journal once for a batch. Every frame of the batch was written before it was
+   * queued, so one sync makes all of them durable; if the sync fails, or an earlier one
+   * did, none of them is known to be, and every submission fails.
+   */
+  private void flush(List<Pending> batch) {
+    long start = System.nanoTime();
+    IOException failure = sync();
+    if (failure != null) {
+      for (Pending pending : batch) {
+        pending.future.completeExceptionally(failure);
+      }
+      return;
+    }
+    long end = System.nanoTime();
+    batchSizes.record(batch.size());
+    flushLatencyMicros.record(TimeUnit.NANOSECONDS.toMicros(end - start));
+    for (Pending pending : batch) {
+      commitLatencyMicros.record(TimeUnit.NANOSECONDS.toMicros(end - pending.submittedAt));
+      pending.future.complete(pending.lsn);
+    }
+  }
+
+  /**
+   * Syncs the journal unless an earlier sync failed, remembering the first failure.
+   *
+   * @return The failure, or null if the journal was synced.
+   */
+  private IOException sync() {
+    if (syncFailure == null) {
+      try {
+        journal.sync();
+      } catch (IOException e) {
+        syncFailure = e;
+      } catch (RuntimeException e) {
+        syncFailure = new IOException("The journal could not be synced", e);
+      }
+    }
+    return syncFailure;
+  }
+
+  /**
+   * A written frame waiting to be made durable.
+   */
+  private static final class Pending {
+
+    Pending(long lsn, long submittedAt) {
+      this.lsn = lsn;
+      this.submittedAt = submittedAt;
+    }
+
+    final long lsn;
+    final long submittedAt;
+    final CompletableFuture<Long> future = new CompletableFuture<>();
+  }
+
+  /** Marker queued by {@link #close()} to stop the flusher once the queue is drained. */
+  private static final Pending POISON = new Pending(0, 0);
+
+  private final MutationJournal journal;
+  private final int maxBatchSize;
+  private final long maxWaitNanos;
+  private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+  private final Histogram batchSizes = new Histogram();
+  private final Histogram flushLatencyMicros = new Histogram();
+  private final Histogram commitLatencyMicros = new Histogram();
+  private volatile Thread flusher;
+
+  /** The first failed sync, after which nothing more is written or synced. */
+  private volatile IOException syncFailure;
+
+  /**
+   * Held to read {@link #closed} while appending and queueing, and to set it, so that no
+   * frame is queued after the flusher has been told to stop. Not a monitor, since appends
+   * write to the journal file.
+   */
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+  private boolean closed;
+}
@@ -0,0 +1,115 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values using power-of-two buckets. Recording a
+ * value costs a few atomic increments, so it is cheap enough to call on every request.
+ * Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class Histogram {
+
+  /**
+   * Records a single value. Negative values are counted as zero.
+   *
+   * @param value The value to record.
+   */
+  public void record(long value) {
+    long clamped = Math.max(0, value);
+    buckets.incrementAndGet(bucketOf(clamped));
+    count.increment();
+    sum.add(clamped);
+    max.accumulate(clamped);
+  }
+
+  /**
+   * Gets the number of recorded values.
+   *
+   * @return The count of values.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Gets the mean of the recorded values.
+   *
+   * @return The mean, or 0 if nothing has been recorded.
+   */
+  public double getMean() {
+    long n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Gets the largest recorded value.
+   *
+   * @return The maximum, or 0 if nothing has been recorded.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Estimates the value below which the given fraction of recorded values fall.
+   *
+   * @param quantile The quantile to compute, between 0 and 1.
+   * @return The upper bound of the bucket containing the quantile.
+   */
+  public long getPercentile(double quantile) {
+    long total = 0;
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = buckets.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= Math.max(1, rank)) {
+        return Math.min(upperBoundOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Summarizes the histogram in a form that can be rendered as JSON.
+   *
+   * @return A map holding the count, mean, max and common percentiles.
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("count", getCount());
+    summary.put("mean", getMean());
+    summary.put("p50", getPercentile(0.50));
+    summary.put("p90", getPercentile(0.90));
+    summary.put("p99", getPercentile(0.99));
+    summary.put("max", getMax());
+    return summary;
+  }
+
+  private static int bucketOf(long value) {
+    return value == 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+  }
+
+  private static long upperBoundOf(int bucket) {
+    return bucket == 0 ? 0 : bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  /** Number of buckets; bucket {@code i} holds values in {@code [2^(i-1), 2^i)}. */
+  private static final int BUCKETS = 65;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+}
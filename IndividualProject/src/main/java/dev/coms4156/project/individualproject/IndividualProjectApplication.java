@@ -1,16 +1,23 @@
 package dev.coms4156.project.individualproject;
 
 import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
 
 /**
  * The main class for the application, handling startup and shutdown logic.
  */
 @SpringBootApplication
+@EnableScheduling
 public class IndividualProjectApplication implements CommandLineRunner {
   /**
    * Launches the application and calls the overridden run method.
@@ -29,16 +36,82 @@ public class IndividualProjectApplication implements CommandLineRunner {
   public void run(String[] args) {
     for (String arg : args) {
       if ("setup".equals(arg)) {
-        myFileDatabase = new MyFileDatabase(1, "./data.txt");
+        myFileDatabase = new MyFileDatabase(1, dataFile);
+        myFileDatabase.configureGroupCommit(groupCommitBatchSize, groupCommitWaitMicros);
         resetDataFile();
+        myFileDatabase.saveContentsToFile();
         System.out.println("System Setup");
         return;
       }
     }
-    myFileDatabase = new MyFileDatabase(0, "./data.txt");
+    myFileDatabase = new MyFileDatabase(0, dataFile);
+    myFileDatabase.configureGroupCommit(groupCommitBatchSize, groupCommitWaitMicros);
+    // Spring passes its own --name=value options through as well; they are not commands.
+    String[] command = Arrays.stream(args).filter(arg -> !arg.startsWith("--"))
+            .toArray(String[]::new);
+    if (command.length >= 2 && "ingest".equals(command[0])) {
+      ingestFile(command[1], command.length >= 3 ? command[2] : null);
+    } else if (command.length >= 3 && "generate".equals(command[0])) {
+      try {
+        generateCatalog(Integer.parseInt(command[1]), Integer.parseInt(command[2]),
+                command.length >= 4 ? Long.parseLong(command[3]) : DEFAULT_GENERATOR_SEED);
+      } catch (IllegalArgumentException e) {
+        System.err.println("Usage: generate <departments> <coursesPerDepartment> [seed]");
+      }
+    }
     System.out.println("Start up");
   }
 
+  /**
+   * Replaces the catalog with the contents of a CSV or NDJSON file, as requested by the
+   * {@code ingest <file> [csv|ndjson]} command line arguments. The catalog is left unchanged
+   * if the file cannot be read or has invalid rows.
+   *
+   * @param fileName The file to load.
+   * @param format   {@code csv} or {@code ndjson}, or null to go by the file's extension.
+   */
+  public void ingestFile(String fileName, String format) {
+    CatalogIngester.Format ingestFormat = format != null
+            ? CatalogIngester.Format.fromName(format)
+            : CatalogIngester.Format.fromFileName(fileName);
+    if (ingestFormat == null) {
+      System.err.println("Cannot tell the format of " + fileName + "; pass csv or ndjson.");
+      return;
+    }
+    try {
+      CatalogIngester.Result result = new CatalogIngester(ingestFormat)
+              .ingestInto(Path.of(fileName), myFileDatabase, false);
+      System.out.println("Ingest of " + fileName + ": " + result.toStats());
+    } catch (IOException e) {
+      System.err.println("Failed to ingest " + fileName + ": " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Replaces the catalog with a generated one, as requested by the
+   * {@code generate <departments> <coursesPerDepartment> [seed]} command line arguments.
+   *
+   * @param departments          The number of departments.
+   * @param coursesPerDepartment The number of courses in each department.
+   * @param seed                 The seed of the generated catalog.
+   * @throws IllegalArgumentException if either count is negative.
+   */
+  public void generateCatalog(int departments, int coursesPerDepartment, long seed) {
+    long start = System.nanoTime();
+    try {
+      new CatalogGenerator(seed).generateInto(myFileDatabase, departments,
+              coursesPerDepartment);
+    } catch (IOException e) {
+      System.err.println("Failed to save the generated catalog: " + e.getMessage());
+      e.printStackTrace();
+      return;
+    }
+    System.out.println("Generated " + departments + " departments of " + coursesPerDepartment
+            + " courses with seed " + seed + " in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms.");
+  }
+
   /**
    * Overrides the database instance for testing purposes.
    *
@@ -273,6 +346,17 @@ public class IndividualProjectApplication implements CommandLineRunner {
     myFileDatabase.setMapping(mapping);
   }
 
+  /**
+   * Periodically releases departments loaded from the memory-mapped snapshot that have
+   * not been used recently, leaving their data in the OS page cache instead of the heap.
+   */
+  @Scheduled(fixedDelayString = "${catalog.release-check-interval-ms:60000}")
+  public void releaseColdDepartments() {
+    if (myFileDatabase != null) {
+      myFileDatabase.releaseColdDepartments(coldDepartmentIdleMillis);
+    }
+  }
+
   /**
    * Performs cleanup tasks during application shutdown,
    * saving data if necessary.
@@ -283,7 +367,30 @@ public class IndividualProjectApplication implements CommandLineRunner {
     if (saveData) {
       myFileDatabase.saveContentsToFile();
     }
+    if (myFileDatabase != null) {
+      myFileDatabase.close();
+    }
   }
+
+  /** Seed used by the {@code generate} command when none is given. */
+  static final long DEFAULT_GENERATOR_SEED = 4156;
+
+  /** Snapshot file the catalog is loaded from and saved to; its journal sits beside it. */
+  @Value("${catalog.file:./data.txt}")
+  private String dataFile = "./data.txt";
+
+  /** Maximum number of journaled mutations made durable by a single fsync. */
+  @Value("${journal.group-commit.max-batch-size:256}")
+  private int groupCommitBatchSize = MyFileDatabase.DEFAULT_MAX_BATCH_SIZE;
+
+  /** Time the journal flusher waits for a batch to fill, in microseconds. */
+  @Value("${journal.group-commit.max-wait-micros:200}")
+  private long groupCommitWaitMicros = MyFileDatabase.DEFAULT_MAX_WAIT_MICROS;
+
+  /** Time a department may go unused before it is released back to the mapped snapshot. */
+  @Value("${catalog.release-cold-after-ms:300000}")
+  private long coldDepartmentIdleMillis = 300_000;
+
   // Static instance of the database.
 
   public static MyFileDatabase myFileDatabase;
@@ -0,0 +1,287 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Represents a single mutation of the department mapping as it is stored in the
+ * {@link MutationJournal}. Each record names the operation, the department and course
+ * it targets, and the new value where the operation carries one.
+ */
+public final class JournalRecord {
+
+  /**
+   * The kinds of mutations that can be journaled. The codes are part of the on-disk
+   * format and must never be reused for a different operation.
+   */
+  public enum Operation {
+    ADD_MAJOR(1),
+    REMOVE_MAJOR(2),
+    DROP_STUDENT(3),
+    SET_ENROLLMENT_COUNT(4),
+    CHANGE_TIME(5),
+    CHANGE_TEACHER(6),
+    CHANGE_LOCATION(7),
+    ENROLL_STUDENT(8);
+
+    private final int code;
+
+    Operation(int code) {
+      this.code = code;
+    }
+
+    /**
+     * Finds the operation stored under the given code.
+     *
+     * @param code The code read from the journal.
+     * @return The matching operation.
+     * @throws IOException if no operation uses the code.
+     */
+    static Operation fromCode(int code) throws IOException {
+      for (Operation operation : values()) {
+        if (operation.code == code) {
+          return operation;
+        }
+      }
+      throw new IOException("Unknown journal operation code: " + code);
+    }
+  }
+
+  /**
+   * Creates a record. Department codes are upper-cased here, the way the routes look
+   * departments up, so a record names its department exactly as the catalog keys it
+   * whichever case the caller used.
+   */
+  private JournalRecord(Operation operation, String deptCode, int courseCode, int count,
+                        String value) {
+    this.operation = operation;
+    this.deptCode = deptCode == null ? null : deptCode.toUpperCase(Locale.ROOT);
+    this.courseCode = courseCode;
+    this.count = count;
+    this.value = value;
+  }
+
+  /**
+   * Creates a record for a student added to a department's majors.
+   *
+   * @param deptCode The department code.
+   * @return The new record.
+   */
+  public static JournalRecord addMajor(String deptCode) {
+    return new JournalRecord(Operation.ADD_MAJOR, deptCode, NO_COURSE, 0, null);
+  }
+
+  /**
+   * Creates a record for a student removed from a department's majors.
+   *
+   * @param deptCode The department code.
+   * @return The new record.
+   */
+  public static JournalRecord removeMajor(String deptCode) {
+    return new JournalRecord(Operation.REMOVE_MAJOR, deptCode, NO_COURSE, 0, null);
+  }
+
+  /**
+   * Creates a record for a student dropped from a course.
+   *
+   * @param deptCode   The department code.
+   * @param courseCode The course code.
+   * @return The new record.
+   */
+  public static JournalRecord dropStudent(String deptCode, int courseCode) {
+    return new JournalRecord(Operation.DROP_STUDENT, deptCode, courseCode, 0, null);
+  }
+
+  /**
+   * Creates a record for a student enrolled in a course.
+   *
+   * @param deptCode   The department code.
+   * @param courseCode The course code.
+   * @return The new record.
+   */
+  public static JournalRecord enrollStudent(String deptCode, int courseCode) {
+    return new JournalRecord(Operation.ENROLL_STUDENT, deptCode, courseCode, 0, null);
+  }
+
+  /**
+   * Creates a record for an enrollment count being overwritten.
+   *
+   * @param deptCode   The department code.
+   * @param courseCode The course code.
+   * @param count      The new enrollment count.
+   * @return The new record.
+   */
+  public static JournalRecord setEnrollmentCount(String deptCode, int courseCode, int count) {
+    return new JournalRecord(Operation.SET_ENROLLMENT_COUNT, deptCode, courseCode, count, null);
+  }
+
+  /**
+   * Creates a record for a course moving to a new time slot.
+   *
+   * @param deptCode   The department code.
+   * @param courseCode The course code.
+   * @param time       The new time slot.
+   * @return The new record.
+   */
+  public static JournalRecord changeTime(String deptCode, int courseCode, String time) {
+    return new JournalRecord(Operation.CHANGE_TIME, deptCode, courseCode, 0, time);
+  }
+
+  /**
+   * Creates a record for a course being assigned a new instructor.
+   *
+   * @param deptCode   The department code.
+   * @param courseCode The course code.
+   * @param teacher    The new instructor.
+   * @return The new record.
+   */
+  public static JournalRecord changeTeacher(String deptCode, int courseCode, String teacher) {
+    return new JournalRecord(Operation.CHANGE_TEACHER, deptCode, courseCode, 0, teacher);
+  }
+
+  /**
+   * Creates a record for a course moving to a new location.
+   *
+   * @param deptCode   The department code.
+   * @param courseCode The course code.
+   * @param location   The new location.
+   * @return The new record.
+   */
+  public static JournalRecord changeLocation(String deptCode, int courseCode, String location) {
+    return new JournalRecord(Operation.CHANGE_LOCATION, deptCode, courseCode, 0, location);
+  }
+
+  /**
+   * Writes the record in its compact binary form.
+   *
+   * @param out The output to write to.
+   * @throws IOException if the output cannot be written.
+   */
+  void writeTo(DataOutput out) throws IOException {
+    out.writeByte(operation.code);
+    out.writeUTF(deptCode);
+    switch (operation) {
+      case ADD_MAJOR, REMOVE_MAJOR -> { }
+      case DROP_STUDENT, ENROLL_STUDENT -> out.writeInt(courseCode);
+      case SET_ENROLLMENT_COUNT -> {
+        out.writeInt(courseCode);
+        out.writeInt(count);
+      }
+      default -> {
+        out.writeInt(courseCode);
+        out.writeUTF(value);
+      }
+    }
+  }
+
+  /**
+   * Reads a record previously written by {@link #writeTo(DataOutput)}.
+   *
+   * @param in The input to read from.
+   * @return The decoded record.
+   * @throws IOException if the input is malformed or cannot be read.
+   */
+  static JournalRecord readFrom(DataInput in) throws IOException {
+    Operation operation = Operation.fromCode(in.readUnsignedByte());
+    String deptCode = in.readUTF();
+    return switch (operation) {
+      case ADD_MAJOR, REMOVE_MAJOR -> new JournalRecord(operation, deptCode, NO_COURSE, 0, null);
+      case DROP_STUDENT, ENROLL_STUDENT ->
+              new JournalRecord(operation, deptCode, in.readInt(), 0, null);
+      case SET_ENROLLMENT_COUNT -> {
+        int courseCode = in.readInt();
+        yield new JournalRecord(operation, deptCode, courseCode, in.readInt(), null);
+      }
+      default -> {
+        int courseCode = in.readInt();
+        yield new JournalRecord(operation, deptCode, courseCode, 0, in.readUTF());
+      }
+    };
+  }
+
+  /**
+   * Applies the mutation to the given department mapping.
+   *
+   * @param mapping The department mapping to update.
+   * @return true if the targeted department and course exist and the mutation took effect;
+   *         enrolling in a full course or dropping from an empty one has no effect.
+   */
+  boolean applyTo(Map<String, Department> mapping) {
+    Department department = mapping.get(deptCode);
+    if (department == null) {
+      return false;
+    }
+    if (operation == Operation.ADD_MAJOR) {
+      department.addPersonToMajor();
+      return true;
+    }
+    if (operation == Operation.REMOVE_MAJOR) {
+      department.dropPersonFromMajor();
+      return true;
+    }
+    Course course = department.getCourse(courseCode);
+    if (course == null) {
+      return false;
+    }
+    switch (operation) {
+      case DROP_STUDENT -> {
+        return course.dropStudent();
+      }
+      case ENROLL_STUDENT -> {
+        return course.enrollStudent();
+      }
+      case SET_ENROLLMENT_COUNT -> course.setEnrolledStudentCount(count);
+      case CHANGE_TIME -> course.reassignTime(value);
+      case CHANGE_TEACHER -> course.reassignInstructor(value);
+      case CHANGE_LOCATION -> course.reassignLocation(value);
+      default -> throw new IllegalStateException("Unhandled operation: " + operation);
+    }
+    return true;
+  }
+
+  /**
+   * Gets the operation this record describes.
+   *
+   * @return The operation.
+   */
+  public Operation getOperation() {
+    return operation;
+  }
+
+  /**
+   * Gets the code of the department this record targets.
+   *
+   * @return The department code.
+   */
+  public String getDeptCode() {
+    return deptCode;
+  }
+
+  /**
+   * Gets the code of the course this record targets.
+   *
+   * @return The course code, or -1 for department-level operations.
+   */
+  public int getCourseCode() {
+    return courseCode;
+  }
+
+  @Override
+  public String toString() {
+    return operation + " " + deptCode + (courseCode == NO_COURSE ? "" : " " + courseCode)
+            + (value == null ? (operation == Operation.SET_ENROLLMENT_COUNT ? " " + count : "")
+            : " " + value);
+  }
+
+  /** Course code used by records that target a whole department. */
+  static final int NO_COURSE = -1;
+
+  private final Operation operation;
+  private final String deptCode;
+  private final int courseCode;
+  private final int count;
+  private final String value;
+}
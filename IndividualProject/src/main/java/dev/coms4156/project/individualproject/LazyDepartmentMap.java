@@ -0,0 +1,221 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A department mapping backed by a {@link MappedCatalog}. Departments are decoded from the
+ * snapshot the first time they are looked up and kept on the heap while they are in use;
+ * departments that have not been touched for a while and still match the snapshot can be
+ * released again with {@link #releaseColdDepartments(long)}.
+ *
+ * <p>Departments added with {@link #put} or changed after loading are always kept, so
+ * releasing never loses an update. Iterating the map decodes departments that are not
+ * already loaded without keeping them, which lets a full pass over a large catalog run in
+ * bounded memory.
+ */
+public class LazyDepartmentMap extends AbstractMap<String, Department> {
+
+  /**
+   * Creates a mapping over the given snapshot.
+   *
+   * @param catalog The snapshot to decode departments from.
+   */
+  public LazyDepartmentMap(MappedCatalog catalog) {
+    this.catalog = catalog;
+  }
+
+  @Override
+  public Department get(Object key) {
+    if (!(key instanceof String code)) {
+      return null;
+    }
+    Loaded loaded = loadedDepartments.get(code);
+    if (loaded == null) {
+      if (removedKeys.contains(code)) {
+        return null;
+      }
+      int index = catalog.indexOf(code);
+      if (index < 0) {
+        return null;
+      }
+      loaded = loadedDepartments.computeIfAbsent(code,
+              k -> new Loaded(catalog.materialize(index), index));
+    }
+    loaded.lastAccess = System.nanoTime();
+    return loaded.department;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    if (!(key instanceof String code)) {
+      return false;
+    }
+    return loadedDepartments.containsKey(code)
+            || (!removedKeys.contains(code) && catalog.indexOf(code) >= 0);
+  }
+
+  @Override
+  public Department put(String key, Department department) {
+    Department previous = get(key);
+    loadedDepartments.put(key, new Loaded(department, -1));
+    removedKeys.remove(key);
+    return previous;
+  }
+
+  @Override
+  public Department remove(Object key) {
+    Department previous = get(key);
+    if (previous != null) {
+      String code = (String) key;
+      loadedDepartments.remove(code);
+      if (catalog.indexOf(code) >= 0) {
+        removedKeys.add(code);
+      }
+    }
+    return previous;
+  }
+
+  @Override
+  public int size() {
+    int added = 0;
+    for (Map.Entry<String, Loaded> entry : loadedDepartments.entrySet()) {
+      if (entry.getValue().index < 0 && catalog.indexOf(entry.getKey()) < 0) {
+        added++;
+      }
+    }
+    return catalog.size() - removedKeys.size() + added;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Department>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<String, Department>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return LazyDepartmentMap.this.size();
+      }
+    };
+  }
+
+  /**
+   * Drops loaded departments that have not been looked up within the idle period and are
+   * unchanged since the snapshot was written. They are decoded again on the next lookup.
+   *
+   * @param idleNanos How long a department must have gone unused before it is released.
+   * @return The number of departments released.
+   */
+  public int releaseColdDepartments(long idleNanos) {
+    long cutoff = System.nanoTime() - idleNanos;
+    int released = 0;
+    for (Map.Entry<String, Loaded> entry : loadedDepartments.entrySet()) {
+      Loaded loaded = entry.getValue();
+      if (loaded.index >= 0 && loaded.lastAccess - cutoff < 0
+              && catalog.matches(loaded.index, loaded.department)
+              && loadedDepartments.remove(entry.getKey(), loaded)) {
+        released++;
+      }
+    }
+    return released;
+  }
+
+  /**
+   * Gets the number of departments currently decoded on the heap.
+   *
+   * @return The loaded department count.
+   */
+  public int loadedCount() {
+    return loadedDepartments.size();
+  }
+
+  /**
+   * Walks the snapshot index in key order, followed by departments added with {@link #put}.
+   */
+  private final class EntryIterator implements Iterator<Map.Entry<String, Department>> {
+
+    @Override
+    public boolean hasNext() {
+      advance();
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<String, Department> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<String, Department> result = next;
+      next = null;
+      return result;
+    }
+
+    private void advance() {
+      while (next == null && index < catalog.size()) {
+        String key = catalog.keyAt(index);
+        int current = index++;
+        if (removedKeys.contains(key)) {
+          continue;
+        }
+        Loaded loaded = loadedDepartments.get(key);
+        Department department = loaded != null ? loaded.department : catalog.materialize(current);
+        next = new SimpleImmutableEntry<>(key, department);
+      }
+      if (next == null) {
+        if (added == null) {
+          added = new HashMap<>();
+          for (Map.Entry<String, Loaded> entry : loadedDepartments.entrySet()) {
+            if (entry.getValue().index < 0 && catalog.indexOf(entry.getKey()) < 0) {
+              added.put(entry.getKey(), entry.getValue().department);
+            }
+          }
+          addedIterator = added.entrySet().iterator();
+        }
+        if (addedIterator.hasNext()) {
+          Map.Entry<String, Department> entry = addedIterator.next();
+          next = new SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+
+    private int index;
+    private Map.Entry<String, Department> next;
+    private Map<String, Department> added;
+    private Iterator<Map.Entry<String, Department>> addedIterator;
+  }
+
+  /**
+   * A department decoded from the snapshot or added later, with its last lookup time.
+   */
+  private static final class Loaded {
+
+    Loaded(Department department, int index) {
+      this.department = department;
+      this.index = index;
+    }
+
+    final Department department;
+
+    /** Position in the snapshot index, or -1 if the department was added with put. */
+    final int index;
+
+    volatile long lastAccess = System.nanoTime();
+  }
+
+  private final MappedCatalog catalog;
+
+  /** Departments currently decoded on the heap, keyed by department code. */
+  private final Map<String, Loaded> loadedDepartments = new ConcurrentHashMap<>();
+
+  /** Snapshot departments that have been removed from the mapping. */
+  private final Set<String> removedKeys = ConcurrentHashMap.newKeySet();
+}
@@ -0,0 +1,265 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-only access to a version 2 catalog snapshot (see {@link CatalogCodec}) that decodes
+ * departments one at a time, on demand. Opening a catalog only reads the fixed trailer, so
+ * the cost does not depend on the size of the catalog; department lookups binary search the
+ * sorted department index and strings are decoded the first time they are needed. When the
+ * snapshot is memory-mapped the bytes of cold departments stay in the OS page cache rather
+ * than on the heap.
+ *
+ * <p>All reads use absolute positions, so a catalog can be shared between threads.
+ */
+public final class MappedCatalog {
+
+  /**
+   * Memory-maps the snapshot at the given path.
+   *
+   * @param path The snapshot file.
+   * @return The opened catalog.
+   * @throws IOException if the file cannot be mapped or is not a version 2 snapshot.
+   */
+  public static MappedCatalog open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Catalog snapshot is too large to map: " + channel.size());
+      }
+      return new MappedCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Wraps a buffer holding a complete version 2 snapshot, starting at position zero.
+   *
+   * @param buffer The snapshot bytes.
+   * @throws IOException if the buffer does not hold a valid trailer.
+   */
+  MappedCatalog(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    int trailer = buffer.limit() - CatalogCodec.TRAILER_LENGTH;
+    if (trailer < 0 || buffer.getInt(buffer.limit() - 4) != CatalogCodec.TRAILER_MAGIC) {
+      throw new IOException("Catalog snapshot trailer is missing or damaged.");
+    }
+    this.lastLsn = buffer.getLong(trailer);
+    this.stringCount = buffer.getInt(trailer + 8);
+    this.stringOffsetsPosition = checkedPosition(buffer.getLong(trailer + 12));
+    this.departmentCount = buffer.getInt(trailer + 20);
+    this.indexPosition = checkedPosition(buffer.getLong(trailer + 24));
+    if (stringCount < 0 || departmentCount < 0
+            || stringOffsetsPosition + 4L * (stringCount + 1) > trailer
+            || indexPosition + (long) INDEX_ENTRY_LENGTH * departmentCount > trailer) {
+      throw new IOException("Catalog snapshot trailer is inconsistent.");
+    }
+    this.strings = new String[stringCount];
+  }
+
+  /**
+   * Gets the last journal LSN contained in the snapshot.
+   *
+   * @return The last LSN.
+   */
+  public long getLastLsn() {
+    return lastLsn;
+  }
+
+  /**
+   * Gets the number of departments in the snapshot.
+   *
+   * @return The department count.
+   */
+  public int size() {
+    return departmentCount;
+  }
+
+  /**
+   * Finds the position of a department in the sorted index.
+   *
+   * @param key The department key.
+   * @return The index position, or -1 if the department is not in the snapshot.
+   */
+  public int indexOf(String key) {
+    int low = 0;
+    int high = departmentCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int comparison = keyAt(mid).compareTo(key);
+      if (comparison < 0) {
+        low = mid + 1;
+      } else if (comparison > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the key of the department at an index position.
+   *
+   * @param index The index position.
+   * @return The department key.
+   */
+  public String keyAt(int index) {
+    return string(buffer.getInt(indexPosition + index * INDEX_ENTRY_LENGTH));
+  }
+
+  /**
+   * Decodes the department at an index position into a new {@link Department}.
+   *
+   * @param index The index position.
+   * @return A newly built department holding the snapshot's data.
+   */
+  public Department materialize(int index) {
+    DECODES.increment();
+    Cursor in = new Cursor(departmentOffset(index));
+    String deptCode = string(in.readIndex());
+    String chair = string(in.readIndex());
+    int majors = in.readSignedVarInt();
+    int courseCount = in.readIndex();
+    CourseMap courses = new CourseMap(courseCount);
+    for (int c = 0; c < courseCount; c++) {
+      String courseId = string(in.readIndex());
+      String instructor = string(in.readIndex());
+      String location = string(in.readIndex());
+      String timeSlot = string(in.readIndex());
+      Course course = new Course(instructor, location, timeSlot, in.readSignedVarInt());
+      course.setEnrolledStudentCount(in.readSignedVarInt());
+      courses.put(courseId, course);
+    }
+    return new Department(deptCode, courses, chair, majors);
+  }
+
+  /**
+   * Checks whether a department still holds exactly the data stored in the snapshot, which
+   * means it can be dropped and decoded again later without losing anything.
+   *
+   * @param index      The index position of the department in the snapshot.
+   * @param department The live department to compare.
+   * @return true if the department is unchanged since the snapshot was written.
+   */
+  public boolean matches(int index, Department department) {
+    Cursor in = new Cursor(departmentOffset(index));
+    if (!Objects.equals(string(in.readIndex()), department.getDeptCode())
+            || !Objects.equals(string(in.readIndex()), department.getDepartmentChair())
+            || in.readSignedVarInt() != department.getNumberOfMajors()) {
+      return false;
+    }
+    Map<String, Course> courses = department.getCourseSelection();
+    int courseCount = in.readIndex();
+    if (courseCount != courses.size()) {
+      return false;
+    }
+    for (int c = 0; c < courseCount; c++) {
+      Course course = courses.get(string(in.readIndex()));
+      if (course == null
+              || !Objects.equals(string(in.readIndex()), course.getInstructorName())
+              || !Objects.equals(string(in.readIndex()), course.getCourseLocation())
+              || !Objects.equals(string(in.readIndex()), course.getCourseTimeSlot())
+              || in.readSignedVarInt() != course.getEnrollmentCapacity()
+              || in.readSignedVarInt() != course.getEnrolledStudentCount()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int departmentOffset(int index) {
+    if (index < 0 || index >= departmentCount) {
+      throw new IndexOutOfBoundsException("No department at index " + index);
+    }
+    return checkedPosition(buffer.getLong(indexPosition + index * INDEX_ENTRY_LENGTH + 4));
+  }
+
+  /**
+   * Decodes a dictionary string, caching it so that every course sharing the string also
+   * shares the instance. Index 0 stands for {@code null}.
+   */
+  private String string(int index) {
+    if (index == 0) {
+      return null;
+    }
+    if (index > stringCount) {
+      throw new IllegalStateException("String index out of range: " + index);
+    }
+    String cached = strings[index - 1];
+    if (cached == null) {
+      int start = checkedPosition(buffer.getInt(stringOffsetsPosition + 4 * (index - 1)));
+      int end = checkedPosition(buffer.getInt(stringOffsetsPosition + 4 * index));
+      byte[] bytes = new byte[end - start];
+      buffer.get(start, bytes);
+      cached = new String(bytes, StandardCharsets.UTF_8);
+      strings[index - 1] = cached;
+    }
+    return cached;
+  }
+
+  private int checkedPosition(long position) {
+    if (position < 0 || position > buffer.limit()) {
+      throw new IllegalStateException("Position outside catalog snapshot: " + position);
+    }
+    return (int) position;
+  }
+
+  /**
+   * Decodes variable-length integers starting at a fixed position in the buffer.
+   */
+  private final class Cursor {
+
+    Cursor(int position) {
+      this.position = position;
+    }
+
+    long readVarLong() {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = buffer.get(position++);
+        result |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return result;
+        }
+      }
+      throw new IllegalStateException("Malformed variable-length integer.");
+    }
+
+    int readIndex() {
+      long value = readVarLong();
+      if (value < 0 || value > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Invalid value in catalog snapshot: " + value);
+      }
+      return (int) value;
+    }
+
+    int readSignedVarInt() {
+      int raw = (int) readVarLong();
+      return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private int position;
+  }
+
+  /** Size of a department index entry: an int key string and a long offset. */
+  private static final int INDEX_ENTRY_LENGTH = 12;
+
+  /** Counts departments decoded from snapshots, whether for a lookup or an iteration. */
+  private static final LongAdder DECODES = Metrics.counter("catalog.department.decodes");
+
+  private final ByteBuffer buffer;
+  private final long lastLsn;
+  private final int stringCount;
+  private final int stringOffsetsPosition;
+  private final int departmentCount;
+  private final int indexPosition;
+
+  /** Strings decoded so far; racing threads at worst decode the same string twice. */
+  private final String[] strings;
+}
@@ -0,0 +1,67 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide registry of named counters, histograms and gauges, reported by the
+ * {@code /metrics} route. Names are dot-separated, as in Micrometer. Counters and histograms
+ * are created on first use and then updated without locking, so code on a hot path looks
+ * them up once and keeps the reference. Gauges are only evaluated when metrics are reported.
+ */
+public final class Metrics {
+
+  private Metrics() {
+  }
+
+  /**
+   * Gets the counter with the given name, creating it if needed.
+   *
+   * @param name The metric name.
+   * @return The counter.
+   */
+  public static LongAdder counter(String name) {
+    return COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+  }
+
+  /**
+   * Gets the histogram with the given name, creating it if needed.
+   *
+   * @param name The metric name, ending in the unit of the recorded values.
+   * @return The histogram.
+   */
+  public static Histogram histogram(String name) {
+    return HISTOGRAMS.computeIfAbsent(name, n -> new Histogram());
+  }
+
+  /**
+   * Registers a gauge, replacing any earlier gauge of the same name.
+   *
+   * @param name  The metric name.
+   * @param value Supplies the current value when metrics are reported.
+   */
+  public static void gauge(String name, Supplier<?> value) {
+    GAUGES.put(name, value);
+  }
+
+  /**
+   * Reads every metric, in name order. Counters are reported as their total, histograms as
+   * the summary from {@link Histogram#toMap()} and gauges as their current value.
+   *
+   * @return The metrics in a form that can be rendered as JSON.
+   */
+  public static Map<String, Object> snapshot() {
+    Map<String, Object> metrics = new TreeMap<>();
+    COUNTERS.forEach((name, counter) -> metrics.put(name, counter.sum()));
+    HISTOGRAMS.forEach((name, histogram) -> metrics.put(name, histogram.toMap()));
+    GAUGES.forEach((name, gauge) -> metrics.put(name, gauge.get()));
+    return metrics;
+  }
+
+  private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+  private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+  private static final Map<String, Supplier<?>> GAUGES = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,67 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.List;
+
+/**
+ * The body of a batch update: a list of operations that are applied all together or not at
+ * all.
+ *
+ * @param operations The operations, in the order they are applied.
+ */
+public record MutationBatchRequest(List<Operation> operations) {
+
+  /**
+   * One operation of a batch. {@code op} is the name of the single-operation route that
+   * does the same thing, and the other fields are that route's parameters; fields the
+   * operation does not use are ignored.
+   *
+   * @param op         The operation, such as {@code "setEnrollmentCount"}.
+   * @param deptCode   The department code.
+   * @param courseCode The course code, for course operations.
+   * @param count      The new enrollment count, for {@code setEnrollmentCount}.
+   * @param time       The new time, for {@code changeCourseTime}.
+   * @param teacher    The new instructor, for {@code changeCourseTeacher}.
+   * @param location   The new location, for {@code changeCourseLocation}.
+   */
+  public record Operation(String op, String deptCode, Integer courseCode, Integer count,
+                          String time, String teacher, String location) {
+
+    /**
+     * Converts the operation into the journal record that applies it.
+     *
+     * @return The journal record.
+     * @throws IllegalArgumentException if the operation is unknown or a parameter it needs
+     *                                  is missing.
+     */
+    public JournalRecord toJournalRecord() {
+      if (op == null) {
+        throw new IllegalArgumentException("op is missing");
+      }
+      String dept = require(deptCode, "deptCode");
+      return switch (op) {
+        case "addMajorToDept" -> JournalRecord.addMajor(dept);
+        case "removeMajorFromDept" -> JournalRecord.removeMajor(dept);
+        case "dropStudentFromCourse" ->
+                JournalRecord.dropStudent(dept, require(courseCode, "courseCode"));
+        case "enrollStudentInCourse" ->
+                JournalRecord.enrollStudent(dept, require(courseCode, "courseCode"));
+        case "setEnrollmentCount" -> JournalRecord.setEnrollmentCount(dept,
+                require(courseCode, "courseCode"), require(count, "count"));
+        case "changeCourseTime" -> JournalRecord.changeTime(dept,
+                require(courseCode, "courseCode"), require(time, "time"));
+        case "changeCourseTeacher" -> JournalRecord.changeTeacher(dept,
+                require(courseCode, "courseCode"), require(teacher, "teacher"));
+        case "changeCourseLocation" -> JournalRecord.changeLocation(dept,
+                require(courseCode, "courseCode"), require(location, "location"));
+        default -> throw new IllegalArgumentException("unknown op " + op);
+      };
+    }
+
+    private static <T> T require(T value, String name) {
+      if (value == null) {
+        throw new IllegalArgumentException(name + " is missing");
+      }
+      return value;
+    }
+  }
+}
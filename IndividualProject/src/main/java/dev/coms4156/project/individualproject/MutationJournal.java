@@ -0,0 +1,349 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary log of department mapping mutations. Every mutation is written as a
+ * frame of the form {@code [length][crc32][lsn][record count][records...]} so it can be
+ * replayed on top of the last snapshot after a crash. Frames are numbered with a log
+ * sequence number (LSN); a snapshot remembers the last LSN it contains, which makes replay
+ * safe even if the journal was not truncated after the snapshot was written.
+ *
+ * <p>Access is serialized with a {@link ReentrantLock} rather than {@code synchronized},
+ * because the lock is held across file writes and whole snapshot writes: a virtual
+ * thread that blocks inside a monitor, or waits to enter one, pins its carrier thread.
+ */
+public class MutationJournal implements Closeable {
+
+  /**
+   * Writes a snapshot of the department mapping as part of a checkpoint.
+   */
+  @FunctionalInterface
+  public interface SnapshotWriter {
+
+    /**
+     * Writes the snapshot.
+     *
+     * @param lastLsn The LSN of the last journaled mutation contained in the snapshot.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    void write(long lastLsn) throws IOException;
+  }
+
+  /**
+   * Creates a journal stored at the given path. The file is only created once the first
+   * mutation is appended.
+   *
+   * @param path The location of the journal file.
+   */
+  public MutationJournal(Path path) {
+    this.path = path;
+  }
+
+  /**
+   * Appends a single mutation to the journal.
+   *
+   * @param record The mutation to append.
+   * @return The LSN assigned to the mutation.
+   * @throws IOException if the journal cannot be written.
+   */
+  public long append(JournalRecord record) throws IOException {
+    return append(List.of(record));
+  }
+
+  /**
+   * Appends a group of mutations to the journal as one frame, so that replay applies either
+   * all of them or none of them. If the frame cannot be encoded nothing is written, and if
+   * writing it fails the journal is cut back to where the frame started, so a partly written
+   * frame never hides the frames appended after it.
+   *
+   * @param records The mutations to append.
+   * @return The LSN assigned to the frame.
+   * @throws IOException if the journal cannot be written.
+   */
+  public long append(List<JournalRecord> records) throws IOException {
+    lock.lock();
+    try {
+      long lsn = nextLsn;
+      ByteBuffer frame = encodeFrame(lsn, records);
+      FileChannel out = openChannel();
+      long start = out.position();
+      try {
+        while (frame.hasRemaining()) {
+          out.write(frame);
+        }
+      } catch (IOException e) {
+        try {
+          out.truncate(start);
+          out.position(start);
+        } catch (IOException truncateError) {
+          e.addSuppressed(truncateError);
+        }
+        throw e;
+      }
+      nextLsn++;
+      return lsn;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forces every appended frame to the storage device. The force runs outside the lock, so
+   * writers keep appending while it waits on the device; frames appended meanwhile may or
+   * may not be covered and need another sync.
+   *
+   * @throws IOException if the journal cannot be synced.
+   */
+  public void sync() throws IOException {
+    FileChannel toForce;
+    lock.lock();
+    try {
+      toForce = channel;
+    } finally {
+      lock.unlock();
+    }
+    if (toForce != null) {
+      toForce.force(false);
+    }
+  }
+
+  /**
+   * Replays the journal onto the given department mapping. Frames at or below
+   * {@code snapshotLsn} are already part of the snapshot and are skipped. Replay stops at
+   * the first torn or corrupt frame, and the journal is cut back to the last intact frame
+   * so that later appends are not hidden behind the damaged bytes. The records of a frame
+   * are all decoded before any of them is applied.
+   *
+   * <p>If the journal cannot be read, or a frame whose checksum is intact cannot be decoded,
+   * the mutations from that frame on have not been applied. The journal then refuses to be
+   * checkpointed, since truncating it would lose them for good.
+   *
+   * @param snapshotLsn The last LSN contained in the loaded snapshot.
+   * @param mapping     The department mapping to apply the mutations to.
+   * @return The number of mutations applied.
+   * @throws IOException if the journal cannot be read or holds a frame that cannot be
+   *         decoded.
+   */
+  public int replay(long snapshotLsn, Map<String, Department> mapping) throws IOException {
+    lock.lock();
+    try {
+      return replayFrames(snapshotLsn, mapping);
+    } catch (IOException e) {
+      replayIncomplete = true;
+      throw e;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int replayFrames(long snapshotLsn, Map<String, Department> mapping)
+          throws IOException {
+    nextLsn = Math.max(nextLsn, snapshotLsn + 1);
+    if (!Files.exists(path)) {
+      return 0;
+    }
+    int applied = 0;
+    long validLength = 0;
+    try (InputStream raw = Files.newInputStream(path);
+         DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+      while (true) {
+        byte[] body;
+        int expectedCrc;
+        try {
+          int length = in.readInt();
+          if (length < FRAME_BODY_MINIMUM || length > MAX_FRAME_LENGTH) {
+            break;
+          }
+          expectedCrc = in.readInt();
+          body = new byte[length];
+          in.readFully(body);
+        } catch (EOFException e) {
+          break;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != expectedCrc) {
+          break;
+        }
+        DataInputStream frame = new DataInputStream(new ByteArrayInputStream(body));
+        long lsn = frame.readLong();
+        int count = frame.readInt();
+        if (lsn > snapshotLsn) {
+          List<JournalRecord> records = new ArrayList<>();
+          try {
+            for (int i = 0; i < count; i++) {
+              records.add(JournalRecord.readFrom(frame));
+            }
+          } catch (IOException e) {
+            throw new IOException("Journal frame " + lsn + " at byte " + validLength
+                    + " is intact but cannot be decoded", e);
+          }
+          for (JournalRecord record : records) {
+            if (record.applyTo(mapping)) {
+              applied++;
+            }
+          }
+        }
+        nextLsn = Math.max(nextLsn, lsn + 1);
+        validLength += FRAME_HEADER_LENGTH + body.length;
+      }
+    }
+    if (validLength < Files.size(path)) {
+      System.err.println("Discarding damaged journal tail after byte " + validLength);
+      openChannel().truncate(validLength);
+    }
+    return applied;
+  }
+
+  /**
+   * Writes a snapshot and then empties the journal. Appends are held back while the
+   * checkpoint runs, so the snapshot and the journal never disagree about which mutations
+   * have been captured.
+   *
+   * @param writer Writes the snapshot given the last journaled LSN.
+   * @throws IOException if the snapshot or the journal cannot be written, or if a replay of
+   *         this journal failed, in which case nothing is written.
+   */
+  public void checkpoint(SnapshotWriter writer) throws IOException {
+    lock.lock();
+    try {
+      if (replayIncomplete) {
+        throw new IOException("The journal " + path + " was not fully replayed; refusing to"
+                + " truncate it");
+      }
+      writer.write(nextLsn - 1);
+      if (channel != null) {
+        channel.truncate(0);
+        channel.force(true);
+      } else {
+        Files.deleteIfExists(path);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the LSN of the most recently appended or replayed frame.
+   *
+   * @return The last LSN, or 0 if nothing has been journaled.
+   */
+  public long getLastLsn() {
+    lock.lock();
+    try {
+      return nextLsn - 1;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes the underlying file channel.
+   *
+   * @throws IOException if the channel cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      if (channel != null) {
+        channel.close();
+        channel = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private FileChannel openChannel() throws IOException {
+    if (channel == null) {
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      channel.position(channel.size());
+    }
+    return channel;
+  }
+
+  private ByteBuffer encodeFrame(long lsn, List<JournalRecord> records) throws IOException {
+    buffer.reset();
+    DataOutputStream out = new DataOutputStream(buffer);
+    out.writeInt(0);
+    out.writeInt(0);
+    out.writeLong(lsn);
+    out.writeInt(records.size());
+    for (JournalRecord record : records) {
+      record.writeTo(out);
+    }
+    out.flush();
+    ByteBuffer frame = ByteBuffer.wrap(buffer.array(), 0, buffer.size());
+    int bodyLength = buffer.size() - FRAME_HEADER_LENGTH;
+    if (bodyLength > MAX_FRAME_LENGTH) {
+      throw new IOException("Journal frame of " + bodyLength + " bytes exceeds the limit of "
+              + MAX_FRAME_LENGTH);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), FRAME_HEADER_LENGTH, bodyLength);
+    frame.putInt(0, bodyLength);
+    frame.putInt(4, (int) crc.getValue());
+    return frame;
+  }
+
+  /**
+   * A byte array output stream whose backing array can be wrapped without copying.
+   */
+  private static final class FrameBuffer extends ByteArrayOutputStream {
+
+    FrameBuffer() {
+      super(256);
+    }
+
+    byte[] array() {
+      return buf;
+    }
+  }
+
+  /** Size of the length and checksum fields that precede every frame body. */
+  private static final int FRAME_HEADER_LENGTH = 8;
+
+  /** Size of the LSN and record count fields at the start of every frame body. */
+  private static final int FRAME_BODY_MINIMUM = 12;
+
+  /** Upper bound on a frame body, used to reject garbage lengths in a torn tail. */
+  private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+  /** Serializes appends, replays and checkpoints. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** Path of the journal file. */
+  private final Path path;
+
+  /** Reusable buffer that frames are encoded into before being written. */
+  private final FrameBuffer buffer = new FrameBuffer();
+
+  /** Channel used for appends, opened on first use. */
+  private FileChannel channel;
+
+  /** LSN that will be assigned to the next appended frame. */
+  private long nextLsn = 1;
+
+  /** Whether a replay failed before reaching the end of the journal. */
+  private boolean replayIncomplete;
+}
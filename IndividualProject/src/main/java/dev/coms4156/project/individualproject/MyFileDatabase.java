@@ -1,84 +1,1045 @@
 package dev.coms4156.project.individualproject;
 
+import java.io.EOFException;
+import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Manages department mappings using a file-based storage system.
+ *
+ * <p>The catalog is kept as a series of immutable {@link CatalogVersion}s. Every mutation goes
+ * through {@link #applyMutation(JournalRecord)}, which copies the affected department, journals
+ * the change and creates a new version; readers work on whichever version was published when
+ * they called {@link #getDepartmentMapping()} and never wait for writers. Mutations of one
+ * department are serialized with a striped lock so that they are journaled in the order in
+ * which they were applied.
+ *
+ * <p>Writers build on the latest version straight away, but a version is only published to
+ * readers once its journal frame, and those of every version before it, have been synced.
+ * Readers therefore never see a change that a crash could still lose. If a sync fails, the
+ * versions waiting on it are never published, and the journal refuses further writes until
+ * the database is restarted and replays whatever reached the disk.
  */
 public class MyFileDatabase {
 
   /**
-   * Initializes the database with content from a specified file.
+   * Initializes the database with content from a specified file. When loading, any
+   * mutations recorded in the journal after the snapshot was taken are replayed on top of it.
+   * Otherwise an empty catalog is saved over the file straight away, which also empties the
+   * journal, so that frames left by the earlier catalog are never replayed onto this one.
    *
    * @param mode      Flag to determine if the database should load data from file.
    * @param filePath  The path to the file that stores the department mappings.
    * @throws IllegalArgumentException if the file path is invalid.
+   * @throws UncheckedIOException if the journal cannot be replayed to its end, so starting
+   *         would serve, and later snapshot, a catalog missing durable mutations, or if the
+   *         empty catalog cannot be saved.
    */
   public MyFileDatabase(int mode, String filePath) {
     if (filePath == null || filePath.trim().isEmpty()) {
       throw new IllegalArgumentException("File path must be provided.");
     }
     this.filePath = filePath;
-    this.departmentMapping = (mode == 0) ? deserializeDataFromFile() : new HashMap<>();
+    this.journal = new MutationJournal(Paths.get(filePath + JOURNAL_SUFFIX));
+    this.groupCommitter = new GroupCommitter(journal, DEFAULT_MAX_BATCH_SIZE,
+            DEFAULT_MAX_WAIT_MICROS);
+    Map<String, Department> base = (mode == 0) ? deserializeDataFromFile() : new HashMap<>();
+    if (mode == 0) {
+      replayJournal(base);
+    }
+    publishNow(new CatalogVersion(0, base));
+    if (mode == 0) {
+      if (legacyFormatLoaded) {
+        saveContentsToFile();
+        LOGGER.info("Migrated legacy snapshot to the binary catalog format.");
+      }
+    } else {
+      try {
+        save();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to reset " + filePath, e);
+      }
+    }
+  }
+
+  /**
+   * Stores the department mapping into the file, overwriting any existing data, and then
+   * truncates the journal since every journaled mutation is now part of the snapshot.
+   * Mutations wait while the snapshot is written so that it matches the journal exactly;
+   * readers are not affected. Afterwards the published catalog is rebuilt on top of the new
+   * snapshot so the overlay of updated departments starts out empty again.
+   *
+   * @throws IOException if pending mutations cannot be synced or the snapshot cannot be
+   *         written, in which case the journal is left as it was.
+   */
+  public void save() throws IOException {
+    departmentLocks.lockAll();
+    try {
+      ProfilingEvents.Snapshot event = new ProfilingEvents.Snapshot();
+      event.begin();
+      long start = System.nanoTime();
+      awaitPublished();
+      journal.checkpoint(this::writeSnapshot);
+      SNAPSHOT_SAVE_MICROS.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+      commitSnapshotEvent(event, "save");
+      LOGGER.info("Data has been serialized to file.");
+      compact();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      departmentLocks.unlockAll();
+    }
   }
 
   /**
-   * Stores the department mapping into the file, overwriting any existing data.
+   * Saves like {@link #save()}, but logs a failure instead of throwing it, for callers such
+   * as shutdown that could not act on it anyway.
    */
   public void saveContentsToFile() {
-    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filePath))) {
-      out.writeObject(departmentMapping);
-      System.out.println("Data has been serialized to file.");
+    try {
+      save();
+    } catch (IOException e) {
+      LOGGER.error("An error occurred while writing to the file", e);
+    }
+  }
+
+  /**
+   * Applies a mutation and records it in the journal. The targeted department is copied,
+   * the mutation is applied to the copy and written to the journal, and the new catalog
+   * version holding it is published once the frame has been synced, so readers of earlier
+   * versions are unaffected and a mutation that is not durable is never seen. The call
+   * returns once the version is published; concurrent callers share a single fsync through
+   * group commit.
+   *
+   * @param record The mutation to apply.
+   * @return true if the department and course exist and the mutation took effect, false
+   *         otherwise, in which case nothing is published or journaled.
+   * @throws UncheckedIOException if the journal cannot be written or synced, in which case
+   *         the mutation is not published.
+   * @throws ScheduleConflictException if the mutation would move the course to a room at a
+   *         time at which another course is held there.
+   */
+  public boolean applyMutation(JournalRecord record) {
+    CompletableFuture<Long> durable = publishMutation(record);
+    if (durable == null) {
+      return false;
+    }
+    awaitDurable(durable, record.toString());
+    return true;
+  }
+
+  /**
+   * Applies a mutation like {@link #applyMutation} but does not wait for it to become
+   * durable. The mutation is written to the journal before this returns, so later mutations
+   * build on it; the future completes once the journal frame holding it has been synced and
+   * the new version published, on the journal's flusher thread, so anything chained onto it
+   * should be quick.
+   *
+   * @param record The mutation to apply.
+   * @return A future that completes with true once the mutation is durable and published,
+   *         or an already completed future holding false if the department or course does
+   *         not exist or the mutation had no effect. The future completes exceptionally if
+   *         the journal cannot be written or synced.
+   * @throws ScheduleConflictException if the mutation would move the course to a room at a
+   *         time at which another course is held there.
+   */
+  public CompletableFuture<Boolean> applyMutationAsync(JournalRecord record) {
+    CompletableFuture<Long> durable;
+    try {
+      durable = publishMutation(record);
+    } catch (UncheckedIOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    if (durable == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+    return durable.thenApply(lsn -> true);
+  }
+
+  /**
+   * Applies a list of mutations as one unit: either all of them take effect or none do. The
+   * locks of every department involved are taken once for the whole batch, each department
+   * and course is copied at most once, the mutations are journaled as a single frame, so
+   * replay after a crash also sees all of them or none, and the result is published as one
+   * new catalog version once the frame has been synced.
+   *
+   * @param records The mutations to apply, in order.
+   * @return -1 if every mutation took effect, otherwise the index of the first mutation whose
+   *         department or course does not exist or that had no effect, in which case nothing
+   *         is published or journaled.
+   * @throws UncheckedIOException if the journal cannot be written or synced, in which case
+   *         the mutations are not published.
+   * @throws ScheduleConflictException if the mutations would leave a course in a room at a
+   *         time at which another course is held there.
+   */
+  public int applyBatch(List<JournalRecord> records) {
+    if (records.isEmpty()) {
+      return -1;
+    }
+    List<JournalRecord> batch = List.copyOf(records);
+    Set<String> deptCodes = new HashSet<>();
+    for (JournalRecord record : batch) {
+      deptCodes.add(record.getDeptCode());
+    }
+    if (batch.stream().anyMatch(MyFileDatabase::movesCourse)) {
+      getRoomSchedule();
+    }
+    BatchOutcome outcome = departmentLocks.withLocks(deptCodes, () -> {
+      CatalogVersion current = currentVersion.get();
+      Map<String, Department> updated = new HashMap<>();
+      Set<Course> copiedCourses = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (int i = 0; i < batch.size(); i++) {
+        JournalRecord record = batch.get(i);
+        if (!copyForBatch(current, updated, copiedCourses, record)
+                || !record.applyTo(updated)) {
+          return new BatchOutcome(i, null);
+        }
+      }
+      CompletableFuture<Long> pending = publishWhenDurable(version -> version.with(updated),
+              journal(batch, current, updated));
+      for (JournalRecord record : batch) {
+        indexCourseChange(record, current.get(record.getDeptCode()),
+                updated.get(record.getDeptCode()));
+      }
+      return new BatchOutcome(-1, pending);
+    });
+    if (outcome.durable() != null) {
+      awaitDurable(outcome.durable(), "a batch of " + batch.size() + " mutations");
+    }
+    return outcome.failedIndex();
+  }
+
+  /**
+   * Makes sure the department and course a mutation in a batch targets have been copied for
+   * this batch.
+   *
+   * @param current       The version the batch is applied to.
+   * @param updated       The departments copied so far, by department code.
+   * @param copiedCourses The courses copied so far.
+   * @param record        The mutation about to be applied.
+   * @return false if the department or course does not exist.
+   */
+  private static boolean copyForBatch(Map<String, Department> current,
+                                      Map<String, Department> updated,
+                                      Set<Course> copiedCourses, JournalRecord record) {
+    Department copy = updated.get(record.getDeptCode());
+    if (copy == null) {
+      Department department = current.get(record.getDeptCode());
+      if (department == null) {
+        return false;
+      }
+      copy = department.copy();
+      updated.put(record.getDeptCode(), copy);
+    }
+    if (record.getCourseCode() == JournalRecord.NO_COURSE) {
+      return true;
+    }
+    Course course = copy.getCourse(record.getCourseCode());
+    if (course == null) {
+      return false;
+    }
+    if (!copiedCourses.contains(course)) {
+      Course courseCopy = course.copy();
+      copy.addCourse(Integer.toString(record.getCourseCode()), courseCopy);
+      copiedCourses.add(courseCopy);
+    }
+    return true;
+  }
+
+  /**
+   * Copies a department, and the course a mutation targets, so the mutation can be applied
+   * without touching objects that belong to a published version.
+   *
+   * @param department The current department, or null if it does not exist.
+   * @param record     The mutation about to be applied.
+   * @return The copy, or null if the department or course does not exist.
+   */
+  private static Department copyForUpdate(Department department, JournalRecord record) {
+    if (department == null) {
+      return null;
+    }
+    Department copy = department.copy();
+    if (record.getCourseCode() != JournalRecord.NO_COURSE) {
+      Course course = copy.getCourse(record.getCourseCode());
+      if (course == null) {
+        return null;
+      }
+      copy.addCourse(Integer.toString(record.getCourseCode()), course.copy());
+    }
+    return copy;
+  }
+
+  /**
+   * Applies a mutation to a copy of its department under the department's lock, writes it
+   * to the journal and then makes the new catalog version the latest one, to be published
+   * once the frame is durable. A mutation the journal rejects is never seen at all.
+   *
+   * @return A future that completes once the version is published, or null if the mutation
+   *         had no effect.
+   */
+  private CompletableFuture<Long> publishMutation(JournalRecord record) {
+    String deptCode = record.getDeptCode();
+    if (movesCourse(record)) {
+      getRoomSchedule();
+    }
+    return departmentLocks.withLock(deptCode, () -> {
+      Department current = currentVersion.get().get(deptCode);
+      Department updated = copyForUpdate(current, record);
+      if (updated == null || !record.applyTo(Map.of(deptCode, updated))) {
+        return null;
+      }
+      CompletableFuture<Long> pending = publishWhenDurable(
+              version -> version.with(deptCode, updated),
+              journal(List.of(record), Map.of(deptCode, current), Map.of(deptCode, updated)));
+      indexCourseChange(record, current, updated);
+      return pending;
+    });
+  }
+
+  /**
+   * Makes a new version the latest one, which later writers build on, and queues it to be
+   * published to readers once its journal frame is durable. Called under the locks of the
+   * departments the version changes, after the frame has been written.
+   *
+   * @param change  Derives the new version from the latest one.
+   * @param durable Completes once the version's journal frame has been synced.
+   * @return A future that completes with the frame's LSN once readers see the version, or
+   *         exceptionally if it will never be published.
+   */
+  private CompletableFuture<Long> publishWhenDurable(UnaryOperator<CatalogVersion> change,
+                                                     CompletableFuture<Long> durable) {
+    UnpublishedVersion unpublished;
+    publishLock.lock();
+    try {
+      CatalogVersion next = change.apply(currentVersion.get());
+      currentVersion.set(next);
+      unpublished = new UnpublishedVersion(next, durable, new CompletableFuture<>());
+      unpublishedVersions.add(unpublished);
+    } finally {
+      publishLock.unlock();
+    }
+    durable.whenComplete((lsn, e) -> publishDurableVersions());
+    return unpublished.published();
+  }
+
+  /**
+   * Publishes the oldest waiting versions whose journal frames are durable, in the order
+   * they were created. A version whose frame is durable still waits for the ones before it,
+   * since it contains their changes. Once a frame fails to sync, neither its version nor any
+   * later one, all of which build on it, is ever published.
+   */
+  private void publishDurableVersions() {
+    List<UnpublishedVersion> settled = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    publishLock.lock();
+    try {
+      while (!unpublishedVersions.isEmpty() && unpublishedVersions.peek().durable().isDone()) {
+        UnpublishedVersion next = unpublishedVersions.poll();
+        Throwable failure = next.durable().handle((lsn, e) -> e).join();
+        if (failure != null && publishFailure == null) {
+          publishFailure = failure;
+        } else if (failure == null && publishFailure != null) {
+          failure = new IOException("A journal write this change builds on failed",
+                  publishFailure);
+        }
+        if (failure == null) {
+          publishedVersion.set(next.version());
+        }
+        settled.add(next);
+        failures.add(failure);
+      }
+    } finally {
+      publishLock.unlock();
+    }
+    for (int i = 0; i < settled.size(); i++) {
+      UnpublishedVersion version = settled.get(i);
+      if (failures.get(i) == null) {
+        version.published().complete(version.durable().join());
+      } else {
+        version.published().completeExceptionally(failures.get(i));
+      }
+    }
+  }
+
+  /**
+   * Makes a version both the latest and the published one, after a change made while every
+   * department lock is held and nothing waits to be published.
+   */
+  private void publishNow(CatalogVersion version) {
+    publishLock.lock();
+    try {
+      currentVersion.set(version);
+      publishedVersion.set(version);
+    } finally {
+      publishLock.unlock();
+    }
+  }
+
+  /**
+   * Waits, with every department lock held, until all journaled mutations are durable and
+   * published, so that the catalog can be replaced or merged into without exposing or
+   * losing any of them.
+   *
+   * @throws UncheckedIOException if the journal cannot be synced.
+   */
+  private void awaitPublished() {
+    awaitDurable(groupCommitter.barrier(), "pending mutations");
+    publishLock.lock();
+    try {
+      if (!unpublishedVersions.isEmpty()) {
+        throw new UncheckedIOException(new IOException(
+                "Mutations could not be published after a journal failure", publishFailure));
+      }
+    } finally {
+      publishLock.unlock();
+    }
+  }
+
+  /**
+   * Checks whether a mutation can change the room or time slot a course is booked at.
+   */
+  private static boolean movesCourse(JournalRecord record) {
+    return record.getOperation() == JournalRecord.Operation.CHANGE_TIME
+            || record.getOperation() == JournalRecord.Operation.CHANGE_LOCATION;
+  }
+
+  /**
+   * Writes mutations to the journal as one frame, first moving the room bookings of the
+   * courses they gave a new time slot or location after checking that none of them overlaps
+   * another course in its room. The bookings are moved back if the frame cannot be written.
+   * Called under the departments' locks before the mutations are published, so nothing is
+   * published when the check or the write fails. Bookings are only moved once the room
+   * schedule has been built.
+   *
+   * @param records The mutations, already applied to the copies in {@code after}.
+   * @param before  The departments before the mutations.
+   * @param after   The departments after the mutations.
+   * @return A future that completes once the frame is durable.
+   * @throws ScheduleConflictException if a course would overlap another one.
+   * @throws UncheckedIOException if the frame cannot be written.
+   */
+  private CompletableFuture<Long> journal(List<JournalRecord> records,
+                                          Map<String, Department> before,
+                                          Map<String, Department> after) {
+    RoomSchedule schedule = roomSchedule;
+    if (schedule == null) {
+      return groupCommitter.submit(records);
+    }
+    List<RoomSchedule.Booking> released = new ArrayList<>();
+    List<RoomSchedule.Booking> booked = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (JournalRecord record : records) {
+      String deptCode = record.getDeptCode();
+      String courseId = Integer.toString(record.getCourseCode());
+      if (!movesCourse(record) || !seen.add(deptCode + " " + courseId)) {
+        continue;
+      }
+      RoomSchedule.Booking old = RoomSchedule.Booking.of(deptCode, courseId,
+              before.get(deptCode).getCourse(record.getCourseCode()));
+      RoomSchedule.Booking now = RoomSchedule.Booking.of(deptCode, courseId,
+              after.get(deptCode).getCourse(record.getCourseCode()));
+      if (!Objects.equals(old, now)) {
+        if (old != null) {
+          released.add(old);
+        }
+        if (now != null) {
+          booked.add(now);
+        }
+      }
+    }
+    if (released.isEmpty() && booked.isEmpty()) {
+      return groupCommitter.submit(records);
+    }
+    return schedule.reschedule(released, booked, () -> groupCommitter.submit(records));
+  }
+
+  /**
+   * Brings the course index, if one has been created, up to date with the course a published
+   * mutation replaced. Only the changed course is visited. Called under the department's
+   * lock, so the index reflects every mutation that has returned.
+   *
+   * @param record  The mutation.
+   * @param before  The department before the mutation.
+   * @param after   The department after the mutation.
+   */
+  private void indexCourseChange(JournalRecord record, Department before, Department after) {
+    CourseIndex index = courseIndex;
+    int courseCode = record.getCourseCode();
+    if (index != null && courseCode != JournalRecord.NO_COURSE) {
+      index.updateCourse(record.getDeptCode(), courseCode, before.getCourse(courseCode),
+              after.getCourse(courseCode));
+    }
+  }
+
+  /**
+   * Waits for a journal write to become durable.
+   *
+   * @param durable     The future returned by the group committer.
+   * @param description What was written, for the error message.
+   * @throws UncheckedIOException if the journal cannot be written.
+   */
+  private static void awaitDurable(CompletableFuture<Long> durable, String description) {
+    try {
+      durable.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException ioException) {
+        throw new UncheckedIOException("Failed to journal " + description, ioException);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Replaces the published version with one that has no overlay, after a snapshot has been
+   * written. A lazily loaded catalog is re-opened on the new snapshot; otherwise the overlay
+   * is merged into a new in-memory base.
+   */
+  private void compact() {
+    CatalogVersion current = currentVersion.get();
+    if (current.overrideCount() == 0) {
+      return;
+    }
+    Map<String, Department> newBase = null;
+    if (current.getBase() instanceof LazyDepartmentMap) {
+      try {
+        newBase = new LazyDepartmentMap(MappedCatalog.open(Paths.get(filePath)));
+      } catch (IOException e) {
+        LOGGER.warn("Could not re-open the snapshot: {}", e.getMessage());
+      }
+    }
+    if (newBase == null) {
+      newBase = new HashMap<>(current);
+    }
+    publishNow(current.rebase(newBase));
+  }
+
+  /**
+   * Reports acquisition counts, contention and wait and hold times for each department lock
+   * stripe that has been used.
+   *
+   * @return A list of per-stripe statistics.
+   */
+  public List<Map<String, Object>> getLockStats() {
+    return departmentLocks.getStats();
+  }
+
+  /**
+   * Replaces the group commit settings used for journal writes. Mutations already queued
+   * are made durable before the new settings take effect.
+   *
+   * @param maxBatchSize  The maximum number of mutations made durable by one fsync.
+   * @param maxWaitMicros How long the flusher waits for a batch to fill before syncing.
+   */
+  public void configureGroupCommit(int maxBatchSize, long maxWaitMicros) {
+    GroupCommitter replacement = new GroupCommitter(journal, maxBatchSize, maxWaitMicros);
+    GroupCommitter previous = groupCommitter;
+    groupCommitter = replacement;
+    previous.close();
+  }
+
+  /**
+   * Reports batch size and flush latency histograms for the journal.
+   *
+   * @return A map of journal statistics.
+   */
+  public Map<String, Object> getJournalStats() {
+    Map<String, Object> stats = new HashMap<>(groupCommitter.getStats());
+    stats.put("lastLsn", journal.getLastLsn());
+    stats.put("catalogVersion", publishedVersion.get().getVersion());
+    return stats;
+  }
+
+  /**
+   * Waits for queued journal writes to become durable and releases the journal file.
+   */
+  public void close() {
+    groupCommitter.close();
+    try {
+      journal.close();
     } catch (IOException e) {
-      System.err.println("An error occurred while writing to the file: " + e.getMessage());
-      e.printStackTrace();
+      LOGGER.error("An error occurred while closing the journal", e);
     }
   }
 
   /**
-   * Loads the department mapping from a file if it exists.
+   * Writes the snapshot to a temporary file and moves it over the data file, so that a
+   * crash while writing never leaves a half-written snapshot behind.
+   *
+   * @param lastLsn The LSN of the last journaled mutation contained in the snapshot.
+   * @throws IOException if the snapshot cannot be written.
+   */
+  private void writeSnapshot(long lastLsn) throws IOException {
+    Path target = Paths.get(filePath);
+    Path temp = Paths.get(filePath + TEMP_SUFFIX);
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      CatalogCodec.write(currentVersion.get(), lastLsn, channel);
+      channel.force(true);
+      SNAPSHOT_SAVE_BYTES.record(channel.size());
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Applies the mutations journaled since the loaded snapshot was written. Runs before the
+   * first version is published, so the loaded departments can be updated in place.
+   *
+   * @param mapping The mapping loaded from the snapshot.
+   * @throws UncheckedIOException if the journal cannot be replayed to its end; the journal
+   *         is left as it is so it can be inspected or repaired.
+   */
+  private void replayJournal(Map<String, Department> mapping) {
+    try {
+      int applied = journal.replay(snapshotLsn, mapping);
+      JOURNAL_REPLAYED.add(applied);
+      if (applied > 0) {
+        LOGGER.info("Replayed {} journaled mutations.", applied);
+      }
+    } catch (IOException e) {
+      LOGGER.error("An error occurred while replaying the journal", e);
+      try {
+        journal.close();
+      } catch (IOException closeError) {
+        e.addSuppressed(closeError);
+      }
+      throw new UncheckedIOException("Could not replay the journal of " + filePath, e);
+    }
+  }
+
+  /**
+   * Loads the department mapping from a file if it exists. Current binary snapshots are
+   * memory-mapped and their departments are decoded on first access, so startup time does
+   * not grow with the size of the catalog. Older binary snapshots are decoded with
+   * {@link CatalogCodec}; files written with Java serialization by earlier versions are
+   * still read and are rewritten in the binary format after loading.
    *
    * @return A map containing department mappings.
    */
   Map<String, Department> deserializeDataFromFile() {
+    ProfilingEvents.Snapshot event = new ProfilingEvents.Snapshot();
+    event.begin();
+    long start = System.nanoTime();
+    try {
+      return readSnapshot();
+    } finally {
+      SNAPSHOT_LOAD_MICROS.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+      SNAPSHOT_LOAD_BYTES.record(new File(filePath).length());
+      commitSnapshotEvent(event, "load");
+    }
+  }
+
+  /**
+   * Ends a snapshot save or load event and commits it if a flight recording wants it.
+   *
+   * @param event     The event, begun when the operation started.
+   * @param operation {@code save} or {@code load}.
+   */
+  private void commitSnapshotEvent(ProfilingEvents.Snapshot event, String operation) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.operation = operation;
+      event.bytes = new File(filePath).length();
+      event.commit();
+    }
+  }
+
+  /**
+   * Reads the data file in whichever format it was written.
+   *
+   * @return The department mapping, or an empty one if the file cannot be read.
+   */
+  private Map<String, Department> readSnapshot() {
+    try {
+      int version = snapshotVersion();
+      if (version == MAPPABLE_VERSION) {
+        MappedCatalog catalog = MappedCatalog.open(Paths.get(filePath));
+        snapshotLsn = catalog.getLastLsn();
+        return new LazyDepartmentMap(catalog);
+      }
+      if (version > 0) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath))) {
+          CatalogCodec.LoadedSnapshot snapshot = CatalogCodec.read(channel);
+          snapshotLsn = snapshot.getLastLsn();
+          return snapshot.getMapping();
+        }
+      }
+      Map<String, Department> mapping = deserializeLegacyFile();
+      legacyFormatLoaded = true;
+      return mapping;
+    } catch (IOException e) {
+      LOGGER.error("An error occurred while reading from the file", e);
+    } catch (ClassNotFoundException e) {
+      LOGGER.error("The serialized class is not found", e);
+    }
+    return new HashMap<>();
+  }
+
+  /**
+   * Reads the binary catalog format version from the start of the data file.
+   *
+   * @return The snapshot version, or -1 if the file is not a binary catalog snapshot.
+   * @throws IOException if the file cannot be read.
+   */
+  private int snapshotVersion() throws IOException {
+    try (InputStream in = Files.newInputStream(Paths.get(filePath))) {
+      return CatalogCodec.versionOf(in.readNBytes(5));
+    }
+  }
+
+  /**
+   * Loads a department mapping written with Java serialization.
+   *
+   * @return The deserialized department mapping.
+   * @throws IOException if the file cannot be read.
+   * @throws ClassNotFoundException if a serialized class cannot be found.
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Department> deserializeLegacyFile()
+          throws IOException, ClassNotFoundException {
     try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filePath))) {
       Object readObject = in.readObject();
       if (readObject instanceof Map<?, ?>) {
+        snapshotLsn = readSnapshotLsn(in);
         return (Map<String, Department>) readObject;
       }
       throw new IllegalArgumentException("The file does not contain a valid department mapping.");
-    } catch (IOException e) {
-      System.err.println("An error occurred while reading from the file: " + e.getMessage());
-      e.printStackTrace();
-    } catch (ClassNotFoundException e) {
-      System.err.println("The serialized class is not found: " + e.getMessage());
-      e.printStackTrace();
     }
-    return new HashMap<>();
   }
 
   /**
-   * Updates the internal department mapping with new data.
+   * Reads the journal position stored after the mapping. Snapshots written before the
+   * journal existed end right after the mapping and are treated as position zero.
+   *
+   * @param in The stream positioned just after the mapping.
+   * @return The last LSN contained in the snapshot.
+   * @throws IOException if the stream cannot be read.
+   */
+  private static long readSnapshotLsn(ObjectInputStream in) throws IOException {
+    try {
+      return in.readLong();
+    } catch (EOFException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Replaces the department mapping with new data. The mapping is copied once here and
+   * published as a new catalog version, so later changes to the argument are not seen.
+   * Mutations still waiting for their journal frames to be synced are published first.
+   * The departments passed in belong to the database from now on and must not be changed
+   * by the caller.
    *
    * @param mapping The new mapping to be set.
+   * @throws UncheckedIOException if the journal cannot be synced.
    */
   public void setMapping(Map<String, Department> mapping) {
-    this.departmentMapping = mapping;
+    Map<String, Department> copy = new HashMap<>(mapping);
+    departmentLocks.lockAll();
+    try {
+      awaitPublished();
+      publishNow(currentVersion.get().rebase(copy));
+      courseIndex = null;
+      roomSchedule = null;
+    } finally {
+      departmentLocks.unlockAll();
+    }
   }
 
   /**
-   * Retrieves the current department mapping.
+   * Adds departments to the mapping, replacing any existing departments with the same codes
+   * and keeping all others. Like {@link #setMapping}, the new departments belong to the
+   * database from now on, and the change is not journaled until the next save.
    *
-   * @return An unmodifiable view of the current department mapping.
+   * @param departments The departments to add, by department code.
+   * @throws UncheckedIOException if the journal cannot be synced.
+   */
+  public void mergeMapping(Map<String, Department> departments) {
+    departmentLocks.lockAll();
+    try {
+      awaitPublished();
+      CatalogVersion before = currentVersion.get();
+      Map<String, Department> merged = new HashMap<>(before);
+      merged.putAll(departments);
+      publishNow(before.rebase(merged));
+      CourseIndex index = courseIndex;
+      if (index != null) {
+        departments.forEach((deptCode, department) -> {
+          Department replaced = before.get(deptCode);
+          if (replaced != null) {
+            index.removeDepartment(deptCode, replaced);
+          }
+          index.addDepartment(deptCode, department);
+        });
+      }
+      RoomSchedule schedule = roomSchedule;
+      if (schedule != null) {
+        departments.forEach((deptCode, department) ->
+                schedule.replaceDepartment(deptCode, before.get(deptCode), department));
+      }
+    } finally {
+      departmentLocks.unlockAll();
+    }
+  }
+
+  /**
+   * Retrieves the published version of the department mapping. The version is immutable:
+   * it never changes after it is returned, so a caller that keeps it for a whole request sees
+   * one consistent catalog, and reads never copy the catalog.
+   *
+   * @return A read-only, consistent version of the department mapping.
    */
   public Map<String, Department> getDepartmentMapping() {
-    return new HashMap<>(departmentMapping);
+    return publishedVersion.get();
+  }
+
+  /**
+   * Finds the courses of the current catalog version whose instructor, location or time
+   * slot has the given value, ignoring case and surrounding spaces. The first search builds
+   * a {@link CourseIndex} over the whole catalog, which every later change keeps up to date,
+   * so later searches take time in proportion to the number of matches rather than to the
+   * size of the catalog.
+   *
+   * @param field The field to search.
+   * @param value The value to look for.
+   * @return The matching courses, ordered by department code and course ID.
+   */
+  public List<CourseIndex.Match> findCourses(CourseIndex.Field field, String value) {
+    return getCourseIndex().find(field, value, publishedVersion.get());
+  }
+
+  /**
+   * Suggests instructors or locations of the current catalog for what a user has typed
+   * (see {@link CourseIndex#suggest}). Like {@link #findCourses}, the first call builds
+   * the course index.
+   *
+   * @param field The field, {@link CourseIndex.Field#INSTRUCTOR} or
+   *              {@link CourseIndex.Field#LOCATION}.
+   * @param query The text typed so far.
+   * @param limit The largest number of values to suggest.
+   * @return The suggested values with the number of courses that have each.
+   * @throws IllegalArgumentException if the field cannot be searched this way.
+   */
+  public List<CourseIndex.Suggestion> suggestValues(CourseIndex.Field field, String query,
+                                                    int limit) {
+    return getCourseIndex().suggest(field, query, limit);
+  }
+
+  /**
+   * Reports the size of the course index.
+   *
+   * @return The statistics from {@link CourseIndex#getStats()}, or null if no search has
+   *         built the index yet.
+   */
+  public Map<String, Object> getCourseIndexStats() {
+    CourseIndex index = courseIndex;
+    return index == null ? null : index.getStats();
+  }
+
+  /**
+   * Gets the course index, building it first if needed. The index is published before it is
+   * filled, so mutations made while it is built already update it; each department is then
+   * added under its own lock, as it is in the version current at that moment, so only the
+   * department being added waits. Departments of a memory-mapped snapshot are decoded once
+   * for this without being kept. Searches wait until every department has been added. They
+   * wait on a {@link ReentrantLock}, so a virtual thread building the index or waiting for it
+   * does not pin its carrier thread.
+   *
+   * @return The complete index.
+   */
+  private CourseIndex getCourseIndex() {
+    CourseIndex index = courseIndex;
+    if (index != null && index.isComplete()) {
+      return index;
+    }
+    courseIndexLock.lock();
+    try {
+      while (true) {
+        index = courseIndex;
+        if (index != null && index.isComplete()) {
+          return index;
+        }
+        if (index == null) {
+          index = new CourseIndex();
+          courseIndex = index;
+        }
+        long start = System.nanoTime();
+        CourseIndex building = index;
+        CatalogVersion pinned = currentVersion.get();
+        for (Map.Entry<String, Department> entry : pinned.entrySet()) {
+          String deptCode = entry.getKey();
+          departmentLocks.withLock(deptCode, () -> {
+            CatalogVersion now = currentVersion.get();
+            Department department = now.isUnchangedSince(pinned, deptCode)
+                    ? entry.getValue() : now.get(deptCode);
+            if (department != null) {
+              building.addDepartment(deptCode, department);
+            }
+            return null;
+          });
+        }
+        building.markComplete();
+        COURSE_INDEX_BUILD_MICROS.record(
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+      }
+    } finally {
+      courseIndexLock.unlock();
+    }
+  }
+
+  /**
+   * Finds the courses that are held in the same room at overlapping times. The
+   * {@link RoomSchedule} of the whole catalog is built by the first call, or by the first
+   * change of a time slot or location, and kept up to date by later changes.
+   *
+   * @param limit The largest number of conflicts to list.
+   * @return The conflicts in the current catalog.
+   */
+  public RoomSchedule.Report findScheduleConflicts(int limit) {
+    return getRoomSchedule().findConflicts(limit);
+  }
+
+  /**
+   * Reports the size of the room schedule.
+   *
+   * @return The statistics from {@link RoomSchedule#getStats()}, or null if the schedule has
+   *         not been built yet.
+   */
+  public Map<String, Object> getRoomScheduleStats() {
+    RoomSchedule schedule = roomSchedule;
+    return schedule == null ? null : schedule.getStats();
+  }
+
+  /**
+   * Gets the room schedule, building it first if needed. The schedule is built without
+   * locks from the version current at the start, which no one changes, and then, with every
+   * department locked, the departments replaced in the meantime are booked again and the
+   * schedule is published, so from then on every change of a time slot or location is
+   * checked against it. Callers that find no schedule wait for the one being built on a
+   * {@link ReentrantLock}, which does not pin a virtual thread's carrier while the catalog
+   * is read. Must not be called while holding a department lock.
+   *
+   * @return The complete schedule.
+   */
+  private RoomSchedule getRoomSchedule() {
+    RoomSchedule schedule = roomSchedule;
+    if (schedule != null) {
+      return schedule;
+    }
+    roomScheduleLock.lock();
+    try {
+      while (true) {
+        schedule = roomSchedule;
+        if (schedule != null) {
+          return schedule;
+        }
+        long start = System.nanoTime();
+        CatalogVersion pinned = currentVersion.get();
+        RoomSchedule built = RoomSchedule.build(pinned);
+        departmentLocks.lockAll();
+        try {
+          CatalogVersion now = currentVersion.get();
+          Set<String> changed = now.changedSince(pinned);
+          if (changed != null) {
+            for (String deptCode : changed) {
+              built.replaceDepartment(deptCode, pinned.get(deptCode), now.get(deptCode));
+            }
+            roomSchedule = built;
+          }
+        } finally {
+          departmentLocks.unlockAll();
+        }
+        ROOM_SCHEDULE_BUILD_MICROS.record(
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+      }
+    } finally {
+      roomScheduleLock.unlock();
+    }
+  }
+
+  /**
+   * Releases memory held by departments that were loaded from a memory-mapped snapshot but
+   * have not been used recently and are unchanged. Has no effect when the mapping was not
+   * loaded from a mappable snapshot.
+   *
+   * @param idleMillis How long a department must have gone unused before it is released.
+   * @return The number of departments released.
+   */
+  public int releaseColdDepartments(long idleMillis) {
+    if (currentVersion.get().getBase() instanceof LazyDepartmentMap lazyMapping) {
+      return lazyMapping.releaseColdDepartments(TimeUnit.MILLISECONDS.toNanos(idleMillis));
+    }
+    return 0;
+  }
+
+  /**
+   * Reports the size of the catalog: its version and its numbers of departments, courses,
+   * seats and enrolled students. Counting visits every course, so the counts are kept for
+   * up to {@value #CATALOG_STATS_MAX_AGE_MILLIS} ms unless the catalog has not changed.
+   * Departments of a memory-mapped snapshot are decoded for the count without being kept.
+   *
+   * @return The catalog statistics.
+   */
+  public Map<String, Object> getCatalogStats() {
+    CatalogVersion version = publishedVersion.get();
+    Map<String, Object> stats = catalogStats;
+    if (stats == null || (!stats.get("version").equals(version.getVersion())
+            && System.nanoTime() - catalogStatsNanos
+                    > TimeUnit.MILLISECONDS.toNanos(CATALOG_STATS_MAX_AGE_MILLIS))) {
+      long courses = 0;
+      long capacity = 0;
+      long enrolled = 0;
+      for (Department department : version.values()) {
+        for (Course course : department.getCourseSelection().values()) {
+          courses++;
+          capacity += course.getEnrollmentCapacity();
+          enrolled += course.getEnrolledStudentCount();
+        }
+      }
+      stats = new LinkedHashMap<>();
+      stats.put("version", version.getVersion());
+      stats.put("departments", version.size());
+      stats.put("courses", courses);
+      stats.put("capacity", capacity);
+      stats.put("enrolled", enrolled);
+      if (version.getBase() instanceof LazyDepartmentMap lazyMapping) {
+        stats.put("loadedDepartments", lazyMapping.loadedCount());
+      }
+      catalogStats = stats;
+      catalogStatsNanos = System.nanoTime();
+    }
+    return stats;
   }
 
   /**
@@ -89,16 +1050,121 @@ public class MyFileDatabase {
   @Override
   public String toString() {
     StringBuilder stringBuilder = new StringBuilder();
-    departmentMapping.forEach((department, details) ->
+    publishedVersion.get().forEach((department, details) ->
             stringBuilder.append("For the ").append(department).append(" department: \n")
                     .append(details.toString())
     );
     return stringBuilder.toString();
   }
 
+  /**
+   * What happened to a batch while its departments were locked.
+   *
+   * @param failedIndex The index of the mutation that could not be applied, or -1.
+   * @param durable     The pending journal write, or null if nothing was written.
+   */
+  private record BatchOutcome(int failedIndex, CompletableFuture<Long> durable) {
+  }
+
+  /**
+   * A version waiting for its journal frame to be synced before readers may see it.
+   *
+   * @param version   The version.
+   * @param durable   Completes once the frame has been synced.
+   * @param published Completes once the version has been published, or will never be.
+   */
+  private record UnpublishedVersion(CatalogVersion version, CompletableFuture<Long> durable,
+                                    CompletableFuture<Long> published) {
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MyFileDatabase.class);
+
+  /** Snapshot format version that can be memory-mapped and loaded lazily. */
+  private static final int MAPPABLE_VERSION = 2;
+
+  /** Suffix appended to the data file path to name the mutation journal. */
+  static final String JOURNAL_SUFFIX = ".journal";
+
+  /** Suffix appended to the data file path to name the snapshot being written. */
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  /** Longest time catalog statistics are reused after the catalog has changed. */
+  private static final long CATALOG_STATS_MAX_AGE_MILLIS = 10_000;
+
+  private static final Histogram SNAPSHOT_SAVE_MICROS =
+          Metrics.histogram("catalog.snapshot.save.micros");
+  private static final Histogram SNAPSHOT_SAVE_BYTES =
+          Metrics.histogram("catalog.snapshot.save.bytes");
+  private static final Histogram SNAPSHOT_LOAD_MICROS =
+          Metrics.histogram("catalog.snapshot.load.micros");
+  private static final Histogram SNAPSHOT_LOAD_BYTES =
+          Metrics.histogram("catalog.snapshot.load.bytes");
+  private static final LongAdder JOURNAL_REPLAYED = Metrics.counter("catalog.journal.replayed");
+  private static final Histogram COURSE_INDEX_BUILD_MICROS =
+          Metrics.histogram("catalog.index.build.micros");
+  private static final Histogram ROOM_SCHEDULE_BUILD_MICROS =
+          Metrics.histogram("catalog.schedule.build.micros");
+
+  /** Default number of mutations made durable by one fsync. */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+  /** Default time the journal flusher waits for a batch to fill. */
+  public static final long DEFAULT_MAX_WAIT_MICROS = 200;
+
   /** Path to the file where the serialized department mappings are stored. */
   private String filePath;
 
-  /** Current department mappings. */
-  private Map<String, Department> departmentMapping;
+  /** Journal of mutations applied since the last snapshot. */
+  private final MutationJournal journal;
+
+  /** Batches journal writes so that concurrent mutations share an fsync. */
+  private volatile GroupCommitter groupCommitter;
+
+  /** Last journal LSN contained in the loaded snapshot. */
+  private long snapshotLsn;
+
+  /** Whether the loaded snapshot used the Java serialization format. */
+  private boolean legacyFormatLoaded;
+
+  /** Number of lock stripes that department codes are hashed onto. */
+  private static final int DEPARTMENT_LOCK_STRIPES = 64;
+
+  /** Serializes mutations within a department while leaving other departments unblocked. */
+  private final StripedLocks departmentLocks = new StripedLocks(DEPARTMENT_LOCK_STRIPES);
+
+  /**
+   * The latest version of the department mappings, which writers build on; it may hold
+   * mutations whose journal frames have not been synced yet.
+   */
+  private final AtomicReference<CatalogVersion> currentVersion = new AtomicReference<>();
+
+  /** The version readers see: the latest one whose journal frames are all durable. */
+  private final AtomicReference<CatalogVersion> publishedVersion = new AtomicReference<>();
+
+  /**
+   * Versions created by mutations and waiting for their journal frames to be synced, oldest
+   * first, guarded by {@link #publishLock}.
+   */
+  private final ArrayDeque<UnpublishedVersion> unpublishedVersions = new ArrayDeque<>();
+
+  /** The first failed journal sync; nothing created after it is published. */
+  private Throwable publishFailure;
+
+  /** Orders the creation and publication of versions; never held while blocking. */
+  private final ReentrantLock publishLock = new ReentrantLock();
+
+  /**
+   * Index of courses by instructor, location and time slot; created by the first search and
+   * dropped when the whole catalog is replaced.
+   */
+  private volatile CourseIndex courseIndex;
+  private final ReentrantLock courseIndexLock = new ReentrantLock();
+
+  /** Room bookings of the current catalog, built by the first conflict search or check. */
+  private volatile RoomSchedule roomSchedule;
+  private final ReentrantLock roomScheduleLock = new ReentrantLock();
+
+  /** Catalog statistics last computed by {@link #getCatalogStats()}, and when. */
+  private volatile Map<String, Object> catalogStats;
+  private volatile long catalogStatsNanos;
 }
\ No newline at end of file
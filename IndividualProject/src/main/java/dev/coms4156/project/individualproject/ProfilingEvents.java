@@ -0,0 +1,77 @@
+package dev.coms4156.project.individualproject;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted by the application, recorded by
+ * {@link FlightRecorderProfiler} and shown under "Course API" in JDK Mission Control. When
+ * no recording is running, creating and committing an event does nothing, so they are left
+ * in place on the hot paths.
+ */
+final class ProfilingEvents {
+
+  private ProfilingEvents() {
+  }
+
+  /**
+   * One HTTP request, from the start of the filter chain until the response is complete.
+   */
+  @Name(PREFIX + "Request")
+  @Label("Request")
+  @Category(CATEGORY)
+  @Description("An HTTP request handled by the course API")
+  @StackTrace(false)
+  static final class Request extends Event {
+    @Label("Route")
+    String route;
+
+    @Label("Handler")
+    String handler;
+
+    @Label("Status")
+    int status;
+  }
+
+  /**
+   * One save or load of the catalog snapshot.
+   */
+  @Name(PREFIX + "Snapshot")
+  @Label("Snapshot")
+  @Category(CATEGORY)
+  @Description("A save or load of the catalog snapshot file")
+  static final class Snapshot extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+  }
+
+  /**
+   * A wait for a department lock that another mutation was holding. Uncontended
+   * acquisitions are not recorded.
+   */
+  @Name(PREFIX + "LockWait")
+  @Label("Department Lock Wait")
+  @Category(CATEGORY)
+  @Description("A mutation waiting for a department lock held by another mutation")
+  static final class LockWait extends Event {
+    @Label("Stripe")
+    int stripe;
+
+    @Label("Department")
+    String key;
+  }
+
+  /** Prefix of the event names. */
+  static final String PREFIX = "coms4156.";
+
+  private static final String CATEGORY = "Course API";
+}
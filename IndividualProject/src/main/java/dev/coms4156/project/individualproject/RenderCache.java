@@ -0,0 +1,144 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of rendered response bodies, keyed by the identity of the object that was
+ * rendered. Departments and courses in a published {@link CatalogVersion} never change, and
+ * every mutation replaces the department and course it touches with a copy, so a cached
+ * rendering stays valid exactly as long as readers can still reach the object it was made
+ * from. Nothing has to be invalidated explicitly: an update simply misses and entries for
+ * replaced objects age out.
+ *
+ * <p>The cache is split into segments, each a small LRU map with its own lock, so concurrent
+ * readers rarely contend with each other.
+ */
+public class RenderCache {
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxEntries The maximum number of renderings kept across all segments.
+   * @throws IllegalArgumentException if {@code maxEntries} is not positive.
+   */
+  public RenderCache(int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("Cache size must be positive.");
+    }
+    this.maxEntries = maxEntries;
+    int perSegment = Math.max(1, maxEntries / SEGMENTS);
+    this.segments = new Segment[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(perSegment);
+    }
+  }
+
+  /**
+   * Gets the rendering of an object, rendering it with {@code toString()} on a miss.
+   *
+   * @param source The department or course to render; must not change after it is cached.
+   * @return The rendered text.
+   */
+  public String render(Object source) {
+    Segment segment = segments[(System.identityHashCode(source) >>> 4) & (SEGMENTS - 1)];
+    String rendered;
+    synchronized (segment) {
+      rendered = segment.get(source);
+    }
+    if (rendered != null) {
+      hits.increment();
+      return rendered;
+    }
+    misses.increment();
+    rendered = source.toString();
+    synchronized (segment) {
+      segment.put(source, rendered);
+    }
+    return rendered;
+  }
+
+  /**
+   * Drops every cached rendering.
+   */
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  /**
+   * Summarizes how well the cache is working.
+   *
+   * @return A map with the size limit, current size, hits, misses, evictions and hit rate.
+   */
+  public Map<String, Object> getStats() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("maxEntries", maxEntries);
+    stats.put("size", size);
+    long hitCount = hits.sum();
+    stats.put("hits", hitCount);
+    long missCount = misses.sum();
+    stats.put("misses", missCount);
+    stats.put("evictions", evictions.sum());
+    stats.put("hitRate", hitCount + missCount == 0 ? 0.0
+            : (double) hitCount / (hitCount + missCount));
+    return stats;
+  }
+
+  /**
+   * One LRU map. Keys are departments and courses, which do not override {@code equals},
+   * so lookups compare identity. The map is held rather than extended, so the segment is
+   * not a serializable map that drags the whole cache along with it.
+   */
+  private final class Segment {
+
+    Segment(int capacity) {
+      this.capacity = capacity;
+    }
+
+    String get(Object source) {
+      return entries.get(source);
+    }
+
+    void put(Object source, String rendered) {
+      entries.put(source, rendered);
+      if (entries.size() > capacity) {
+        Iterator<Object> eldest = entries.keySet().iterator();
+        eldest.next();
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+
+    void clear() {
+      entries.clear();
+    }
+
+    int size() {
+      return entries.size();
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Object, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /** Number of independently locked segments; a power of two. */
+  private static final int SEGMENTS = 16;
+
+  private final int maxEntries;
+  private final Segment[] segments;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+}
@@ -0,0 +1,131 @@
+package dev.coms4156.project.individualproject;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records the latency and outcome of every request per route, reported as the
+ * {@code http.server.requests} metric. Routes are identified by method and path pattern, so
+ * a route's query parameters never create new entries, and requests that match no route
+ * share one entry. Requests handled asynchronously are recorded when their response is
+ * complete, so updates answered with a future are timed until the journal write finishes.
+ * Each request is also emitted as a {@link ProfilingEvents.Request} for flight recordings.
+ */
+@Component
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+  /**
+   * Creates the filter and registers its metric.
+   */
+  public RequestMetricsFilter() {
+    Metrics.gauge(METRIC_NAME, this::getStats);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain chain) throws ServletException, IOException {
+    ProfilingEvents.Request requestEvent = new ProfilingEvents.Request();
+    requestEvent.begin();
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      chain.doFilter(request, response);
+      failed = false;
+    } finally {
+      if (!failed && request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(new AsyncListener() {
+          @Override
+          public void onComplete(AsyncEvent event) {
+            record(request, response.getStatus(), start, requestEvent);
+          }
+
+          @Override
+          public void onTimeout(AsyncEvent event) {
+          }
+
+          @Override
+          public void onError(AsyncEvent event) {
+          }
+
+          @Override
+          public void onStartAsync(AsyncEvent event) {
+          }
+        });
+      } else {
+        record(request, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                : response.getStatus(), start, requestEvent);
+      }
+    }
+  }
+
+  /**
+   * Summarizes each route's requests.
+   *
+   * @return A map from method and path pattern to the route's latency summary in
+   *         microseconds and its counts of client and server errors.
+   */
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new TreeMap<>();
+    routes.forEach((route, routeStats) -> {
+      Map<String, Object> summary = routeStats.latencyMicros.toMap();
+      summary.put("clientErrors", routeStats.clientErrors.sum());
+      summary.put("serverErrors", routeStats.serverErrors.sum());
+      stats.put(route, summary);
+    });
+    return stats;
+  }
+
+  private void record(HttpServletRequest request, int status, long start,
+                      ProfilingEvents.Request event) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String route = request.getMethod() + " " + (pattern != null ? pattern : UNMATCHED);
+    event.end();
+    if (event.shouldCommit()) {
+      Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+      event.route = route;
+      event.handler = handler instanceof HandlerMethod method
+              ? method.getBeanType().getSimpleName() + "." + method.getMethod().getName()
+              : null;
+      event.status = status;
+      event.commit();
+    }
+    RouteStats stats = routes.computeIfAbsent(route, r -> new RouteStats());
+    stats.latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    if (status >= 500) {
+      stats.serverErrors.increment();
+    } else if (status >= 400) {
+      stats.clientErrors.increment();
+    }
+  }
+
+  /**
+   * Latencies and error counts of one route.
+   */
+  private static final class RouteStats {
+    final Histogram latencyMicros = new Histogram();
+    final LongAdder clientErrors = new LongAdder();
+    final LongAdder serverErrors = new LongAdder();
+  }
+
+  /** Name under which the per-route statistics are reported. */
+  static final String METRIC_NAME = "http.server.requests";
+
+  /** Route recorded for requests that match no handler. */
+  static final String UNMATCHED = "UNMATCHED";
+
+  private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,569 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * The times at which each room is booked by the catalog's courses, for finding courses that
+ * are held in the same room at overlapping times. Rooms are matched by location ignoring
+ * case and surrounding spaces, and time slots such as {@code "11:40-12:55"} are parsed into
+ * minutes of the day (see {@link Interval#parse}). Courses whose time slot cannot be parsed
+ * are not booked anywhere. The catalog does not record meeting days, so courses are taken to
+ * meet on the same days.
+ *
+ * <p>Each room keeps its bookings in an immutable array sorted by start time, overlaid with
+ * an implicit balanced interval tree: the middle booking of every range of the array holds
+ * the latest end time within that range, so the bookings overlapping a time slot are found
+ * in O(log n) plus the number found, without allocating. A change copies the room's array,
+ * which is short, so readers never wait. Changes are serialized with a
+ * {@link ReentrantLock}, which lets {@link #reschedule} check and move several bookings as
+ * one step; unlike a monitor, it does not pin the carrier of a virtual thread that waits for
+ * it while holding department locks.
+ */
+public class RoomSchedule {
+
+  /**
+   * A time slot as minutes since midnight, from {@code start} inclusive to {@code end}
+   * exclusive, so a course ending at 11:25 does not overlap one starting at 11:25.
+   *
+   * @param start The first minute.
+   * @param end   The minute after the last one.
+   */
+  public record Interval(int start, int end) {
+
+    /**
+     * Parses a time slot such as {@code "10:10-11:25"}, {@code "4:10-5:25"},
+     * {@code "13:10-14:25"} or {@code "1:10pm-2:25pm"}. Without am or pm, hours from 1 to 7
+     * are taken to be in the afternoon, as no course starts before 8 in the morning, and an
+     * end that would come before the start is moved to the afternoon, so {@code "12:10-2:00"}
+     * ends at 14:00.
+     *
+     * @param timeSlot The time slot.
+     * @return The interval, or null if the time slot is missing or not in this form.
+     */
+    public static Interval parse(String timeSlot) {
+      if (timeSlot == null) {
+        return null;
+      }
+      String slot = timeSlot.trim().toLowerCase(Locale.ROOT);
+      int dash = slot.indexOf('-');
+      if (dash < 0) {
+        dash = slot.indexOf('–');
+      }
+      if (dash < 0) {
+        return null;
+      }
+      int start = parseTime(slot.substring(0, dash).trim());
+      int end = parseTime(slot.substring(dash + 1).trim());
+      if (start < 0 || end < 0) {
+        return null;
+      }
+      boolean endGiven = (end & HAS_MERIDIEM) != 0;
+      start &= ~HAS_MERIDIEM;
+      end &= ~HAS_MERIDIEM;
+      if (start > end && !endGiven && end < NOON) {
+        end += NOON;
+      }
+      return start < end ? new Interval(start, end) : null;
+    }
+
+    /**
+     * Checks whether this interval and another have a minute in common.
+     *
+     * @param other The other interval.
+     * @return true if they overlap.
+     */
+    public boolean overlaps(Interval other) {
+      return start < other.end && other.start < end;
+    }
+
+    /**
+     * Parses one time of day. Hours from 1 to 7 without am or pm are moved to the afternoon.
+     *
+     * @return The minute of the day, with {@link #HAS_MERIDIEM} set if am or pm was given,
+     *         or -1 if the time is not valid.
+     */
+    private static int parseTime(String time) {
+      int meridiem = 0;
+      if (time.endsWith("am") || time.endsWith("pm")) {
+        meridiem = time.endsWith("pm") ? 2 : 1;
+        time = time.substring(0, time.length() - 2).trim();
+      }
+      int colon = time.indexOf(':');
+      if (colon < 1 || colon > 2 || time.length() != colon + 3) {
+        return -1;
+      }
+      int hour = digits(time, 0, colon);
+      int minute = digits(time, colon + 1, time.length());
+      if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+        return -1;
+      }
+      if (meridiem != 0) {
+        if (hour < 1 || hour > 12) {
+          return -1;
+        }
+        hour = hour % 12 + (meridiem == 2 ? 12 : 0);
+        return (hour * 60 + minute) | HAS_MERIDIEM;
+      }
+      if (hour >= 1 && hour < 8) {
+        hour += 12;
+      }
+      return hour * 60 + minute;
+    }
+
+    private static int digits(String text, int from, int to) {
+      int value = 0;
+      for (int i = from; i < to; i++) {
+        char c = text.charAt(i);
+        if (c < '0' || c > '9') {
+          return -1;
+        }
+        value = value * 10 + (c - '0');
+      }
+      return value;
+    }
+
+    /** Flag set on a parsed time that had am or pm, which is never moved. */
+    private static final int HAS_MERIDIEM = 1 << 16;
+
+    /** Minutes from midnight to noon. */
+    private static final int NOON = 12 * 60;
+  }
+
+  /**
+   * A course's booking of a room.
+   *
+   * @param deptCode The code of the course's department.
+   * @param courseId The course's ID within the department.
+   * @param location The course's location as written in the catalog.
+   * @param timeSlot The course's time slot as written in the catalog.
+   * @param interval The time slot in minutes.
+   */
+  public record Booking(String deptCode, String courseId, String location, String timeSlot,
+                        Interval interval) {
+
+    /**
+     * Creates the booking a course makes.
+     *
+     * @param deptCode The code of the course's department.
+     * @param courseId The course's ID within the department.
+     * @param course   The course, or null.
+     * @return The booking, or null if the course is null, has no location or has a time
+     *         slot that cannot be parsed.
+     */
+    public static Booking of(String deptCode, String courseId, Course course) {
+      if (course == null || course.getCourseLocation() == null
+              || course.getCourseLocation().isBlank()) {
+        return null;
+      }
+      Interval interval = Interval.parse(course.getCourseTimeSlot());
+      return interval == null ? null : new Booking(deptCode, courseId,
+              course.getCourseLocation(), course.getCourseTimeSlot(), interval);
+    }
+
+    boolean isCourse(Booking other) {
+      return deptCode.equals(other.deptCode) && courseId.equals(other.courseId);
+    }
+
+    @Override
+    public String toString() {
+      return deptCode + " " + courseId + " (" + location + ", " + timeSlot + ")";
+    }
+  }
+
+  /**
+   * Two courses booked in the same room at overlapping times.
+   *
+   * @param first  The booking that starts first.
+   * @param second The booking that starts at the same time or later.
+   */
+  public record Conflict(Booking first, Booking second) {
+  }
+
+  /**
+   * The conflicts found in the whole schedule.
+   *
+   * @param total     The number of conflicting pairs.
+   * @param rooms     The number of rooms with at least one conflict.
+   * @param conflicts The first conflicts, ordered by room and then by time.
+   */
+  public record Report(long total, int rooms, List<Conflict> conflicts) {
+  }
+
+  /**
+   * Creates an empty schedule.
+   */
+  public RoomSchedule() {
+  }
+
+  /**
+   * Creates the schedule of every course in a catalog. Each distinct time slot is parsed and
+   * each distinct location normalized once, and each room is sorted once, so this takes
+   * O(n log n) for n courses.
+   *
+   * @param catalog The catalog, which must not change while it is read.
+   * @return The schedule.
+   */
+  public static RoomSchedule build(Map<String, Department> catalog) {
+    Map<String, Interval> intervals = new HashMap<>();
+    Map<String, List<Booking>> byLocation = new HashMap<>();
+    for (Map.Entry<String, Department> entry : catalog.entrySet()) {
+      String deptCode = entry.getKey();
+      entry.getValue().getCourseSelection().forEach((courseId, course) -> {
+        String location = course.getCourseLocation();
+        Interval interval = intervals.computeIfAbsent(course.getCourseTimeSlot(),
+                Interval::parse);
+        if (location != null && !location.isBlank() && interval != null) {
+          byLocation.computeIfAbsent(location, room -> new ArrayList<>()).add(new Booking(
+                  deptCode, courseId, location, course.getCourseTimeSlot(), interval));
+        }
+      });
+    }
+    Map<String, List<Booking>> byRoom = new HashMap<>();
+    byLocation.forEach((location, bookings) -> byRoom.merge(key(location), bookings,
+            (some, more) -> {
+              some.addAll(more);
+              return some;
+            }));
+    RoomSchedule schedule = new RoomSchedule();
+    byRoom.forEach((room, bookings) -> {
+      Booking[] sorted = bookings.toArray(new Booking[0]);
+      Arrays.sort(sorted, ORDER);
+      schedule.rooms.put(room, new Room(sorted));
+    });
+    return schedule;
+  }
+
+  /**
+   * Replaces the bookings of a department's courses without checking them for conflicts,
+   * for departments loaded in bulk.
+   *
+   * @param deptCode The department code.
+   * @param before   The department as it was booked, or null if it was not.
+   * @param after    The department to book, or null to only remove the bookings.
+   */
+  public void replaceDepartment(String deptCode, Department before, Department after) {
+    lock.lock();
+    try {
+      if (before != null) {
+        forEachBooking(deptCode, before, this::remove);
+      }
+      if (after != null) {
+        forEachBooking(deptCode, after, this::add);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Moves bookings as one step, after checking that no new booking overlaps another course
+   * in its room. The released bookings are removed first, so courses may swap time slots,
+   * and the new bookings are checked against each other as well.
+   *
+   * @param released The bookings the courses held before.
+   * @param booked   The bookings the courses are to hold.
+   * @throws ScheduleConflictException if a new booking overlaps another one, in which case
+   *         the schedule is left unchanged.
+   */
+  public void reschedule(List<Booking> released, List<Booking> booked) {
+    reschedule(released, booked, () -> null);
+  }
+
+  /**
+   * Moves bookings as in {@link #reschedule(List, List)} and then runs {@code commit} before
+   * any other change can be made, putting the bookings back if it fails. This lets a caller
+   * reserve rooms and journal the change that needs them as one step: if the journal write
+   * fails, no one has seen the rooms taken.
+   *
+   * @param released The bookings the courses held before.
+   * @param booked   The bookings the courses are to hold.
+   * @param commit   Runs once the bookings have moved.
+   * @param <T>      The type of the commit's result.
+   * @return What {@code commit} returned.
+   * @throws ScheduleConflictException if a new booking overlaps another one, in which case
+   *         the schedule is left unchanged and {@code commit} is not run.
+   */
+  public <T> T reschedule(List<Booking> released, List<Booking> booked, Supplier<T> commit) {
+    lock.lock();
+    try {
+      released.forEach(this::remove);
+      for (int i = 0; i < booked.size(); i++) {
+        Booking booking = booked.get(i);
+        Room room = rooms.get(key(booking.location()));
+        Booking clash = room == null ? null
+                : room.firstOverlap(0, room.bookings.length, booking);
+        if (clash != null) {
+          booked.subList(0, i).forEach(this::remove);
+          released.forEach(this::add);
+          throw new ScheduleConflictException(booking, clash);
+        }
+        add(booking);
+      }
+      try {
+        return commit.get();
+      } catch (RuntimeException | Error e) {
+        booked.forEach(this::remove);
+        released.forEach(this::add);
+        throw e;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Lists the bookings of a room that overlap a time slot.
+   *
+   * @param location The room.
+   * @param interval The time slot.
+   * @return The overlapping bookings, ordered by start time.
+   */
+  public List<Booking> findOverlapping(String location, Interval interval) {
+    Room room = rooms.get(key(location));
+    List<Booking> found = new ArrayList<>();
+    if (room != null) {
+      room.overlapping(0, room.bookings.length, interval, found::add);
+    }
+    return found;
+  }
+
+  /**
+   * Finds every pair of courses booked in the same room at overlapping times. The pairs are
+   * counted for all rooms in parallel; then the first {@code limit} are listed, which is the
+   * only part whose cost depends on the limit.
+   *
+   * @param limit The largest number of conflicts to list.
+   * @return The conflicts.
+   */
+  public Report findConflicts(int limit) {
+    List<Map.Entry<String, Room>> sorted = new ArrayList<>(rooms.entrySet());
+    sorted.sort(Map.Entry.comparingByKey());
+    long[] counts = new long[sorted.size()];
+    IntStream.range(0, sorted.size()).parallel()
+            .forEach(i -> counts[i] = sorted.get(i).getValue().countConflicts());
+    long total = 0;
+    int conflictedRooms = 0;
+    List<Conflict> conflicts = new ArrayList<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        total += counts[i];
+        conflictedRooms++;
+        if (conflicts.size() < limit) {
+          sorted.get(i).getValue().listConflicts(conflicts, limit);
+        }
+      }
+    }
+    return new Report(total, conflictedRooms, conflicts);
+  }
+
+  /**
+   * Reports the size of the schedule.
+   *
+   * @return The number of rooms and of bookings, and the most bookings of any room.
+   */
+  public Map<String, Object> getStats() {
+    long bookings = 0;
+    int largest = 0;
+    for (Room room : rooms.values()) {
+      bookings += room.bookings.length;
+      largest = Math.max(largest, room.bookings.length);
+    }
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("rooms", rooms.size());
+    stats.put("bookings", bookings);
+    stats.put("largestRoom", largest);
+    return stats;
+  }
+
+  private static void forEachBooking(String deptCode, Department department,
+                                     Consumer<Booking> action) {
+    department.getCourseSelection().forEach((courseId, course) -> {
+      Booking booking = Booking.of(deptCode, courseId, course);
+      if (booking != null) {
+        action.accept(booking);
+      }
+    });
+  }
+
+  private void add(Booking booking) {
+    rooms.compute(key(booking.location()),
+            (room, bookings) -> bookings == null ? new Room(new Booking[] {booking})
+                    : bookings.with(booking));
+  }
+
+  private void remove(Booking booking) {
+    rooms.computeIfPresent(key(booking.location()), (room, bookings) -> bookings.without(booking));
+  }
+
+  private static String key(String location) {
+    return CourseIndex.key(location);
+  }
+
+  /**
+   * The bookings of one room, sorted by {@link #ORDER}. For the range of indexes
+   * {@code [lo, hi)}, {@code maxEnd[(lo + hi) >>> 1]} holds the latest end of the bookings in
+   * the range, so the array is searched as a balanced tree whose root is the middle booking.
+   */
+  private static final class Room {
+
+    Room(Booking[] bookings) {
+      this.bookings = bookings;
+      this.maxEnd = new int[bookings.length];
+      fillMaxEnd(0, bookings.length);
+    }
+
+    private int fillMaxEnd(int lo, int hi) {
+      if (lo >= hi) {
+        return Integer.MIN_VALUE;
+      }
+      int mid = (lo + hi) >>> 1;
+      int max = Math.max(bookings[mid].interval().end(),
+              Math.max(fillMaxEnd(lo, mid), fillMaxEnd(mid + 1, hi)));
+      maxEnd[mid] = max;
+      return max;
+    }
+
+    /**
+     * Finds a booking of another course in {@code [lo, hi)} that overlaps a booking.
+     *
+     * @return The earliest such booking, or null if there is none.
+     */
+    Booking firstOverlap(int lo, int hi, Booking booking) {
+      if (lo >= hi) {
+        return null;
+      }
+      int mid = (lo + hi) >>> 1;
+      Interval interval = booking.interval();
+      if (maxEnd[mid] <= interval.start()) {
+        return null;
+      }
+      Booking found = firstOverlap(lo, mid, booking);
+      if (found != null) {
+        return found;
+      }
+      Booking own = bookings[mid];
+      if (own.interval().start() >= interval.end()) {
+        return null;
+      }
+      if (own.interval().end() > interval.start() && !own.isCourse(booking)) {
+        return own;
+      }
+      return firstOverlap(mid + 1, hi, booking);
+    }
+
+    /**
+     * Passes the bookings in {@code [lo, hi)} that overlap an interval to an action, in
+     * order, skipping every subtree that ends too early or starts too late.
+     */
+    void overlapping(int lo, int hi, Interval interval, Consumer<Booking> action) {
+      if (lo >= hi) {
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      if (maxEnd[mid] <= interval.start()) {
+        return;
+      }
+      overlapping(lo, mid, interval, action);
+      Interval own = bookings[mid].interval();
+      if (own.start() >= interval.end()) {
+        return;
+      }
+      if (own.end() > interval.start()) {
+        action.accept(bookings[mid]);
+      }
+      overlapping(mid + 1, hi, interval, action);
+    }
+
+    /**
+     * Counts the overlapping pairs by sweeping the bookings in order of start time: a
+     * booking overlaps each later one that starts before it ends.
+     */
+    long countConflicts() {
+      long count = 0;
+      for (int i = 0; i < bookings.length; i++) {
+        int end = bookings[i].interval().end();
+        for (int j = i + 1; j < bookings.length && bookings[j].interval().start() < end; j++) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    void listConflicts(List<Conflict> conflicts, int limit) {
+      for (int i = 0; i < bookings.length; i++) {
+        int end = bookings[i].interval().end();
+        for (int j = i + 1; j < bookings.length && bookings[j].interval().start() < end; j++) {
+          if (conflicts.size() >= limit) {
+            return;
+          }
+          conflicts.add(new Conflict(bookings[i], bookings[j]));
+        }
+      }
+    }
+
+    Room with(Booking booking) {
+      int index = Arrays.binarySearch(bookings, booking, ORDER);
+      if (index >= 0) {
+        return this;
+      }
+      int at = -index - 1;
+      Booking[] added = new Booking[bookings.length + 1];
+      System.arraycopy(bookings, 0, added, 0, at);
+      added[at] = booking;
+      System.arraycopy(bookings, at, added, at + 1, bookings.length - at);
+      return new Room(added);
+    }
+
+    Room without(Booking booking) {
+      int index = Arrays.binarySearch(bookings, booking, ORDER);
+      if (index < 0) {
+        return this;
+      }
+      if (bookings.length == 1) {
+        return null;
+      }
+      Booking[] removed = new Booking[bookings.length - 1];
+      System.arraycopy(bookings, 0, removed, 0, index);
+      System.arraycopy(bookings, index + 1, removed, index, bookings.length - index - 1);
+      return new Room(removed);
+    }
+
+    final Booking[] bookings;
+    final int[] maxEnd;
+  }
+
+  /** Orders bookings by start, then end, then course, so every booking has one place. */
+  private static final Comparator<Booking> ORDER = (one, other) -> {
+    int order = Integer.compare(one.interval().start(), other.interval().start());
+    if (order == 0) {
+      order = Integer.compare(one.interval().end(), other.interval().end());
+    }
+    if (order == 0) {
+      order = one.deptCode().compareTo(other.deptCode());
+    }
+    if (order == 0) {
+      order = one.courseId().compareTo(other.courseId());
+    }
+    if (order == 0) {
+      order = one.location().compareTo(other.location());
+    }
+    return order != 0 ? order : one.timeSlot().compareTo(other.timeSlot());
+  };
+
+  private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+  /** Serializes changes. */
+  private final ReentrantLock lock = new ReentrantLock();
+}
@@ -1,20 +1,43 @@
 package dev.coms4156.project.individualproject;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * This class contains all the API routes for the system,
  * handling various requests related to department and course data.
+ * It is used unless {@code api.mode=async} selects {@link AsyncRouteController}.
  */
 @RestController
+@ConditionalOnProperty(name = "api.mode", havingValue = "blocking", matchIfMissing = true)
 public class RouteController {
 
   /**
@@ -41,8 +64,8 @@ public class RouteController {
       Map<String, Department> departmentMapping;
       departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
       return departmentMapping.containsKey(deptCode.toUpperCase(Locale.ROOT))
-              ? new ResponseEntity<>(departmentMapping.get(
-                      deptCode.toUpperCase(Locale.ROOT)).toString(), HttpStatus.OK)
+              ? new ResponseEntity<>(departmentRenders.render(departmentMapping.get(
+                      deptCode.toUpperCase(Locale.ROOT))), HttpStatus.OK)
               : new ResponseEntity<>("Department Not Found", HttpStatus.NOT_FOUND);
     } catch (Exception e) {
       return handleException(e);
@@ -60,14 +83,12 @@ public class RouteController {
   public ResponseEntity<?> retrieveCourse(@RequestParam("deptCode") String deptCode,
                                           @RequestParam("courseCode") int courseCode) {
     try {
-      if (retrieveDepartment(deptCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping;
-        departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping;
-        coursesMapping = departmentMapping.get(deptCode).getCourseSelection();
-        return coursesMapping.containsKey(Integer.toString(courseCode))
-                ? new ResponseEntity<>(coursesMapping.get(
-                        Integer.toString(courseCode)).toString(), HttpStatus.OK)
+      Map<String, Department> departmentMapping;
+      departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
+      if (hasDepartment(departmentMapping, deptCode)) {
+        Course requestedCourse = findCourse(departmentMapping, deptCode, courseCode);
+        return requestedCourse != null
+                ? new ResponseEntity<>(courseRenders.render(requestedCourse), HttpStatus.OK)
                 : new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
       }
       return new ResponseEntity<>("Department Not Found", HttpStatus.NOT_FOUND);
@@ -80,23 +101,20 @@ public class RouteController {
    * Checks if the specified course has reached its enrollment capacity.
    *
    * @param deptCode   A {@code String} representing the department code.
-   * @param courseCode A {@code int} representing the course code to check.
+   * @param courseCode A {@code int} representing the course code.
    * @return A {@code ResponseEntity} indicating whether the course is full or not.
    */
   @GetMapping(value = "/isCourseFull", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> isCourseFull(@RequestParam("deptCode") String deptCode,
                                         @RequestParam("courseCode") int courseCode) {
     try {
-      if (retrieveCourse(deptCode, courseCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping;
-        departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping;
-        coursesMapping = departmentMapping.get(deptCode).getCourseSelection();
-        Course requestedCourse = coursesMapping.get(Integer.toString(courseCode));
+      Course requestedCourse = findCourse(
+              IndividualProjectApplication.myFileDatabase.getDepartmentMapping(),
+              deptCode, courseCode);
+      if (requestedCourse != null) {
         return new ResponseEntity<>(requestedCourse.isCourseFull(), HttpStatus.OK);
-      } else {
-        return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
       }
+      return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
     } catch (Exception e) {
       return handleException(e);
     }
@@ -111,9 +129,9 @@ public class RouteController {
   @GetMapping(value = "/getMajorCountFromDept", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> getMajorCtFromDept(@RequestParam("deptCode") String deptCode) {
     try {
-      if (retrieveDepartment(deptCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping;
-        departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
+      Map<String, Department> departmentMapping;
+      departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
+      if (hasDepartment(departmentMapping, deptCode)) {
         return new ResponseEntity<>("There are: " + departmentMapping.get(
                 deptCode).getNumberOfMajors() + " majors in the department", HttpStatus.OK);
       }
@@ -134,9 +152,9 @@ public class RouteController {
   @GetMapping(value = "/idDeptChair", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> identifyDeptChair(@RequestParam("deptCode") String deptCode) {
     try {
-      if (retrieveDepartment(deptCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
+      Map<String, Department> departmentMapping;
+      departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
+      if (hasDepartment(departmentMapping, deptCode)) {
         return new ResponseEntity<>(departmentMapping.get(
                 deptCode).getDepartmentChair() + " is the department chair.", HttpStatus.OK);
       }
@@ -157,16 +175,14 @@ public class RouteController {
   public ResponseEntity<?> findCourseLocation(@RequestParam("deptCode") String deptCode,
                                               @RequestParam("courseCode") int courseCode) {
     try {
-      if (retrieveCourse(deptCode, courseCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping = departmentMapping.get(deptCode).getCourseSelection();
-        Course requestedCourse = coursesMapping.get(Integer.toString(courseCode));
+      Course requestedCourse = findCourse(
+              IndividualProjectApplication.myFileDatabase.getDepartmentMapping(),
+              deptCode, courseCode);
+      if (requestedCourse != null) {
         return new ResponseEntity<>(requestedCourse.getCourseLocation()
                 + " is where the course is located.", HttpStatus.OK);
-      } else {
-        return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
       }
+      return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
     } catch (Exception e) {
       return handleException(e);
     }
@@ -183,18 +199,14 @@ public class RouteController {
   public ResponseEntity<?> findCourseInstructor(@RequestParam("deptCode") String deptCode,
                                                 @RequestParam("courseCode") int courseCode) {
     try {
-      if (retrieveCourse(deptCode, courseCode)
-              .getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping =
-                departmentMapping.get(deptCode).getCourseSelection();
-        Course requestedCourse = coursesMapping.get(Integer.toString(courseCode));
+      Course requestedCourse = findCourse(
+              IndividualProjectApplication.myFileDatabase.getDepartmentMapping(),
+              deptCode, courseCode);
+      if (requestedCourse != null) {
         return new ResponseEntity<>(requestedCourse
                 .getInstructorName() + " is the instructor for the course.", HttpStatus.OK);
-      } else {
-        return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
       }
+      return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
     } catch (Exception e) {
       return handleException(e);
     }
@@ -211,16 +223,226 @@ public class RouteController {
   public ResponseEntity<?> findCourseTime(@RequestParam("deptCode") String deptCode,
                                           @RequestParam("courseCode") int courseCode) {
     try {
-      if (retrieveCourse(deptCode, courseCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping = departmentMapping.get(deptCode).getCourseSelection();
-        Course requestedCourse = coursesMapping.get(Integer.toString(courseCode));
+      Course requestedCourse = findCourse(
+              IndividualProjectApplication.myFileDatabase.getDepartmentMapping(),
+              deptCode, courseCode);
+      if (requestedCourse != null) {
         return new ResponseEntity<>("The course meets at: "
                 + requestedCourse.getCourseTimeSlot(), HttpStatus.OK);
-      } else {
-        return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
       }
+      return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Looks up many courses in one request. Every course is resolved against the same version
+   * of the catalog, so the results are consistent with each other even while updates are
+   * being made.
+   *
+   * <p>The body lists the courses as {@code {"deptCode": ..., "courseCode": ...}} objects
+   * and optionally the fields to return, out of {@code details}, {@code instructor},
+   * {@code location}, {@code time}, {@code capacity}, {@code enrolled} and {@code isFull}.
+   * Each result echoes its department and course code and either holds the requested fields
+   * or an {@code error} of {@code "Department Not Found"} or {@code "Course Not Found"}.
+   *
+   * @param request A {@code CourseBatchRequest} listing the courses and fields.
+   * @return A {@code ResponseEntity} containing the catalog version and the results in
+   *         request order, or an error message.
+   */
+  @PostMapping(value = "/courses/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> retrieveCourses(@RequestBody CourseBatchRequest request) {
+    try {
+      if (request == null || request.courses() == null || request.courses().isEmpty()) {
+        return new ResponseEntity<>("No courses requested", HttpStatus.BAD_REQUEST);
+      }
+      if (request.courses().size() > MAX_BATCH_COURSES) {
+        return new ResponseEntity<>("At most " + MAX_BATCH_COURSES
+                + " courses can be requested at once", HttpStatus.BAD_REQUEST);
+      }
+      List<String> fields = request.fields() == null || request.fields().isEmpty()
+              ? BATCH_FIELDS : request.fields();
+      for (String field : fields) {
+        if (field == null || !BATCH_FIELDS.contains(field)) {
+          return new ResponseEntity<>("Unknown field: " + field, HttpStatus.BAD_REQUEST);
+        }
+      }
+      for (CourseBatchRequest.CourseKey key : request.courses()) {
+        if (key == null || key.deptCode() == null) {
+          return new ResponseEntity<>("Every course needs a deptCode", HttpStatus.BAD_REQUEST);
+        }
+      }
+
+      Map<String, Department> departmentMapping;
+      departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
+      List<Map<String, Object>> results = new ArrayList<>(request.courses().size());
+      for (CourseBatchRequest.CourseKey key : request.courses()) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("deptCode", key.deptCode());
+        result.put("courseCode", key.courseCode());
+        Course course = findCourse(departmentMapping, key.deptCode(), key.courseCode());
+        if (course != null) {
+          for (String field : fields) {
+            result.put(field, courseField(course, field));
+          }
+        } else {
+          result.put("error", hasDepartment(departmentMapping, key.deptCode())
+                  ? "Course Not Found" : "Department Not Found");
+        }
+        results.add(result);
+      }
+
+      Map<String, Object> body = new LinkedHashMap<>();
+      if (departmentMapping instanceof CatalogVersion version) {
+        body.put("catalogVersion", version.getVersion());
+      }
+      body.put("courses", results);
+      return new ResponseEntity<>(body, HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Finds every course taught by an instructor, across all departments.
+   *
+   * @param instructor The instructor's name, matched ignoring case.
+   * @param limit      The maximum number of courses to return.
+   * @return A {@code ResponseEntity} containing the number of matching courses and the first
+   *         {@code limit} of them by department and course code, or an error message.
+   */
+  @GetMapping(value = "/coursesByInstructor", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> coursesByInstructor(
+          @RequestParam("instructor") String instructor,
+          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return findCourses(CourseIndex.Field.INSTRUCTOR, instructor, limit);
+  }
+
+  /**
+   * Finds every course held in a location, across all departments.
+   *
+   * @param location The location, such as {@code 417 IAB}, matched ignoring case.
+   * @param limit    The maximum number of courses to return.
+   * @return A {@code ResponseEntity} containing the number of matching courses and the first
+   *         {@code limit} of them by department and course code, or an error message.
+   */
+  @GetMapping(value = "/coursesByLocation", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> coursesByLocation(
+          @RequestParam("location") String location,
+          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return findCourses(CourseIndex.Field.LOCATION, location, limit);
+  }
+
+  /**
+   * Finds every course held in a time slot, across all departments.
+   *
+   * @param time  The time slot, such as {@code 4:10-5:25}.
+   * @param limit The maximum number of courses to return.
+   * @return A {@code ResponseEntity} containing the number of matching courses and the first
+   *         {@code limit} of them by department and course code, or an error message.
+   */
+  @GetMapping(value = "/coursesByTime", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> coursesByTime(
+          @RequestParam("time") String time,
+          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return findCourses(CourseIndex.Field.TIME, time, limit);
+  }
+
+  /**
+   * Suggests instructors and locations for what a user has typed, for type-ahead. A value
+   * matches if one of its words starts with the query, ignoring case, so {@code "kai"}
+   * finds {@code "Gail Kaiser"}; when there are fewer than {@code limit} such values, values
+   * within one typing mistake of the query, or two for queries of eight characters or more,
+   * are added. The courses holding a suggested value are listed by
+   * {@code /coursesByInstructor} or {@code /coursesByLocation}.
+   *
+   * @param query The text typed so far.
+   * @param field {@code instructor} or {@code location} to search only that field; both are
+   *              searched if not given.
+   * @param limit The maximum number of values to suggest per field; 10 if not given.
+   * @return A {@code ResponseEntity} containing, for each field searched, the suggested
+   *         values with the number of courses having each and the number of typing
+   *         mistakes, or an error message.
+   */
+  @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> search(
+          @RequestParam("q") String query,
+          @RequestParam(value = "field", required = false) String field,
+          @RequestParam(value = "limit", defaultValue = "10") int limit) {
+    try {
+      if (query.isBlank()) {
+        return new ResponseEntity<>("Query must not be empty", HttpStatus.BAD_REQUEST);
+      }
+      if (limit < 1 || limit > MAX_SUGGESTIONS) {
+        return new ResponseEntity<>("Limit must be between 1 and " + MAX_SUGGESTIONS,
+                HttpStatus.BAD_REQUEST);
+      }
+      Map<String, CourseIndex.Field> fields = new LinkedHashMap<>();
+      if (field == null || field.equalsIgnoreCase("instructor")) {
+        fields.put("instructors", CourseIndex.Field.INSTRUCTOR);
+      }
+      if (field == null || field.equalsIgnoreCase("location")) {
+        fields.put("locations", CourseIndex.Field.LOCATION);
+      }
+      if (fields.isEmpty()) {
+        return new ResponseEntity<>("Field must be instructor or location",
+                HttpStatus.BAD_REQUEST);
+      }
+      Map<String, Object> result = new LinkedHashMap<>();
+      for (Map.Entry<String, CourseIndex.Field> entry : fields.entrySet()) {
+        List<Map<String, Object>> suggestions = new ArrayList<>();
+        for (CourseIndex.Suggestion suggestion : IndividualProjectApplication.myFileDatabase
+                .suggestValues(entry.getValue(), query, limit)) {
+          Map<String, Object> item = new LinkedHashMap<>();
+          item.put("value", suggestion.value());
+          item.put("courses", suggestion.courses());
+          item.put("edits", suggestion.edits());
+          suggestions.add(item);
+        }
+        result.put(entry.getKey(), suggestions);
+      }
+      return new ResponseEntity<>(result, HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Lists courses that are held in the same room at overlapping times, across the whole
+   * catalog. Rooms are matched ignoring case and surrounding spaces; courses whose time slot
+   * cannot be read as a range of times, such as {@code "TBA"}, are left out. Conflicts can
+   * only come from the loaded catalog: changes of a course's time or location that would add
+   * one are rejected.
+   *
+   * @param limit The maximum number of conflicts to list; 1000 if not given.
+   * @return A {@code ResponseEntity} containing the number of conflicting pairs, the number
+   *         of rooms with conflicts and the first {@code limit} pairs by room and time, or an
+   *         error message.
+   */
+  @GetMapping(value = "/conflicts", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> conflicts(
+          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    try {
+      if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+        return new ResponseEntity<>("Limit must be between 1 and " + MAX_SEARCH_RESULTS,
+                HttpStatus.BAD_REQUEST);
+      }
+      RoomSchedule.Report report =
+              IndividualProjectApplication.myFileDatabase.findScheduleConflicts(limit);
+      List<Map<String, Object>> conflicts = new ArrayList<>(report.conflicts().size());
+      for (RoomSchedule.Conflict conflict : report.conflicts()) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("location", conflict.first().location());
+        entry.put("courses", List.of(bookingEntry(conflict.first()),
+                bookingEntry(conflict.second())));
+        conflicts.add(entry);
+      }
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("total", report.total());
+      result.put("rooms", report.rooms());
+      result.put("conflicts", conflicts);
+      return new ResponseEntity<>(result, HttpStatus.OK);
     } catch (Exception e) {
       return handleException(e);
     }
@@ -235,11 +457,8 @@ public class RouteController {
   @PatchMapping(value = "/addMajorToDept", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> addMajorToDept(@RequestParam("deptCode") String deptCode) {
     try {
-      if (retrieveDepartment(deptCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Department specifiedDept = departmentMapping.get(deptCode);
-        specifiedDept.addPersonToMajor();
+      if (IndividualProjectApplication.myFileDatabase.applyMutation(
+              JournalRecord.addMajor(deptCode))) {
         return new ResponseEntity<>("Attribute was updated successfully", HttpStatus.OK);
       }
       return new ResponseEntity<>("Department Not Found", HttpStatus.NOT_FOUND);
@@ -258,12 +477,8 @@ public class RouteController {
   @PatchMapping(value = "/removeMajorFromDept", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> removeMajorFromDept(@RequestParam("deptCode") String deptCode) {
     try {
-      if (retrieveDepartment(deptCode)
-              .getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Department specifiedDept = departmentMapping.get(deptCode);
-        specifiedDept.dropPersonFromMajor();
+      if (IndividualProjectApplication.myFileDatabase.applyMutation(
+              JournalRecord.removeMajor(deptCode))) {
         return new ResponseEntity<>("Attribute was updated or is at minimum", HttpStatus.OK);
       }
       return new ResponseEntity<>("Department Not Found", HttpStatus.NOT_FOUND);
@@ -284,19 +499,40 @@ public class RouteController {
   public ResponseEntity<?> dropStudent(@RequestParam("deptCode") String deptCode,
                                        @RequestParam("courseCode") int courseCode) {
     try {
-      if (retrieveCourse(deptCode, courseCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping =
-                departmentMapping.get(deptCode).getCourseSelection();
-        Course requestedCourse = coursesMapping.get(Integer.toString(courseCode));
-        boolean isStudentDropped = requestedCourse.dropStudent();
-        return isStudentDropped
-                ? new ResponseEntity<>("Student has been dropped.", HttpStatus.OK)
-                : new ResponseEntity<>("Student has not been dropped.", HttpStatus.BAD_REQUEST);
-      } else {
+      if (findCourse(IndividualProjectApplication.myFileDatabase.getDepartmentMapping(),
+              deptCode, courseCode) == null) {
+        return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
+      }
+      return IndividualProjectApplication.myFileDatabase.applyMutation(
+              JournalRecord.dropStudent(deptCode, courseCode))
+              ? new ResponseEntity<>("Student has been dropped.", HttpStatus.OK)
+              : new ResponseEntity<>("Student has not been dropped.", HttpStatus.BAD_REQUEST);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Enrolls a student in the specified course if it still has room. Concurrent enrollments
+   * into the same course never exceed its capacity.
+   *
+   * @param deptCode   A {@code String} representing the department code.
+   * @param courseCode A {@code int} representing the course code.
+   * @return A {@code ResponseEntity} containing a success message,
+   *         an error message, or information about the operation.
+   */
+  @PatchMapping(value = "/enrollStudentInCourse", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> enrollStudent(@RequestParam("deptCode") String deptCode,
+                                         @RequestParam("courseCode") int courseCode) {
+    try {
+      if (findCourse(IndividualProjectApplication.myFileDatabase.getDepartmentMapping(),
+              deptCode, courseCode) == null) {
         return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
       }
+      return IndividualProjectApplication.myFileDatabase.applyMutation(
+              JournalRecord.enrollStudent(deptCode, courseCode))
+              ? new ResponseEntity<>("Student has been enrolled.", HttpStatus.OK)
+              : new ResponseEntity<>("Student has not been enrolled.", HttpStatus.BAD_REQUEST);
     } catch (Exception e) {
       return handleException(e);
     }
@@ -315,17 +551,11 @@ public class RouteController {
                                               @RequestParam("courseCode") int courseCode,
                                               @RequestParam("count") int count) {
     try {
-      if (retrieveCourse(deptCode, courseCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping = departmentMapping
-                .get(deptCode).getCourseSelection();
-        Course requestedCourse = coursesMapping.get(Integer.toString(courseCode));
-        requestedCourse.setEnrolledStudentCount(count);
+      if (IndividualProjectApplication.myFileDatabase.applyMutation(
+              JournalRecord.setEnrollmentCount(deptCode, courseCode, count))) {
         return new ResponseEntity<>("Attribute was updated successfully.", HttpStatus.OK);
-      } else {
-        return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
       }
+      return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
     } catch (Exception e) {
       return handleException(e);
     }
@@ -337,24 +567,21 @@ public class RouteController {
    * @param deptCode  A {@code String} representing the department code.
    * @param courseCode A {@code int} representing the course code.
    * @param time      A {@code String} representing the new time for the course.
-   * @return A {@code ResponseEntity} containing a success message or an error message.
+   * @return A {@code ResponseEntity} containing a success message or an error message; the
+   *         status is 409 if another course is held in the same room at an overlapping time.
    */
   @PatchMapping(value = "/changeCourseTime", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> changeCourseTime(@RequestParam("deptCode") String deptCode,
                                             @RequestParam("courseCode") int courseCode,
                                             @RequestParam("time") String time) {
     try {
-      if (retrieveCourse(deptCode, courseCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping =
-                departmentMapping.get(deptCode).getCourseSelection();
-        Course requestedCourse = coursesMapping.get(Integer.toString(courseCode));
-        requestedCourse.reassignTime(time);
+      if (IndividualProjectApplication.myFileDatabase.applyMutation(
+              JournalRecord.changeTime(deptCode, courseCode, time))) {
         return new ResponseEntity<>("Attribute was updated successfully.", HttpStatus.OK);
-      } else {
-        return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
       }
+      return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
+    } catch (ScheduleConflictException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
     } catch (Exception e) {
       return handleException(e);
     }
@@ -373,18 +600,11 @@ public class RouteController {
                                                @RequestParam("courseCode") int courseCode,
                                                @RequestParam("teacher") String teacher) {
     try {
-      if (retrieveCourse(deptCode, courseCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping = departmentMapping
-                .get(deptCode).getCourseSelection();
-        Course requestedCourse = coursesMapping
-                .get(Integer.toString(courseCode));
-        requestedCourse.reassignInstructor(teacher);
+      if (IndividualProjectApplication.myFileDatabase.applyMutation(
+              JournalRecord.changeTeacher(deptCode, courseCode, teacher))) {
         return new ResponseEntity<>("Attribute was updated successfully.", HttpStatus.OK);
-      } else {
-        return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
       }
+      return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
     } catch (Exception e) {
       return handleException(e);
     }
@@ -396,37 +616,554 @@ public class RouteController {
    * @param deptCode  A {@code String} representing the department code.
    * @param courseCode A {@code int} representing the course code.
    * @param location  A {@code String} representing the new location for the course.
-   * @return A {@code ResponseEntity} containing a success message or an error message.
+   * @return A {@code ResponseEntity} containing a success message or an error message; the
+   *         status is 409 if another course is held there at an overlapping time.
    */
   @PatchMapping(value = "/changeCourseLocation", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> changeCourseLocation(@RequestParam("deptCode") String deptCode,
                                                 @RequestParam("courseCode") int courseCode,
                                                 @RequestParam("location") String location) {
     try {
-      if (retrieveCourse(deptCode, courseCode).getStatusCode() == HttpStatus.OK) {
-        Map<String, Department> departmentMapping =
-                IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
-        Map<String, Course> coursesMapping =
-                departmentMapping.get(deptCode).getCourseSelection();
-        Course requestedCourse = coursesMapping.get(Integer.toString(courseCode));
-        requestedCourse.reassignLocation(location);
+      if (IndividualProjectApplication.myFileDatabase.applyMutation(
+              JournalRecord.changeLocation(deptCode, courseCode, location))) {
         return new ResponseEntity<>("Attribute was updated successfully.", HttpStatus.OK);
+      }
+      return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
+    } catch (ScheduleConflictException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Applies a list of updates all together or not at all. Each operation is an object whose
+   * {@code op} names the single-operation route that does the same thing, such as
+   * {@code setEnrollmentCount}, and whose other fields are that route's parameters. The
+   * batch is journaled as one unit and published as one catalog version, and each
+   * department's lock is taken once for the whole batch.
+   *
+   * @param request A {@code MutationBatchRequest} listing the operations.
+   * @return A {@code ResponseEntity} containing a success message, or an error message
+   *         naming the first operation that could not be applied.
+   */
+  @PatchMapping(value = "/courses/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> applyBatch(@RequestBody MutationBatchRequest request) {
+    try {
+      if (request == null || request.operations() == null || request.operations().isEmpty()) {
+        return new ResponseEntity<>("No operations given", HttpStatus.BAD_REQUEST);
+      }
+      if (request.operations().size() > MAX_BATCH_OPERATIONS) {
+        return new ResponseEntity<>("At most " + MAX_BATCH_OPERATIONS
+                + " operations can be applied at once", HttpStatus.BAD_REQUEST);
+      }
+      List<JournalRecord> records = new ArrayList<>(request.operations().size());
+      for (int i = 0; i < request.operations().size(); i++) {
+        MutationBatchRequest.Operation operation = request.operations().get(i);
+        try {
+          if (operation == null) {
+            throw new IllegalArgumentException("operation is missing");
+          }
+          records.add(operation.toJournalRecord());
+        } catch (IllegalArgumentException e) {
+          return new ResponseEntity<>("Operation " + i + ": " + e.getMessage(),
+                  HttpStatus.BAD_REQUEST);
+        }
+      }
+
+      int failed = IndividualProjectApplication.myFileDatabase.applyBatch(records);
+      if (failed < 0) {
+        return new ResponseEntity<>(records.size() + " operations were applied.",
+                HttpStatus.OK);
+      }
+      JournalRecord record = records.get(failed);
+      Map<String, Department> departmentMapping;
+      departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
+      if (!departmentMapping.containsKey(record.getDeptCode())) {
+        return new ResponseEntity<>("Operation " + failed + ": Department Not Found",
+                HttpStatus.NOT_FOUND);
+      }
+      if (record.getCourseCode() != JournalRecord.NO_COURSE
+              && departmentMapping.get(record.getDeptCode())
+                      .getCourse(record.getCourseCode()) == null) {
+        return new ResponseEntity<>("Operation " + failed + ": Course Not Found",
+                HttpStatus.NOT_FOUND);
+      }
+      return new ResponseEntity<>("Operation " + failed
+              + " could not be applied; no operations were applied.", HttpStatus.BAD_REQUEST);
+    } catch (ScheduleConflictException e) {
+      return new ResponseEntity<>(e.getMessage() + "; no operations were applied.",
+              HttpStatus.CONFLICT);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Streams every department and course as newline-delimited JSON (see
+   * {@link CatalogExporter}). The export is taken from the catalog version that is current
+   * when the request arrives, so it is consistent even while updates are being made, and it
+   * is written while the catalog is iterated, so memory use does not grow with the size of
+   * the catalog. The output is gzip-compressed on the fly when the client accepts it.
+   *
+   * @param acceptEncoding The {@code Accept-Encoding} header, if any.
+   * @return A {@code ResponseEntity} whose body writes the export.
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportCatalog(
+          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+          String acceptEncoding) {
+    Map<String, Department> departmentMapping;
+    departmentMapping = IndividualProjectApplication.myFileDatabase.getDepartmentMapping();
+    boolean gzip = acceptEncoding != null
+            && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_NDJSON);
+    headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    StreamingResponseBody body = out -> {
+      if (gzip) {
+        GZIPOutputStream compressed = new GZIPOutputStream(out, EXPORT_BUFFER_SIZE);
+        CatalogExporter.writeNdjson(departmentMapping, compressed);
+        compressed.finish();
       } else {
-        return new ResponseEntity<>("Course Not Found", HttpStatus.NOT_FOUND);
+        CatalogExporter.writeNdjson(departmentMapping, out);
+      }
+    };
+    return new ResponseEntity<>(body, headers, HttpStatus.OK);
+  }
+
+  /**
+   * Loads a catalog from a CSV or NDJSON file sent as the request body (see
+   * {@link CatalogIngester}). The body is spooled to a temporary file and parsed in parallel;
+   * if every row is valid the catalog is published and saved, and otherwise nothing changes.
+   * Only one ingest runs at a time.
+   *
+   * @param format      {@code csv} or {@code ndjson}; taken from the content type if absent.
+   * @param mode        {@code replace} to replace the whole catalog, or {@code merge} to
+   *                    replace only the departments in the file.
+   * @param contentType The {@code Content-Type} header, if any.
+   * @param body        The catalog file.
+   * @return A {@code ResponseEntity} containing counts, throughput and any invalid rows, or
+   *         an error message.
+   */
+  @PostMapping(value = "/ingest", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> ingestCatalog(
+          @RequestParam(value = "format", required = false) String format,
+          @RequestParam(value = "mode", defaultValue = "replace") String mode,
+          @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+          InputStream body) {
+    try {
+      CatalogIngester.Format ingestFormat = ingestFormat(format, contentType);
+      if (ingestFormat == null) {
+        return new ResponseEntity<>("Format must be csv or ndjson", HttpStatus.BAD_REQUEST);
+      }
+      if (!"replace".equals(mode) && !"merge".equals(mode)) {
+        return new ResponseEntity<>("Mode must be replace or merge", HttpStatus.BAD_REQUEST);
+      }
+
+      Path file = Files.createTempFile("ingest", ".tmp");
+      try {
+        CatalogIngester ingester = new CatalogIngester(ingestFormat);
+        if (!runningIngest.compareAndSet(null, ingester)) {
+          return new ResponseEntity<>("An ingest is already running", HttpStatus.CONFLICT);
+        }
+        try {
+          lastIngest = ingester;
+          Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+          CatalogIngester.Result result = ingester.ingestInto(file,
+                  IndividualProjectApplication.myFileDatabase, "merge".equals(mode));
+          return new ResponseEntity<>(result.toStats(),
+                  result.isValid() ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
+        } finally {
+          runningIngest.set(null);
+        }
+      } finally {
+        Files.deleteIfExists(file);
       }
     } catch (Exception e) {
       return handleException(e);
     }
   }
 
+  /**
+   * Picks the format of an ingested catalog from the format parameter or, without one, from
+   * the content type.
+   *
+   * @return The format, or null if neither names CSV or NDJSON.
+   */
+  private static CatalogIngester.Format ingestFormat(String format, String contentType) {
+    if (format != null) {
+      try {
+        return CatalogIngester.Format.fromName(format);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+    if (contentType != null && contentType.startsWith("text/csv")) {
+      return CatalogIngester.Format.CSV;
+    }
+    if (contentType != null && contentType.startsWith(MediaType.APPLICATION_NDJSON_VALUE)) {
+      return CatalogIngester.Format.NDJSON;
+    }
+    return null;
+  }
+
+  /**
+   * Reports the progress of the running ingest, or of the last one if none is running.
+   *
+   * @return A {@code ResponseEntity} containing the phase, bytes and lines parsed so far and
+   *         the elapsed time, or an error message.
+   */
+  @GetMapping(value = "/ingestStatus", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> ingestStatus() {
+    try {
+      CatalogIngester ingester = lastIngest;
+      if (ingester == null) {
+        return new ResponseEntity<>("No ingest has been run", HttpStatus.NOT_FOUND);
+      }
+      return new ResponseEntity<>(ingester.getProgress(), HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Reports group commit batch sizes and flush latencies for the mutation journal.
+   *
+   * @return A {@code ResponseEntity} containing the journal statistics or an error message.
+   */
+  @GetMapping(value = "/journalStats", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> journalStats() {
+    try {
+      return new ResponseEntity<>(IndividualProjectApplication.myFileDatabase.getJournalStats(),
+              HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Reports acquisition counts, contention and wait and hold times for each department lock
+   * stripe that has been used.
+   *
+   * @return A {@code ResponseEntity} containing the lock statistics or an error message.
+   */
+  @GetMapping(value = "/lockStats", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> lockStats() {
+    try {
+      return new ResponseEntity<>(IndividualProjectApplication.myFileDatabase.getLockStats(),
+              HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Reports hit rates and sizes of the caches of rendered departments and courses.
+   *
+   * @return A {@code ResponseEntity} containing the cache statistics or an error message.
+   */
+  @GetMapping(value = "/renderCacheStats", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> renderCacheStats() {
+    try {
+      Map<String, Object> stats = new LinkedHashMap<>();
+      stats.put("departments", departmentRenders.getStats());
+      stats.put("courses", courseRenders.getStats());
+      return new ResponseEntity<>(stats, HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Reports every application metric: per-route request latencies and error counts,
+   * snapshot save and load times and sizes, counts of allocation-heavy operations such as
+   * department copies, and the size of the catalog, journal and render caches. Latencies are
+   * in microseconds.
+   *
+   * @return A {@code ResponseEntity} containing the metrics by name or an error message.
+   */
+  @GetMapping(value = "/metrics", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> metrics() {
+    try {
+      Map<String, Object> metrics = Metrics.snapshot();
+      MyFileDatabase database = IndividualProjectApplication.myFileDatabase;
+      metrics.put("catalog", database.getCatalogStats());
+      metrics.put("catalog.index", database.getCourseIndexStats());
+      metrics.put("catalog.schedule", database.getRoomScheduleStats());
+      metrics.put("journal", database.getJournalStats());
+      metrics.put("render.cache.departments", departmentRenders.getStats());
+      metrics.put("render.cache.courses", courseRenders.getStats());
+      return new ResponseEntity<>(metrics, HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Starts a Java Flight Recorder session that stops by itself after the given time (see
+   * {@link FlightRecorderProfiler}). Besides the JDK's own events it records every request,
+   * snapshot save and load and department lock wait. Only one recording runs at a time, and
+   * it replaces the previous one.
+   *
+   * @param seconds How long to record for, at most five minutes.
+   * @return A {@code ResponseEntity} containing the status of the recording, or an error
+   *         message if the duration is out of range or a recording is already running.
+   */
+  @PostMapping(value = "/profile", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> startProfile(
+          @RequestParam(value = "seconds", defaultValue = "30") int seconds) {
+    try {
+      return new ResponseEntity<>(profiler.start(seconds), HttpStatus.ACCEPTED);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    } catch (IllegalStateException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Stops the running recording before its time is up.
+   *
+   * @return A {@code ResponseEntity} containing the status of the recording, or an error
+   *         message if none is running.
+   */
+  @PostMapping(value = "/profile/stop", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> stopProfile() {
+    try {
+      if (!profiler.stop()) {
+        return new ResponseEntity<>("No recording is running", HttpStatus.CONFLICT);
+      }
+      return new ResponseEntity<>(profiler.getStatus(), HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Reports whether the last recording is still running, and its length and size.
+   *
+   * @return A {@code ResponseEntity} containing the status of the recording or an error
+   *         message.
+   */
+  @GetMapping(value = "/profile", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> profileStatus() {
+    try {
+      Map<String, Object> status = profiler.getStatus();
+      if (status == null) {
+        return new ResponseEntity<>("No recording has been started", HttpStatus.NOT_FOUND);
+      }
+      return new ResponseEntity<>(status, HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Summarizes the last finished recording: the hottest methods by CPU samples, the classes
+   * and methods allocating the most, latencies of each route and the slowest requests,
+   * snapshot saves and loads, department lock waits and garbage collection pauses.
+   * Latencies are in microseconds.
+   *
+   * @return A {@code ResponseEntity} containing the report, or an error message if no
+   *         recording has finished.
+   */
+  @GetMapping(value = "/profile/report", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> profileReport() {
+    try {
+      Map<String, Object> report = profiler.getReport();
+      if (report == null) {
+        return noFinishedRecording();
+      }
+      return new ResponseEntity<>(report, HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Downloads the last finished recording, to be opened in JDK Mission Control or with the
+   * {@code jfr} tool.
+   *
+   * @return A {@code ResponseEntity} containing the recording file, or an error message if
+   *         no recording has finished.
+   */
+  @GetMapping("/profile/recording")
+  public ResponseEntity<?> profileRecording() {
+    try {
+      Path file = profiler.getRecordingFile();
+      if (file == null) {
+        return noFinishedRecording();
+      }
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+      headers.setContentDisposition(ContentDisposition.attachment()
+              .filename("profile.jfr").build());
+      return new ResponseEntity<>(new FileSystemResource(file), headers, HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  /**
+   * Answers a request for a recording when there is none to give.
+   *
+   * @return A {@code ResponseEntity} saying whether a recording is still running.
+   * @throws IOException if a recording that just finished cannot be written.
+   */
+  private ResponseEntity<?> noFinishedRecording() throws IOException {
+    if (profiler.getStatus() != null) {
+      return new ResponseEntity<>("The recording is still running", HttpStatus.CONFLICT);
+    }
+    return new ResponseEntity<>("No recording has been started", HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Checks whether a department exists in a pinned version of the catalog.
+   *
+   * @param departmentMapping The catalog version used for the whole request.
+   * @param deptCode          The department code.
+   * @return true if the department exists.
+   */
+  private static boolean hasDepartment(Map<String, Department> departmentMapping,
+                                       String deptCode) {
+    return departmentMapping.containsKey(deptCode.toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Looks up a course in a pinned version of the catalog.
+   *
+   * @param departmentMapping The catalog version used for the whole request.
+   * @param deptCode          The department code.
+   * @param courseCode        The course code.
+   * @return The course, or null if the department or course does not exist.
+   */
+  static Course findCourse(Map<String, Department> departmentMapping, String deptCode,
+                           int courseCode) {
+    if (!hasDepartment(departmentMapping, deptCode)) {
+      return null;
+    }
+    return departmentMapping.get(deptCode.toUpperCase(Locale.ROOT)).getCourse(courseCode);
+  }
+
+  /**
+   * Answers a search of the course index (see {@link MyFileDatabase#findCourses}).
+   *
+   * @param field The field searched.
+   * @param value The value searched for.
+   * @param limit The maximum number of courses to return.
+   * @return A {@code ResponseEntity} containing the number of matching courses and the first
+   *         {@code limit} of them, or an error message.
+   */
+  private ResponseEntity<?> findCourses(CourseIndex.Field field, String value, int limit) {
+    try {
+      if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+        return new ResponseEntity<>("Limit must be between 1 and " + MAX_SEARCH_RESULTS,
+                HttpStatus.BAD_REQUEST);
+      }
+      List<CourseIndex.Match> matches =
+              IndividualProjectApplication.myFileDatabase.findCourses(field, value);
+      List<Map<String, Object>> courses = new ArrayList<>(Math.min(limit, matches.size()));
+      for (CourseIndex.Match match : matches.subList(0, Math.min(limit, matches.size()))) {
+        Course course = match.course();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("deptCode", match.deptCode());
+        entry.put("courseCode", match.courseId());
+        entry.put("instructor", course.getInstructorName());
+        entry.put("location", course.getCourseLocation());
+        entry.put("time", course.getCourseTimeSlot());
+        entry.put("capacity", course.getEnrollmentCapacity());
+        entry.put("enrolled", course.getEnrolledStudentCount());
+        courses.add(entry);
+      }
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("total", matches.size());
+      result.put("courses", courses);
+      return new ResponseEntity<>(result, HttpStatus.OK);
+    } catch (Exception e) {
+      return handleException(e);
+    }
+  }
+
+  private static Map<String, Object> bookingEntry(RoomSchedule.Booking booking) {
+    Map<String, Object> entry = new LinkedHashMap<>();
+    entry.put("deptCode", booking.deptCode());
+    entry.put("courseCode", booking.courseId());
+    entry.put("location", booking.location());
+    entry.put("time", booking.timeSlot());
+    return entry;
+  }
+
+  /**
+   * Reads one field of a course for a batch lookup.
+   *
+   * @param course The course.
+   * @param field  One of {@link #BATCH_FIELDS}.
+   * @return The field's value.
+   */
+  private Object courseField(Course course, String field) {
+    return switch (field) {
+      case "details" -> courseRenders.render(course);
+      case "instructor" -> course.getInstructorName();
+      case "location" -> course.getCourseLocation();
+      case "time" -> course.getCourseTimeSlot();
+      case "capacity" -> course.getEnrollmentCapacity();
+      case "enrolled" -> course.getEnrolledStudentCount();
+      case "isFull" -> course.isCourseFull();
+      default -> throw new IllegalArgumentException("Unknown field: " + field);
+    };
+  }
+
   /**
    * Handles exceptions by logging the error and returning a generic error response.
    *
    * @param e The exception that occurred.
    * @return A {@code ResponseEntity} containing an error message.
    */
-  private ResponseEntity<?> handleException(Exception e) {
-    System.out.println(e.toString());
+  ResponseEntity<?> handleException(Throwable e) {
+    EXCEPTIONS.increment();
+    LOGGER.error("Request failed", e);
     return new ResponseEntity<>("An Error has occurred", HttpStatus.INTERNAL_SERVER_ERROR);
   }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RouteController.class);
+
+  /** Counts exceptions turned into error responses, including the asynchronous routes'. */
+  private static final LongAdder EXCEPTIONS = Metrics.counter("http.server.exceptions");
+
+  /** Fields a batch lookup can return, in the order they are returned by default. */
+  private static final List<String> BATCH_FIELDS = List.of("details", "instructor",
+          "location", "time", "capacity", "enrolled", "isFull");
+
+  /** Maximum number of courses in one batch lookup. */
+  private static final int MAX_BATCH_COURSES = 1000;
+
+  /** Maximum number of courses one search of the course index returns. */
+  private static final int MAX_SEARCH_RESULTS = 10000;
+
+  /** Maximum number of values one type-ahead search suggests per field. */
+  private static final int MAX_SUGGESTIONS = 100;
+
+  /** Maximum number of operations in one batch update. */
+  private static final int MAX_BATCH_OPERATIONS = 1000;
+
+  /** Size of the compression buffer used by exports. */
+  private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+  /** Maximum number of rendered departments kept. */
+  private static final int MAX_CACHED_DEPARTMENTS = 1024;
+
+  /** Maximum number of rendered courses kept. */
+  private static final int MAX_CACHED_COURSES = 16384;
+
+  private final RenderCache departmentRenders = new RenderCache(MAX_CACHED_DEPARTMENTS);
+  private final RenderCache courseRenders = new RenderCache(MAX_CACHED_COURSES);
+  private final AtomicReference<CatalogIngester> runningIngest = new AtomicReference<>();
+  private volatile CatalogIngester lastIngest;
+  private final FlightRecorderProfiler profiler = new FlightRecorderProfiler();
 }
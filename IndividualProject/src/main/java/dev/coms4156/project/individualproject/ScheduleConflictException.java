@@ -0,0 +1,49 @@
+package dev.coms4156.project.individualproject;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a change would put a course in a room at a time another course already holds
+ * it. Nothing is changed when it is thrown.
+ */
+public class ScheduleConflictException extends IllegalStateException {
+
+  /**
+   * Creates the exception.
+   *
+   * @param booking     The booking the course would have made.
+   * @param conflicting The booking it overlaps.
+   */
+  public ScheduleConflictException(RoomSchedule.Booking booking,
+                                   RoomSchedule.Booking conflicting) {
+    super(booking.deptCode() + " " + booking.courseId() + " would be in "
+            + booking.location() + " at " + booking.timeSlot() + ", which overlaps "
+            + conflicting);
+    this.booking = booking;
+    this.conflicting = conflicting;
+  }
+
+  /**
+   * Gets the booking the course would have made.
+   *
+   * @return The rejected booking.
+   */
+  public RoomSchedule.Booking getBooking() {
+    return booking;
+  }
+
+  /**
+   * Gets the booking that is in the way.
+   *
+   * @return The existing booking.
+   */
+  public RoomSchedule.Booking getConflicting() {
+    return conflicting;
+  }
+
+  @Serial
+  private static final long serialVersionUID = 240917L;
+
+  private final transient RoomSchedule.Booking booking;
+  private final transient RoomSchedule.Booking conflicting;
+}
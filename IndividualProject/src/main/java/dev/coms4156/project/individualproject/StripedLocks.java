@@ -0,0 +1,208 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of locks that keys are hashed onto, so that work on different keys usually
+ * proceeds in parallel while work on the same key is serialized. Used to make all mutations
+ * of one department linearizable without a lock over the whole catalog.
+ *
+ * <p>Each stripe records how often it was taken, how often a caller had to wait for it and
+ * how long it was waited for and held, so hot stripes can be spotted.
+ */
+public class StripedLocks {
+
+  /**
+   * Creates a set of locks.
+   *
+   * @param stripes The number of locks; rounded up to a power of two.
+   * @throws IllegalArgumentException if {@code stripes} is not positive.
+   */
+  public StripedLocks(int stripes) {
+    if (stripes < 1 || stripes > MAX_STRIPES) {
+      throw new IllegalArgumentException("Stripe count must be between 1 and " + MAX_STRIPES);
+    }
+    int size = Integer.highestOneBit(stripes);
+    if (size < stripes) {
+      size <<= 1;
+    }
+    this.stripes = new Stripe[size];
+    for (int i = 0; i < size; i++) {
+      this.stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Runs an action while holding the lock for the given key.
+   *
+   * @param key    The key whose lock is taken.
+   * @param action The action to run.
+   * @param <T>    The result type of the action.
+   * @return The action's result.
+   */
+  public <T> T withLock(String key, Supplier<T> action) {
+    int index = stripeFor(key);
+    Stripe stripe = stripes[index];
+    long waitStart = System.nanoTime();
+    if (!stripe.lock.tryLock()) {
+      stripe.contended.increment();
+      lockContended(stripe, index, key);
+    }
+    long acquired = System.nanoTime();
+    try {
+      return action.get();
+    } finally {
+      long released = System.nanoTime();
+      stripe.lock.unlock();
+      stripe.acquisitions.increment();
+      stripe.holdMicros.record(TimeUnit.NANOSECONDS.toMicros(released - acquired));
+      stripe.waitMicros.record(TimeUnit.NANOSECONDS.toMicros(acquired - waitStart));
+    }
+  }
+
+  /**
+   * Runs an action while holding the locks for all the given keys. Each stripe is taken
+   * once however many of the keys map to it, and stripes are taken in stripe order, the
+   * same order {@link #lockAll()} uses, so callers locking overlapping sets of keys cannot
+   * deadlock.
+   *
+   * @param keys   The keys whose locks are taken.
+   * @param action The action to run.
+   * @param <T>    The result type of the action.
+   * @return The action's result.
+   */
+  public <T> T withLocks(Collection<String> keys, Supplier<T> action) {
+    int[] indexes = keys.stream().mapToInt(this::stripeFor).distinct().sorted().toArray();
+    long[] acquired = new long[indexes.length];
+    int locked = 0;
+    try {
+      for (int index : indexes) {
+        Stripe stripe = stripes[index];
+        long waitStart = System.nanoTime();
+        if (!stripe.lock.tryLock()) {
+          stripe.contended.increment();
+          lockContended(stripe, index, null);
+        }
+        acquired[locked] = System.nanoTime();
+        stripe.waitMicros.record(TimeUnit.NANOSECONDS.toMicros(acquired[locked] - waitStart));
+        locked++;
+      }
+      return action.get();
+    } finally {
+      long released = System.nanoTime();
+      for (int i = locked - 1; i >= 0; i--) {
+        Stripe stripe = stripes[indexes[i]];
+        stripe.lock.unlock();
+        stripe.acquisitions.increment();
+        stripe.holdMicros.record(TimeUnit.NANOSECONDS.toMicros(released - acquired[i]));
+      }
+    }
+  }
+
+  /**
+   * Takes every stripe, in stripe order, for work that must exclude all keys at once. Must be
+   * paired with {@link #unlockAll()}.
+   */
+  public void lockAll() {
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+    }
+  }
+
+  /**
+   * Releases every stripe taken by {@link #lockAll()}.
+   */
+  public void unlockAll() {
+    for (int i = stripes.length - 1; i >= 0; i--) {
+      stripes[i].lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the stripe that a key maps to.
+   *
+   * @param key The key.
+   * @return The stripe index.
+   */
+  public int stripeFor(String key) {
+    int hash = key.hashCode();
+    return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+  }
+
+  /**
+   * Gets the number of stripes.
+   *
+   * @return The stripe count.
+   */
+  public int stripeCount() {
+    return stripes.length;
+  }
+
+  /**
+   * Summarizes every stripe that has been used, in stripe order.
+   *
+   * @return A list of per-stripe statistics.
+   */
+  public List<Map<String, Object>> getStats() {
+    List<Map<String, Object>> stats = new ArrayList<>();
+    for (int i = 0; i < stripes.length; i++) {
+      Stripe stripe = stripes[i];
+      long acquisitions = stripe.acquisitions.sum();
+      if (acquisitions == 0) {
+        continue;
+      }
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("stripe", i);
+      entry.put("acquisitions", acquisitions);
+      entry.put("contended", stripe.contended.sum());
+      entry.put("waitMicros", stripe.waitMicros.toMap());
+      entry.put("holdMicros", stripe.holdMicros.toMap());
+      stats.add(entry);
+    }
+    return stats;
+  }
+
+  /**
+   * Waits for a stripe that another thread holds, emitting the wait as a
+   * {@link ProfilingEvents.LockWait} for flight recordings.
+   *
+   * @param stripe The stripe.
+   * @param index  The stripe index.
+   * @param key    The key being locked, or null if several keys are locked together.
+   */
+  private static void lockContended(Stripe stripe, int index, String key) {
+    ProfilingEvents.LockWait event = new ProfilingEvents.LockWait();
+    event.begin();
+    stripe.lock.lock();
+    event.end();
+    if (event.shouldCommit()) {
+      event.stripe = index;
+      event.key = key;
+      event.commit();
+    }
+  }
+
+  /**
+   * A lock and its usage statistics.
+   */
+  private static final class Stripe {
+    final ReentrantLock lock = new ReentrantLock();
+    final LongAdder acquisitions = new LongAdder();
+    final LongAdder contended = new LongAdder();
+    final Histogram waitMicros = new Histogram();
+    final Histogram holdMicros = new Histogram();
+  }
+
+  /** Upper bound on the number of stripes. */
+  private static final int MAX_STRIPES = 1 << 16;
+
+  private final Stripe[] stripes;
+}
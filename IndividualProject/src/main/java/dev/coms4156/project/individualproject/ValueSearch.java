@@ -0,0 +1,295 @@
+package dev.coms4156.project.individualproject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Type-ahead search over the distinct values of a text field, such as instructor or room
+ * names. A query matches the values that have a word starting with it, such as
+ * {@code "kai"} for {@code "Gail Kaiser"}. If there are too few of those, values are
+ * added that are within one typing mistake of the query, or two for queries of at least
+ * eight characters. A mistake is one missing, extra, wrong or swapped character. Values
+ * and queries are compared in their normalized form (see {@link CourseIndex#key}).
+ *
+ * <p>Every word of every value is kept, followed by the rest of the value, in one sorted
+ * map, which is read like a trie. Word matches are one range of it. Typing mistakes are
+ * found by walking it in order while computing the edit distance to the query one
+ * character of depth at a time. Words that share a prefix with the previous one reuse its
+ * rows, and every range of words whose common prefix is already too far from the query is
+ * skipped with one lookup, so a search visits only the prefixes near the query. The map
+ * is changed one value at a time and can be searched while it changes.
+ */
+public class ValueSearch {
+
+  /**
+   * A value that matched a query.
+   *
+   * @param key   The normalized value.
+   * @param value The value as first added.
+   * @param edits The number of typing mistakes between the query and the value: 0 for
+   *              values with a word starting with the query.
+   */
+  public record Hit(String key, String value, int edits) {
+  }
+
+  /**
+   * Adds a value.
+   *
+   * @param key   The normalized value, which must not be held already.
+   * @param value The value as it should be shown.
+   */
+  public void add(String key, String value) {
+    values.put(key, value);
+    for (int start : wordStarts(key)) {
+      words.put(key.substring(start) + SEPARATOR + key, key);
+    }
+  }
+
+  /**
+   * Removes a value.
+   *
+   * @param key The normalized value.
+   */
+  public void remove(String key) {
+    if (values.remove(key) == null) {
+      return;
+    }
+    for (int start : wordStarts(key)) {
+      words.remove(key.substring(start) + SEPARATOR + key);
+    }
+  }
+
+  /**
+   * Finds the values matching what a user has typed.
+   *
+   * @param query The text typed so far.
+   * @param limit The largest number of values to return.
+   * @return The values with a word starting with the query, in alphabetical order of that
+   *         word, followed, if there are fewer than {@code limit} of them, by values with
+   *         typing mistakes, fewest mistakes first.
+   */
+  public List<Hit> search(String query, int limit) {
+    String normalized = CourseIndex.key(query);
+    if (normalized.isEmpty()) {
+      return List.of();
+    }
+    Map<String, Hit> hits = new LinkedHashMap<>();
+    collect(words.subMap(normalized, true, normalized + Character.MAX_VALUE, false), 0,
+            hits, limit);
+    int maxEdits = normalized.length() < 4 ? 0 : normalized.length() < 8 ? 1 : 2;
+    if (hits.size() < limit && maxEdits > 0) {
+      List<Map<String, Hit>> near = new ArrayList<>();
+      for (int edits = 0; edits <= maxEdits; edits++) {
+        near.add(new LinkedHashMap<>());
+      }
+      walk(normalized, maxEdits, hits, near, limit - hits.size());
+      for (int edits = 1; edits <= maxEdits && hits.size() < limit; edits++) {
+        for (Hit hit : near.get(edits).values()) {
+          if (hits.size() < limit) {
+            hits.putIfAbsent(hit.key(), hit);
+          }
+        }
+      }
+    }
+    return new ArrayList<>(hits.values());
+  }
+
+  /**
+   * Gets the number of values held.
+   *
+   * @return The number of distinct values.
+   */
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * Adds the values of a range of words to a set of hits until it holds {@code limit}.
+   */
+  private void collect(Map<String, String> range, int edits, Map<String, Hit> hits,
+                       int limit) {
+    for (String key : range.values()) {
+      if (hits.size() >= limit) {
+        return;
+      }
+      String value = values.get(key);
+      if (value != null) {
+        hits.putIfAbsent(key, new Hit(key, value, edits));
+      }
+    }
+  }
+
+  /**
+   * Finds the values with a word whose beginning is between 1 and {@code maxEdits} typing
+   * mistakes from the query, keeping up to {@code wanted} per number of mistakes.
+   *
+   * <p>{@code rows[d][i]} is the distance between the first {@code i} characters of the
+   * query and the first {@code d} characters of the current word, allowing swapped
+   * neighbours. Once a row and the one before it are too far from the query, no longer word
+   * with the same prefix can come closer, so the prefix's whole range is decided: it
+   * matches with the smallest distance seen along it, or not at all. The same holds at
+   * depth {@code query.length() + maxEdits}, beyond which further characters only add
+   * mistakes. Once {@code wanted} values are found with some number of mistakes or fewer,
+   * only values with fewer can change the result, so the walk prunes with that lower bound
+   * and ends when there is nothing left to improve.
+   *
+   * @param query    The normalized query.
+   * @param maxEdits The largest number of mistakes allowed.
+   * @param exact    Values already found without mistakes, which are skipped.
+   * @param near     The values found, by number of mistakes.
+   * @param wanted   The number of values wanted.
+   */
+  private void walk(String query, int maxEdits, Map<String, Hit> exact,
+                    List<Map<String, Hit>> near, int wanted) {
+    int n = query.length();
+    int maxDepth = n + maxEdits;
+    int[][] rows = new int[maxDepth + 1][n + 1];
+    int[] rowMin = new int[maxDepth + 1];
+    int[] best = new int[maxDepth + 1];
+    for (int i = 0; i <= n; i++) {
+      rows[0][i] = i;
+    }
+    best[0] = n;
+    String previous = "";
+    int computed = 0;
+    int bound = maxEdits;
+    String entry = words.isEmpty() ? null : words.firstKey();
+    while (entry != null && bound > 0) {
+      int wordEnd = entry.indexOf(SEPARATOR);
+      int depth = 0;
+      int shared = Math.min(computed, Math.min(wordEnd, previous.length()));
+      while (depth < shared && entry.charAt(depth) == previous.charAt(depth)) {
+        depth++;
+      }
+      int decided = -1;
+      while (decided < 0 && depth < Math.min(wordEnd, maxDepth)) {
+        depth++;
+        char t = entry.charAt(depth - 1);
+        int[] row = rows[depth];
+        int[] above = rows[depth - 1];
+        row[0] = depth;
+        int min = depth;
+        for (int i = 1; i <= n; i++) {
+          char q = query.charAt(i - 1);
+          int cost = Math.min(Math.min(above[i] + 1, row[i - 1] + 1),
+                  above[i - 1] + (t == q ? 0 : 1));
+          if (i > 1 && depth > 1 && t == query.charAt(i - 2)
+                  && entry.charAt(depth - 2) == q) {
+            cost = Math.min(cost, rows[depth - 2][i - 2] + 1);
+          }
+          row[i] = cost;
+          min = Math.min(min, cost);
+        }
+        rowMin[depth] = min;
+        best[depth] = Math.min(best[depth - 1], row[n]);
+        if (min > bound && rowMin[depth - 1] >= bound) {
+          decided = depth;
+        }
+      }
+      if (decided < 0 && depth == maxDepth) {
+        decided = depth;
+      }
+      previous = entry;
+      computed = depth;
+      int edits = best[depth];
+      if (decided < 0) {
+        // The word ended before its distance was decided; only this entry has it.
+        if (edits <= bound) {
+          addNear(entry.substring(wordEnd + 1), edits, exact, near, wanted);
+          bound = lowerBound(near, bound, wanted);
+        }
+        entry = words.higherKey(entry);
+        continue;
+      }
+      String prefix = entry.substring(0, decided) + Character.MAX_VALUE;
+      if (edits >= 1 && edits <= bound) {
+        for (String key : words.subMap(entry, true, prefix, false).values()) {
+          if (!addNear(key, edits, exact, near, wanted)) {
+            break;
+          }
+        }
+        bound = lowerBound(near, bound, wanted);
+      }
+      entry = words.higherKey(prefix);
+    }
+  }
+
+  /**
+   * Finds the largest number of mistakes still worth searching for: one less than the
+   * fewest with which {@code wanted} values have been found, counting values with fewer.
+   */
+  private static int lowerBound(List<Map<String, Hit>> near, int bound, int wanted) {
+    int found = 0;
+    for (int edits = 1; edits <= bound; edits++) {
+      found += near.get(edits).size();
+      if (found >= wanted) {
+        return edits - 1;
+      }
+    }
+    return bound;
+  }
+
+  /**
+   * Records a value found with typing mistakes, unless it was already found with as few.
+   *
+   * @return false if no more values are wanted with this many mistakes.
+   */
+  private boolean addNear(String key, int edits, Map<String, Hit> exact,
+                          List<Map<String, Hit>> near, int wanted) {
+    Map<String, Hit> found = near.get(edits);
+    if (found.size() >= wanted) {
+      return false;
+    }
+    if (edits == 0 || exact.containsKey(key)) {
+      return true;
+    }
+    for (int fewer = 1; fewer < edits; fewer++) {
+      if (near.get(fewer).containsKey(key)) {
+        return true;
+      }
+    }
+    String value = values.get(key);
+    if (value != null) {
+      found.putIfAbsent(key, new Hit(key, value, edits));
+      for (int more = edits + 1; more < near.size(); more++) {
+        near.get(more).remove(key);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds where the words of a normalized value start: at the first character and at every
+   * letter or digit that follows some other character.
+   */
+  private static int[] wordStarts(String key) {
+    int count = 0;
+    int[] starts = new int[key.length()];
+    for (int i = 0; i < key.length(); i++) {
+      if (Character.isLetterOrDigit(key.charAt(i))
+              && (i == 0 || !Character.isLetterOrDigit(key.charAt(i - 1)))) {
+        starts[count++] = i;
+      } else if (i == 0) {
+        starts[count++] = 0;
+      }
+    }
+    return Arrays.copyOf(starts, count);
+  }
+
+  /** Separates a word and the rest of its value from the value they belong to. */
+  private static final char SEPARATOR = '\0';
+
+  /** Displayed form of each value, by normalized value. */
+  private final Map<String, String> values = new ConcurrentHashMap<>();
+
+  /**
+   * Every word of every value with the rest of the value after it, then {@link #SEPARATOR}
+   * and the value, mapped to the value.
+   */
+  private final ConcurrentSkipListMap<String, String> words = new ConcurrentSkipListMap<>();
+}
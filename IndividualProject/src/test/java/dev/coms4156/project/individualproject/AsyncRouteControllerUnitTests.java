@@ -0,0 +1,125 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Unit tests for the {@link AsyncRouteController} class.
+ */
+public class AsyncRouteControllerUnitTests {
+
+  private AsyncRouteController routeController;
+  private MyFileDatabase mockDatabase;
+  private Department coms;
+
+  /** Before each test, set up a controller in front of a mocked database. */
+  @BeforeEach
+  public void setUp() {
+    routeController = new AsyncRouteController();
+    mockDatabase = Mockito.mock(MyFileDatabase.class);
+    IndividualProjectApplication.overrideDatabase(mockDatabase);
+    coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    Map<String, Department> departmentMap = new HashMap<>();
+    departmentMap.put("COMS", coms);
+    when(mockDatabase.getDepartmentMapping()).thenReturn(departmentMap);
+  }
+
+  /**
+   * Tests that the response is only produced once the mutation's future completes.
+   */
+  @Test
+  public void testEnrollCompletesWithMutation() {
+    CompletableFuture<Boolean> durable = new CompletableFuture<>();
+    when(mockDatabase.applyMutationAsync(any())).thenReturn(durable);
+
+    CompletableFuture<ResponseEntity<?>> response = routeController.enrollStudent("COMS", 4156);
+
+    assertFalse(response.isDone());
+    durable.complete(true);
+    assertEquals(HttpStatus.OK, response.join().getStatusCode());
+    assertEquals("Student has been enrolled.", response.join().getBody());
+  }
+
+  /**
+   * Tests that missing courses and rejected mutations are reported like the blocking routes
+   * report them.
+   */
+  @Test
+  public void testRejectedMutations() {
+    ResponseEntity<?> missing = routeController.enrollStudent("COMS", 1004).join();
+    assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+    verify(mockDatabase, never()).applyMutationAsync(any());
+
+    when(mockDatabase.applyMutationAsync(any()))
+            .thenReturn(CompletableFuture.completedFuture(false));
+    assertEquals(HttpStatus.BAD_REQUEST,
+            routeController.dropStudent("COMS", 4156).join().getStatusCode());
+    ResponseEntity<?> noDept = routeController.addMajorToDept("ECON").join();
+    assertEquals(HttpStatus.NOT_FOUND, noDept.getStatusCode());
+    assertEquals("Department Not Found", noDept.getBody());
+    assertEquals(HttpStatus.NOT_FOUND,
+            routeController.changeCourseTime("COMS", 1004, "1:10-2:25").join().getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST,
+            routeController.dropStudent("coms", 4156).join().getStatusCode());
+    verify(mockDatabase, times(2)).applyMutationAsync(argThat(record ->
+            record.getOperation() == JournalRecord.Operation.DROP_STUDENT
+                    && record.getDeptCode().equals("COMS")));
+
+    RoomSchedule.Booking kaiser = RoomSchedule.Booking.of("COMS", "4156", coms.getCourse(4156));
+    when(mockDatabase.applyMutationAsync(any()))
+            .thenThrow(new ScheduleConflictException(kaiser, kaiser));
+    assertEquals(HttpStatus.CONFLICT, routeController.changeCourseLocation("COMS", 4156,
+            "501 NWC").join().getStatusCode());
+  }
+
+  /**
+   * Tests that a journal failure becomes an error response rather than a failed future.
+   */
+  @Test
+  public void testJournalFailure() {
+    when(mockDatabase.applyMutationAsync(any()))
+            .thenReturn(CompletableFuture.failedFuture(new IOException("disk full")));
+
+    ResponseEntity<?> response =
+            routeController.setEnrollmentCount("COMS", 4156, 10).join();
+
+    assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+  }
+
+  /**
+   * Tests that reads are answered directly.
+   */
+  @Test
+  public void testReads() {
+    ResponseEntity<?> course = routeController.retrieveCourse("COMS", 4156);
+    assertEquals(HttpStatus.OK, course.getStatusCode());
+    assertTrue(course.getBody().toString().contains("Gail Kaiser"));
+    assertEquals(false, routeController.isCourseFull("COMS", 4156).getBody());
+    assertEquals(HttpStatus.NOT_FOUND,
+            routeController.retrieveDepartment("ECON").getStatusCode());
+    assertEquals(HttpStatus.OK, routeController.metrics().getStatusCode());
+    when(mockDatabase.findCourses(CourseIndex.Field.INSTRUCTOR, "gail kaiser")).thenReturn(
+            List.of(new CourseIndex.Match("COMS", "4156", coms.getCourse(4156))));
+    assertEquals(1, ((Map<?, ?>) routeController.coursesByInstructor("gail kaiser", 10)
+            .getBody()).get("total"));
+  }
+}
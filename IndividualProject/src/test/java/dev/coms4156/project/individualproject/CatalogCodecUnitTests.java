@@ -0,0 +1,131 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link CatalogCodec} class.
+ */
+public class CatalogCodecUnitTests {
+
+  /**
+   * Tests that every department and course field survives a round trip.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    coms.getCourseSelection().get("4156").setEnrolledStudentCount(109);
+    coms.createCourse("3134", "Brian Borowski", "301 URIS", "4:10-5:25", 250);
+    Map<String, Department> mapping = new HashMap<>();
+    mapping.put("COMS", coms);
+    mapping.put("ECON", new Department("ECON", new HashMap<>(), "Michael Woodford", 2345));
+
+    CatalogCodec.LoadedSnapshot loaded = roundTrip(mapping, 42);
+
+    assertEquals(42, loaded.getLastLsn());
+    assertEquals(2, loaded.getMapping().size());
+    Department decoded = loaded.getMapping().get("COMS");
+    assertEquals("COMS", decoded.getDeptCode());
+    assertEquals("Luca Carloni", decoded.getDepartmentChair());
+    assertEquals(2700, decoded.getNumberOfMajors());
+    Course course = decoded.getCourseSelection().get("4156");
+    assertEquals("Gail Kaiser", course.getInstructorName());
+    assertEquals("501 NWC", course.getCourseLocation());
+    assertEquals("10:10-11:25", course.getCourseTimeSlot());
+    assertEquals(120, course.getEnrollmentCapacity());
+    assertEquals(109, course.getEnrolledStudentCount());
+    assertEquals(coms.toString().length(), decoded.toString().length());
+    assertTrue(loaded.getMapping().get("ECON").getCourseSelection().isEmpty());
+  }
+
+  /**
+   * Tests that null strings and negative numbers are preserved.
+   */
+  @Test
+  public void testNullsAndNegativeValues() throws IOException {
+    Map<String, Department> mapping = new HashMap<>();
+    Department dept = new Department("MATH", new HashMap<>(), null, 0);
+    dept.createCourse("1101", null, "Room 1", "9:00-10:15", -5);
+    dept.getCourseSelection().get("1101").setEnrolledStudentCount(-1);
+    mapping.put("MATH", dept);
+
+    Department decoded = roundTrip(mapping, 0).getMapping().get("MATH");
+
+    assertNull(decoded.getDepartmentChair());
+    Course course = decoded.getCourseSelection().get("1101");
+    assertNull(course.getInstructorName());
+    assertEquals(-5, course.getEnrollmentCapacity());
+    assertEquals(-1, course.getEnrolledStudentCount());
+  }
+
+  /**
+   * Tests that repeated strings are stored once, keeping snapshots far smaller than Java
+   * serialization of the same mapping.
+   */
+  @Test
+  public void testStringsAreDeduplicated() throws IOException {
+    Map<String, Department> mapping = new HashMap<>();
+    Department dept = new Department("COMS", new HashMap<>(), "Luca Carloni", 1);
+    for (int i = 0; i < 1000; i++) {
+      dept.createCourse(Integer.toString(i), "Adam Cannon", "417 IAB", "11:40-12:55", 400);
+    }
+    mapping.put("COMS", dept);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CatalogCodec.write(mapping, 0, Channels.newChannel(bytes));
+    ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+      out.writeObject(mapping);
+    }
+
+    assertTrue(bytes.size() * 2 < serialized.size(),
+            "snapshot was " + bytes.size() + " bytes, serialized " + serialized.size());
+  }
+
+  /**
+   * Tests that input without the snapshot magic is rejected.
+   */
+  @Test
+  public void testRejectsForeignData() {
+    byte[] garbage = {(byte) 0xAC, (byte) 0xED, 0, 5, 1, 2, 3};
+    assertFalse(CatalogCodec.hasMagic(garbage));
+    assertThrows(IOException.class, () -> CatalogCodec.read(
+            Channels.newChannel(new ByteArrayInputStream(garbage))));
+  }
+
+  /**
+   * Tests that a truncated snapshot is reported as an error.
+   */
+  @Test
+  public void testRejectsTruncatedSnapshot() throws IOException {
+    Map<String, Department> mapping = new HashMap<>();
+    mapping.put("CS", new Department("CS", new HashMap<>(), "Dr. Smith", 100));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CatalogCodec.write(mapping, 0, Channels.newChannel(bytes));
+    byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 2);
+
+    assertTrue(CatalogCodec.hasMagic(truncated));
+    assertThrows(IOException.class, () -> CatalogCodec.read(
+            Channels.newChannel(new ByteArrayInputStream(truncated))));
+  }
+
+  private static CatalogCodec.LoadedSnapshot roundTrip(Map<String, Department> mapping,
+                                                       long lastLsn) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CatalogCodec.write(mapping, lastLsn, Channels.newChannel(bytes));
+    return CatalogCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+}
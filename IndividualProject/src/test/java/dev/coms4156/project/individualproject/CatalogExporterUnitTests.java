@@ -0,0 +1,75 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link CatalogExporter} class.
+ */
+public class CatalogExporterUnitTests {
+
+  /**
+   * Tests that every department is followed by its courses, one JSON object per line.
+   *
+   * @throws IOException if the export cannot be written or parsed.
+   */
+  @Test
+  public void testWritesOneLinePerDepartmentAndCourse() throws IOException {
+    Map<String, Department> mapping = new HashMap<>();
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    coms.getCourse(4156).setEnrolledStudentCount(109);
+    mapping.put("COMS", coms);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long lines = CatalogExporter.writeNdjson(mapping, out);
+
+    String text = out.toString(StandardCharsets.UTF_8);
+    assertTrue(text.endsWith("\n"));
+    String[] split = text.split("\n");
+    assertEquals(2, lines);
+    assertEquals(2, split.length);
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode department = mapper.readTree(split[0]);
+    assertEquals("department", department.get("type").asText());
+    assertEquals("Luca Carloni", department.get("chair").asText());
+    assertEquals(2700, department.get("majors").asInt());
+    JsonNode course = mapper.readTree(split[1]);
+    assertEquals("course", course.get("type").asText());
+    assertEquals("COMS", course.get("deptCode").asText());
+    assertEquals("4156", course.get("courseId").asText());
+    assertEquals("Gail Kaiser", course.get("instructor").asText());
+    assertEquals(109, course.get("enrolled").asInt());
+  }
+
+  /**
+   * Tests that text needing escapes stays on one line and that missing values become null.
+   *
+   * @throws IOException if the export cannot be written or parsed.
+   */
+  @Test
+  public void testEscapesText() throws IOException {
+    Map<String, Department> mapping = new HashMap<>();
+    Department dept = new Department("MATH", new HashMap<>(), null, 0);
+    dept.createCourse("1101", "A \"quoted\"\nname", "Room", "Time", 10);
+    mapping.put("MATH", dept);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    CatalogExporter.writeNdjson(mapping, out);
+
+    String[] split = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, split.length);
+    ObjectMapper mapper = new ObjectMapper();
+    assertTrue(mapper.readTree(split[0]).get("chair").isNull());
+    assertEquals("A \"quoted\"\nname", mapper.readTree(split[1]).get("instructor").asText());
+  }
+}
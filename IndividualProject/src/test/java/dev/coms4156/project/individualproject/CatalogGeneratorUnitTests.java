@@ -0,0 +1,188 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for the {@link CatalogGenerator} class.
+ */
+public class CatalogGeneratorUnitTests {
+
+  private Path file;
+
+  /**
+   * Picks the file the snapshot test writes to.
+   *
+   * @throws IOException if the file cannot be created.
+   */
+  @BeforeEach
+  public void setUp() throws IOException {
+    file = Files.createTempFile("catalog", ".bin");
+  }
+
+  /**
+   * Deletes the snapshot and its journal.
+   *
+   * @throws IOException if the files cannot be deleted.
+   */
+  @AfterEach
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(journalOf(file));
+  }
+
+  /**
+   * Tests that a seed always produces the same catalog and another seed a different one.
+   */
+  @Test
+  public void testSeedDeterminesCatalog() {
+    Map<String, Department> first = new CatalogGenerator(1).generate(20, 30);
+    Map<String, Department> second = new CatalogGenerator(1).generate(20, 30);
+    Map<String, Department> other = new CatalogGenerator(2).generate(20, 30);
+
+    assertEquals(describe(first), describe(second));
+    assertEquals(first.keySet(), other.keySet());
+    assertNotEquals(describe(first), describe(other));
+  }
+
+  /**
+   * Tests that a department does not depend on how many departments are generated with it.
+   */
+  @Test
+  public void testDepartmentsDoNotDependOnCatalogSize() {
+    Map<String, Department> small = new CatalogGenerator(9).generate(5, 12);
+    Map<String, Department> large = new CatalogGenerator(9).generate(500, 12);
+
+    assertEquals(describe(Map.of("IEOR", small.get("IEOR"))),
+            describe(Map.of("IEOR", large.get("IEOR"))));
+  }
+
+  /**
+   * Tests the size of a generated catalog and that its values are valid and shaped like a
+   * real catalog.
+   */
+  @Test
+  public void testCatalogShape() {
+    Map<String, Department> mapping = new CatalogGenerator(42).generate(40, 100);
+
+    assertEquals(40, mapping.size());
+    long full = 0;
+    long[] capacityByLevel = new long[4];
+    for (Department department : mapping.values()) {
+      assertEquals(100, department.getCourseSelection().size());
+      assertTrue(department.getNumberOfMajors() >= 10);
+      Set<String> instructors = new HashSet<>();
+      for (Map.Entry<String, Course> entry : department.getCourseSelection().entrySet()) {
+        Course course = entry.getValue();
+        assertTrue(course.getEnrollmentCapacity() > 0);
+        assertTrue(course.getEnrolledStudentCount() >= 0);
+        assertTrue(course.getEnrolledStudentCount() <= course.getEnrollmentCapacity());
+        full += course.isCourseFull() ? 1 : 0;
+        capacityByLevel[Integer.parseInt(entry.getKey()) / 1000 - 1]
+                += course.getEnrollmentCapacity();
+        instructors.add(course.getInstructorName());
+      }
+      assertTrue(instructors.size() < 60, "instructors teach several courses");
+    }
+    assertTrue(full > 400 && full < 1600, "full courses: " + full);
+    assertTrue(capacityByLevel[0] > 2 * capacityByLevel[3]);
+  }
+
+  /**
+   * Tests department and course codes.
+   */
+  @Test
+  public void testCodes() {
+    assertEquals("COMS", CatalogGenerator.deptCode(0));
+    assertEquals("ECON", CatalogGenerator.deptCode(1));
+    assertEquals("COMS1", CatalogGenerator.deptCode(30));
+    assertEquals("ECON3", CatalogGenerator.deptCode(91));
+    assertEquals(1000, CatalogGenerator.courseCode(0));
+    assertEquals(2000, CatalogGenerator.courseCode(1));
+    assertEquals(1001, CatalogGenerator.courseCode(4));
+    assertEquals(4999, CatalogGenerator.courseCode(3999));
+    assertEquals(8000, CatalogGenerator.courseCode(4000));
+
+    Set<String> deptCodes = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(deptCodes.add(CatalogGenerator.deptCode(i)));
+    }
+    assertEquals(5000, new CatalogGenerator(3).generateDepartment(0, 5000)
+            .getCourseSelection().size());
+    assertThrows(IllegalArgumentException.class, () -> new CatalogGenerator(3).generate(-1, 1));
+  }
+
+  /**
+   * Tests that a written snapshot loads into the same catalog and replaces any old journal.
+   *
+   * @throws IOException if the snapshot cannot be written.
+   */
+  @Test
+  public void testWriteSnapshot() throws IOException {
+    Path journal = journalOf(file);
+    Files.writeString(journal, "stale");
+
+    new CatalogGenerator(5).writeSnapshot(file, 12, 25);
+
+    assertFalse(Files.exists(journal));
+    MyFileDatabase database = new MyFileDatabase(0, file.toString());
+    try {
+      assertEquals(describe(new CatalogGenerator(5).generate(12, 25)),
+              describe(database.getDepartmentMapping()));
+    } finally {
+      database.close();
+    }
+  }
+
+  /**
+   * Tests that a generated catalog is published to a database and saved.
+   */
+  @Test
+  public void testGenerateInto() throws IOException {
+    MyFileDatabase database = Mockito.mock(MyFileDatabase.class);
+
+    new CatalogGenerator(5).generateInto(database, 3, 4);
+
+    verify(database).setMapping(Mockito.argThat(mapping -> mapping.size() == 3));
+    verify(database).save();
+  }
+
+  private static Path journalOf(Path snapshot) {
+    return Path.of(snapshot + MyFileDatabase.JOURNAL_SUFFIX);
+  }
+
+  private static String describe(Map<String, Department> mapping) {
+    StringBuilder description = new StringBuilder();
+    for (Department department : new TreeMap<>(mapping).values()) {
+      description.append(department.getDeptCode()).append('|')
+              .append(department.getDepartmentChair()).append('|')
+              .append(department.getNumberOfMajors()).append('\n');
+      Map<String, Course> courses = new TreeMap<>(department.getCourseSelection());
+      for (Map.Entry<String, Course> entry : courses.entrySet()) {
+        Course course = entry.getValue();
+        description.append(entry.getKey()).append('|').append(course.getInstructorName())
+                .append('|').append(course.getCourseLocation()).append('|')
+                .append(course.getCourseTimeSlot()).append('|')
+                .append(course.getEnrollmentCapacity()).append('|')
+                .append(course.getEnrolledStudentCount()).append('\n');
+      }
+    }
+    return description.toString();
+  }
+}
@@ -0,0 +1,207 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for the {@link CatalogIngester} class.
+ */
+public class CatalogIngesterUnitTests {
+
+  private Path file;
+
+  /**
+   * Creates the file each test writes its catalog to.
+   *
+   * @throws IOException if the file cannot be created.
+   */
+  @BeforeEach
+  public void setUp() throws IOException {
+    file = Files.createTempFile("catalog", ".tmp");
+  }
+
+  /**
+   * Deletes the catalog file.
+   *
+   * @throws IOException if the file cannot be deleted.
+   */
+  @AfterEach
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Tests that a CSV catalog is read into departments and courses.
+   *
+   * @throws IOException if the catalog cannot be read.
+   */
+  @Test
+  public void testIngestsCsv() throws IOException {
+    Files.writeString(file, CatalogIngester.CSV_HEADER + "\n"
+            + "COMS,Luca Carloni,2700,,,,,,\n"
+            + "COMS,,,4156,Gail Kaiser,501 NWC,10:10-11:25,120,109\r\n"
+            + "COMS,,,3134,\"Borowski, Brian\",301 URIS,4:10-5:25,250,\n"
+            + "\n"
+            + "ECON,Michael Woodford,2345,1105,Waseem Noor,309 HAV,2:40-3:55,210,187\n");
+
+    CatalogIngester.Result result = new CatalogIngester(CatalogIngester.Format.CSV, 2, 16)
+            .ingest(file);
+
+    assertTrue(result.isValid(), result.errors().toString());
+    assertEquals(2, result.departments());
+    assertEquals(3, result.courses());
+    assertEquals(6, result.lines());
+    Department coms = result.mapping().get("COMS");
+    assertEquals("Luca Carloni", coms.getDepartmentChair());
+    assertEquals(2700, coms.getNumberOfMajors());
+    assertEquals(109, coms.getCourse(4156).getEnrolledStudentCount());
+    assertEquals("Borowski, Brian", coms.getCourse(3134).getInstructorName());
+    assertEquals(0, coms.getCourse(3134).getEnrolledStudentCount());
+    assertEquals(2345, result.mapping().get("ECON").getNumberOfMajors());
+  }
+
+  /**
+   * Tests that an export can be ingested again unchanged, using many small chunks.
+   *
+   * @throws IOException if the catalog cannot be written or read.
+   */
+  @Test
+  public void testIngestsExportedNdjson() throws IOException {
+    Map<String, Department> mapping = new HashMap<>();
+    for (int d = 0; d < 20; d++) {
+      Department dept = new Department("D" + d, new HashMap<>(), "Chair " + d, d);
+      for (int c = 0; c < 50; c++) {
+        dept.createCourse(Integer.toString(1000 + c), "Instructor " + c, "Room", "Time",
+                c + 1);
+        dept.getCourse(1000 + c).setEnrolledStudentCount(c);
+      }
+      mapping.put("D" + d, dept);
+    }
+    try (OutputStream out = Files.newOutputStream(file)) {
+      CatalogExporter.writeNdjson(mapping, out);
+    }
+
+    CatalogIngester ingester = new CatalogIngester(CatalogIngester.Format.NDJSON, 4, 1024);
+    CatalogIngester.Result result = ingester.ingest(file);
+
+    assertTrue(result.isValid(), result.errors().toString());
+    assertEquals(20, result.departments());
+    assertEquals(1000, result.courses());
+    assertEquals(mapping.keySet(), result.mapping().keySet());
+    Department dept = result.mapping().get("D7");
+    assertEquals("Chair 7", dept.getDepartmentChair());
+    assertEquals(7, dept.getNumberOfMajors());
+    assertEquals(30, dept.getCourse(1030).getEnrolledStudentCount());
+    assertEquals(31, dept.getCourse(1030).getEnrollmentCapacity());
+    Map<String, Object> progress = ingester.getProgress();
+    assertEquals("done", progress.get("phase"));
+    assertEquals(Files.size(file), progress.get("bytesParsed"));
+    assertEquals(1000L, progress.get("coursesParsed"));
+  }
+
+  /**
+   * Tests that invalid rows are reported with their line numbers, even across chunks, and
+   * that no mapping is produced.
+   *
+   * @throws IOException if the catalog cannot be read.
+   */
+  @Test
+  public void testReportsInvalidRows() throws IOException {
+    Files.writeString(file, CatalogIngester.CSV_HEADER + "\n"
+            + "COMS,Chair,10,,,,,,\n"
+            + "COMS,,,4156,A,B,C,120,109\n"
+            + "COMS,,,4156,A,B,C,120,109\n"
+            + "COMS,,,1004,A,B,C,-1,0\n"
+            + "COMS,,,1005,A,B,C,10,11\n"
+            + "COMS,Other Chair,10,,,,,,\n"
+            + "COMS,,,1006,A,B\n"
+            + ",,,1007,A,B,C,10,0\n");
+
+    CatalogIngester.Result result = new CatalogIngester(CatalogIngester.Format.CSV, 3, 8)
+            .ingest(file);
+
+    assertFalse(result.isValid());
+    assertNull(result.mapping());
+    assertEquals(6, result.errorCount());
+    assertTrue(result.errors().get(0).startsWith("line 4: duplicate course COMS 4156"));
+    assertTrue(result.errors().get(1).startsWith("line 5: capacity"));
+    assertTrue(result.errors().get(2).startsWith("line 6: course COMS 1005"));
+    assertTrue(result.errors().get(3).startsWith("line 7: details of department COMS"));
+    assertTrue(result.errors().get(4).startsWith("line 8: expected 9 fields"));
+    assertTrue(result.errors().get(5).startsWith("line 9: deptCode is missing"));
+  }
+
+  /**
+   * Tests that malformed NDJSON lines and a wrong CSV header are rejected.
+   *
+   * @throws IOException if the catalog cannot be read.
+   */
+  @Test
+  public void testRejectsMalformedInput() throws IOException {
+    Files.writeString(file, "{\"type\":\"department\",\"deptCode\":\"COMS\"}\n"
+            + "{\"type\":\"course\",\"deptCode\":\"COMS\",\"courseId\":\"1\"\n"
+            + "{\"type\":\"section\",\"deptCode\":\"COMS\"}\n");
+    CatalogIngester.Result json = new CatalogIngester(CatalogIngester.Format.NDJSON)
+            .ingest(file);
+    assertEquals(2, json.errorCount());
+    assertEquals("line 2: malformed JSON", json.errors().get(0));
+
+    Files.writeString(file, "code,name\nCOMS,Chair,1,,,,,,\n");
+    CatalogIngester.Result csv = new CatalogIngester(CatalogIngester.Format.CSV)
+            .ingest(file);
+    assertEquals(1, csv.errorCount());
+    assertTrue(csv.errors().get(0).startsWith("line 1: expected the header"));
+  }
+
+  /**
+   * Tests that a valid catalog is published and saved, and an invalid one is not.
+   *
+   * @throws IOException if the catalog cannot be read.
+   */
+  @Test
+  public void testIngestIntoDatabase() throws IOException {
+    MyFileDatabase database = Mockito.mock(MyFileDatabase.class);
+    Files.writeString(file, CatalogIngester.CSV_HEADER + "\nCOMS,Chair,1,4156,A,B,C,10,0\n",
+            StandardCharsets.UTF_8);
+
+    new CatalogIngester(CatalogIngester.Format.CSV).ingestInto(file, database, true);
+
+    verify(database).mergeMapping(any());
+    verify(database).save();
+    verify(database, never()).setMapping(any());
+
+    MyFileDatabase untouched = Mockito.mock(MyFileDatabase.class);
+    Files.writeString(file, CatalogIngester.CSV_HEADER + "\nCOMS,Chair,1,4156,A,B,C,10,20\n");
+    new CatalogIngester(CatalogIngester.Format.CSV).ingestInto(file, untouched, false);
+    verify(untouched, never()).setMapping(any());
+    verify(untouched, never()).save();
+  }
+
+  /**
+   * Tests that formats are recognized by name and by file extension.
+   */
+  @Test
+  public void testFormatNames() {
+    assertEquals(CatalogIngester.Format.CSV, CatalogIngester.Format.fromName(" Csv "));
+    assertEquals(CatalogIngester.Format.NDJSON,
+            CatalogIngester.Format.fromFileName("catalog.JSONL"));
+    assertNull(CatalogIngester.Format.fromFileName("catalog.txt"));
+  }
+}
@@ -0,0 +1,155 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link CourseIndex} class.
+ */
+public class CourseIndexUnitTests {
+
+  /** Before each test, index a small catalog. */
+  @BeforeEach
+  public void setUp() {
+    CourseMap coms = new CourseMap();
+    coms.put("4156", new Course("Gail Kaiser", "501 NWC", "10:10-11:25", 120));
+    coms.put("1004", new Course("Adam Cannon", "417 IAB", "11:40-12:55", 400));
+    coms.put("3827", new Course("Daniel Rubenstein", "207 Math", "10:10-11:25", 300));
+    coms.put("ENG101", new Course("Gail Kaiser", "417 IAB", "4:10-5:25", 30));
+    CourseMap econ = new CourseMap();
+    econ.put("1105", new Course("Waseem Noor", "417 IAB", "2:40-3:55", 210));
+    catalog = new HashMap<>();
+    catalog.put("COMS", new Department("COMS", coms, "Luca Carloni", 2700));
+    catalog.put("ECON", new Department("ECON", econ, "Michael Woodford", 2345));
+
+    index = new CourseIndex();
+    catalog.forEach(index::addDepartment);
+  }
+
+  /**
+   * Tests that lookups ignore case and spaces and return courses in code order.
+   */
+  @Test
+  public void testFindIgnoresCaseAndOrdersResults() {
+    List<CourseIndex.Match> byLocation = index.find(CourseIndex.Field.LOCATION, " 417 iab",
+            catalog);
+    assertEquals(List.of("COMS 1004", "COMS ENG101", "ECON 1105"), names(byLocation));
+    assertSame(catalog.get("ECON").getCourse(1105), byLocation.get(2).course());
+
+    assertEquals(List.of("COMS 4156", "COMS ENG101"),
+            names(index.find(CourseIndex.Field.INSTRUCTOR, "GAIL KAISER", catalog)));
+    assertEquals(List.of("COMS 3827", "COMS 4156"),
+            names(index.find(CourseIndex.Field.TIME, "10:10-11:25", catalog)));
+    assertTrue(index.find(CourseIndex.Field.TIME, "9:00-9:50", catalog).isEmpty());
+  }
+
+  /**
+   * Tests that a changed course moves between values only for the fields that changed.
+   */
+  @Test
+  public void testUpdateCourse() {
+    Course before = catalog.get("COMS").getCourse(4156);
+    Course after = before.copy();
+    after.reassignInstructor("Jae Woo Lee");
+    catalog.get("COMS").addCourse("4156", after);
+    index.updateCourse("COMS", 4156, before, after);
+
+    assertEquals(List.of("COMS ENG101"),
+            names(index.find(CourseIndex.Field.INSTRUCTOR, "Gail Kaiser", catalog)));
+    assertEquals(List.of("COMS 4156"),
+            names(index.find(CourseIndex.Field.INSTRUCTOR, "Jae Woo Lee", catalog)));
+    assertEquals(List.of("COMS 4156"),
+            names(index.find(CourseIndex.Field.LOCATION, "501 NWC", catalog)));
+  }
+
+  /**
+   * Tests that courses are checked against the catalog searched, so a version in which a
+   * course no longer matches does not return it.
+   */
+  @Test
+  public void testFindChecksTheCatalog() {
+    Map<String, Department> changed = new HashMap<>(catalog);
+    Department coms = catalog.get("COMS").copy();
+    Course moved = coms.getCourse(1004).copy();
+    moved.reassignLocation("301 URIS");
+    coms.addCourse("1004", moved);
+    changed.put("COMS", coms);
+    changed.remove("ECON");
+
+    assertEquals(List.of("COMS ENG101"),
+            names(index.find(CourseIndex.Field.LOCATION, "417 IAB", changed)));
+  }
+
+  /**
+   * Tests that large value sets grow and shrink and that removing departments empties the
+   * index.
+   */
+  @Test
+  public void testAddAndRemoveManyCourses() {
+    CourseMap courses = new CourseMap();
+    for (int i = 0; i < 5000; i++) {
+      courses.put(i, new Course("Staff", "Online", "10:10-11:25", 50));
+    }
+    Department large = new Department("LRGE", courses, "Chair", 1);
+    catalog.put("LRGE", large);
+    index.addDepartment("LRGE", large);
+    assertEquals(5002, index.find(CourseIndex.Field.TIME, "10:10-11:25", catalog).size());
+
+    for (int i = 0; i < 4990; i++) {
+      Course course = courses.get(i);
+      Course moved = course.copy();
+      moved.reassignTime("1:10-2:25");
+      courses.put(i, moved);
+      index.updateCourse("LRGE", i, course, moved);
+    }
+    List<CourseIndex.Match> remaining = index.find(CourseIndex.Field.TIME, "10:10-11:25",
+            catalog);
+    assertEquals(12, remaining.size());
+    assertEquals("LRGE 4990", names(remaining).get(2));
+
+    catalog.forEach(index::removeDepartment);
+    Map<String, Object> stats = index.getStats();
+    assertEquals(Map.of("values", 0, "courses", 0L), stats.get("instructor"));
+    assertEquals(Map.of("values", 0, "courses", 0L), stats.get("time"));
+  }
+
+  /**
+   * Tests that suggestions count courses per value and follow instructors and locations as
+   * they change.
+   */
+  @Test
+  public void testSuggest() {
+    assertEquals(List.of(new CourseIndex.Suggestion("Gail Kaiser", 2, 0)),
+            index.suggest(CourseIndex.Field.INSTRUCTOR, "kai", 10));
+    assertEquals(List.of(new CourseIndex.Suggestion("417 IAB", 3, 0)),
+            index.suggest(CourseIndex.Field.LOCATION, "iab", 10));
+    assertEquals(List.of(new CourseIndex.Suggestion("Daniel Rubenstein", 1, 1)),
+            index.suggest(CourseIndex.Field.INSTRUCTOR, "rubinstein", 10));
+
+    Course before = catalog.get("COMS").getCourse(3827);
+    Course after = before.copy();
+    after.reassignInstructor("Gail Kaiser");
+    catalog.get("COMS").addCourse("3827", after);
+    index.updateCourse("COMS", 3827, before, after);
+    assertEquals(List.of(new CourseIndex.Suggestion("Gail Kaiser", 3, 0)),
+            index.suggest(CourseIndex.Field.INSTRUCTOR, "kai", 10));
+    assertTrue(index.suggest(CourseIndex.Field.INSTRUCTOR, "rubinstein", 10).isEmpty());
+    assertThrows(IllegalArgumentException.class,
+            () -> index.suggest(CourseIndex.Field.TIME, "10", 10));
+  }
+
+  private static List<String> names(List<CourseIndex.Match> matches) {
+    return matches.stream().map(match -> match.deptCode() + " " + match.courseId()).toList();
+  }
+
+  private Map<String, Department> catalog;
+  private CourseIndex index;
+}
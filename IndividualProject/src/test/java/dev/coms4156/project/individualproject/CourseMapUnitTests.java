@@ -0,0 +1,125 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link CourseMap} class.
+ */
+public class CourseMapUnitTests {
+
+  /**
+   * Creates a map holding both numeric and other course IDs.
+   */
+  @BeforeEach
+  public void setUp() {
+    courses = new CourseMap();
+    courses.put("4156", new Course("Gail Kaiser", "501 NWC", "10:10-11:25", 120));
+    courses.put("ENG101", new Course("Prof. Martin", "Room 305", "9:00-10:15", 30));
+    courses.put("0303", new Course("Dr. Bob", "Room 303", "4:00-5:00", 60));
+  }
+
+  /**
+   * Tests that string and int lookups agree and non-canonical IDs are kept apart.
+   */
+  @Test
+  public void testLookups() {
+    assertEquals(3, courses.size());
+    assertSame(courses.get("4156"), courses.get(4156));
+    assertEquals("Prof. Martin", courses.get("ENG101").getInstructorName());
+    assertEquals("Dr. Bob", courses.get("0303").getInstructorName());
+    assertNull(courses.get(303));
+    assertNull(courses.get("303"));
+    assertNull(courses.get(Integer.valueOf(4156)));
+    assertTrue(courses.containsKey("0303"));
+    assertFalse(courses.containsKey("1004"));
+  }
+
+  /**
+   * Tests that the map grows past its initial capacity and survives removals in between.
+   */
+  @Test
+  public void testGrowAndRemove() {
+    for (int code = 0; code < 1000; code++) {
+      courses.put(Integer.toString(code), new Course("Instructor " + code, "Room", "Time", 10));
+    }
+    for (int code = 0; code < 1000; code += 3) {
+      Course removed = courses.remove(Integer.toString(code));
+      assertEquals("Instructor " + code, removed.getInstructorName());
+    }
+
+    assertEquals(1000 - 334 + 3, courses.size());
+    for (int code = 0; code < 1000; code++) {
+      Course course = courses.get(code);
+      if (code % 3 == 0) {
+        assertNull(course);
+      } else {
+        assertEquals("Instructor " + code, course.getInstructorName());
+      }
+    }
+    assertEquals(courses.size(), courses.entrySet().stream().count());
+  }
+
+  /**
+   * Tests that negative and extreme codes are stored like any other.
+   */
+  @Test
+  public void testExtremeCodes() {
+    Course lowest = new Course("Low", "Room", "Time", 1);
+    Course highest = new Course("High", "Room", "Time", 1);
+    courses.put(Integer.toString(Integer.MIN_VALUE), lowest);
+    courses.put(Integer.MAX_VALUE, highest);
+
+    assertSame(lowest, courses.get(Integer.MIN_VALUE));
+    assertSame(highest, courses.get(Integer.toString(Integer.MAX_VALUE)));
+    assertNull(courses.get("-0"));
+    assertNull(courses.get("99999999999"));
+  }
+
+  /**
+   * Tests that a copy can be changed without affecting the original.
+   */
+  @Test
+  public void testCopyIsIndependent() {
+    CourseMap copy = courses.copy();
+    copy.remove("4156");
+    copy.put("ENG102", new Course("Dr. Alice", "Room 202", "2:00-3:15", 100));
+
+    assertEquals(3, courses.size());
+    assertTrue(courses.containsKey("4156"));
+    assertFalse(courses.containsKey("ENG102"));
+    assertEquals(3, copy.size());
+  }
+
+  /**
+   * Tests that the map is serialized as a plain map of the same courses.
+   */
+  @Test
+  public void testSerializesAsPlainMap() throws IOException, ClassNotFoundException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(courses);
+    }
+    try (ObjectInputStream in =
+                 new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      Object read = in.readObject();
+      assertEquals(HashMap.class, read.getClass());
+      assertEquals(courses.keySet(), ((Map<?, ?>) read).keySet());
+    }
+  }
+
+  private CourseMap courses;
+}
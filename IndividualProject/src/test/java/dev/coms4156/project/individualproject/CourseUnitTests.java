@@ -4,6 +4,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.context.ContextConfiguration;
@@ -162,4 +168,28 @@ public class CourseUnitTests {
     // Reassign back to original instructor name
     testCourse.reassignInstructor("Griffin Newbold");
   }
+
+  /**
+   * Tests that concurrent enrollments into one course fill it exactly to capacity.
+   */
+  @Test
+  public void testConcurrentEnrollmentNeverExceedsCapacity() throws Exception {
+    Course hotCourse = new Course("Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Callable<Boolean>> attempts = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      attempts.add(hotCourse::enrollStudent);
+    }
+    int enrolled = 0;
+    for (Future<Boolean> result : executor.invokeAll(attempts)) {
+      if (result.get()) {
+        enrolled++;
+      }
+    }
+    executor.shutdown();
+
+    assertEquals(120, enrolled);
+    assertEquals(120, hotCourse.getEnrolledStudentCount());
+    assertTrue(hotCourse.isCourseFull());
+  }
 }
@@ -0,0 +1,119 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link DepartmentOverlay} class.
+ */
+public class DepartmentOverlayUnitTests {
+
+  /**
+   * Tests many additions and replacements against a {@link HashMap}, checking that earlier
+   * overlays keep what they held.
+   */
+  @Test
+  public void testMatchesHashMap() {
+    Random random = new Random(4156);
+    DepartmentOverlay overlay = DepartmentOverlay.EMPTY;
+    Map<String, Department> expected = new HashMap<>();
+    DepartmentOverlay pinned = null;
+    Map<String, Department> pinnedExpected = null;
+    for (int i = 0; i < 5000; i++) {
+      String deptCode = "D" + random.nextInt(2000);
+      Department department = department(deptCode);
+      overlay = overlay.with(deptCode, department);
+      expected.put(deptCode, department);
+      if (i == 2500) {
+        pinned = overlay;
+        pinnedExpected = new HashMap<>(expected);
+      }
+    }
+
+    assertEquals(expected.size(), overlay.size());
+    for (int i = 0; i < 2000; i++) {
+      assertSame(expected.get("D" + i), overlay.get("D" + i));
+      assertSame(pinnedExpected.get("D" + i), pinned.get("D" + i));
+    }
+    assertEquals(pinnedExpected.size(), pinned.size());
+    assertNull(overlay.get("COMS"));
+    assertNull(overlay.get(42));
+  }
+
+  /**
+   * Tests department codes whose hashes are equal, which end up side by side below the last
+   * level of the trie.
+   */
+  @Test
+  public void testCollidingCodes() {
+    List<String> codes = List.of("AaAa", "AaBB", "BBAa", "BBBB");
+    DepartmentOverlay overlay = DepartmentOverlay.EMPTY;
+    Map<String, Department> expected = new HashMap<>();
+    for (String deptCode : codes) {
+      DepartmentOverlay before = overlay;
+      Department department = department(deptCode);
+      overlay = overlay.with(deptCode, department);
+      expected.put(deptCode, department);
+
+      Set<String> changed = new HashSet<>();
+      overlay.addChangesSince(before, changed);
+      assertEquals(Set.of(deptCode), changed);
+    }
+    Department replaced = department("BBAa");
+    DepartmentOverlay last = overlay.with("BBAa", replaced);
+    expected.put("BBAa", replaced);
+
+    assertEquals(4, last.size());
+    for (String deptCode : codes) {
+      assertSame(expected.get(deptCode), last.get(deptCode));
+    }
+    assertNull(last.get("AaAb"));
+    Set<String> changed = new HashSet<>();
+    last.addChangesSince(overlay, changed);
+    assertEquals(Set.of("BBAa"), changed);
+  }
+
+  /**
+   * Tests that the changes between two overlays are found in either direction, including
+   * departments one of them does not hold.
+   */
+  @Test
+  public void testChangesSince() {
+    DepartmentOverlay overlay = DepartmentOverlay.EMPTY;
+    for (int i = 0; i < 500; i++) {
+      overlay = overlay.with("D" + i, department("D" + i));
+    }
+    DepartmentOverlay earlier = overlay;
+    List<String> touched = new ArrayList<>();
+    for (int i = 0; i < 520; i += 40) {
+      overlay = overlay.with("D" + i, department("D" + i));
+      touched.add("D" + i);
+    }
+    overlay = overlay.with("D" + 40, earlier.get("D" + 40));
+    touched.remove("D" + 40);
+
+    Set<String> changed = new HashSet<>();
+    overlay.addChangesSince(earlier, changed);
+    assertEquals(new HashSet<>(touched), changed);
+    changed.clear();
+    earlier.addChangesSince(overlay, changed);
+    assertEquals(new HashSet<>(touched), changed);
+    changed.clear();
+    overlay.addChangesSince(overlay, changed);
+    assertEquals(Set.of(), changed);
+  }
+
+  private static Department department(String deptCode) {
+    return new Department(deptCode, new HashMap<>(), "Chair", 0);
+  }
+}
@@ -2,6 +2,8 @@ package dev.coms4156.project.individualproject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.HashMap;
@@ -167,4 +169,36 @@ public class DepartmentUnitTests {
     assertEquals(1, courses.size()); // Still only 1 course, but now it should be the new one
     assertEquals("Dr. Jane", courses.get("101").getInstructorName());
   }
+
+  /**
+   * Tests looking up courses by numeric code, including courses added after the first lookup.
+   */
+  @Test
+  public void validateCourseLookupByCode() {
+    assertEquals("Dr. John", testDepartment.getCourse(101).getInstructorName());
+    testDepartment.createCourse("202", "Dr. Alice", "Room 202", "2:00-3:15", 100);
+    testDepartment.createCourse("ENG101", "Prof. Martin", "Room 305", "9:00-10:15", 30);
+    testDepartment.createCourse("0303", "Dr. Bob", "Room 303", "4:00-5:00", 60);
+
+    assertEquals("Dr. Alice", testDepartment.getCourse(202).getInstructorName());
+    assertNull(testDepartment.getCourse(303));
+    assertNull(testDepartment.getCourse(999));
+  }
+
+  /**
+   * Tests that a copy has its own course map and index but shares the courses.
+   */
+  @Test
+  public void validateCopyIsIndependent() {
+    testDepartment.getCourse(101);
+    Department copy = testDepartment.copy();
+    Course replacement = new Course("Dr. Jane", "Room 102", "11:00-12:00", 75);
+    copy.addCourse("101", replacement);
+    copy.addPersonToMajor();
+
+    assertSame(replacement, copy.getCourse(101));
+    assertEquals("Dr. John", testDepartment.getCourse(101).getInstructorName());
+    assertEquals(200, testDepartment.getNumberOfMajors());
+    assertEquals(201, copy.getNumberOfMajors());
+  }
 }
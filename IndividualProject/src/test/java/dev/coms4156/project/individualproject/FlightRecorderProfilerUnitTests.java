@@ -0,0 +1,142 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link FlightRecorderProfiler} class.
+ */
+public class FlightRecorderProfilerUnitTests {
+
+  /** Before each test, create a profiler with no recording. */
+  @BeforeEach
+  public void setUp() {
+    profiler = new FlightRecorderProfiler();
+  }
+
+  /** After each test, stop any recording and delete its file. */
+  @AfterEach
+  public void tearDown() {
+    profiler.close();
+  }
+
+  /**
+   * Tests that nothing is reported before a recording and that durations are bounded.
+   */
+  @Test
+  public void testRejectsOutOfRangeDurations() throws Exception {
+    assertNull(profiler.getStatus());
+    assertNull(profiler.getReport());
+    assertNull(profiler.getRecordingFile());
+    assertFalse(profiler.stop());
+    assertThrows(IllegalArgumentException.class, () -> profiler.start(0));
+    assertThrows(IllegalArgumentException.class,
+            () -> profiler.start(FlightRecorderProfiler.MAX_DURATION_SECONDS + 1));
+    assertNull(profiler.getStatus());
+  }
+
+  /**
+   * Tests that requests, snapshots and lock waits are recorded and summarized, and that only
+   * one recording runs at a time.
+   */
+  @Test
+  public void testRecordsApplicationEvents() throws Exception {
+    assertEquals("running", profiler.start(60).get("state"));
+    assertThrows(IllegalStateException.class, () -> profiler.start(1));
+    assertNull(profiler.getReport());
+
+    ProfilingEvents.Request request = new ProfilingEvents.Request();
+    request.begin();
+    request.route = "GET /retrieveDept";
+    request.handler = "RouteController.retrieveDepartment";
+    request.status = 200;
+    request.commit();
+    ProfilingEvents.Snapshot snapshot = new ProfilingEvents.Snapshot();
+    snapshot.begin();
+    snapshot.operation = "save";
+    snapshot.bytes = 1024;
+    snapshot.commit();
+    StripedLocks locks = new StripedLocks(4);
+    waitForHeldLock(locks, "COMS");
+
+    assertTrue(profiler.stop());
+    assertFalse(profiler.stop());
+    Map<String, Object> status = profiler.getStatus();
+    assertEquals("finished", status.get("state"));
+    assertTrue((Long) status.get("bytes") > 0);
+    Path file = profiler.getRecordingFile();
+    assertTrue(Files.exists(file));
+
+    Map<String, Object> report = profiler.getReport();
+    Map<?, ?> requests = (Map<?, ?>) report.get("requests");
+    assertEquals(1L, ((Map<?, ?>) requests.get("GET /retrieveDept")).get("count"));
+    List<?> slowest = (List<?>) report.get("slowestRequests");
+    assertEquals("RouteController.retrieveDepartment",
+            ((Map<?, ?>) slowest.get(0)).get("handler"));
+    assertTrue(((Map<?, ?>) report.get("snapshots")).containsKey("save"));
+    Map<?, ?> lockWaits = (Map<?, ?>) report.get("lockWaits");
+    assertTrue(lockWaits.containsKey(String.valueOf(locks.stripeFor("COMS"))));
+    assertTrue(report.containsKey("hotMethods"));
+    assertTrue(report.containsKey("allocationsByClass"));
+    assertEquals(status, report.get("recording"));
+
+    profiler.close();
+    assertFalse(Files.exists(file));
+  }
+
+  /**
+   * Tests that a recording stops by itself when its time is up.
+   */
+  @Test
+  public void testStopsWhenTimeIsUp() throws Exception {
+    profiler.start(1);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!"finished".equals(profiler.getStatus().get("state"))
+            && System.nanoTime() < deadline) {
+      Thread.sleep(100);
+    }
+
+    assertEquals("finished", profiler.getStatus().get("state"));
+    assertTrue(Files.exists(profiler.getRecordingFile()));
+    assertTrue(profiler.getReport().containsKey("gc"));
+  }
+
+  /**
+   * Makes the calling thread wait for a lock that another thread holds.
+   */
+  private static void waitForHeldLock(StripedLocks locks, String key) throws Exception {
+    CountDownLatch holding = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> holder = executor.submit(() -> locks.withLock(key, () -> {
+      holding.countDown();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      return null;
+    }));
+    holding.await();
+    locks.withLock(key, () -> null);
+    holder.get();
+    executor.shutdown();
+  }
+
+  private FlightRecorderProfiler profiler;
+}
@@ -0,0 +1,154 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for the {@link GroupCommitter} class.
+ */
+public class GroupCommitterUnitTests {
+
+  private final Path journalPath = Paths.get("./test_group_commit.journal");
+  private MutationJournal journal;
+
+  /**
+   * Creates an empty journal before each test.
+   */
+  @BeforeEach
+  public void setUp() throws IOException {
+    Files.deleteIfExists(journalPath);
+    journal = new MutationJournal(journalPath);
+  }
+
+  /**
+   * Deletes the journal after each test.
+   */
+  @AfterEach
+  public void tearDown() throws IOException {
+    journal.close();
+    Files.deleteIfExists(journalPath);
+  }
+
+  /**
+   * Tests that concurrent submissions are all made durable and share batches.
+   */
+  @Test
+  public void testConcurrentSubmissionsAreBatched() throws IOException {
+    GroupCommitter committer = new GroupCommitter(journal, 64, 5_000);
+    List<CompletableFuture<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      futures.add(committer.submit(List.of(JournalRecord.addMajor("COMS"))));
+    }
+    for (CompletableFuture<Long> future : futures) {
+      future.join();
+    }
+    committer.close();
+
+    assertEquals(200, sumOfBatches(committer));
+    assertTrue(((Number) statsOf(committer, "batchSize").get("max")).longValue() > 1);
+
+    Map<String, Department> mapping = new HashMap<>();
+    mapping.put("COMS", new Department("COMS", new HashMap<>(), "Luca Carloni", 0));
+    MutationJournal reopened = new MutationJournal(journalPath);
+    assertEquals(200, reopened.replay(0, mapping));
+    assertEquals(200, mapping.get("COMS").getNumberOfMajors());
+    reopened.close();
+  }
+
+  /**
+   * Tests that submissions after the committer is closed are rejected.
+   */
+  @Test
+  public void testSubmitAfterClose() {
+    GroupCommitter committer = new GroupCommitter(journal, 8, 0);
+    committer.submit(List.of(JournalRecord.addMajor("COMS"))).join();
+    committer.close();
+
+    assertThrows(IllegalStateException.class,
+        () -> committer.submit(List.of(JournalRecord.addMajor("COMS"))));
+    assertEquals(1, journal.getLastLsn());
+  }
+
+  /**
+   * Tests that a frame that cannot be written is rejected on the caller's thread, before
+   * anything is queued, and leaves the frames around it intact.
+   */
+  @Test
+  public void testFrameThatCannotBeWrittenIsRejected() throws IOException {
+    GroupCommitter committer = new GroupCommitter(journal, 3, 1_000_000);
+    CompletableFuture<Long> first = committer.submit(List.of(JournalRecord.addMajor("COMS")));
+    assertThrows(UncheckedIOException.class, () -> committer.submit(
+            List.of(JournalRecord.changeTeacher("COMS", 1004, "x".repeat(70_000)))));
+    CompletableFuture<Long> after = committer.submit(List.of(JournalRecord.addMajor("COMS")));
+
+    assertEquals(1, first.join());
+    assertEquals(2, after.join());
+    committer.close();
+
+    Map<String, Department> mapping = new HashMap<>();
+    mapping.put("COMS", new Department("COMS", new HashMap<>(), "Luca Carloni", 0));
+    MutationJournal reopened = new MutationJournal(journalPath);
+    assertEquals(2, reopened.replay(0, mapping));
+    assertEquals(2, mapping.get("COMS").getNumberOfMajors());
+    reopened.close();
+  }
+
+  /**
+   * Tests that a failed sync fails its batch and stops the committer, even though the
+   * journal would sync again, since the earlier frames may not have reached the disk.
+   */
+  @Test
+  public void testFailedSyncStopsTheCommitter() throws IOException {
+    MutationJournal failing = Mockito.spy(journal);
+    Mockito.doThrow(new IOException("Device is full")).doNothing().when(failing).sync();
+    GroupCommitter committer = new GroupCommitter(failing, 8, 0);
+
+    CompletableFuture<Long> lost = committer.submit(List.of(JournalRecord.addMajor("COMS")));
+    CompletionException failure = assertThrows(CompletionException.class, lost::join);
+    assertEquals("Device is full", failure.getCause().getMessage());
+    assertThrows(UncheckedIOException.class,
+        () -> committer.submit(List.of(JournalRecord.addMajor("COMS"))));
+    committer.close();
+
+    assertEquals(1, failing.getLastLsn());
+    Mockito.verify(failing, Mockito.times(1)).sync();
+  }
+
+  /**
+   * Tests that invalid batching settings are rejected.
+   */
+  @Test
+  public void testInvalidSettings() {
+    assertThrows(IllegalArgumentException.class, () -> new GroupCommitter(journal, 0, 10));
+    assertThrows(IllegalArgumentException.class, () -> new GroupCommitter(journal, 1, -1));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> statsOf(GroupCommitter committer, String name) {
+    return (Map<String, Object>) committer.getStats().get(name);
+  }
+
+  private static long sumOfBatches(GroupCommitter committer) {
+    Map<String, Object> batchSize = statsOf(committer, "batchSize");
+    double mean = ((Number) batchSize.get("mean")).doubleValue();
+    long count = ((Number) batchSize.get("count")).longValue();
+    return Math.round(mean * count);
+  }
+}
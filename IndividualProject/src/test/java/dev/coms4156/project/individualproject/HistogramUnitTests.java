@@ -0,0 +1,40 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link Histogram} class.
+ */
+public class HistogramUnitTests {
+
+  /**
+   * Tests that an empty histogram reports zeros.
+   */
+  @Test
+  public void testEmptyHistogram() {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMean());
+    assertEquals(0, histogram.getPercentile(0.99));
+  }
+
+  /**
+   * Tests count, mean, max and percentile bounds for recorded values.
+   */
+  @Test
+  public void testRecordedValues() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+    assertEquals(100, histogram.getCount());
+    assertEquals(50.5, histogram.getMean());
+    assertEquals(100, histogram.getMax());
+    long p50 = histogram.getPercentile(0.50);
+    assertTrue(p50 >= 50 && p50 <= 63, "p50 was " + p50);
+    assertEquals(100, histogram.getPercentile(1.0));
+  }
+}
@@ -2,11 +2,13 @@ package dev.coms4156.project.individualproject;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.io.IOException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -90,6 +92,20 @@ public class IndividualProjectApplicationUnitTests {
     System.out.println("testResetDataFile passed");
   }
 
+  /**
+   * Tests that generateCatalog replaces the mapping with a generated catalog and saves it.
+   */
+  @Test
+  public void testGenerateCatalog() throws IOException {
+    // When
+    application.generateCatalog(3, 5, 7);
+
+    // Then
+    verify(mockDatabase).setMapping(argThat(mapping -> mapping.size() == 3
+            && mapping.get("COMS").getCourseSelection().size() == 5));
+    verify(mockDatabase).save();
+  }
+
   /**
    * Tests the onTermination method when saveData is true.
    */
@@ -0,0 +1,104 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link LazyDepartmentMap} and {@link MappedCatalog} classes.
+ */
+public class LazyDepartmentMapUnitTests {
+
+  /**
+   * Writes a small version 2 snapshot and opens it as a lazy mapping.
+   */
+  @BeforeEach
+  public void setUp() throws IOException {
+    Map<String, Department> mapping = new HashMap<>();
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    mapping.put("COMS", coms);
+    mapping.put("ECON", new Department("ECON", new HashMap<>(), "Michael Woodford", 2345));
+    mapping.put("PHYS", new Department("PHYS", new HashMap<>(), "Dmitri Basov", 43));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CatalogCodec.write(mapping, 7, Channels.newChannel(bytes));
+    byte[] data = bytes.toByteArray();
+    catalog = new MappedCatalog(ByteBuffer.wrap(data));
+    lazyMapping = new LazyDepartmentMap(catalog);
+  }
+
+  /**
+   * Tests that the catalog index is sorted and searchable.
+   */
+  @Test
+  public void testCatalogIndex() {
+    assertEquals(7, catalog.getLastLsn());
+    assertEquals(3, catalog.size());
+    assertEquals("COMS", catalog.keyAt(0));
+    assertEquals(1, catalog.indexOf("ECON"));
+    assertEquals(-1, catalog.indexOf("MATH"));
+  }
+
+  /**
+   * Tests that departments are only decoded when looked up and then reused.
+   */
+  @Test
+  public void testDepartmentsAreLoadedOnDemand() {
+    assertEquals(0, lazyMapping.loadedCount());
+    Department coms = lazyMapping.get("COMS");
+    assertEquals("Gail Kaiser", coms.getCourseSelection().get("4156").getInstructorName());
+    assertSame(coms, lazyMapping.get("COMS"));
+    assertEquals(1, lazyMapping.loadedCount());
+    assertNull(lazyMapping.get("MATH"));
+    assertTrue(lazyMapping.containsKey("PHYS"));
+    assertEquals(1, lazyMapping.loadedCount());
+  }
+
+  /**
+   * Tests that additions and removals are reflected in lookups, size and iteration.
+   */
+  @Test
+  public void testPutAndRemove() {
+    lazyMapping.put("MATH", new Department("MATH", new HashMap<>(), "Andrei Okounkov", 500));
+    lazyMapping.remove("ECON");
+
+    assertEquals(3, lazyMapping.size());
+    assertNull(lazyMapping.get("ECON"));
+    assertFalse(lazyMapping.containsKey("ECON"));
+    assertEquals("Andrei Okounkov", lazyMapping.get("MATH").getDepartmentChair());
+    Set<String> keys = new HashSet<>(lazyMapping.keySet());
+    assertEquals(Set.of("COMS", "MATH", "PHYS"), keys);
+  }
+
+  /**
+   * Tests that only idle departments that still match the snapshot are released.
+   */
+  @Test
+  public void testReleaseColdDepartments() {
+    lazyMapping.get("COMS").addPersonToMajor();
+    lazyMapping.get("ECON");
+    lazyMapping.put("MATH", new Department("MATH", new HashMap<>(), "Andrei Okounkov", 500));
+
+    assertEquals(0, lazyMapping.releaseColdDepartments(Long.MAX_VALUE / 2));
+    assertEquals(1, lazyMapping.releaseColdDepartments(0));
+    assertEquals(2, lazyMapping.loadedCount());
+    assertEquals(2701, lazyMapping.get("COMS").getNumberOfMajors());
+    assertTrue(catalog.matches(1, lazyMapping.get("ECON")));
+  }
+
+  private MappedCatalog catalog;
+  private LazyDepartmentMap lazyMapping;
+}
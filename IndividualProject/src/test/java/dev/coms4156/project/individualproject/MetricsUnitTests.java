@@ -0,0 +1,45 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link Metrics} class.
+ */
+public class MetricsUnitTests {
+
+  /**
+   * Tests that a name always refers to the same counter and histogram.
+   */
+  @Test
+  public void testMetricsAreSharedByName() {
+    Metrics.counter("test.shared.count").add(2);
+    Metrics.counter("test.shared.count").increment();
+    Metrics.histogram("test.shared.micros").record(5);
+
+    assertSame(Metrics.counter("test.shared.count"), Metrics.counter("test.shared.count"));
+    assertEquals(3L, Metrics.counter("test.shared.count").sum());
+    assertSame(Metrics.histogram("test.shared.micros"),
+            Metrics.histogram("test.shared.micros"));
+  }
+
+  /**
+   * Tests that a snapshot reports each kind of metric and the latest gauge of a name.
+   */
+  @Test
+  public void testSnapshot() {
+    Metrics.counter("test.snapshot.count").increment();
+    Metrics.histogram("test.snapshot.micros").record(100);
+    Metrics.gauge("test.snapshot.gauge", () -> 1);
+    Metrics.gauge("test.snapshot.gauge", () -> 2);
+
+    Map<String, Object> metrics = Metrics.snapshot();
+
+    assertEquals(1L, metrics.get("test.snapshot.count"));
+    assertEquals(1L, ((Map<?, ?>) metrics.get("test.snapshot.micros")).get("count"));
+    assertEquals(2, metrics.get("test.snapshot.gauge"));
+  }
+}
@@ -0,0 +1,197 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link MutationJournal} class.
+ */
+public class MutationJournalUnitTests {
+
+  private final Path journalPath = Paths.get("./test_journal.journal");
+  private MutationJournal journal;
+  private Map<String, Department> mapping;
+
+  /**
+   * Creates an empty journal and a small department mapping before each test.
+   */
+  @BeforeEach
+  public void setUp() throws IOException {
+    Files.deleteIfExists(journalPath);
+    journal = new MutationJournal(journalPath);
+    mapping = freshMapping();
+  }
+
+  /**
+   * Closes and deletes the journal after each test.
+   */
+  @AfterEach
+  public void tearDown() throws IOException {
+    journal.close();
+    Files.deleteIfExists(journalPath);
+  }
+
+  /**
+   * Tests that appended mutations are applied in order on replay.
+   */
+  @Test
+  public void testAppendAndReplay() throws IOException {
+    journal.append(JournalRecord.addMajor("COMS"));
+    journal.append(JournalRecord.changeTeacher("COMS", 1004, "Griffin Newbold"));
+    journal.append(JournalRecord.changeTeacher("COMS", 1004, "Adam Cannon"));
+    journal.close();
+
+    MutationJournal reopened = new MutationJournal(journalPath);
+    assertEquals(3, reopened.replay(0, mapping));
+    assertEquals(11, mapping.get("COMS").getNumberOfMajors());
+    assertEquals("Adam Cannon",
+            mapping.get("COMS").getCourseSelection().get("1004").getInstructorName());
+    assertEquals(3, reopened.getLastLsn());
+    reopened.close();
+  }
+
+  /**
+   * Tests that frames already contained in the snapshot are skipped.
+   */
+  @Test
+  public void testReplaySkipsFramesInSnapshot() throws IOException {
+    journal.append(JournalRecord.addMajor("COMS"));
+    journal.append(JournalRecord.addMajor("COMS"));
+    journal.close();
+
+    MutationJournal reopened = new MutationJournal(journalPath);
+    assertEquals(1, reopened.replay(1, mapping));
+    assertEquals(11, mapping.get("COMS").getNumberOfMajors());
+    reopened.close();
+  }
+
+  /**
+   * Tests that a torn final frame is ignored and cut off.
+   */
+  @Test
+  public void testReplayIgnoresTornTail() throws IOException {
+    journal.append(JournalRecord.addMajor("COMS"));
+    journal.append(JournalRecord.addMajor("COMS"));
+    journal.close();
+    long intact;
+    try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "rw")) {
+      intact = file.length();
+      file.setLength(intact - 3);
+    }
+
+    MutationJournal reopened = new MutationJournal(journalPath);
+    assertEquals(1, reopened.replay(0, mapping));
+    reopened.append(JournalRecord.addMajor("COMS"));
+    reopened.close();
+
+    Map<String, Department> again = freshMapping();
+    MutationJournal third = new MutationJournal(journalPath);
+    assertEquals(2, third.replay(0, again));
+    assertEquals(12, again.get("COMS").getNumberOfMajors());
+    third.close();
+  }
+
+  /**
+   * Tests that a group of records appended together is replayed together.
+   */
+  @Test
+  public void testGroupAppend() throws IOException {
+    journal.append(List.of(JournalRecord.removeMajor("COMS"),
+            JournalRecord.setEnrollmentCount("COMS", 1004, 400)));
+    journal.close();
+
+    MutationJournal reopened = new MutationJournal(journalPath);
+    assertEquals(2, reopened.replay(0, mapping));
+    assertEquals(9, mapping.get("COMS").getNumberOfMajors());
+    assertTrue(mapping.get("COMS").getCourseSelection().get("1004").isCourseFull());
+    reopened.close();
+  }
+
+  /**
+   * Tests that enrollments and drops are replayed against the enrolled student count.
+   */
+  @Test
+  public void testEnrollAndDropReplay() throws IOException {
+    journal.append(JournalRecord.enrollStudent("COMS", 1004));
+    journal.append(JournalRecord.enrollStudent("COMS", 1004));
+    journal.append(JournalRecord.dropStudent("COMS", 1004));
+    journal.close();
+
+    MutationJournal reopened = new MutationJournal(journalPath);
+    assertEquals(3, reopened.replay(0, mapping));
+    assertEquals(1, mapping.get("COMS").getCourseSelection().get("1004")
+            .getEnrolledStudentCount());
+    reopened.close();
+  }
+
+  /**
+   * Tests that a checkpoint empties the journal and reports the last LSN to the writer.
+   */
+  @Test
+  public void testCheckpointTruncates() throws IOException {
+    journal.append(JournalRecord.addMajor("COMS"));
+    long[] written = new long[1];
+    journal.checkpoint(lastLsn -> written[0] = lastLsn);
+
+    assertEquals(1, written[0]);
+    assertEquals(0, Files.size(journalPath));
+    assertEquals(2, journal.append(JournalRecord.addMajor("COMS")));
+  }
+
+  /**
+   * Tests that a frame with an intact checksum that cannot be decoded stops the replay with
+   * an error, without applying any of its records, and that the journal then refuses to be
+   * truncated by a checkpoint.
+   */
+  @Test
+  public void testUndecodableFrameFailsReplay() throws IOException {
+    journal.append(JournalRecord.addMajor("COMS"));
+    journal.append(List.of(JournalRecord.addMajor("COMS"), JournalRecord.addMajor("COMS")));
+    journal.close();
+    long length;
+    try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "rw")) {
+      length = file.length();
+      long second = 8 + file.readInt();
+      file.seek(second);
+      byte[] body = new byte[file.readInt()];
+      // The second record's operation code follows the LSN, the count and the first record.
+      file.seek(second + 8);
+      file.readFully(body);
+      body[12 + 7] = 99;
+      CRC32 crc = new CRC32();
+      crc.update(body);
+      file.seek(second + 4);
+      file.writeInt((int) crc.getValue());
+      file.write(body);
+    }
+
+    MutationJournal reopened = new MutationJournal(journalPath);
+    assertThrows(IOException.class, () -> reopened.replay(0, mapping));
+    assertEquals(11, mapping.get("COMS").getNumberOfMajors());
+    assertThrows(IOException.class, () -> reopened.checkpoint(lastLsn -> { }));
+    assertEquals(length, Files.size(journalPath));
+    reopened.close();
+  }
+
+  private static Map<String, Department> freshMapping() {
+    Map<String, Department> result = new HashMap<>();
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 10);
+    coms.createCourse("1004", "Adam Cannon", "417 IAB", "11:40-12:55", 400);
+    result.put("COMS", coms);
+    return result;
+  }
+}
@@ -1,21 +1,37 @@
 package dev.coms4156.project.individualproject;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.jfr.consumer.RecordingStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
 
 /**
  * Unit tests for the {@link MyFileDatabase} class to validate its functionality.
@@ -56,6 +72,7 @@ public class MyFileDatabaseUnitTests {
     if (file.exists()) {
       file.delete();
     }
+    new File(filePath + ".journal").delete();
   }
 
   /**
@@ -184,24 +201,535 @@ public class MyFileDatabaseUnitTests {
   }
 
   /**
-   * Tests that {@code getDepartmentMapping} returns a copy of the mapping.
-   * Verifies that modifications to the returned map do not affect the original mapping.
+   * Tests that {@code getDepartmentMapping} returns a read-only view of the mapping.
+   * Verifies that modifications through the returned map are rejected and that the same
+   * view is returned on every call.
    */
   @Test
-  public void testGetDepartmentMappingReturnsCopy() {
+  public void testGetDepartmentMappingIsReadOnly() {
     Map<String, Department> mapping = myFileDatabase.getDepartmentMapping();
     assertNotNull(mapping);
 
-    // Modify the returned map
-    mapping.put("NewDept", new Department("NewDept",
-            new HashMap<>(), "Dr. New", 10));
+    // Attempt to modify the returned map
+    assertThrows(UnsupportedOperationException.class, () -> mapping.put("NewDept",
+            new Department("NewDept", new HashMap<>(), "Dr. New", 10)));
 
     // Get the mapping again and verify that the original mapping is unchanged
     Map<String, Department> originalMapping = myFileDatabase.getDepartmentMapping();
+    assertSame(mapping, originalMapping, "Reads should not copy the mapping.");
     assertEquals(2, originalMapping.size(),
             "Original mapping should not be affected by external modifications.");
     assertFalse(originalMapping.containsKey("NewDept"),
             "Original mapping should not contain 'NewDept'.");
   }
 
+  /**
+   * Tests that {@code setMapping} publishes a new view that does not track the argument.
+   */
+  @Test
+  public void testSetMappingPublishesNewView() {
+    Map<String, Department> mapping = new HashMap<>();
+    mapping.put("MATH", new Department("MATH", new HashMap<>(), "Andrei Okounkov", 500));
+    Map<String, Department> before = myFileDatabase.getDepartmentMapping();
+    myFileDatabase.setMapping(mapping);
+    mapping.put("PHYS", new Department("PHYS", new HashMap<>(), "Dmitri Basov", 43));
+
+    Map<String, Department> after = myFileDatabase.getDepartmentMapping();
+    assertEquals(2, before.size());
+    assertEquals(1, after.size());
+    assertTrue(after.containsKey("MATH"));
+  }
+
+  /**
+   * Tests that mutations logged after the last save are replayed when the database is loaded.
+   */
+  @Test
+  public void testJournaledMutationsAreReplayedOnLoad() {
+    Map<String, Department> mapping = new HashMap<>();
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    mapping.put("COMS", coms);
+    myFileDatabase.setMapping(mapping);
+    myFileDatabase.saveContentsToFile();
+
+    assertTrue(myFileDatabase.applyMutation(JournalRecord.addMajor("COMS")));
+    assertTrue(myFileDatabase.applyMutation(
+            JournalRecord.changeLocation("COMS", 4156, "417 IAB")));
+    assertTrue(myFileDatabase.applyMutation(
+            JournalRecord.setEnrollmentCount("COMS", 4156, 120)));
+
+    MyFileDatabase reloaded = new MyFileDatabase(0, filePath);
+    Department reloadedComs = reloaded.getDepartmentMapping().get("COMS");
+    assertEquals(2701, reloadedComs.getNumberOfMajors());
+    Course course = reloadedComs.getCourseSelection().get("4156");
+    assertEquals("417 IAB", course.getCourseLocation());
+    assertTrue(course.isCourseFull());
+  }
+
+  /**
+   * Tests that saving the database empties the journal so its mutations are not applied twice.
+   */
+  @Test
+  public void testSaveTruncatesJournal() {
+    assertTrue(myFileDatabase.applyMutation(JournalRecord.addMajor("CS")));
+    myFileDatabase.saveContentsToFile();
+
+    assertEquals(0, new File(filePath + ".journal").length());
+    MyFileDatabase reloaded = new MyFileDatabase(0, filePath);
+    assertEquals(101, reloaded.getDepartmentMapping().get("CS").getNumberOfMajors());
+  }
+
+  /**
+   * Tests that setting up a new catalog empties the journal of the earlier one, whose
+   * mutations would otherwise be replayed onto it at the next load.
+   */
+  @Test
+  public void testSetupDiscardsEarlierJournal() {
+    assertTrue(myFileDatabase.applyMutation(JournalRecord.addMajor("CS")));
+    myFileDatabase.close();
+
+    new MyFileDatabase(1, filePath).close();
+    assertEquals(0, new File(filePath + ".journal").length());
+    MyFileDatabase reloaded = new MyFileDatabase(0, filePath);
+    assertTrue(reloaded.getDepartmentMapping().isEmpty());
+    assertEquals(0L, reloaded.getJournalStats().get("lastLsn"));
+    reloaded.close();
+  }
+
+  /**
+   * Tests that a data file written with Java serialization is still loaded and is rewritten
+   * in the binary catalog format.
+   *
+   * @throws IOException if an I/O error occurs while writing the legacy file.
+   */
+  @Test
+  public void testLegacySnapshotIsMigrated() throws IOException {
+    Map<String, Department> legacyMapping = new HashMap<>();
+    legacyMapping.put("IEOR", new Department("IEOR", new HashMap<>(), "Jay Sethuraman", 67));
+    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filePath))) {
+      out.writeObject(legacyMapping);
+    }
+
+    MyFileDatabase migrated = new MyFileDatabase(0, filePath);
+    assertEquals("Jay Sethuraman",
+            migrated.getDepartmentMapping().get("IEOR").getDepartmentChair());
+    try (FileInputStream in = new FileInputStream(filePath)) {
+      assertTrue(CatalogCodec.hasMagic(in.readNBytes(4)));
+    }
+    MyFileDatabase reloaded = new MyFileDatabase(0, filePath);
+    assertEquals(67, reloaded.getDepartmentMapping().get("IEOR").getNumberOfMajors());
+  }
+
+  /**
+   * Tests that a mutation publishes a new version and leaves earlier versions untouched.
+   */
+  @Test
+  public void testMutationPublishesNewVersion() {
+    Map<String, Department> mapping = new HashMap<>();
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    mapping.put("COMS", coms);
+    myFileDatabase.setMapping(mapping);
+
+    Map<String, Department> pinned = myFileDatabase.getDepartmentMapping();
+    assertTrue(myFileDatabase.applyMutation(JournalRecord.changeTime("COMS", 4156, "1:10-2:25")));
+    assertTrue(myFileDatabase.applyMutation(JournalRecord.enrollStudent("COMS", 4156)));
+
+    Course before = pinned.get("COMS").getCourseSelection().get("4156");
+    Course after = myFileDatabase.getDepartmentMapping().get("COMS").getCourseSelection()
+            .get("4156");
+    assertEquals("10:10-11:25", before.getCourseTimeSlot());
+    assertEquals(0, before.getEnrolledStudentCount());
+    assertEquals("1:10-2:25", after.getCourseTimeSlot());
+    assertEquals(1, after.getEnrolledStudentCount());
+  }
+
+  /**
+   * Tests that an asynchronous mutation is published once it is durable, that a mutation
+   * building on it does not wait for that, and that its future reports whether it took
+   * effect.
+   *
+   * @throws Exception if the future fails.
+   */
+  @Test
+  public void testAsyncMutation() throws Exception {
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 1);
+    myFileDatabase.setMapping(Map.of("COMS", coms));
+    myFileDatabase.saveContentsToFile();
+
+    CompletableFuture<Boolean> enrolled =
+            myFileDatabase.applyMutationAsync(JournalRecord.enrollStudent("COMS", 4156));
+    CompletableFuture<Boolean> full =
+            myFileDatabase.applyMutationAsync(JournalRecord.enrollStudent("COMS", 4156));
+    assertTrue(full.isDone());
+    assertFalse(full.get());
+    assertTrue(enrolled.get(10, TimeUnit.SECONDS));
+    assertEquals(1, myFileDatabase.getDepartmentMapping().get("COMS").getCourse(4156)
+            .getEnrolledStudentCount());
+
+    MyFileDatabase reloaded = new MyFileDatabase(0, filePath);
+    assertEquals(1, reloaded.getDepartmentMapping().get("COMS").getCourse(4156)
+            .getEnrolledStudentCount());
+  }
+
+  /**
+   * Tests the catalog statistics and the metrics recorded for snapshots, decoding and
+   * copies.
+   */
+  @Test
+  public void testCatalogStatsAndMetrics() {
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    coms.createCourse("3134", "Brian Borowski", "301 URIS", "4:10-5:25", 50);
+    coms.getCourse(4156).setEnrolledStudentCount(100);
+    coms.getCourse(3134).setEnrolledStudentCount(10);
+    myFileDatabase.setMapping(Map.of("COMS", coms));
+    long saves = Metrics.histogram("catalog.snapshot.save.micros").getCount();
+    myFileDatabase.saveContentsToFile();
+    assertEquals(saves + 1, Metrics.histogram("catalog.snapshot.save.micros").getCount());
+    assertTrue(Metrics.histogram("catalog.snapshot.save.bytes").getMax() > 0);
+
+    long loads = Metrics.histogram("catalog.snapshot.load.bytes").getCount();
+    MyFileDatabase reloaded = new MyFileDatabase(0, filePath);
+    assertEquals(loads + 1, Metrics.histogram("catalog.snapshot.load.bytes").getCount());
+    long decodes = Metrics.counter("catalog.department.decodes").sum();
+    Map<String, Object> stats = reloaded.getCatalogStats();
+    assertTrue(Metrics.counter("catalog.department.decodes").sum() > decodes);
+    assertEquals(1, stats.get("departments"));
+    assertEquals(2L, stats.get("courses"));
+    assertEquals(170L, stats.get("capacity"));
+    assertEquals(110L, stats.get("enrolled"));
+    assertEquals(0, stats.get("loadedDepartments"));
+
+    long copies = Metrics.counter("catalog.department.copies").sum();
+    assertTrue(reloaded.applyMutation(JournalRecord.enrollStudent("COMS", 3134)));
+    assertEquals(copies + 1, Metrics.counter("catalog.department.copies").sum());
+    // Statistics are reused for a while after the catalog changes.
+    assertSame(stats, reloaded.getCatalogStats());
+    reloaded.close();
+  }
+
+  /**
+   * Tests that mutations of missing departments or courses, and enrollments that do not fit,
+   * are rejected without being journaled.
+   */
+  @Test
+  public void testRejectedMutationsAreNotJournaled() {
+    Map<String, Department> mapping = new HashMap<>();
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 0);
+    mapping.put("COMS", coms);
+    myFileDatabase.setMapping(mapping);
+
+    assertFalse(myFileDatabase.applyMutation(JournalRecord.addMajor("ECON")));
+    assertFalse(myFileDatabase.applyMutation(JournalRecord.dropStudent("COMS", 1004)));
+    assertFalse(myFileDatabase.applyMutation(JournalRecord.enrollStudent("COMS", 4156)));
+    assertEquals(0, new File(filePath + ".journal").length());
+  }
+
+  /**
+   * Tests that mutations find their department whatever case its code is given in, and are
+   * journaled under the code the catalog uses.
+   */
+  @Test
+  public void testDepartmentCodesIgnoreCase() {
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    myFileDatabase.setMapping(Map.of("COMS", coms));
+    myFileDatabase.saveContentsToFile();
+
+    assertTrue(myFileDatabase.applyMutation(JournalRecord.enrollStudent("coms", 4156)));
+    assertTrue(myFileDatabase.applyMutation(JournalRecord.addMajor("Coms")));
+    assertEquals(-1, myFileDatabase.applyBatch(List.of(
+            JournalRecord.enrollStudent("cOMS", 4156),
+            JournalRecord.changeTeacher("coms", 4156, "Brian Borowski"))));
+
+    MyFileDatabase reloaded = new MyFileDatabase(0, filePath);
+    Department reloadedComs = reloaded.getDepartmentMapping().get("COMS");
+    assertEquals(2, reloadedComs.getCourse(4156).getEnrolledStudentCount());
+    assertEquals("Brian Borowski", reloadedComs.getCourse(4156).getInstructorName());
+    assertEquals(2701, reloadedComs.getNumberOfMajors());
+    reloaded.close();
+  }
+
+  /**
+   * Tests that a batch either applies all of its mutations or, when one of them fails,
+   * none of them.
+   */
+  @Test
+  public void testBatchIsAllOrNothing() {
+    Map<String, Department> mapping = new HashMap<>();
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 1);
+    mapping.put("COMS", coms);
+    mapping.put("ECON", new Department("ECON", new HashMap<>(), "Michael Woodford", 2345));
+    myFileDatabase.setMapping(mapping);
+    Map<String, Department> before = myFileDatabase.getDepartmentMapping();
+
+    assertEquals(2, myFileDatabase.applyBatch(List.of(
+            JournalRecord.changeTeacher("COMS", 4156, "Adam Cannon"),
+            JournalRecord.enrollStudent("COMS", 4156),
+            JournalRecord.enrollStudent("COMS", 4156))));
+    assertSame(before, myFileDatabase.getDepartmentMapping());
+    assertEquals(0, new File(filePath + ".journal").length());
+
+    assertEquals(-1, myFileDatabase.applyBatch(List.of(
+            JournalRecord.changeTeacher("COMS", 4156, "Adam Cannon"),
+            JournalRecord.enrollStudent("COMS", 4156),
+            JournalRecord.addMajor("ECON"))));
+    Map<String, Department> after = myFileDatabase.getDepartmentMapping();
+    Course course = after.get("COMS").getCourse(4156);
+    assertEquals("Adam Cannon", course.getInstructorName());
+    assertEquals(1, course.getEnrolledStudentCount());
+    assertEquals(2346, after.get("ECON").getNumberOfMajors());
+    assertEquals("Gail Kaiser", before.get("COMS").getCourse(4156).getInstructorName());
+  }
+
+  /**
+   * Tests that a batch is journaled as one unit and replayed on load.
+   */
+  @Test
+  public void testBatchIsReplayedOnLoad() {
+    Map<String, Department> mapping = new HashMap<>();
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    coms.createCourse("1004", "Adam Cannon", "417 IAB", "11:40-12:55", 400);
+    mapping.put("COMS", coms);
+    myFileDatabase.setMapping(mapping);
+    myFileDatabase.saveContentsToFile();
+    long lsnBefore = (Long) myFileDatabase.getJournalStats().get("lastLsn");
+
+    assertEquals(-1, myFileDatabase.applyBatch(List.of(
+            JournalRecord.setEnrollmentCount("COMS", 4156, 100),
+            JournalRecord.changeLocation("COMS", 1004, "309 HAV"),
+            JournalRecord.setEnrollmentCount("COMS", 1004, 350))));
+    assertEquals(lsnBefore + 1, myFileDatabase.getJournalStats().get("lastLsn"));
+
+    Department reloaded = new MyFileDatabase(0, filePath).getDepartmentMapping().get("COMS");
+    assertEquals(100, reloaded.getCourse(4156).getEnrolledStudentCount());
+    assertEquals("309 HAV", reloaded.getCourse(1004).getCourseLocation());
+    assertEquals(350, reloaded.getCourse(1004).getEnrolledStudentCount());
+  }
+
+  /**
+   * Tests that thousands of mutations can wait for the journal at the same time on virtual
+   * threads, and that none of them pins its carrier thread while it waits. Runs on Java 21
+   * and later; the virtual thread API is reached reflectively so the tests still compile
+   * for Java 17.
+   *
+   * @throws Exception if the mutations cannot be run.
+   */
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_21)
+  public void testBlockedMutationsOnVirtualThreadsDoNotPin() throws Exception {
+    int mutations = 5000;
+    Department cs = new Department("CS", new HashMap<>(), "Dr. Smith", 100);
+    cs.createCourse("1004", "Adam Cannon", "417 IAB", "11:40-12:55", mutations);
+    myFileDatabase.setMapping(Map.of("CS", cs));
+    myFileDatabase.saveContentsToFile();
+    myFileDatabase.configureGroupCommit(mutations, 100_000);
+    AtomicInteger pinned = new AtomicInteger();
+
+    try (RecordingStream events = new RecordingStream()) {
+      events.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+      events.onEvent("jdk.VirtualThreadPinned", event -> pinned.incrementAndGet());
+      events.startAsync();
+      ExecutorService executor = (ExecutorService) Executors.class
+              .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      List<Future<Boolean>> results = new ArrayList<>(mutations);
+      for (int i = 0; i < mutations; i++) {
+        results.add(executor.submit(() ->
+                myFileDatabase.applyMutation(JournalRecord.enrollStudent("CS", 1004))));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get(30, TimeUnit.SECONDS));
+      }
+      executor.shutdown();
+      // RecordingStream.stop() flushes pending events; it was added in Java 20.
+      RecordingStream.class.getMethod("stop").invoke(events);
+    }
+
+    assertEquals(mutations, myFileDatabase.getDepartmentMapping().get("CS").getCourse(1004)
+            .getEnrolledStudentCount());
+    assertEquals(0, pinned.get());
+    Map<?, ?> batchSizes = (Map<?, ?>) myFileDatabase.getJournalStats().get("batchSize");
+    assertTrue((Long) batchSizes.get("max") > 200,
+            "more mutations waited on one fsync than a default Tomcat pool has threads");
+  }
+
+  /**
+   * Tests that course searches are built on first use over a memory-mapped catalog and then
+   * follow single mutations, batches, merges and replacements of the catalog.
+   */
+  @Test
+  public void testFindCoursesFollowsChanges() {
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    coms.createCourse("3134", "Brian Borowski", "301 URIS", "4:10-5:25", 50);
+    Department econ = new Department("ECON", new HashMap<>(), "Michael Woodford", 2345);
+    econ.createCourse("1105", "Waseem Noor", "309 HAV", "10:10-11:25", 210);
+    myFileDatabase.setMapping(Map.of("COMS", coms, "ECON", econ));
+    myFileDatabase.saveContentsToFile();
+    MyFileDatabase reloaded = new MyFileDatabase(0, filePath);
+    assertNull(reloaded.getCourseIndexStats());
+
+    // Building the index decodes every department without keeping it; only departments
+    // holding matches are loaded.
+    assertEquals(List.of("COMS 3134"),
+            courseNames(reloaded.findCourses(CourseIndex.Field.TIME, "4:10-5:25")));
+    assertEquals(1, reloaded.getCatalogStats().get("loadedDepartments"));
+    assertEquals(List.of("COMS 4156", "ECON 1105"),
+            courseNames(reloaded.findCourses(CourseIndex.Field.TIME, "10:10-11:25")));
+    assertTrue((Boolean) reloaded.getCourseIndexStats().get("complete"));
+
+    assertTrue(reloaded.applyMutation(JournalRecord.changeTeacher("COMS", 3134, "Gail Kaiser")));
+    assertEquals(List.of("COMS 3134", "COMS 4156"),
+            courseNames(reloaded.findCourses(CourseIndex.Field.INSTRUCTOR, "gail kaiser")));
+    assertTrue(reloaded.findCourses(CourseIndex.Field.INSTRUCTOR, "Brian Borowski").isEmpty());
+    assertEquals(List.of(new CourseIndex.Suggestion("Gail Kaiser", 2, 0)),
+            reloaded.suggestValues(CourseIndex.Field.INSTRUCTOR, "kai", 10));
+    assertTrue(reloaded.suggestValues(CourseIndex.Field.INSTRUCTOR, "borow", 10).isEmpty());
+
+    assertEquals(-1, reloaded.applyBatch(List.of(
+            JournalRecord.changeLocation("COMS", 4156, "417 IAB"),
+            JournalRecord.changeLocation("ECON", 1105, "417 IAB"),
+            JournalRecord.changeTime("ECON", 1105, "1:10-2:25"))));
+    assertEquals(List.of("COMS 4156", "ECON 1105"),
+            courseNames(reloaded.findCourses(CourseIndex.Field.LOCATION, "417 IAB")));
+    assertEquals(List.of("COMS 4156"),
+            courseNames(reloaded.findCourses(CourseIndex.Field.TIME, "10:10-11:25")));
+
+    Department newEcon = new Department("ECON", new HashMap<>(), "Michael Woodford", 2345);
+    newEcon.createCourse("4415", "Michael Woodford", "417 IAB", "1:10-2:25", 30);
+    reloaded.mergeMapping(Map.of("ECON", newEcon));
+    assertEquals(List.of(new CourseIndex.Suggestion("Michael Woodford", 1, 1)),
+            reloaded.suggestValues(CourseIndex.Field.INSTRUCTOR, "woodfrod", 10));
+    assertEquals(List.of("ECON 4415"),
+            courseNames(reloaded.findCourses(CourseIndex.Field.TIME, "1:10-2:25")));
+
+    reloaded.setMapping(Map.of("ECON", econ));
+    assertNull(reloaded.getCourseIndexStats());
+    assertEquals(List.of("ECON 1105"),
+            courseNames(reloaded.findCourses(CourseIndex.Field.INSTRUCTOR, "Waseem Noor")));
+    reloaded.close();
+  }
+
+  /**
+   * Tests that changes of a course's time or location are rejected, with nothing applied,
+   * when another course is held in the same room at an overlapping time, and that conflicts
+   * in the loaded catalog are reported.
+   */
+  @Test
+  public void testTimeAndLocationChangesAreCheckedForConflicts() {
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    coms.createCourse("3134", "Brian Borowski", "301 URIS", "1:10-2:25", 50);
+    Department econ = new Department("ECON", new HashMap<>(), "Michael Woodford", 2345);
+    econ.createCourse("1105", "Waseem Noor", "501 NWC", "1:10-2:25", 210);
+    myFileDatabase.setMapping(Map.of("COMS", coms, "ECON", econ));
+    assertNull(myFileDatabase.getRoomScheduleStats());
+
+    ScheduleConflictException e = assertThrows(ScheduleConflictException.class,
+            () -> myFileDatabase.applyMutation(JournalRecord.changeTime("ECON", 1105,
+                    "11:00-12:15")));
+    assertEquals("COMS", e.getConflicting().deptCode());
+    assertEquals("1:10-2:25", myFileDatabase.getDepartmentMapping().get("ECON").getCourse(1105)
+            .getCourseTimeSlot());
+    assertEquals(3L, myFileDatabase.getRoomScheduleStats().get("bookings"));
+    assertThrows(ScheduleConflictException.class, () -> myFileDatabase.applyMutation(
+            JournalRecord.changeLocation("COMS", 3134, " 501 nwc")));
+    assertTrue(myFileDatabase.applyMutation(JournalRecord.changeTime("ECON", 1105,
+            "11:25-12:40")));
+
+    // Swapping two courses in one batch is allowed; a batch that ends in a conflict is not
+    // applied at all.
+    assertEquals(-1, myFileDatabase.applyBatch(List.of(
+            JournalRecord.changeTime("COMS", 4156, "11:25-12:40"),
+            JournalRecord.changeTime("ECON", 1105, "10:10-11:25"))));
+    assertThrows(ScheduleConflictException.class, () -> myFileDatabase.applyBatch(List.of(
+            JournalRecord.enrollStudent("COMS", 3134),
+            JournalRecord.changeLocation("COMS", 3134, "501 NWC"),
+            JournalRecord.changeTime("COMS", 3134, "12:00-1:00"))));
+    assertEquals(0, myFileDatabase.getDepartmentMapping().get("COMS").getCourse(3134)
+            .getEnrolledStudentCount());
+    assertEquals(0, myFileDatabase.findScheduleConflicts(10).total());
+
+    Department newEcon = new Department("ECON", new HashMap<>(), "Michael Woodford", 2345);
+    newEcon.createCourse("4415", "Michael Woodford", "301 URIS", "2:00-3:15", 30);
+    myFileDatabase.mergeMapping(Map.of("ECON", newEcon));
+    RoomSchedule.Report report = myFileDatabase.findScheduleConflicts(10);
+    assertEquals(1, report.total());
+    assertEquals(List.of("COMS 3134", "ECON 4415"), List.of(
+            report.conflicts().get(0).first().deptCode() + " "
+                    + report.conflicts().get(0).first().courseId(),
+            report.conflicts().get(0).second().deptCode() + " "
+                    + report.conflicts().get(0).second().courseId()));
+
+    myFileDatabase.setMapping(Map.of("COMS", coms));
+    assertNull(myFileDatabase.getRoomScheduleStats());
+  }
+
+  /**
+   * Tests that a mutation the journal cannot hold is rejected before anyone sees it: the
+   * catalog, the course index and the room schedule are left as they were.
+   */
+  @Test
+  public void testMutationsThatCannotBeJournaledAreNotPublished() throws Exception {
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    Department econ = new Department("ECON", new HashMap<>(), "Michael Woodford", 2345);
+    econ.createCourse("1105", "Waseem Noor", "309 HAV", "10:10-11:25", 210);
+    myFileDatabase.setMapping(Map.of("COMS", coms, "ECON", econ));
+    myFileDatabase.saveContentsToFile();
+    myFileDatabase.findScheduleConflicts(10);
+    myFileDatabase.findCourses(CourseIndex.Field.LOCATION, "501 NWC");
+    String tooLong = "x".repeat(70_000);
+    List<Object> journalPosition = journalPosition();
+
+    assertThrows(UncheckedIOException.class, () -> myFileDatabase.applyMutation(
+            JournalRecord.changeLocation("COMS", 4156, tooLong)));
+    assertEquals(journalPosition, journalPosition());
+    assertThrows(UncheckedIOException.class, () -> myFileDatabase.applyBatch(List.of(
+            JournalRecord.enrollStudent("COMS", 4156),
+            JournalRecord.changeTeacher("COMS", 4156, tooLong))));
+    assertEquals(journalPosition, journalPosition());
+    CompletableFuture<Boolean> async = myFileDatabase.applyMutationAsync(
+            JournalRecord.changeLocation("COMS", 4156, tooLong));
+    assertTrue(async.isCompletedExceptionally());
+    assertEquals(journalPosition, journalPosition());
+    Course course = myFileDatabase.getDepartmentMapping().get("COMS").getCourse(4156);
+    assertEquals("501 NWC", course.getCourseLocation());
+    assertEquals("Gail Kaiser", course.getInstructorName());
+    assertEquals(0, course.getEnrolledStudentCount());
+    assertEquals(List.of("COMS 4156"),
+            courseNames(myFileDatabase.findCourses(CourseIndex.Field.LOCATION, "501 NWC")));
+    assertTrue(myFileDatabase.findCourses(CourseIndex.Field.LOCATION, tooLong).isEmpty());
+    assertEquals(2L, myFileDatabase.getRoomScheduleStats().get("bookings"));
+    assertThrows(ScheduleConflictException.class, () -> myFileDatabase.applyMutation(
+            JournalRecord.changeLocation("ECON", 1105, "501 NWC")));
+
+    assertTrue(myFileDatabase.applyMutation(JournalRecord.changeLocation("COMS", 4156,
+            "417 IAB")));
+    myFileDatabase.close();
+    MyFileDatabase reloaded = new MyFileDatabase(0, filePath);
+    assertEquals("417 IAB", reloaded.getDepartmentMapping().get("COMS").getCourse(4156)
+            .getCourseLocation());
+    assertEquals(0, reloaded.getDepartmentMapping().get("COMS").getCourse(4156)
+            .getEnrolledStudentCount());
+    reloaded.close();
+  }
+
+  /**
+   * Gets the catalog version and the last journaled LSN, which a rejected mutation leaves
+   * as they were.
+   */
+  private List<Object> journalPosition() {
+    Map<String, Object> journalStats = myFileDatabase.getJournalStats();
+    return List.of(journalStats.get("catalogVersion"), journalStats.get("lastLsn"));
+  }
+
+  private static List<String> courseNames(List<CourseIndex.Match> matches) {
+    return matches.stream().map(match -> match.deptCode() + " " + match.courseId()).toList();
+  }
 }
@@ -0,0 +1,67 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link RenderCache} class.
+ */
+public class RenderCacheUnitTests {
+
+  /**
+   * Tests that a rendering is reused for the same object and recorded as a hit.
+   */
+  @Test
+  public void testRepeatedRenderHits() {
+    RenderCache cache = new RenderCache(16);
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+
+    String first = cache.render(coms);
+    String second = cache.render(coms);
+
+    assertSame(first, second);
+    assertEquals(coms.toString(), first);
+    Map<String, Object> stats = cache.getStats();
+    assertEquals(1L, stats.get("hits"));
+    assertEquals(1L, stats.get("misses"));
+    assertEquals(0.5, stats.get("hitRate"));
+  }
+
+  /**
+   * Tests that an updated copy is rendered afresh while the old version keeps its rendering.
+   */
+  @Test
+  public void testCopiesAreRenderedAfresh() {
+    // Large enough that neither course can evict the other, whichever segments they hash to.
+    RenderCache cache = new RenderCache(1024);
+    Course course = new Course("Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    String before = cache.render(course);
+    Course updated = course.copy();
+    updated.reassignLocation("417 IAB");
+
+    assertTrue(cache.render(updated).contains("417 IAB"));
+    assertSame(before, cache.render(course));
+  }
+
+  /**
+   * Tests that the cache stays within its size limit.
+   */
+  @Test
+  public void testSizeIsBounded() {
+    RenderCache cache = new RenderCache(32);
+    for (int i = 0; i < 1000; i++) {
+      cache.render(new Course("Instructor " + i, "Room", "10:00-11:00", 10));
+    }
+    Map<String, Object> stats = cache.getStats();
+    assertTrue((Integer) stats.get("size") <= 32);
+    assertEquals(1000L - (Integer) stats.get("size"), stats.get("evictions"));
+    assertThrows(IllegalArgumentException.class, () -> new RenderCache(0));
+  }
+}
@@ -0,0 +1,107 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Unit tests for the {@link RequestMetricsFilter} class.
+ */
+public class RequestMetricsFilterUnitTests {
+
+  private RequestMetricsFilter filter;
+
+  /**
+   * Creates a filter with no recorded requests.
+   */
+  @BeforeEach
+  public void setUp() {
+    filter = new RequestMetricsFilter();
+  }
+
+  /**
+   * Tests that requests are recorded by route pattern with their error counts.
+   *
+   * @throws Exception if the filter fails.
+   */
+  @Test
+  public void testRecordsRequestsByRoute() throws Exception {
+    handle("GET", "/retrieveDept", 200);
+    handle("GET", "/retrieveDept", 404);
+    handle("PATCH", "/enrollStudentInCourse", 500);
+    handle("GET", null, 404);
+
+    Map<String, Object> stats = filter.getStats();
+    assertEquals(3, stats.size());
+    Map<?, ?> reads = (Map<?, ?>) stats.get("GET /retrieveDept");
+    assertEquals(2L, reads.get("count"));
+    assertEquals(1L, reads.get("clientErrors"));
+    assertEquals(0L, reads.get("serverErrors"));
+    assertEquals(1L, ((Map<?, ?>) stats.get("PATCH /enrollStudentInCourse"))
+            .get("serverErrors"));
+    assertEquals(1L, ((Map<?, ?>) stats.get("GET " + RequestMetricsFilter.UNMATCHED))
+            .get("count"));
+    assertEquals(stats, Metrics.snapshot().get(RequestMetricsFilter.METRIC_NAME));
+  }
+
+  /**
+   * Tests that a request that throws is recorded as a server error.
+   */
+  @Test
+  public void testRecordsFailures() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/retrieveCourse");
+    assertThrows(ServletException.class, () -> filter.doFilter(request,
+            new MockHttpServletResponse(), (req, res) -> {
+              req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                      "/retrieveCourse");
+              throw new ServletException("boom");
+            }));
+
+    assertEquals(1L, ((Map<?, ?>) filter.getStats().get("GET /retrieveCourse"))
+            .get("serverErrors"));
+  }
+
+  /**
+   * Tests that an asynchronous request is recorded only once its response is complete.
+   *
+   * @throws Exception if the filter fails.
+   */
+  @Test
+  public void testRecordsAsyncRequestsOnCompletion() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/changeCourseTime");
+    request.setAsyncSupported(true);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, (req, res) -> {
+      req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/changeCourseTime");
+      req.startAsync();
+    });
+    assertFalse(filter.getStats().containsKey("PATCH /changeCourseTime"));
+
+    response.setStatus(404);
+    request.getAsyncContext().complete();
+
+    Map<?, ?> stats = (Map<?, ?>) filter.getStats().get("PATCH /changeCourseTime");
+    assertEquals(1L, stats.get("count"));
+    assertEquals(1L, stats.get("clientErrors"));
+  }
+
+  private void handle(String method, String pattern, int status)
+          throws ServletException, IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, "/any");
+    filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+      if (pattern != null) {
+        req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+      }
+      ((MockHttpServletResponse) res).setStatus(status);
+    });
+  }
+}
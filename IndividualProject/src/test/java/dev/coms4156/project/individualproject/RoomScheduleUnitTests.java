@@ -0,0 +1,175 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link RoomSchedule} class.
+ */
+public class RoomScheduleUnitTests {
+
+  /** Before each test, build the schedule of a small catalog. */
+  @BeforeEach
+  public void setUp() {
+    Department coms = new Department("COMS", new HashMap<>(), "Luca Carloni", 2700);
+    coms.createCourse("4156", "Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    coms.createCourse("1004", "Adam Cannon", "417 IAB", "11:40-12:55", 400);
+    coms.createCourse("3134", "Brian Borowski", "301 URIS", "4:10-5:25", 50);
+    coms.createCourse("3827", "Daniel Rubenstein", "417 iab ", "10:10-11:50", 300);
+    coms.createCourse("4995", "Staff", "501 NWC", "TBA", 30);
+    Department econ = new Department("ECON", new HashMap<>(), "Michael Woodford", 2345);
+    econ.createCourse("1105", "Waseem Noor", "301 URIS", "11:25-12:40", 210);
+    catalog = new HashMap<>();
+    catalog.put("COMS", coms);
+    catalog.put("ECON", econ);
+    schedule = RoomSchedule.build(catalog);
+  }
+
+  /**
+   * Tests that time slots with and without am or pm are read as minutes of the day.
+   */
+  @Test
+  public void testParseTimeSlots() {
+    assertEquals(new RoomSchedule.Interval(610, 685), RoomSchedule.Interval.parse("10:10-11:25"));
+    assertEquals(new RoomSchedule.Interval(970, 1045), RoomSchedule.Interval.parse("4:10-5:25"));
+    assertEquals(new RoomSchedule.Interval(730, 840), RoomSchedule.Interval.parse("12:10-2:00"));
+    assertEquals(new RoomSchedule.Interval(1150, 1225), RoomSchedule.Interval.parse("7:10-8:25"));
+    assertEquals(new RoomSchedule.Interval(520, 595), RoomSchedule.Interval.parse(" 8:40 - 9:55"));
+    assertEquals(new RoomSchedule.Interval(790, 865),
+            RoomSchedule.Interval.parse("13:10-14:25"));
+    assertEquals(new RoomSchedule.Interval(660, 735),
+            RoomSchedule.Interval.parse("11:00 AM-12:15 PM"));
+    assertEquals(new RoomSchedule.Interval(30, 90), RoomSchedule.Interval.parse("12:30am-1:30am"));
+    assertNull(RoomSchedule.Interval.parse("TBA"));
+    assertNull(RoomSchedule.Interval.parse("10:10"));
+    assertNull(RoomSchedule.Interval.parse("10:10-10:10"));
+    assertNull(RoomSchedule.Interval.parse("25:00-26:00"));
+    assertNull(RoomSchedule.Interval.parse("1:1-2:25"));
+    assertNull(RoomSchedule.Interval.parse(null));
+
+    assertTrue(RoomSchedule.Interval.parse("10:10-11:25")
+            .overlaps(RoomSchedule.Interval.parse("11:00-12:15")));
+    assertTrue(!RoomSchedule.Interval.parse("10:10-11:25")
+            .overlaps(RoomSchedule.Interval.parse("11:25-12:40")));
+  }
+
+  /**
+   * Tests that a move into an occupied slot is rejected without changing the schedule, while
+   * courses may swap slots in one step.
+   */
+  @Test
+  public void testRescheduleRejectsOverlaps() {
+    RoomSchedule.Booking kaiser = booking("COMS", "4156");
+    RoomSchedule.Booking borowski = booking("COMS", "3134");
+    RoomSchedule.Booking moved = new RoomSchedule.Booking("COMS", "4156", "301 URIS",
+            "4:00-4:30", RoomSchedule.Interval.parse("4:00-4:30"));
+
+    ScheduleConflictException e = assertThrows(ScheduleConflictException.class,
+            () -> schedule.reschedule(List.of(kaiser), List.of(moved)));
+    assertEquals(borowski, e.getConflicting());
+    assertEquals(List.of(kaiser),
+            schedule.findOverlapping("501 NWC", RoomSchedule.Interval.parse("10:10-11:25")));
+
+    RoomSchedule.Booking noor = booking("ECON", "1105");
+    RoomSchedule.Booking swappedBorowski = new RoomSchedule.Booking("COMS", "3134", "301 URIS",
+            noor.timeSlot(), noor.interval());
+    RoomSchedule.Booking swappedNoor = new RoomSchedule.Booking("ECON", "1105", "301 URIS",
+            borowski.timeSlot(), borowski.interval());
+    schedule.reschedule(List.of(borowski, noor), List.of(swappedBorowski, swappedNoor));
+    assertEquals(List.of(swappedBorowski, swappedNoor),
+            schedule.findOverlapping("301 uris", RoomSchedule.Interval.parse("8:00-6:00")));
+
+    RoomSchedule.Booking clash = new RoomSchedule.Booking("COMS", "4156", "417 IAB",
+            kaiser.timeSlot(), kaiser.interval());
+    e = assertThrows(ScheduleConflictException.class,
+            () -> schedule.reschedule(List.of(kaiser), List.of(clash)));
+    assertEquals(booking("COMS", "3827"), e.getConflicting());
+    assertEquals(List.of(kaiser),
+            schedule.findOverlapping("501 NWC", RoomSchedule.Interval.parse("8:00-6:00")));
+    assertEquals(Map.of("rooms", 3, "bookings", 5L, "largestRoom", 2), schedule.getStats());
+  }
+
+  /**
+   * Tests that conflicts are found in every room, ordered by room and limited.
+   */
+  @Test
+  public void testFindConflicts() {
+    RoomSchedule.Report report = schedule.findConflicts(10);
+    assertEquals(1, report.total());
+    assertEquals(1, report.rooms());
+    assertEquals(new RoomSchedule.Conflict(booking("COMS", "3827"), booking("COMS", "1004")),
+            report.conflicts().get(0));
+
+    catalog.get("ECON").createCourse("2257", "Staff", "501 NWC", "9:00-12:00", 40);
+    schedule.replaceDepartment("ECON", null, catalog.get("ECON"));
+    report = schedule.findConflicts(1);
+    assertEquals(2, report.total());
+    assertEquals(2, report.rooms());
+    assertEquals(1, report.conflicts().size());
+    assertEquals(booking("COMS", "1004"), report.conflicts().get(0).second());
+  }
+
+  /**
+   * Tests lookups and conflict counts against checking every pair, over rooms holding many
+   * overlapping bookings.
+   */
+  @Test
+  public void testMatchesCheckingEveryPair() {
+    Random random = new Random(4156);
+    Department dept = new Department("LRGE", new HashMap<>(), "Chair", 1);
+    List<RoomSchedule.Booking> bookings = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      int start = 8 * 60 + random.nextInt(12 * 60);
+      int end = Math.min(start + 5 + random.nextInt(random.nextInt(10) == 0 ? 600 : 90),
+              24 * 60 - 1);
+      String time = start / 60 + ":" + String.format("%02d", start % 60) + "-"
+              + end / 60 + ":" + String.format("%02d", end % 60);
+      String room = random.nextInt(5) + " HAM";
+      dept.createCourse(Integer.toString(i), "Staff", room, time, 10);
+      bookings.add(RoomSchedule.Booking.of("LRGE", Integer.toString(i), dept.getCourse(i)));
+    }
+    RoomSchedule large = RoomSchedule.build(Map.of("LRGE", dept));
+
+    long pairs = 0;
+    for (int i = 0; i < bookings.size(); i++) {
+      for (int j = i + 1; j < bookings.size(); j++) {
+        if (bookings.get(i).location().equals(bookings.get(j).location())
+                && bookings.get(i).interval().overlaps(bookings.get(j).interval())) {
+          pairs++;
+        }
+      }
+    }
+    assertEquals(pairs, large.findConflicts(1).total());
+
+    for (int i = 0; i < 200; i++) {
+      int start = 8 * 60 + random.nextInt(12 * 60);
+      RoomSchedule.Interval query = new RoomSchedule.Interval(start, start + random.nextInt(60));
+      String room = random.nextInt(5) + " HAM";
+      List<RoomSchedule.Booking> found = large.findOverlapping(room, query);
+      long expected = bookings.stream().filter(booking -> booking.location().equals(room)
+              && booking.interval().overlaps(query)).count();
+      assertEquals(expected, found.size());
+      for (int j = 1; j < found.size(); j++) {
+        assertTrue(found.get(j - 1).interval().start() <= found.get(j).interval().start());
+      }
+    }
+  }
+
+  private RoomSchedule.Booking booking(String deptCode, String courseId) {
+    return RoomSchedule.Booking.of(deptCode, courseId,
+            catalog.get(deptCode).getCourse(Integer.parseInt(courseId)));
+  }
+
+  private Map<String, Department> catalog;
+  private RoomSchedule schedule;
+}
@@ -2,18 +2,30 @@ package dev.coms4156.project.individualproject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** Test for RouteController. */
 @SpringBootTest
@@ -192,40 +204,423 @@ public class RouteControllerUnitTests {
   @Test
   public void testAddMajorToDept() {
     // Arrange
-    Department mockDept = Mockito.mock(Department.class);
+    when(mockDatabase.applyMutation(any())).thenReturn(true);
+
+    // Act
+    ResponseEntity<?> response = routeController.addMajorToDept("COMS");
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    verify(mockDatabase, times(1)).applyMutation(argThat(record ->
+            record.getOperation() == JournalRecord.Operation.ADD_MAJOR
+                    && record.getDeptCode().equals("COMS")));
+  }
+
+  @Test
+  public void testAddMajorToMissingDept() {
+    // Arrange
+    when(mockDatabase.applyMutation(any())).thenReturn(false);
+
+    // Act
+    ResponseEntity<?> response = routeController.addMajorToDept("MATH");
+
+    // Assert
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    assertEquals("Department Not Found", response.getBody());
+  }
+
+  @Test
+  public void testDropStudentFromCourse() {
+    // Arrange
+    Course course = new Course("Instructor", "Room 101", "10:00-11:00", 100);
+    Map<String, Course> coursesMap = new HashMap<>();
+    coursesMap.put("1004", course);
+
+    Department dept = new Department("COMS", coursesMap, "Chair", 2700);
     Map<String, Department> departmentMap = new HashMap<>();
-    departmentMap.put("COMS", mockDept);
+    departmentMap.put("COMS", dept);
 
     when(mockDatabase.getDepartmentMapping()).thenReturn(departmentMap);
+    when(mockDatabase.applyMutation(any())).thenReturn(true);
 
     // Act
-    ResponseEntity<?> response = routeController.addMajorToDept("COMS");
+    ResponseEntity<?> response = routeController.dropStudent("COMS", 1004);
 
     // Assert
     assertEquals(HttpStatus.OK, response.getStatusCode());
-    verify(mockDept, times(1)).addPersonToMajor();
+    verify(mockDatabase, times(1)).applyMutation(argThat(record ->
+            record.getOperation() == JournalRecord.Operation.DROP_STUDENT
+                    && record.getCourseCode() == 1004));
   }
 
   @Test
-  public void testDropStudentFromCourse() {
+  public void testEnrollStudentInCourse() {
     // Arrange
-    Course mockCourse = Mockito.mock(Course.class);
-    when(mockCourse.dropStudent()).thenReturn(true);
+    Course course = new Course("Instructor", "Room 101", "10:00-11:00", 1);
+    Map<String, Course> coursesMap = new HashMap<>();
+    coursesMap.put("1004", course);
+
+    Department dept = new Department("COMS", coursesMap, "Chair", 2700);
+    Map<String, Department> departmentMap = new HashMap<>();
+    departmentMap.put("COMS", dept);
+
+    when(mockDatabase.getDepartmentMapping()).thenReturn(departmentMap);
+    when(mockDatabase.applyMutation(any())).thenReturn(true, false);
 
+    // Act
+    ResponseEntity<?> first = routeController.enrollStudent("COMS", 1004);
+    ResponseEntity<?> second = routeController.enrollStudent("COMS", 1004);
+    ResponseEntity<?> missing = routeController.enrollStudent("COMS", 9999);
+
+    // Assert
+    assertEquals(HttpStatus.OK, first.getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, second.getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+    verify(mockDatabase, times(2)).applyMutation(any());
+  }
+
+  @Test
+  public void testCourseMutationsWithLowerCaseDeptCode() {
+    // Arrange
+    Course course = new Course("Instructor", "Room 101", "10:00-11:00", 100);
     Map<String, Course> coursesMap = new HashMap<>();
-    coursesMap.put("1004", mockCourse);
+    coursesMap.put("1004", course);
+    Map<String, Department> departmentMap = new HashMap<>();
+    departmentMap.put("COMS", new Department("COMS", coursesMap, "Chair", 2700));
 
-    Department mockDept = new Department("COMS", coursesMap, "Chair", 2700);
+    when(mockDatabase.getDepartmentMapping()).thenReturn(departmentMap);
+    when(mockDatabase.applyMutation(any())).thenReturn(true);
+
+    // Act
+    ResponseEntity<?> enrolled = routeController.enrollStudent("coms", 1004);
+    ResponseEntity<?> dropped = routeController.dropStudent("Coms", 1004);
+
+    // Assert
+    assertEquals(HttpStatus.OK, enrolled.getStatusCode());
+    assertEquals(HttpStatus.OK, dropped.getStatusCode());
+    verify(mockDatabase, times(2)).applyMutation(argThat(record ->
+            record.getDeptCode().equals("COMS")));
+  }
+
+  @Test
+  public void testRetrieveCoursesInBatch() {
+    // Arrange
+    Map<String, Course> coursesMap = new HashMap<>();
+    coursesMap.put("1004", new Course("Adam Cannon", "417 IAB", "11:40-12:55", 400));
+    coursesMap.put("4156", new Course("Gail Kaiser", "501 NWC", "10:10-11:25", 120));
+    Department dept = new Department("COMS", coursesMap, "Chair", 2700);
     Map<String, Department> departmentMap = new HashMap<>();
-    departmentMap.put("COMS", mockDept);
+    departmentMap.put("COMS", dept);
+    when(mockDatabase.getDepartmentMapping()).thenReturn(departmentMap);
+    CourseBatchRequest request = new CourseBatchRequest(List.of(
+            new CourseBatchRequest.CourseKey("COMS", 4156),
+            new CourseBatchRequest.CourseKey("coms", 1004),
+            new CourseBatchRequest.CourseKey("COMS", 9999),
+            new CourseBatchRequest.CourseKey("MATH", 1101)),
+            List.of("instructor", "isFull"));
+
+    // Act
+    ResponseEntity<?> response = routeController.retrieveCourses(request);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    List<?> results = (List<?>) ((Map<?, ?>) response.getBody()).get("courses");
+    assertEquals(4, results.size());
+    Map<?, ?> first = (Map<?, ?>) results.get(0);
+    assertEquals("Gail Kaiser", first.get("instructor"));
+    assertEquals(false, first.get("isFull"));
+    assertEquals(List.of("deptCode", "courseCode", "instructor", "isFull"),
+            List.copyOf(first.keySet()));
+    assertEquals("Adam Cannon", ((Map<?, ?>) results.get(1)).get("instructor"));
+    assertEquals("Course Not Found", ((Map<?, ?>) results.get(2)).get("error"));
+    assertEquals("Department Not Found", ((Map<?, ?>) results.get(3)).get("error"));
+    verify(mockDatabase, times(1)).getDepartmentMapping();
+  }
+
+  @Test
+  public void testRetrieveCoursesInBatchRejectsBadRequests() {
+    // Arrange
+    List<CourseBatchRequest.CourseKey> oneCourse =
+            List.of(new CourseBatchRequest.CourseKey("COMS", 4156));
+
+    // Act
+    ResponseEntity<?> empty = routeController.retrieveCourses(
+            new CourseBatchRequest(List.of(), null));
+    ResponseEntity<?> unknownField = routeController.retrieveCourses(
+            new CourseBatchRequest(oneCourse, List.of("room")));
 
+    // Assert
+    assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, unknownField.getStatusCode());
+    assertEquals("Unknown field: room", unknownField.getBody());
+    verify(mockDatabase, times(0)).getDepartmentMapping();
+  }
+
+  @Test
+  public void testApplyBatch() {
+    // Arrange
+    Course course = new Course("Instructor", "Room 101", "10:00-11:00", 100);
+    Map<String, Course> coursesMap = new HashMap<>();
+    coursesMap.put("1004", course);
+    Map<String, Department> departmentMap = new HashMap<>();
+    departmentMap.put("COMS", new Department("COMS", coursesMap, "Chair", 2700));
     when(mockDatabase.getDepartmentMapping()).thenReturn(departmentMap);
+    when(mockDatabase.applyBatch(any())).thenReturn(-1, 1, 0);
+    MutationBatchRequest request = new MutationBatchRequest(List.of(
+            new MutationBatchRequest.Operation("setEnrollmentCount", "COMS", 1004, 50,
+                    null, null, null),
+            new MutationBatchRequest.Operation("changeCourseTeacher", "COMS", 9999, null,
+                    null, "Adam Cannon", null)));
 
     // Act
-    ResponseEntity<?> response = routeController.dropStudent("COMS", 1004);
+    ResponseEntity<?> applied = routeController.applyBatch(request);
+    ResponseEntity<?> missingCourse = routeController.applyBatch(request);
+
+    // Assert
+    assertEquals(HttpStatus.OK, applied.getStatusCode());
+    assertEquals("2 operations were applied.", applied.getBody());
+    assertEquals(HttpStatus.NOT_FOUND, missingCourse.getStatusCode());
+    assertEquals("Operation 1: Course Not Found", missingCourse.getBody());
+    assertEquals(HttpStatus.BAD_REQUEST, routeController.applyBatch(request).getStatusCode());
+    verify(mockDatabase, times(3)).applyBatch(argThat(records -> records.size() == 2
+            && records.get(0).getOperation() == JournalRecord.Operation.SET_ENROLLMENT_COUNT
+            && records.get(1).getOperation() == JournalRecord.Operation.CHANGE_TEACHER));
+  }
+
+  @Test
+  public void testApplyBatchRejectsInvalidOperations() {
+    // Arrange
+    MutationBatchRequest request = new MutationBatchRequest(List.of(
+            new MutationBatchRequest.Operation("changeCourseTime", "COMS", 1004, null,
+                    null, null, null)));
+
+    // Act
+    ResponseEntity<?> response = routeController.applyBatch(request);
+
+    // Assert
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("Operation 0: time is missing", response.getBody());
+    verify(mockDatabase, times(0)).applyBatch(any());
+  }
+
+  @Test
+  public void testExportCatalogWithGzip() throws IOException {
+    // Arrange
+    Department dept = new Department("COMS", new HashMap<>(), "Chair", 2700);
+    dept.createCourse("1004", "Instructor", "Room 101", "10:00-11:00", 100);
+    dept.createCourse("4156", "Instructor", "Room 102", "11:00-12:00", 100);
+    Map<String, Department> departmentMap = new HashMap<>();
+    departmentMap.put("COMS", dept);
+    when(mockDatabase.getDepartmentMapping()).thenReturn(departmentMap);
+
+    // Act
+    ResponseEntity<StreamingResponseBody> response =
+            routeController.exportCatalog("gzip, deflate");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
 
     // Assert
     assertEquals(HttpStatus.OK, response.getStatusCode());
-    verify(mockCourse, times(1)).dropStudent();
+    assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      assertEquals(3, text.split("\n").length);
+      assertTrue(text.startsWith("{\"type\":\"department\""));
+    }
+  }
+
+  @Test
+  public void testIngestCatalog() throws IOException {
+    // Arrange
+    String csv = CatalogIngester.CSV_HEADER + "\nCOMS,Chair,2700,4156,A,B,C,120,109\n";
+
+    // Act
+    ResponseEntity<?> response = routeController.ingestCatalog(null, "replace", "text/csv",
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(1L, ((Map<?, ?>) response.getBody()).get("courses"));
+    verify(mockDatabase).setMapping(argThat(mapping -> mapping.get("COMS")
+            .getCourse(4156).getEnrolledStudentCount() == 109));
+    verify(mockDatabase).save();
+    assertEquals(HttpStatus.OK, routeController.ingestStatus().getStatusCode());
+  }
+
+  @Test
+  public void testIngestCatalogReportsFailuresAfterParsing() throws IOException {
+    // Arrange
+    String csv = CatalogIngester.CSV_HEADER + "\nCOMS,Chair,2700,4156,A,B,C,120,109\n";
+    Mockito.doThrow(new IOException("No space left on device")).when(mockDatabase).save();
+    Mockito.doThrow(new IllegalArgumentException("Unexpected department"))
+            .when(mockDatabase).mergeMapping(any());
+
+    // Act
+    ResponseEntity<?> unsaved = routeController.ingestCatalog("csv", "replace", null,
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    ResponseEntity<?> unmerged = routeController.ingestCatalog("csv", "merge", null,
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+    // Assert
+    assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, unsaved.getStatusCode());
+    assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, unmerged.getStatusCode());
+    assertEquals("failed", ((Map<?, ?>) routeController.ingestStatus().getBody()).get("phase"));
+  }
+
+  @Test
+  public void testIngestCatalogRejectsBadRequests() {
+    ResponseEntity<?> noFormat = routeController.ingestCatalog(null, "replace", null,
+            new ByteArrayInputStream(new byte[0]));
+    assertEquals(HttpStatus.BAD_REQUEST, noFormat.getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, routeController.ingestStatus().getStatusCode());
+
+    ResponseEntity<?> badFormat = routeController.ingestCatalog("xml", "replace", "text/csv",
+            new ByteArrayInputStream(new byte[0]));
+    assertEquals("Format must be csv or ndjson", badFormat.getBody());
+
+    ResponseEntity<?> badMode = routeController.ingestCatalog("csv", "append", null,
+            new ByteArrayInputStream(new byte[0]));
+    assertEquals(HttpStatus.BAD_REQUEST, badMode.getStatusCode());
+
+    String invalid = CatalogIngester.CSV_HEADER + "\nCOMS,Chair,2700,4156,A,B,C,1,2\n";
+    ResponseEntity<?> rejected = routeController.ingestCatalog("ndjson", "merge", null,
+            new ByteArrayInputStream(invalid.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode());
+    assertEquals(2L, ((Map<?, ?>) rejected.getBody()).get("errorCount"));
+    verify(mockDatabase, times(0)).mergeMapping(any());
+  }
+
+  @Test
+  public void testMetrics() {
+    // Arrange
+    when(mockDatabase.getCatalogStats()).thenReturn(Map.of("departments", 7));
+    when(mockDatabase.getJournalStats()).thenReturn(Map.of("lastLsn", 3L));
+
+    // Act
+    ResponseEntity<?> response = routeController.metrics();
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    Map<?, ?> metrics = (Map<?, ?>) response.getBody();
+    assertEquals(Map.of("departments", 7), metrics.get("catalog"));
+    assertEquals(Map.of("lastLsn", 3L), metrics.get("journal"));
+    assertTrue(metrics.containsKey("render.cache.courses"));
+    assertTrue(metrics.containsKey("catalog.department.copies"));
+    long exceptions = Metrics.counter("http.server.exceptions").sum();
+    when(mockDatabase.getDepartmentMapping()).thenThrow(new IllegalStateException("boom"));
+    routeController.retrieveDepartment("COMS");
+    assertEquals(exceptions + 1, Metrics.counter("http.server.exceptions").sum());
+  }
+
+  /**
+   * Tests starting, stopping and reading a flight recording through the routes.
+   */
+  @Test
+  public void testProfile() throws IOException {
+    assertEquals(HttpStatus.BAD_REQUEST, routeController.startProfile(0).getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, routeController.profileStatus().getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, routeController.profileReport().getStatusCode());
+    assertEquals(HttpStatus.CONFLICT, routeController.stopProfile().getStatusCode());
+
+    assertEquals(HttpStatus.ACCEPTED, routeController.startProfile(60).getStatusCode());
+    assertEquals(HttpStatus.CONFLICT, routeController.startProfile(60).getStatusCode());
+    assertEquals(HttpStatus.OK, routeController.profileStatus().getStatusCode());
+    assertEquals(HttpStatus.CONFLICT, routeController.profileReport().getStatusCode());
+    assertEquals(HttpStatus.CONFLICT, routeController.profileRecording().getStatusCode());
+    assertEquals(HttpStatus.OK, routeController.stopProfile().getStatusCode());
+
+    ResponseEntity<?> report = routeController.profileReport();
+    assertEquals(HttpStatus.OK, report.getStatusCode());
+    assertTrue(((Map<?, ?>) report.getBody()).containsKey("hotApplicationMethods"));
+    ResponseEntity<?> recording = routeController.profileRecording();
+    assertEquals(HttpStatus.OK, recording.getStatusCode());
+    assertTrue(((Resource) recording.getBody()).contentLength() > 0);
+    assertEquals("attachment; filename=\"profile.jfr\"",
+            recording.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+    Files.delete(((Resource) recording.getBody()).getFile().toPath());
+  }
+
+  /**
+   * Tests searching the course index through the routes.
+   */
+  @Test
+  public void testCoursesByInstructorLocationAndTime() {
+    Course kaiser = new Course("Gail Kaiser", "501 NWC", "10:10-11:25", 120);
+    Course borowski = new Course("Brian Borowski", "301 URIS", "10:10-11:25", 50);
+    when(mockDatabase.findCourses(CourseIndex.Field.TIME, "10:10-11:25")).thenReturn(List.of(
+            new CourseIndex.Match("COMS", "3134", borowski),
+            new CourseIndex.Match("COMS", "4156", kaiser)));
+    when(mockDatabase.findCourses(CourseIndex.Field.INSTRUCTOR, "Gail Kaiser"))
+            .thenReturn(List.of(new CourseIndex.Match("COMS", "4156", kaiser)));
+    when(mockDatabase.findCourses(CourseIndex.Field.LOCATION, "417 IAB")).thenReturn(List.of());
+
+    ResponseEntity<?> byTime = routeController.coursesByTime("10:10-11:25", 1);
+    assertEquals(HttpStatus.OK, byTime.getStatusCode());
+    Map<?, ?> result = (Map<?, ?>) byTime.getBody();
+    assertEquals(2, result.get("total"));
+    List<?> courses = (List<?>) result.get("courses");
+    assertEquals(1, courses.size());
+    assertEquals("3134", ((Map<?, ?>) courses.get(0)).get("courseCode"));
+    assertEquals("Brian Borowski", ((Map<?, ?>) courses.get(0)).get("instructor"));
+
+    Map<?, ?> byInstructor = (Map<?, ?>) routeController
+            .coursesByInstructor("Gail Kaiser", 1000).getBody();
+    assertEquals("501 NWC", ((Map<?, ?>) ((List<?>) byInstructor.get("courses")).get(0))
+            .get("location"));
+    assertEquals(0, ((Map<?, ?>) routeController.coursesByLocation("417 IAB", 10).getBody())
+            .get("total"));
+    assertEquals(HttpStatus.BAD_REQUEST,
+            routeController.coursesByLocation("417 IAB", 0).getStatusCode());
+  }
+
+  /**
+   * Tests that double-booking a room is answered with 409 and that conflicts are listed.
+   */
+  @Test
+  public void testConflicts() {
+    RoomSchedule.Booking kaiser = RoomSchedule.Booking.of("COMS", "4156",
+            new Course("Gail Kaiser", "501 NWC", "10:10-11:25", 120));
+    RoomSchedule.Booking noor = RoomSchedule.Booking.of("ECON", "1105",
+            new Course("Waseem Noor", "501 NWC", "11:00-12:15", 210));
+    when(mockDatabase.applyMutation(argThat(record -> record != null
+            && record.getOperation() == JournalRecord.Operation.CHANGE_TIME)))
+            .thenThrow(new ScheduleConflictException(noor, kaiser));
+    ResponseEntity<?> response = routeController.changeCourseTime("ECON", 1105, "11:00-12:15");
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("COMS 4156"));
+
+    when(mockDatabase.findScheduleConflicts(1)).thenReturn(
+            new RoomSchedule.Report(3, 2, List.of(new RoomSchedule.Conflict(kaiser, noor))));
+    Map<?, ?> result = (Map<?, ?>) routeController.conflicts(1).getBody();
+    assertEquals(3L, result.get("total"));
+    assertEquals(2, result.get("rooms"));
+    Map<?, ?> conflict = (Map<?, ?>) ((List<?>) result.get("conflicts")).get(0);
+    assertEquals("501 NWC", conflict.get("location"));
+    assertEquals("1105", ((Map<?, ?>) ((List<?>) conflict.get("courses")).get(1))
+            .get("courseCode"));
+    assertEquals(HttpStatus.BAD_REQUEST, routeController.conflicts(0).getStatusCode());
+  }
+
+  /**
+   * Tests that the search route lists suggestions per field and rejects bad parameters.
+   */
+  @Test
+  public void testSearch() {
+    when(mockDatabase.suggestValues(CourseIndex.Field.INSTRUCTOR, "kai", 5)).thenReturn(
+            List.of(new CourseIndex.Suggestion("Gail Kaiser", 2, 0)));
+    when(mockDatabase.suggestValues(CourseIndex.Field.LOCATION, "kai", 5))
+            .thenReturn(List.of());
+    Map<?, ?> result = (Map<?, ?>) routeController.search("kai", null, 5).getBody();
+    assertEquals(List.of(Map.of("value", "Gail Kaiser", "courses", 2, "edits", 0)),
+            result.get("instructors"));
+    assertEquals(List.of(), result.get("locations"));
+
+    result = (Map<?, ?>) routeController.search("kai", "Instructor", 5).getBody();
+    assertEquals(List.of("instructors"), List.copyOf(result.keySet()));
+    assertEquals(HttpStatus.BAD_REQUEST,
+            routeController.search("kai", "time", 5).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, routeController.search(" ", null, 5).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST,
+            routeController.search("kai", null, 101).getStatusCode());
   }
 }
@@ -0,0 +1,105 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link StripedLocks} class.
+ */
+public class StripedLocksUnitTests {
+
+  /**
+   * Tests that the stripe count is rounded up to a power of two.
+   */
+  @Test
+  public void testStripeCountIsPowerOfTwo() {
+    assertEquals(64, new StripedLocks(50).stripeCount());
+    assertEquals(1, new StripedLocks(1).stripeCount());
+    assertThrows(IllegalArgumentException.class, () -> new StripedLocks(0));
+  }
+
+  /**
+   * Tests that actions on the same key never overlap.
+   */
+  @Test
+  public void testSameKeyIsSerialized() throws Exception {
+    StripedLocks locks = new StripedLocks(16);
+    int[] counter = new int[1];
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> results = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      results.add(executor.submit(() -> {
+        for (int i = 0; i < 10000; i++) {
+          locks.withLock("COMS", () -> counter[0]++);
+        }
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+
+    assertEquals(40000, counter[0]);
+    List<Map<String, Object>> stats = locks.getStats();
+    assertEquals(1, stats.size());
+    assertEquals(locks.stripeFor("COMS"), stats.get(0).get("stripe"));
+    assertEquals(40000L, stats.get(0).get("acquisitions"));
+  }
+
+  /**
+   * Tests that a held lock on one key does not block a key on another stripe.
+   */
+  @Test
+  public void testDifferentStripesProceedInParallel() throws Exception {
+    StripedLocks locks = new StripedLocks(64);
+    assertTrue(locks.stripeFor("COMS") != locks.stripeFor("ECON"));
+    CountDownLatch holding = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> holder = executor.submit(() -> locks.withLock("COMS", () -> {
+      holding.countDown();
+      try {
+        return release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }));
+    holding.await();
+
+    // The COMS lock is still held while the ECON action runs.
+    assertEquals("done", locks.withLock("ECON", () -> {
+      release.countDown();
+      return "done";
+    }));
+    holder.get();
+    executor.shutdown();
+  }
+
+  /**
+   * Tests that locking several keys takes each of their stripes exactly once.
+   */
+  @Test
+  public void testWithLocksTakesEachStripeOnce() {
+    StripedLocks locks = new StripedLocks(64);
+    List<String> keys = List.of("COMS", "ECON", "COMS");
+
+    assertEquals("done", locks.withLocks(keys, () -> "done"));
+
+    List<Map<String, Object>> stats = locks.getStats();
+    assertEquals(2, stats.size());
+    for (Map<String, Object> stripe : stats) {
+      assertEquals(1L, stripe.get("acquisitions"));
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package dev.coms4156.project.individualproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ValueSearch} class.
+ */
+public class ValueSearchUnitTests {
+
+  /** Before each test, add a few instructor names. */
+  @BeforeEach
+  public void setUp() {
+    search = new ValueSearch();
+    for (String name : List.of("Gail Kaiser", "Adam Cannon", "Daniel Rubenstein",
+            "Maria Garcia", "Mario Gallo", "Marian Kaiser", "Brian Borowski")) {
+      search.add(CourseIndex.key(name), name);
+    }
+  }
+
+  /**
+   * Tests that queries match the start of any word, in order of that word, and that short
+   * queries do not allow mistakes.
+   */
+  @Test
+  public void testWordPrefixes() {
+    assertEquals(List.of("Gail Kaiser", "Marian Kaiser"), values(search.search("KAI", 10)));
+    assertEquals(List.of("Maria Garcia", "Marian Kaiser", "Mario Gallo"),
+            values(search.search("mari", 10)));
+    assertEquals(List.of("Maria Garcia"), values(search.search("maria g", 1)));
+    assertEquals(List.of("Mario Gallo"), values(search.search("  Mario  ", 1)));
+    assertEquals(List.of("Maria Garcia", "Marian Kaiser"), values(search.search("mari", 2)));
+    assertTrue(search.search("kia", 10).isEmpty());
+    assertTrue(search.search(" ", 10).isEmpty());
+    assertEquals(0, search.search("gail", 1).get(0).edits());
+  }
+
+  /**
+   * Tests that typing mistakes are found after the word matches, fewest mistakes first.
+   */
+  @Test
+  public void testTypingMistakes() {
+    List<ValueSearch.Hit> hits = search.search("garcai", 10);
+    assertEquals(List.of("Maria Garcia"), values(hits));
+    assertEquals(1, hits.get(0).edits());
+
+    assertEquals(List.of("Adam Cannon"), values(search.search("cannnon", 10)));
+    assertEquals(List.of("Brian Borowski"), values(search.search("brain", 10)));
+    assertEquals(List.of("Gail Kaiser", "Marian Kaiser"), values(search.search("kaisre", 10)));
+    assertTrue(search.search("kisre", 10).isEmpty());
+    assertEquals(List.of("Daniel Rubenstein"), values(search.search("rubinstien", 10)));
+
+    hits = search.search("maria gall", 10);
+    assertEquals(List.of("Mario Gallo", "Maria Garcia"), values(hits));
+    assertEquals(List.of(1, 2), hits.stream().map(ValueSearch.Hit::edits).toList());
+
+    search.remove(CourseIndex.key("Mario Gallo"));
+    assertEquals(List.of("Maria Garcia"), values(search.search("maria gall", 10)));
+    assertEquals(6, search.size());
+  }
+
+  /**
+   * Tests searches of many values against checking the distance to every word of every
+   * value, as values come and go.
+   */
+  @Test
+  public void testMatchesCheckingEveryValue() {
+    Random random = new Random(4156);
+    String[] syllables = {"ka", "is", "er", "ma", "ri", "a ", "lo", "ne", "n ", "ga", "rc"};
+    List<String> keys = new ArrayList<>();
+    ValueSearch large = new ValueSearch();
+    for (int i = 0; i < 3000; i++) {
+      StringBuilder name = new StringBuilder();
+      for (int j = 2 + random.nextInt(6); j > 0; j--) {
+        name.append(syllables[random.nextInt(syllables.length)]);
+      }
+      String key = CourseIndex.key(name + " " + i);
+      if (i % 3 == 0 && !keys.isEmpty()) {
+        large.remove(keys.remove(random.nextInt(keys.size())));
+      }
+      keys.add(key);
+      large.add(key, key);
+    }
+
+    for (int i = 0; i < 300; i++) {
+      StringBuilder query = new StringBuilder();
+      for (int j = 2 + random.nextInt(4); j > 0; j--) {
+        query.append(syllables[random.nextInt(syllables.length)]);
+      }
+      String normalized = CourseIndex.key(query.toString());
+      int maxEdits = normalized.length() < 4 ? 0 : normalized.length() < 8 ? 1 : 2;
+      TreeMap<Integer, List<String>> expected = new TreeMap<>();
+      for (String key : keys) {
+        int edits = distance(normalized, key, maxEdits);
+        if (edits <= maxEdits) {
+          expected.computeIfAbsent(edits, edit -> new ArrayList<>()).add(key);
+        }
+      }
+      int limit = 1 + random.nextInt(20);
+      List<ValueSearch.Hit> hits = large.search(query.toString(), limit);
+      int left = limit;
+      for (var entry : expected.entrySet()) {
+        List<ValueSearch.Hit> found = hits.stream()
+                .filter(hit -> hit.edits() == entry.getKey()).toList();
+        assertEquals(Math.min(left, entry.getValue().size()), found.size(), normalized);
+        found.forEach(hit -> assertTrue(entry.getValue().contains(hit.key()), hit.key()));
+        left -= found.size();
+      }
+      assertEquals(limit - left, hits.size(), normalized);
+      for (int j = 1; j < hits.size(); j++) {
+        assertTrue(hits.get(j - 1).edits() <= hits.get(j).edits(), normalized);
+      }
+    }
+  }
+
+  /**
+   * Computes the fewest mistakes between a query and the start of any word of a value, or
+   * more than {@code maxEdits} if there is none within it.
+   */
+  private static int distance(String query, String key, int maxEdits) {
+    int best = maxEdits + 1;
+    for (int start = 0; start < key.length(); start++) {
+      if (start > 0 && (!Character.isLetterOrDigit(key.charAt(start))
+              || Character.isLetterOrDigit(key.charAt(start - 1)))) {
+        continue;
+      }
+      for (int end = start; end <= key.length(); end++) {
+        best = Math.min(best, osa(query, key.substring(start, end)));
+      }
+    }
+    return best;
+  }
+
+  private static int osa(String a, String b) {
+    int[][] d = new int[a.length() + 1][b.length() + 1];
+    for (int i = 0; i <= a.length(); i++) {
+      for (int j = 0; j <= b.length(); j++) {
+        if (i == 0 || j == 0) {
+          d[i][j] = i + j;
+          continue;
+        }
+        d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1),
+                d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2)
+                && a.charAt(i - 2) == b.charAt(j - 1)) {
+          d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+        }
+      }
+    }
+    return d[a.length()][b.length()];
+  }
+
+  private static List<String> values(List<ValueSearch.Hit> hits) {
+    return hits.stream().map(ValueSearch.Hit::value).toList();
+  }
+
+  private ValueSearch search;
+}